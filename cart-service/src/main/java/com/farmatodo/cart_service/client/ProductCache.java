@@ -0,0 +1,122 @@
+package com.farmatodo.cart_service.client;
+
+import com.farmatodo.cart_service.dto.ProductDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Products fetched from product service, kept per product id
+ *
+ * - Fresh for services.product.cache.ttlMillis after they were fetched
+ * - Then stale for services.product.cache.staleMillis more: still served, but the caller should
+ *   refresh them in the background (stale-while-revalidate)
+ * - Older entries are not served; at most services.product.cache.maxSize products are kept
+ *
+ * The defaults keep a price at most a minute old. Only products that exist are cached, a missing
+ * product is asked for again on every lookup, and a refresh that no longer returns a product
+ * evicts it
+ */
+@Component
+public class ProductCache {
+
+    private final Clock clock;
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final Cache<Long, Entry> cache;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ProductCache(@Value("${services.product.cache.maxSize:10000}") long maxSize,
+                        @Value("${services.product.cache.ttlMillis:30000}") long ttlMillis,
+                        @Value("${services.product.cache.staleMillis:30000}") long staleMillis) {
+        this(Clock.systemUTC(), maxSize, ttlMillis, staleMillis);
+    }
+
+    ProductCache(Clock clock, long maxSize, long ttlMillis, long staleMillis) {
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+        this.staleMillis = staleMillis;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis + staleMillis))
+                .build();
+    }
+
+    /**
+     * @return The cached product, or null when it is not cached or too old to serve
+     */
+    public Hit get(Long productId) {
+        Entry entry = productId == null ? null : cache.getIfPresent(productId);
+        if (entry == null) {
+            return null;
+        }
+        long age = clock.millis() - entry.fetchedAt();
+        if (age > ttlMillis + staleMillis) {
+            return null;
+        }
+        return new Hit(entry.product(), age > ttlMillis);
+    }
+
+    public void put(ProductDTO product) {
+        if (product != null && product.getId() != null) {
+            cache.put(product.getId(), new Entry(product, clock.millis()));
+        }
+    }
+
+    public void putAll(Collection<ProductDTO> products) {
+        products.forEach(this::put);
+    }
+
+    /**
+     * Drops products product service no longer returns (deleted or inactive)
+     */
+    public void invalidateAll(Collection<Long> productIds) {
+        cache.invalidateAll(productIds);
+    }
+
+    /**
+     * Marks stale products as being refreshed
+     * @return The ids no other caller is refreshing already
+     */
+    public List<Long> claimRefresh(Collection<Long> productIds) {
+        List<Long> claimed = new ArrayList<>();
+        for (Long productId : productIds) {
+            if (refreshing.add(productId)) {
+                claimed.add(productId);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Releases products claimed with {@link #claimRefresh}, whether the refresh succeeded or not
+     */
+    public void refreshDone(Collection<Long> productIds) {
+        refreshing.removeAll(productIds);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * @param product The cached product
+     * @param stale Whether it is past its TTL and should be refreshed
+     */
+    public record Hit(ProductDTO product, boolean stale) {
+    }
+
+    private record Entry(ProductDTO product, long fetchedAt) {
+    }
+}
@@ -2,6 +2,9 @@ package com.farmatodo.cart_service.client;
 
 import com.farmatodo.cart_service.dto.ProductDTO;
 import com.farmatodo.cart_service.exception.BusinessException;
+import com.farmatodo.cart_service.snapshot.ProductSnapshotSource;
+import com.farmatodo.snapshot.ProductSnapshot;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,17 +18,37 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Resolves products for cart pricing, freshest cheap source first:
+ * {@link ProductCache}, then the mapped catalog snapshot, then product service over HTTP
+ *
+ * Stale cached products are returned right away and refreshed in the background with one
+ * /products/by-ids call. The snapshot only serves products it has as active and is only used
+ * while younger than services.product.snapshotMaxAgeMillis, so cart latency only depends on
+ * product service for products in neither.
+ */
 @Component
 @RequiredArgsConstructor
 public class ProductServiceClient {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceClient.class);
+    private static final int REFRESH_QUEUE_CAPACITY = 100;
 
     private final RestTemplate restTemplate;
+    private final ProductSnapshotSource productSnapshotSource;
+    private final ProductCache productCache;
 
     @Value("${services.product.url}")
     private String productServiceUrl;
@@ -33,13 +56,41 @@ public class ProductServiceClient {
     @Value("${services.product.apiKey}")
     private String productServiceApiKey;
 
+    private ExecutorService refreshExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "product-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
     /**
      * Get product details by product ID
+     * Served from the product cache or the local catalog snapshot when they have the product
      */
     public ProductDTO getProductById(Long productId) {
         String transactionId = MDC.get("transactionId");
         logger.info("Fetching product details for productId: {} - transaction: {}", productId, transactionId);
 
+        ProductCache.Hit hit = productCache.get(productId);
+        if (hit != null) {
+            if (hit.stale()) {
+                refreshInBackground(List.of(productId), transactionId);
+            }
+            logger.debug("Product details for productId: {} served from cache (stale: {})", productId, hit.stale());
+            return hit.product();
+        }
+
+        ProductDTO fromSnapshot = fromSnapshot(productSnapshotSource.current(), productId);
+        if (fromSnapshot != null) {
+            logger.debug("Product details for productId: {} served from snapshot", productId);
+            return fromSnapshot;
+        }
+
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "ApiKey " + productServiceApiKey);
@@ -57,6 +108,7 @@ public class ProductServiceClient {
             );
 
             logger.debug("Product details fetched successfully for productId: {}", productId);
+            productCache.put(response.getBody());
             return response.getBody();
 
         } catch (Exception e) {
@@ -67,39 +119,56 @@ public class ProductServiceClient {
 
     /**
      * Get multiple products by their IDs
+     * Products found in the product cache or the local catalog snapshot are not requested from
+     * product service; stale cached ones are refreshed in the background
      */
     public Map<Long, ProductDTO> getProductsByIds(List<Long> productIds) {
         String transactionId = MDC.get("transactionId");
         logger.info("Fetching {} products - transaction: {}", productIds.size(), transactionId);
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "ApiKey " + productServiceApiKey);
-            headers.set("X-Transaction-Id", transactionId);
-            headers.set("Content-Type", "application/json");
-
-            HttpEntity<List<Long>> entity = new HttpEntity<>(productIds, headers);
-
-            String url = productServiceUrl + "/products/by-ids";
-
-            ResponseEntity<List<ProductDTO>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    entity,
-                    new ParameterizedTypeReference<List<ProductDTO>>() {}
-            );
+        Map<Long, ProductDTO> productMap = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        List<Long> staleIds = new ArrayList<>();
+        ProductSnapshot snapshot = productSnapshotSource.current();
+        for (Long productId : productIds) {
+            ProductCache.Hit hit = productCache.get(productId);
+            if (hit != null) {
+                productMap.put(productId, hit.product());
+                if (hit.stale()) {
+                    staleIds.add(productId);
+                }
+                continue;
+            }
+            ProductDTO fromSnapshot = fromSnapshot(snapshot, productId);
+            if (fromSnapshot != null) {
+                productMap.put(productId, fromSnapshot);
+            } else {
+                missingIds.add(productId);
+            }
+        }
+        if (!staleIds.isEmpty()) {
+            refreshInBackground(staleIds, transactionId);
+        }
+        if (missingIds.isEmpty()) {
+            logger.debug("All {} products served locally", productMap.size());
+            return productMap;
+        }
 
-            List<ProductDTO> products = response.getBody();
+        try {
+            List<ProductDTO> products = fetchProducts(missingIds, transactionId);
             if (products == null) {
                 logger.warn("No products returned from product service");
-                return Map.of();
+                return productMap;
             }
 
-            // Convert list to map for easy lookup
-            Map<Long, ProductDTO> productMap = products.stream()
-                    .collect(Collectors.toMap(ProductDTO::getId, product -> product));
+            // Add to the local hits for easy lookup
+            for (ProductDTO product : products) {
+                productMap.put(product.getId(), product);
+            }
+            productCache.putAll(products);
 
-            logger.debug("Fetched {} products successfully", productMap.size());
+            logger.debug("Fetched {} products successfully, {} served locally",
+                    products.size(), productIds.size() - missingIds.size());
             return productMap;
 
         } catch (Exception e) {
@@ -107,4 +176,85 @@ public class ProductServiceClient {
             throw new BusinessException("Failed to fetch product details", "PRODUCTS_FETCH_FAILED", 500);
         }
     }
+
+    /**
+     * Builds the product from the catalog snapshot, limited to the fields the snapshot carries
+     * @return null when there is no usable snapshot, it does not have the product or the product is
+     * not active; those are left to product service
+     */
+    private static ProductDTO fromSnapshot(ProductSnapshot snapshot, Long productId) {
+        int index = snapshot == null || productId == null ? -1 : snapshot.indexOf(productId);
+        if (index < 0 || !snapshot.active(index)) {
+            return null;
+        }
+        return ProductDTO.builder()
+                .id(snapshot.id(index))
+                .name(snapshot.name(index))
+                .price(snapshot.price(index))
+                .stock(snapshot.stock(index))
+                .build();
+    }
+
+    private List<ProductDTO> fetchProducts(List<Long> productIds, String transactionId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "ApiKey " + productServiceApiKey);
+        headers.set("X-Transaction-Id", transactionId);
+        headers.set("Content-Type", "application/json");
+
+        HttpEntity<List<Long>> entity = new HttpEntity<>(productIds, headers);
+
+        String url = productServiceUrl + "/products/by-ids";
+
+        ResponseEntity<List<ProductDTO>> response = restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                entity,
+                new ParameterizedTypeReference<List<ProductDTO>>() {}
+        );
+        return response.getBody();
+    }
+
+    /**
+     * Re-fetches stale products with one by-ids call on the refresh thread
+     * Products another caller is already refreshing are skipped; products missing from the response
+     * are evicted, so they are not sold from the cache; on failure the stale copies stay in use
+     * until they expire
+     */
+    private void refreshInBackground(List<Long> staleIds, String transactionId) {
+        List<Long> claimed = productCache.claimRefresh(staleIds);
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    List<ProductDTO> products = fetchProducts(claimed, transactionId);
+                    if (products != null) {
+                        productCache.putAll(products);
+                        Set<Long> returned = new HashSet<>();
+                        for (ProductDTO product : products) {
+                            returned.add(product.getId());
+                        }
+                        List<Long> gone = claimed.stream().filter(id -> !returned.contains(id)).toList();
+                        if (!gone.isEmpty()) {
+                            productCache.invalidateAll(gone);
+                            logger.info("Evicted {} cached products no longer returned by product service", gone.size());
+                        }
+                    }
+                    logger.debug("Refreshed {} stale products", claimed.size());
+                } catch (Exception e) {
+                    logger.warn("Failed to refresh {} stale products - Error: {}", claimed.size(), e.getMessage());
+                } finally {
+                    productCache.refreshDone(claimed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Refresh queue full; a later read retries
+            productCache.refreshDone(claimed);
+        }
+    }
+
+    void setRefreshExecutor(ExecutorService refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+    }
 }
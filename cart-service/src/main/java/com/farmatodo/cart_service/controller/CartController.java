@@ -1,6 +1,7 @@
 package com.farmatodo.cart_service.controller;
 
 import com.farmatodo.cart_service.dto.AddItemRequestDTO;
+import com.farmatodo.cart_service.dto.BatchCartRequestDTO;
 import com.farmatodo.cart_service.dto.CartResponseDTO;
 import com.farmatodo.cart_service.dto.UpdateItemQuantityRequestDTO;
 import com.farmatodo.cart_service.service.CartService;
@@ -47,6 +48,19 @@ public class CartController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/{userId}/items/batch")
+    public ResponseEntity<CartResponseDTO> applyItemOperations(
+            @PathVariable Long userId,
+            @RequestBody BatchCartRequestDTO request) {
+        logger.info("Batch cart operations endpoint called for userId: {}, transaction: {}",
+                userId, MDC.get("transactionId"));
+
+        CartResponseDTO response = cartService.applyItemOperations(userId, request);
+        logger.info("Batch cart operations applied for userId: {}", userId);
+
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{userId}/items/{productId}")
     public ResponseEntity<CartResponseDTO> updateItemQuantity(
             @PathVariable Long userId,
@@ -122,6 +136,7 @@ public class CartController {
         Map<String, String> endpoints = new HashMap<>();
         endpoints.put("GET /carts/{userId}", "Get or create cart for user");
         endpoints.put("POST /carts/{userId}/items", "Add item to cart");
+        endpoints.put("POST /carts/{userId}/items/batch", "Apply add/update/remove operations in one request");
         endpoints.put("PUT /carts/{userId}/items/{productId}", "Update item quantity");
         endpoints.put("DELETE /carts/{userId}/items/{productId}", "Remove item from cart");
         endpoints.put("DELETE /carts/{userId}", "Clear entire cart");
@@ -0,0 +1,20 @@
+package com.farmatodo.cart_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Line changes applied to a cart in order, in one transaction
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchCartRequestDTO {
+
+    private List<CartItemOperationDTO> operations;
+}
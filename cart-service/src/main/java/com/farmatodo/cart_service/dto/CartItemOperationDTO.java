@@ -0,0 +1,25 @@
+package com.farmatodo.cart_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line change of a batch cart mutation
+ * ADD increments the quantity (creating the line), UPDATE sets it, REMOVE deletes the line
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemOperationDTO {
+
+    public static final String ADD = "ADD";
+    public static final String UPDATE = "UPDATE";
+    public static final String REMOVE = "REMOVE";
+
+    private String op;
+    private Long productId;
+    private Integer quantity;
+}
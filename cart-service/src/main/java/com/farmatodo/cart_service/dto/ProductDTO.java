@@ -20,4 +20,5 @@ public class ProductDTO {
     private Integer stock;
     private String category;
     private String sku;
+    private Long version;
 }
@@ -68,13 +68,25 @@ public class Cart {
     public void addItem(CartItem item) {
         items.add(item);
         item.setCart(this);
+        addToTotal(item.getSubtotalOrZero());
     }
 
     public void removeItem(CartItem item) {
-        items.remove(item);
+        if (items.remove(item)) {
+            addToTotal(item.getSubtotalOrZero().negate());
+        }
         item.setCart(null);
     }
 
+    /**
+     * Applies the subtotal change of one line to the total
+     */
+    public void addToTotal(BigDecimal delta) {
+        if (delta.signum() != 0) {
+            totalAmount = (totalAmount == null ? BigDecimal.ZERO : totalAmount).add(delta);
+        }
+    }
+
     public void clearItems() {
         items.clear();
         totalAmount = BigDecimal.ZERO;
@@ -13,6 +13,8 @@ import java.time.LocalDateTime;
 @Table(name = "cart_items", indexes = {
     @Index(name = "idx_cart_id", columnList = "cart_id"),
     @Index(name = "idx_product_id", columnList = "productId")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cart_item_product", columnNames = {"cart_id", "productId"})
 })
 @Data
 @Builder
@@ -34,6 +36,25 @@ public class CartItem {
     @Column(nullable = false)
     private Integer quantity;
 
+    /**
+     * Name, unit price and product version the line was last priced with
+     * Null unit price: not priced yet (or the product is no longer available)
+     */
+    @Column(length = 255)
+    private String productName;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    private Long productVersion;
+
+    /**
+     * unitPrice x quantity, kept in sync by {@link #price} and the quantity methods
+     * so the cart total can be adjusted by the delta of a single line
+     */
+    @Column(precision = 10, scale = 2)
+    private BigDecimal subtotal;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -51,11 +72,58 @@ public class CartItem {
         updatedAt = LocalDateTime.now();
     }
 
-    public void incrementQuantity(int amount) {
-        this.quantity += amount;
+    /**
+     * Adds to the quantity
+     * @return Change of the subtotal, to apply to the cart total
+     */
+    public BigDecimal incrementQuantity(int amount) {
+        return updateQuantity(this.quantity + amount);
     }
 
-    public void updateQuantity(int newQuantity) {
+    /**
+     * Sets the quantity, keeping the unit price the line was priced with
+     * @return Change of the subtotal, to apply to the cart total
+     */
+    public BigDecimal updateQuantity(int newQuantity) {
         this.quantity = newQuantity;
+        return recalculateSubtotal();
+    }
+
+    /**
+     * Prices the line with the product's current data
+     * @param unitPrice Current unit price, or null when the product is not available
+     * @return Change of the subtotal, to apply to the cart total
+     */
+    public BigDecimal price(BigDecimal unitPrice, Long productVersion, String productName) {
+        this.unitPrice = unitPrice;
+        this.productVersion = productVersion;
+        if (productName != null) {
+            this.productName = productName;
+        }
+        return recalculateSubtotal();
+    }
+
+    /**
+     * Whether the line is priced with this product price
+     * Compared by product version when both sides have one, otherwise by price
+     */
+    public boolean isPricedAt(BigDecimal unitPrice, Long productVersion) {
+        if (this.unitPrice == null || subtotal == null) {
+            return unitPrice == null;
+        }
+        if (productVersion != null && this.productVersion != null) {
+            return productVersion.equals(this.productVersion);
+        }
+        return unitPrice != null && unitPrice.compareTo(this.unitPrice) == 0;
+    }
+
+    public BigDecimal getSubtotalOrZero() {
+        return subtotal == null ? BigDecimal.ZERO : subtotal;
+    }
+
+    private BigDecimal recalculateSubtotal() {
+        BigDecimal previous = getSubtotalOrZero();
+        subtotal = unitPrice == null ? BigDecimal.ZERO : unitPrice.multiply(BigDecimal.valueOf(quantity));
+        return subtotal.subtract(previous);
     }
 }
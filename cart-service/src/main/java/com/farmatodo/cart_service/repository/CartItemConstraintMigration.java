@@ -0,0 +1,72 @@
+package com.farmatodo.cart_service.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Adds uk_cart_item_product (one line per product and cart) to databases created before it existed
+ *
+ * ddl-auto only adds the constraint when the table has no duplicate lines, and both cart line
+ * upserts (ON CONFLICT (cart_id, product_id)) fail without it. Duplicates are merged into the line
+ * with the lowest id, summing quantities and subtotals so cart totals do not move, then the
+ * constraint is added. Runs once, before the application takes requests; the table lock keeps
+ * other instances from writing lines meanwhile, and an instance that waited on it finds the
+ * constraint already there.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class CartItemConstraintMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartItemConstraintMigration.class);
+
+    static final String CONSTRAINT_EXISTS_SQL =
+            "SELECT COUNT(*) FROM pg_constraint WHERE conname = 'uk_cart_item_product'";
+
+    static final String LOCK_SQL = "LOCK TABLE cart_items IN SHARE ROW EXCLUSIVE MODE";
+
+    static final String MERGE_DUPLICATES_SQL =
+            "UPDATE cart_items k SET quantity = d.quantity, subtotal = d.subtotal, updated_at = d.updated_at " +
+            "FROM (SELECT MIN(id) AS keep_id, SUM(quantity) AS quantity, SUM(subtotal) AS subtotal, " +
+            "MAX(updated_at) AS updated_at FROM cart_items GROUP BY cart_id, product_id HAVING COUNT(*) > 1) d " +
+            "WHERE k.id = d.keep_id";
+
+    static final String DELETE_DUPLICATES_SQL =
+            "DELETE FROM cart_items c USING cart_items k " +
+            "WHERE c.cart_id = k.cart_id AND c.product_id = k.product_id AND c.id > k.id";
+
+    static final String ADD_CONSTRAINT_SQL =
+            "ALTER TABLE cart_items ADD CONSTRAINT uk_cart_item_product UNIQUE (cart_id, product_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        if (constraintExists()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            if (constraintExists()) {
+                return;
+            }
+            int merged = jdbcTemplate.update(MERGE_DUPLICATES_SQL);
+            int deleted = jdbcTemplate.update(DELETE_DUPLICATES_SQL);
+            jdbcTemplate.execute(ADD_CONSTRAINT_SQL);
+            logger.info("Added uk_cart_item_product - merged {} duplicated cart lines, deleted {} rows",
+                    merged, deleted);
+        });
+    }
+
+    private boolean constraintExists() {
+        Integer count = jdbcTemplate.queryForObject(CONSTRAINT_EXISTS_SQL, Integer.class);
+        return count != null && count > 0;
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +24,39 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     void deleteByCartId(Long cartId);
 
     boolean existsByCartIdAndProductId(Long cartId, Long productId);
+
+    /**
+     * Adds quantity to the cart's line for the product in one statement, creating the line if missing
+     * Relies on uk_cart_item_product: concurrent adds of the same product end up on a single line
+     * with both quantities, instead of a duplicate line or a failed insert to retry. The line is
+     * (re-)priced with the given product data.
+     * @param now Creation/update timestamp (entity callbacks do not run for native statements)
+     * @return The line after the change
+     */
+    @Query(value = "INSERT INTO cart_items (cart_id, product_id, quantity, product_name, unit_price, " +
+           "product_version, subtotal, created_at, updated_at) " +
+           "VALUES (:cartId, :productId, :quantity, :productName, :unitPrice, :productVersion, " +
+           ":unitPrice * :quantity, :now, :now) " +
+           "ON CONFLICT (cart_id, product_id) DO UPDATE SET " +
+           "quantity = cart_items.quantity + EXCLUDED.quantity, " +
+           "product_name = EXCLUDED.product_name, " +
+           "unit_price = EXCLUDED.unit_price, " +
+           "product_version = EXCLUDED.product_version, " +
+           "subtotal = EXCLUDED.unit_price * (cart_items.quantity + EXCLUDED.quantity), " +
+           "updated_at = EXCLUDED.updated_at " +
+           "RETURNING id AS id, quantity AS quantity, subtotal AS subtotal",
+           nativeQuery = true)
+    UpsertedCartLine upsertItem(@Param("cartId") Long cartId,
+                                @Param("productId") Long productId,
+                                @Param("quantity") int quantity,
+                                @Param("productName") String productName,
+                                @Param("unitPrice") BigDecimal unitPrice,
+                                @Param("productVersion") Long productVersion,
+                                @Param("now") LocalDateTime now);
+
+    /**
+     * Sum of the stored line subtotals of a cart
+     */
+    @Query("SELECT COALESCE(SUM(ci.subtotal), 0) FROM CartItem ci WHERE ci.cart.id = :cartId")
+    BigDecimal sumSubtotals(@Param("cartId") Long cartId);
 }
@@ -1,7 +1,9 @@
 package com.farmatodo.cart_service.repository;
 
 import com.farmatodo.cart_service.model.Cart;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,5 +24,15 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.userId = :userId AND c.status = :status")
     Optional<Cart> findByUserIdAndStatusWithItems(@Param("userId") Long userId, @Param("status") String status);
 
+    /**
+     * Reads the user's cart in the given status and locks its row until the transaction ends
+     * Every cart write starts here, so the read-modify-write of total_amount is serialized across
+     * instances. No fetch join (Postgres cannot lock the nullable side of an outer join): the lines
+     * are loaded lazily within the same transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.userId = :userId AND c.status = :status")
+    Optional<Cart> findByUserIdAndStatusForUpdate(@Param("userId") Long userId, @Param("status") String status);
+
     boolean existsByUserIdAndStatus(Long userId, String status);
 }
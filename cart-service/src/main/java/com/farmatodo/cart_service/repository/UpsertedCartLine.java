@@ -0,0 +1,12 @@
+package com.farmatodo.cart_service.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Cart line as written by {@link CartItemRepository#upsertItem}
+ */
+public interface UpsertedCartLine {
+    Long getId();
+    Integer getQuantity();
+    BigDecimal getSubtotal();
+}
@@ -0,0 +1,57 @@
+package com.farmatodo.cart_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-user lock stripes for cart writes
+ *
+ * Two first requests of the same user (e.g. a double-tapped "add to cart") would otherwise both
+ * find no ACTIVE cart and create one each. Users share cart.locks.stripes locks, so unrelated
+ * users rarely wait on each other. The locks only serialize requests handled by this instance;
+ * the run passed in should be a whole transaction so the next waiter sees its commit.
+ */
+@Component
+public class CartLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public CartLocks(@Value("${cart.locks.stripes:64}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("cart.locks.stripes must be positive, was: " + stripeCount);
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withUserLock(Long userId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeOf(userId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeOf(long userId) {
+        return stripeOf(userId, stripes.length);
+    }
+
+    /**
+     * Spreads ids over stripes, also used to shard the in-memory cart store
+     * Ids are sequential, so they are mixed with the 64-bit golden ratio (Fibonacci hashing) and the
+     * high half folded into the low one before taking the modulo; a plain id % count would put ids
+     * that differ by a multiple of the count on the same stripe
+     * @return Stripe index in [0, count)
+     */
+    public static int stripeOf(long id, int count) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) count);
+    }
+}
@@ -2,6 +2,8 @@ package com.farmatodo.cart_service.service;
 
 import com.farmatodo.cart_service.client.ProductServiceClient;
 import com.farmatodo.cart_service.dto.AddItemRequestDTO;
+import com.farmatodo.cart_service.dto.BatchCartRequestDTO;
+import com.farmatodo.cart_service.dto.CartItemOperationDTO;
 import com.farmatodo.cart_service.dto.CartItemDTO;
 import com.farmatodo.cart_service.dto.CartResponseDTO;
 import com.farmatodo.cart_service.dto.ProductDTO;
@@ -11,16 +13,27 @@ import com.farmatodo.cart_service.model.Cart;
 import com.farmatodo.cart_service.model.CartItem;
 import com.farmatodo.cart_service.repository.CartItemRepository;
 import com.farmatodo.cart_service.repository.CartRepository;
+import com.farmatodo.cart_service.repository.UpsertedCartLine;
+import com.farmatodo.cart_service.store.ActiveCartStore;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,24 +43,44 @@ public class CartService {
     private static final Logger logger = LoggerFactory.getLogger(CartService.class);
     private static final String ACTIVE_STATUS = "ACTIVE";
     private static final String COMPLETED_STATUS = "COMPLETED";
+    private static final Set<String> BATCH_OPERATIONS =
+            Set.of(CartItemOperationDTO.ADD, CartItemOperationDTO.UPDATE, CartItemOperationDTO.REMOVE);
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductServiceClient productServiceClient;
+    private final CartLocks cartLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final ActiveCartStore activeCartStore;
+
+    @Value("${cart.batch.maxOperations:500}")
+    private int maxBatchOperations = 500;
 
-    @Transactional
     public CartResponseDTO getOrCreateCart(Long userId) {
         String transactionId = MDC.get("transactionId");
         logger.info("Getting or creating cart for userId: {} - transaction: {}", userId, transactionId);
 
-        Cart cart = cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
-                .orElseGet(() -> createNewCart(userId));
+        if (activeCartStore.isEnabled()) {
+            return inMemory(userId, true, this::mapToCartResponse);
+        }
+        return inTransaction(userId, () -> {
+            Cart cart = cartRepository.findByUserIdAndStatusForUpdate(userId, ACTIVE_STATUS)
+                    .orElseGet(() -> createNewCart(userId));
 
-        logger.debug("Cart retrieved/created with id: {} for userId: {}", cart.getId(), userId);
-        return mapToCartResponse(cart);
+            logger.debug("Cart retrieved/created with id: {} for userId: {}", cart.getId(), userId);
+            return mapToCartResponse(cart);
+        });
     }
 
-    @Transactional
+    /**
+     * Adds quantity of a product to the user's cart
+     *
+     * The line is written with a single upsert on (cart_id, product_id): no lookup of the line
+     * first, and concurrent adds of the same product (even from other instances) add up on one
+     * line instead of creating a duplicate. The line loaded with the cart gives the subtotal the
+     * cart total moves from; the managed entities are left as loaded, the response shows the
+     * upserted line.
+     */
     public CartResponseDTO addItemToCart(Long userId, AddItemRequestDTO request) {
         String transactionId = MDC.get("transactionId");
         logger.info("Adding item to cart for userId: {} - transaction: {}", userId, transactionId);
@@ -58,38 +91,73 @@ public class CartService {
         // Verify product exists by fetching from product service
         ProductDTO product = productServiceClient.getProductById(request.getProductId());
 
-        // Get or create cart
-        Cart cart = cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
-                .orElseGet(() -> createNewCart(userId));
-
-        // Check if item already exists in cart
-        CartItem existingItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), request.getProductId())
-                .orElse(null);
-
-        if (existingItem != null) {
-            // Update quantity
-            existingItem.incrementQuantity(request.getQuantity());
-            cartItemRepository.save(existingItem);
-            logger.debug("Updated quantity for existing item - productId: {}", request.getProductId());
-        } else {
-            // Create new item (only storing productId and quantity)
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
+        if (activeCartStore.isEnabled()) {
+            return inMemory(userId, true, cart -> {
+                addLine(cart, request.getProductId(), product, request.getQuantity());
+                return mapToCartResponse(cart);
+            });
+        }
+        return inTransaction(userId, () -> {
+            // Get or create cart
+            Cart cart = cartRepository.findByUserIdAndStatusForUpdate(userId, ACTIVE_STATUS)
+                    .orElseGet(() -> createNewCart(userId));
+
+            CartItem existingItem = cart.getItems().stream()
+                    .filter(item -> request.getProductId().equals(item.getProductId()))
+                    .findFirst()
+                    .orElse(null);
+
+            LocalDateTime now = LocalDateTime.now();
+            UpsertedCartLine upserted = cartItemRepository.upsertItem(cart.getId(), request.getProductId(),
+                    request.getQuantity(), product.getName(), product.getPrice(), product.getVersion(), now);
+
+            int expectedQuantity = request.getQuantity() + (existingItem == null ? 0 : existingItem.getQuantity());
+            if (upserted.getQuantity() == expectedQuantity) {
+                cart.addToTotal(upserted.getSubtotal().subtract(
+                        existingItem == null ? BigDecimal.ZERO : existingItem.getSubtotalOrZero()));
+            } else {
+                // Someone else changed the line since the cart was read: take the total from the stored lines
+                logger.warn("Cart line changed concurrently - cart id: {}, productId: {}, expected quantity: {}, found: {}",
+                        cart.getId(), request.getProductId(), expectedQuantity, upserted.getQuantity());
+                cart.setTotalAmount(cartItemRepository.sumSubtotals(cart.getId()));
+            }
+
+            CartItem line = CartItem.builder()
+                    .id(upserted.getId())
                     .productId(request.getProductId())
-                    .quantity(request.getQuantity())
+                    .quantity(upserted.getQuantity())
+                    .productName(product.getName())
+                    .unitPrice(product.getPrice())
+                    .productVersion(product.getVersion())
+                    .subtotal(upserted.getSubtotal())
+                    .createdAt(existingItem == null ? now : existingItem.getCreatedAt())
+                    .updatedAt(now)
                     .build();
-            cart.addItem(newItem);
-            cartItemRepository.save(newItem);
-            logger.debug("Added new item to cart - productId: {}", request.getProductId());
-        }
-
-        cart = cartRepository.save(cart);
-
-        logger.info("Item added successfully to cart id: {}", cart.getId());
-        return mapToCartResponse(cart);
+            List<CartItem> lines = new ArrayList<>();
+            for (CartItem item : cart.getItems()) {
+                lines.add(item == existingItem ? line : item);
+            }
+            if (existingItem == null) {
+                lines.add(line);
+                logger.debug("Added new item to cart - productId: {}", request.getProductId());
+            } else {
+                logger.debug("Updated quantity for existing item - productId: {}", request.getProductId());
+            }
+
+            cart = cartRepository.save(cart);
+
+            List<Long> otherProductIds = lines.stream()
+                    .map(CartItem::getProductId)
+                    .filter(productId -> !productId.equals(request.getProductId()))
+                    .collect(Collectors.toList());
+            Map<Long, ProductDTO> productMap = new HashMap<>(productServiceClient.getProductsByIds(otherProductIds));
+            productMap.put(request.getProductId(), product);
+
+            logger.info("Item added successfully to cart id: {}", cart.getId());
+            return mapToCartResponse(cart, lines, productMap);
+        });
     }
 
-    @Transactional
     public CartResponseDTO updateItemQuantity(Long userId, Long productId, UpdateItemQuantityRequestDTO request) {
         String transactionId = MDC.get("transactionId");
         logger.info("Updating item quantity for userId: {}, productId: {} - transaction: {}",
@@ -99,64 +167,256 @@ public class CartService {
             throw new BusinessException("Quantity must be greater than 0", "INVALID_QUANTITY", 400);
         }
 
-        Cart cart = cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
-                .orElseThrow(() -> new BusinessException("Cart not found", "CART_NOT_FOUND", 404));
+        if (activeCartStore.isEnabled()) {
+            return inMemory(userId, false, cart -> {
+                cart.addToTotal(requireLine(cart, productId).updateQuantity(request.getQuantity()));
+                return mapToCartResponse(cart);
+            });
+        }
 
-        CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new BusinessException("Item not found in cart", "ITEM_NOT_FOUND", 404));
+        return inTransaction(userId, () -> {
+            Cart cart = lockActiveCart(userId);
 
-        item.updateQuantity(request.getQuantity());
-        cartItemRepository.save(item);
+            CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+                    .orElseThrow(() -> new BusinessException("Item not found in cart", "ITEM_NOT_FOUND", 404));
 
-        cart = cartRepository.save(cart);
+            cart.addToTotal(item.updateQuantity(request.getQuantity()));
+            cartItemRepository.save(item);
 
-        logger.info("Item quantity updated successfully for productId: {}", productId);
-        return mapToCartResponse(cart);
+            cart = cartRepository.save(cart);
+
+            logger.info("Item quantity updated successfully for productId: {}", productId);
+            return mapToCartResponse(cart);
+        });
     }
 
-    @Transactional
     public CartResponseDTO removeItemFromCart(Long userId, Long productId) {
         String transactionId = MDC.get("transactionId");
         logger.info("Removing item from cart for userId: {}, productId: {} - transaction: {}",
                 userId, productId, transactionId);
 
-        Cart cart = cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
-                .orElseThrow(() -> new BusinessException("Cart not found", "CART_NOT_FOUND", 404));
+        if (activeCartStore.isEnabled()) {
+            return inMemory(userId, false, cart -> {
+                cart.removeItem(requireLine(cart, productId));
+                return mapToCartResponse(cart);
+            });
+        }
 
-        CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new BusinessException("Item not found in cart", "ITEM_NOT_FOUND", 404));
+        return inTransaction(userId, () -> {
+            Cart cart = lockActiveCart(userId);
+
+            CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+                    .orElseThrow(() -> new BusinessException("Item not found in cart", "ITEM_NOT_FOUND", 404));
 
-        cart.removeItem(item);
-        cartItemRepository.delete(item);
+            cart.removeItem(item);
+            cartItemRepository.delete(item);
 
+            cart = cartRepository.save(cart);
+
+            logger.info("Item removed successfully from cart - productId: {}", productId);
+            return mapToCartResponse(cart);
+        });
+    }
+
+    /**
+     * Applies add/update/remove operations in order and returns the final cart
+     *
+     * The operations are merged in memory against the lines already loaded with the cart, so no
+     * per-line lookups are made; product details for the final lines are fetched with a single
+     * getProductsByIds call, used both to price the changed lines and to build the response.
+     * Any invalid operation rejects the whole batch.
+     */
+    public CartResponseDTO applyItemOperations(Long userId, BatchCartRequestDTO request) {
+        String transactionId = MDC.get("transactionId");
+        List<CartItemOperationDTO> operations = request == null ? null : request.getOperations();
+        validateOperations(operations);
+        logger.info("Applying {} cart operations for userId: {} - transaction: {}",
+                operations.size(), userId, transactionId);
+
+        if (activeCartStore.isEnabled()) {
+            return inMemory(userId, true, cart -> mapToCartResponse(cart,
+                    applyOperations(cart, operations, new ArrayList<>(), new ArrayList<>())));
+        }
+        return inTransaction(userId, () -> applyValidatedOperations(userId, operations));
+    }
+
+    private CartResponseDTO applyValidatedOperations(Long userId, List<CartItemOperationDTO> operations) {
+        Cart cart = cartRepository.findByUserIdAndStatusForUpdate(userId, ACTIVE_STATUS)
+                .orElseGet(() -> createNewCart(userId));
+
+        List<CartItem> added = new ArrayList<>();
+        List<CartItem> removed = new ArrayList<>();
+        Map<Long, ProductDTO> productMap = applyOperations(cart, operations, added, removed);
+
+        if (!removed.isEmpty()) {
+            cartItemRepository.deleteAll(removed);
+        }
+        List<CartItem> lines = new ArrayList<>(cart.getItems());
+        if (!added.isEmpty()) {
+            // New lines go through the upsert on uk_cart_item_product like addItemToCart; kept out of the
+            // cart's collection so the cascade does not also INSERT them
+            cart.getItems().removeAll(added);
+            upsertAddedLines(cart, added);
+        }
         cart = cartRepository.save(cart);
 
-        logger.info("Item removed successfully from cart - productId: {}", productId);
-        return mapToCartResponse(cart);
+        logger.info("Applied {} cart operations to cart id: {} - added: {}, removed: {}, lines: {}",
+                operations.size(), cart.getId(), added.size(), removed.size(), lines.size());
+        return mapToCartResponse(cart, lines, productMap);
+    }
+
+    /**
+     * Writes lines that were not in the cart when it was read, filling in their ids
+     * A line written meanwhile by someone else gets the quantity added to it; the cart total is then
+     * taken from the stored lines
+     */
+    private void upsertAddedLines(Cart cart, List<CartItem> added) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean concurrent = false;
+        for (CartItem item : added) {
+            UpsertedCartLine upserted = cartItemRepository.upsertItem(cart.getId(), item.getProductId(),
+                    item.getQuantity(), item.getProductName(), item.getUnitPrice(), item.getProductVersion(), now);
+            if (!upserted.getQuantity().equals(item.getQuantity())) {
+                logger.warn("Cart line changed concurrently - cart id: {}, productId: {}, expected quantity: {}, found: {}",
+                        cart.getId(), item.getProductId(), item.getQuantity(), upserted.getQuantity());
+                concurrent = true;
+            }
+            item.setId(upserted.getId());
+            item.setQuantity(upserted.getQuantity());
+            item.setSubtotal(upserted.getSubtotal());
+            item.setCreatedAt(now);
+            item.setUpdatedAt(now);
+        }
+        if (concurrent) {
+            cart.setTotalAmount(cartItemRepository.sumSubtotals(cart.getId()));
+        }
+    }
+
+    /**
+     * Merges the operations into the cart's lines
+     * @param added Receives the new lines
+     * @param removed Receives the removed lines
+     * @return Products of every line the cart ends up with
+     */
+    private Map<Long, ProductDTO> applyOperations(Cart cart, List<CartItemOperationDTO> operations,
+                                                  List<CartItem> added, List<CartItem> removed) {
+        Map<Long, CartItem> lines = new LinkedHashMap<>();
+        for (CartItem item : cart.getItems()) {
+            lines.put(item.getProductId(), item);
+        }
+
+        // Merge: final quantity per touched product, 0 = removed
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemOperationDTO operation : operations) {
+            Long productId = operation.getProductId();
+            CartItem line = lines.get(productId);
+            int current = quantities.getOrDefault(productId, line == null ? 0 : line.getQuantity());
+            switch (operation.getOp()) {
+                case CartItemOperationDTO.ADD -> quantities.put(productId, current + operation.getQuantity());
+                case CartItemOperationDTO.UPDATE -> {
+                    requireInCart(current, productId);
+                    quantities.put(productId, operation.getQuantity());
+                }
+                default -> {
+                    requireInCart(current, productId);
+                    quantities.put(productId, 0);
+                }
+            }
+        }
+
+        // One lookup for every line the cart ends up with
+        List<Long> productIds = new ArrayList<>();
+        for (Long productId : lines.keySet()) {
+            if (quantities.getOrDefault(productId, 1) > 0) {
+                productIds.add(productId);
+            }
+        }
+        quantities.forEach((productId, quantity) -> {
+            if (quantity > 0 && !lines.containsKey(productId)) {
+                productIds.add(productId);
+            }
+        });
+        Map<Long, ProductDTO> productMap = productServiceClient.getProductsByIds(productIds);
+
+        for (Map.Entry<Long, Integer> change : quantities.entrySet()) {
+            Long productId = change.getKey();
+            int quantity = change.getValue();
+            CartItem line = lines.get(productId);
+            ProductDTO product = productMap.get(productId);
+            if (quantity == 0) {
+                if (line != null) {
+                    cart.removeItem(line);
+                    removed.add(line);
+                }
+            } else if (line == null) {
+                if (product == null) {
+                    throw new BusinessException("Product not found or unavailable: " + productId, "PRODUCT_NOT_FOUND", 404);
+                }
+                CartItem newItem = CartItem.builder()
+                        .cart(cart)
+                        .productId(productId)
+                        .quantity(quantity)
+                        .build();
+                newItem.price(product.getPrice(), product.getVersion(), product.getName());
+                cart.addItem(newItem);
+                added.add(newItem);
+            } else if (quantity != line.getQuantity()) {
+                cart.addToTotal(line.updateQuantity(quantity));
+            }
+        }
+        return productMap;
     }
 
-    @Transactional
     public void clearCart(Long userId) {
         String transactionId = MDC.get("transactionId");
         logger.info("Clearing cart for userId: {} - transaction: {}", userId, transactionId);
 
-        Cart cart = cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
-                .orElseThrow(() -> new BusinessException("Cart not found", "CART_NOT_FOUND", 404));
+        if (activeCartStore.isEnabled()) {
+            inMemory(userId, false, cart -> {
+                cart.clearItems();
+                return null;
+            });
+            logger.info("Cart cleared successfully for userId: {}", userId);
+            return;
+        }
+
+        inTransaction(userId, () -> {
+            Cart cart = lockActiveCart(userId);
 
-        cartItemRepository.deleteByCartId(cart.getId());
-        cart.clearItems();
-        cartRepository.save(cart);
+            cartItemRepository.deleteByCartId(cart.getId());
+            cart.clearItems();
+            return cartRepository.save(cart);
+        });
 
         logger.info("Cart cleared successfully for userId: {}", userId);
     }
 
-    @Transactional
+    /**
+     * Marks the ACTIVE cart as COMPLETED
+     * With the in-memory cart store, pending cart changes are flushed first, synchronously
+     * @throws BusinessException CART_CHANGES_LOST (409) if the database rejected the user's latest cart changes,
+     *         instead of completing the older cart it still holds
+     */
     public CartResponseDTO checkoutCart(Long userId) {
         String transactionId = MDC.get("transactionId");
         logger.info("Checking out cart for userId: {} - transaction: {}", userId, transactionId);
 
-        Cart cart = cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
-                .orElseThrow(() -> new BusinessException("Cart not found", "CART_NOT_FOUND", 404));
+        return cartLocks.withUserLock(userId, () -> {
+            if (activeCartStore.isEnabled()) {
+                activeCartStore.flush();
+                activeCartStore.evict(userId);
+                if (activeCartStore.takeQuarantined(userId)) {
+                    logger.warn("Checkout refused, latest cart changes were rejected - userId: {}", userId);
+                    throw new BusinessException("Recent cart changes could not be saved, review the cart and try again",
+                            "CART_CHANGES_LOST", 409);
+                }
+            }
+            return transactionTemplate.execute(status -> completeCart(userId));
+        });
+    }
+
+    private CartResponseDTO completeCart(Long userId) {
+        Cart cart = lockActiveCart(userId);
 
         if (cart.getItems().isEmpty()) {
             throw new BusinessException("Cannot checkout empty cart", "EMPTY_CART", 400);
@@ -175,12 +435,87 @@ public class CartService {
         String transactionId = MDC.get("transactionId");
         logger.info("Getting cart for userId: {} - transaction: {}", userId, transactionId);
 
+        if (activeCartStore.isEnabled()) {
+            return inMemory(userId, false, this::mapToCartResponse);
+        }
+
         Cart cart = cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
                 .orElseThrow(() -> new BusinessException("Cart not found", "CART_NOT_FOUND", 404));
 
         return mapToCartResponse(cart);
     }
 
+    /**
+     * Runs a database-mode cart write as one transaction under the user's lock
+     * The lock queues requests of this instance; the cart row lock taken by
+     * findByUserIdAndStatusForUpdate serializes them with the other instances
+     */
+    private <T> T inTransaction(Long userId, Supplier<T> write) {
+        return cartLocks.withUserLock(userId, () -> transactionTemplate.execute(status -> write.get()));
+    }
+
+    private Cart lockActiveCart(Long userId) {
+        return cartRepository.findByUserIdAndStatusForUpdate(userId, ACTIVE_STATUS)
+                .orElseThrow(() -> new BusinessException("Cart not found", "CART_NOT_FOUND", 404));
+    }
+
+    /**
+     * Runs a cart operation on the in-memory cart store (cart.store.mode=memory), under the user's lock
+     * The user's ACTIVE cart is read from the database the first time; the changed cart is saved back
+     * to the store, which writes it to the database in the background
+     * @param create Whether to create the cart if the user has none
+     */
+    private <T> T inMemory(Long userId, boolean create, Function<Cart, T> operation) {
+        return cartLocks.withUserLock(userId, () -> {
+            Cart cart = activeCartStore.find(userId).orElseGet(() -> loadIntoStore(userId, create));
+            T result = operation.apply(cart);
+            activeCartStore.save(cart);
+            return result;
+        });
+    }
+
+    private Cart loadIntoStore(Long userId, boolean create) {
+        Cart cart = transactionTemplate.execute(status -> cartRepository.findByUserIdAndStatusWithItems(userId, ACTIVE_STATUS)
+                .orElseGet(() -> create ? createNewCart(userId) : null));
+        if (cart == null) {
+            throw new BusinessException("Cart not found", "CART_NOT_FOUND", 404);
+        }
+        return activeCartStore.load(cart);
+    }
+
+    /**
+     * Adds quantity to the product's line, re-pricing it if the product changed, or adds a new line
+     */
+    private void addLine(Cart cart, Long productId, ProductDTO product, int quantity) {
+        CartItem line = cart.getItems().stream()
+                .filter(item -> productId.equals(item.getProductId()))
+                .findFirst()
+                .orElse(null);
+        if (line == null) {
+            LocalDateTime now = LocalDateTime.now();
+            line = CartItem.builder()
+                    .productId(productId)
+                    .quantity(quantity)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            line.price(product.getPrice(), product.getVersion(), product.getName());
+            cart.addItem(line);
+            return;
+        }
+        if (!line.isPricedAt(product.getPrice(), product.getVersion())) {
+            cart.addToTotal(line.price(product.getPrice(), product.getVersion(), product.getName()));
+        }
+        cart.addToTotal(line.incrementQuantity(quantity));
+    }
+
+    private CartItem requireLine(Cart cart, Long productId) {
+        return cart.getItems().stream()
+                .filter(item -> productId.equals(item.getProductId()))
+                .findFirst()
+                .orElseThrow(() -> new BusinessException("Item not found in cart", "ITEM_NOT_FOUND", 404));
+    }
+
     private Cart createNewCart(Long userId) {
         Cart cart = Cart.builder()
                 .userId(userId)
@@ -199,35 +534,94 @@ public class CartService {
         }
     }
 
+    private void validateOperations(List<CartItemOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new BusinessException("At least one operation is required", "EMPTY_BATCH", 400);
+        }
+        if (operations.size() > maxBatchOperations) {
+            throw new BusinessException("At most " + maxBatchOperations + " operations are allowed per batch",
+                    "BATCH_TOO_LARGE", 400);
+        }
+        for (CartItemOperationDTO operation : operations) {
+            if (operation == null || operation.getOp() == null || !BATCH_OPERATIONS.contains(operation.getOp())) {
+                throw new BusinessException("Operation must be ADD, UPDATE or REMOVE", "INVALID_OPERATION", 400);
+            }
+            if (operation.getProductId() == null) {
+                throw new BusinessException("Product ID is required", "MISSING_PRODUCT_ID", 400);
+            }
+            if (!CartItemOperationDTO.REMOVE.equals(operation.getOp())
+                    && (operation.getQuantity() == null || operation.getQuantity() <= 0)) {
+                throw new BusinessException("Quantity must be greater than 0", "INVALID_QUANTITY", 400);
+            }
+        }
+    }
+
+    private void requireInCart(int quantity, Long productId) {
+        if (quantity == 0) {
+            throw new BusinessException("Item not found in cart: " + productId, "ITEM_NOT_FOUND", 404);
+        }
+    }
+
+    /**
+     * Builds the response from the prices stored on the lines
+     *
+     * Product details are resolved locally (snapshot or cache) for display. Only lines whose product
+     * changed price version since they were priced are re-priced, moving the total by their delta;
+     * carts with lines priced before line prices were stored get one full re-price. Write paths save
+     * the re-priced cart with their change; in database mode the read-only getCart only re-prices the
+     * response, and the stored lines catch up on the cart's next write.
+     */
     private CartResponseDTO mapToCartResponse(Cart cart) {
-        // Fetch all product details from product service
         List<Long> productIds = cart.getItems().stream()
                 .map(CartItem::getProductId)
                 .collect(Collectors.toList());
 
-        Map<Long, ProductDTO> productMap = productServiceClient.getProductsByIds(productIds);
+        return mapToCartResponse(cart, productServiceClient.getProductsByIds(productIds));
+    }
 
-        // Map cart items with product details and calculate subtotals
-        List<CartItemDTO> itemDTOs = cart.getItems().stream()
-                .map(item -> mapToCartItemDTO(item, productMap.get(item.getProductId())))
-                .collect(Collectors.toList());
+    private CartResponseDTO mapToCartResponse(Cart cart, Map<Long, ProductDTO> productMap) {
+        return mapToCartResponse(cart, cart.getItems(), productMap);
+    }
 
-        // Calculate total amount
-        BigDecimal totalAmount = itemDTOs.stream()
-                .map(CartItemDTO::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * @param lines The cart's lines as they are stored, when they differ from the loaded cart.getItems()
+     */
+    private CartResponseDTO mapToCartResponse(Cart cart, List<CartItem> lines, Map<Long, ProductDTO> productMap) {
+        boolean fullReprice = lines.stream().anyMatch(item -> item.getSubtotal() == null);
+        int repriced = 0;
+        for (CartItem item : lines) {
+            ProductDTO product = productMap.get(item.getProductId());
+            BigDecimal price = product == null ? null : product.getPrice();
+            Long version = product == null ? null : product.getVersion();
+            if (fullReprice || !item.isPricedAt(price, version)) {
+                BigDecimal delta = item.price(price, version, product == null ? null : product.getName());
+                if (!fullReprice) {
+                    cart.addToTotal(delta);
+                }
+                repriced++;
+            }
+        }
+        if (fullReprice) {
+            cart.setTotalAmount(lines.stream()
+                    .map(CartItem::getSubtotalOrZero)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+        }
+        if (repriced > 0) {
+            logger.debug("Re-priced {} of {} lines of cart id: {} (full: {})",
+                    repriced, lines.size(), cart.getId(), fullReprice);
+        }
 
-        // Update cart total in database
-        cart.setTotalAmount(totalAmount);
-        cartRepository.save(cart);
+        List<CartItemDTO> itemDTOs = lines.stream()
+                .map(item -> mapToCartItemDTO(item, productMap.get(item.getProductId())))
+                .collect(Collectors.toList());
 
         return CartResponseDTO.builder()
                 .id(cart.getId())
                 .userId(cart.getUserId())
                 .items(itemDTOs)
-                .totalAmount(totalAmount)
+                .totalAmount(cart.getTotalAmount())
                 .status(cart.getStatus())
-                .itemCount(cart.getItems().size())
+                .itemCount(lines.size())
                 .createdAt(cart.getCreatedAt())
                 .updatedAt(cart.getUpdatedAt())
                 .build();
@@ -248,15 +642,13 @@ public class CartService {
                     .build();
         }
 
-        BigDecimal subtotal = product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-
         return CartItemDTO.builder()
                 .id(item.getId())
                 .productId(item.getProductId())
                 .productName(product.getName())
-                .unitPrice(product.getPrice())
+                .unitPrice(item.getUnitPrice())
                 .quantity(item.getQuantity())
-                .subtotal(subtotal)
+                .subtotal(item.getSubtotalOrZero())
                 .createdAt(item.getCreatedAt())
                 .updatedAt(item.getUpdatedAt())
                 .build();
@@ -0,0 +1,100 @@
+package com.farmatodo.cart_service.snapshot;
+
+import com.farmatodo.snapshot.ProductSnapshot;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Keeps the product-service catalog snapshot at services.product.snapshotPath mapped into memory
+ *
+ * The file is mapped before the application starts serving, so carts can be priced without
+ * warming anything up over HTTP. Every services.product.snapshotCheckMillis the file's modification
+ * time is checked and a replaced file is remapped. A snapshot older than services.product.snapshotMaxAgeMillis
+ * (0 = no limit) is not used, so stale prices fall back to product-service; keep it a small multiple of
+ * product-service's product.snapshot.refreshMillis.
+ */
+@Component
+public class ProductSnapshotSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSnapshotSource.class);
+
+    @Value("${services.product.snapshotPath:}")
+    private String snapshotPath = "";
+
+    @Value("${services.product.snapshotCheckMillis:30000}")
+    private long checkMillis = 30000;
+
+    @Value("${services.product.snapshotMaxAgeMillis:120000}")
+    private long maxAgeMillis = 120000;
+
+    private volatile ProductSnapshot snapshot;
+    private volatile long nextCheck;
+    private FileTime loadedModified;
+
+    @PostConstruct
+    public void load() {
+        if (isEnabled()) {
+            reload();
+        }
+    }
+
+    /**
+     * @return The mapped snapshot, or null when none is configured, the file is missing or it is too old
+     */
+    public ProductSnapshot current() {
+        if (!isEnabled()) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= nextCheck) {
+            reload();
+        }
+        ProductSnapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        if (maxAgeMillis > 0 && System.currentTimeMillis() - current.generatedAtMillis() > maxAgeMillis) {
+            return null;
+        }
+        return current;
+    }
+
+    private boolean isEnabled() {
+        return snapshotPath != null && !snapshotPath.isBlank();
+    }
+
+    /**
+     * Remaps the file if it changed since it was last mapped; a file that cannot be read
+     * keeps the previous mapping in use
+     */
+    private synchronized void reload() {
+        if (System.currentTimeMillis() < nextCheck) {
+            return;
+        }
+        nextCheck = System.currentTimeMillis() + checkMillis;
+
+        Path path = Path.of(snapshotPath);
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(loadedModified)) {
+                return;
+            }
+            ProductSnapshot loaded = ProductSnapshot.open(path);
+            snapshot = loaded;
+            loadedModified = modified;
+            logger.info("Product snapshot with {} products mapped from {}", loaded.size(), path);
+        } catch (NoSuchFileException e) {
+            logger.warn("Product snapshot {} not found, prices will be fetched from product service", path);
+        } catch (IOException e) {
+            logger.error("Failed to map product snapshot {}. Error: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.farmatodo.cart_service.store;
+
+import com.farmatodo.cart_service.model.Cart;
+import com.farmatodo.cart_service.model.CartItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable copy of an ACTIVE cart, as kept by {@link ActiveCartStore} and written to its log
+ *
+ * Requests work on a {@link Cart} rebuilt from it and save a new copy back, so the flusher never
+ * sees a cart half way through a change. Lines not flushed yet have no id.
+ */
+public record ActiveCart(Long id, Long userId, BigDecimal totalAmount, LocalDateTime createdAt,
+                         LocalDateTime updatedAt, List<Line> lines) {
+
+    public record Line(Long id, Long productId, int quantity, String productName, BigDecimal unitPrice,
+                       Long productVersion, BigDecimal subtotal, LocalDateTime createdAt,
+                       LocalDateTime updatedAt) {
+    }
+
+    public static ActiveCart of(Cart cart) {
+        List<Line> lines = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            lines.add(new Line(item.getId(), item.getProductId(), item.getQuantity(), item.getProductName(),
+                    item.getUnitPrice(), item.getProductVersion(), item.getSubtotal(), item.getCreatedAt(),
+                    item.getUpdatedAt()));
+        }
+        return new ActiveCart(cart.getId(), cart.getUserId(), cart.getTotalAmount(), cart.getCreatedAt(),
+                cart.getUpdatedAt(), List.copyOf(lines));
+    }
+
+    /**
+     * @return A new, detached cart with this content
+     */
+    public Cart toCart() {
+        Cart cart = Cart.builder()
+                .id(id)
+                .userId(userId)
+                .totalAmount(totalAmount)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+        for (Line line : lines) {
+            cart.getItems().add(CartItem.builder()
+                    .id(line.id())
+                    .productId(line.productId())
+                    .quantity(line.quantity())
+                    .productName(line.productName())
+                    .unitPrice(line.unitPrice())
+                    .productVersion(line.productVersion())
+                    .subtotal(line.subtotal())
+                    .createdAt(line.createdAt())
+                    .updatedAt(line.updatedAt())
+                    .build());
+        }
+        return cart;
+    }
+}
@@ -0,0 +1,483 @@
+package com.farmatodo.cart_service.store;
+
+import com.farmatodo.cart_service.model.Cart;
+import com.farmatodo.cart_service.service.CartLocks;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory store of ACTIVE carts, used when cart.store.mode=memory (default: database)
+ *
+ * Carts are kept per user in cart.store.shards shards. A save appends the cart to the {@link CartWriteLog}
+ * and marks it dirty; every cart.store.flushMillis the dirty carts are written to the database in
+ * batches, one write per cart however many times it changed since the last flush. If the batch
+ * fails the carts are written one transaction each, and a cart the database rejects while it is
+ * reachable is quarantined instead of holding back every other cart; its user is remembered until
+ * they save again or a checkout reports the lost changes. Carts unchanged for
+ * cart.store.idleMillis are dropped from memory after a flush and read again from the database
+ * when next used.
+ *
+ * Each instance keeps its own carts, so requests of a user must always reach the same instance.
+ */
+@Component
+@DependsOn("cartItemConstraintMigration") // Line upserts need uk_cart_item_product, also when replaying the log
+@RequiredArgsConstructor
+public class ActiveCartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveCartStore.class);
+
+    static final String UPDATE_CART_SQL =
+            "UPDATE carts SET total_amount = ?, updated_at = ? WHERE id = ? AND status = 'ACTIVE'";
+
+    static final String DELETE_REMOVED_LINES_SQL =
+            "DELETE FROM cart_items WHERE cart_id = ? AND product_id <> ALL (?)";
+
+    static final String PING_SQL = "SELECT 1";
+
+    static final String UPSERT_LINE_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity, product_name, unit_price, product_version, " +
+            "subtotal, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE SET " +
+            "quantity = EXCLUDED.quantity, " +
+            "product_name = EXCLUDED.product_name, " +
+            "unit_price = EXCLUDED.unit_price, " +
+            "product_version = EXCLUDED.product_version, " +
+            "subtotal = EXCLUDED.subtotal, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${cart.store.mode:database}")
+    private String mode = "database";
+
+    @Value("${cart.store.shards:16}")
+    private int shardCount = 16;
+
+    @Value("${cart.store.logDir:data/cart-store}")
+    private String logDir = "data/cart-store";
+
+    @Value("${cart.store.logSync:true}")
+    private boolean logSync = true;
+
+    @Value("${cart.store.flushMillis:1000}")
+    private long flushMillis = 1000;
+
+    @Value("${cart.store.idleMillis:1800000}")
+    private long idleMillis = 1800000;
+
+    /**
+     * Saves take the read lock to append and mark dirty; a flush takes the write lock briefly
+     * to rotate the log and collect the dirty carts, so both always cover the same saves
+     */
+    private final ReentrantReadWriteLock rotation = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Users whose cart was quarantined and dropped from memory, so the database holds an older cart
+     */
+    private final Set<Long> quarantinedUsers = ConcurrentHashMap.newKeySet();
+
+    private Shard[] shards;
+    private CartWriteLog log;
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("cart.store.shards must be positive, was: " + shardCount);
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        // Flushes commit on their own, also when called from a request's transaction
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        log = new CartWriteLog(Path.of(logDir), logSync, objectMapper);
+        List<ActiveCart> recovered = log.open();
+        long now = System.currentTimeMillis();
+        for (ActiveCart cart : recovered) {
+            Shard shard = shardOf(cart.userId());
+            shard.carts.put(cart.userId(), new Entry(cart, now));
+            shard.dirty.add(cart.userId());
+        }
+        if (!recovered.isEmpty()) {
+            logger.info("Recovered {} cart saves not yet flushed from {}", recovered.size(), logDir);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-store-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        logger.info("Cart store: memory - shards: {}, flushMillis: {}, log: {}, logSync: {}",
+                shardCount, flushMillis, logDir, logSync);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (!isEnabled() || flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flush();
+        } finally {
+            log.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return "memory".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * @return A copy of the user's ACTIVE cart, if it is in memory
+     */
+    public Optional<Cart> find(Long userId) {
+        Shard shard = shardOf(userId);
+        synchronized (shard) {
+            Entry entry = shard.carts.get(userId);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            shard.carts.put(userId, new Entry(entry.cart(), System.currentTimeMillis()));
+            return Optional.of(entry.cart().toCart());
+        }
+    }
+
+    /**
+     * Keeps a cart just read from the database; it is not written back until it is saved
+     * @return A copy of the cart to work on
+     */
+    public Cart load(Cart cart) {
+        ActiveCart copy = ActiveCart.of(cart);
+        Shard shard = shardOf(copy.userId());
+        synchronized (shard) {
+            shard.carts.put(copy.userId(), new Entry(copy, System.currentTimeMillis()));
+        }
+        return copy.toCart();
+    }
+
+    /**
+     * Replaces the user's cart with this content, logged before it is marked for the next flush
+     * Does nothing if the content did not change
+     */
+    public void save(Cart cart) {
+        Shard shard = shardOf(cart.getUserId());
+        synchronized (shard) {
+            Entry entry = shard.carts.get(cart.getUserId());
+            if (entry != null && entry.cart().equals(ActiveCart.of(cart))) {
+                return;
+            }
+        }
+        cart.setUpdatedAt(LocalDateTime.now());
+        ActiveCart copy = ActiveCart.of(cart);
+        rotation.readLock().lock();
+        try {
+            log.append(copy);
+            synchronized (shard) {
+                shard.carts.put(copy.userId(), new Entry(copy, System.currentTimeMillis()));
+                shard.dirty.add(copy.userId());
+            }
+            // The new content was built on the cart read back from the database
+            quarantinedUsers.remove(copy.userId());
+        } finally {
+            rotation.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the user's cart from memory; callers flush first if it may have unsaved changes
+     */
+    public void evict(Long userId) {
+        Shard shard = shardOf(userId);
+        synchronized (shard) {
+            shard.carts.remove(userId);
+            shard.dirty.remove(userId);
+        }
+    }
+
+    /**
+     * Clears the mark left when the user's cart was quarantined
+     * @return Whether changes of the user were rejected by the database since their last save
+     */
+    public boolean takeQuarantined(Long userId) {
+        return quarantinedUsers.remove(userId);
+    }
+
+    /**
+     * Writes every dirty cart to the database in one transaction, or one transaction per cart if that fails
+     * When the database cannot be reached the carts stay dirty and their log segments are kept for the next attempt
+     * @return Carts written
+     */
+    public int flush() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        flushLock.lock();
+        try {
+            List<ActiveCart> batch = new ArrayList<>();
+            rotation.writeLock().lock();
+            try {
+                for (Shard shard : shards) {
+                    synchronized (shard) {
+                        for (Long userId : shard.dirty) {
+                            batch.add(shard.carts.get(userId).cart());
+                        }
+                        shard.dirty.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    log.rotate();
+                }
+            } catch (IOException e) {
+                markDirty(batch);
+                throw new UncheckedIOException("Could not rotate the cart log", e);
+            } finally {
+                rotation.writeLock().unlock();
+            }
+
+            int written = batch.size();
+            if (!batch.isEmpty()) {
+                List<ActiveCart> missing;
+                try {
+                    missing = transactionTemplate.execute(status -> write(batch));
+                } catch (RuntimeException e) {
+                    if (!isDatabaseReachable()) {
+                        markDirty(batch);
+                        throw e;
+                    }
+                    logger.warn("Cart store batch flush of {} carts failed, writing them one by one: {}",
+                            batch.size(), e.getMessage());
+                    List<ActiveCart> quarantined = new ArrayList<>();
+                    missing = writeEach(batch, quarantined);
+                    written -= quarantined.size();
+                }
+                missing.forEach(this::dropInactive);
+                log.deleteSealed();
+                logger.debug("Flushed {} carts ({} no longer active)", written, missing.size());
+            }
+            evictIdle();
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.carts.size();
+            }
+        }
+        return size;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Cart store flush failed, will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Carts that are no longer ACTIVE in the database (checked out or deleted); their lines are not written
+     */
+    private List<ActiveCart> write(List<ActiveCart> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> cartRows = new ArrayList<>(batch.size());
+        for (ActiveCart cart : batch) {
+            cartRows.add(new Object[]{cart.totalAmount(), timestamp(cart.updatedAt(), now), cart.id()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_CART_SQL, cartRows);
+
+        List<ActiveCart> missing = new ArrayList<>();
+        List<Object[]> deleteRows = new ArrayList<>();
+        List<Object[]> lineRows = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            ActiveCart cart = batch.get(i);
+            if (updated[i] == 0) {
+                missing.add(cart);
+                continue;
+            }
+            Long[] productIds = new Long[cart.lines().size()];
+            for (int j = 0; j < productIds.length; j++) {
+                ActiveCart.Line line = cart.lines().get(j);
+                productIds[j] = line.productId();
+                lineRows.add(new Object[]{cart.id(), line.productId(), line.quantity(), line.productName(),
+                        line.unitPrice(), line.productVersion(), line.subtotal(),
+                        timestamp(line.createdAt(), now), timestamp(line.updatedAt(), now)});
+            }
+            deleteRows.add(new Object[]{cart.id(), productIds});
+        }
+        if (!deleteRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_REMOVED_LINES_SQL, deleteRows);
+        }
+        if (!lineRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_LINE_SQL, lineRows);
+        }
+        return missing;
+    }
+
+    /**
+     * Writes each cart of a failed batch in its own transaction
+     * A cart that fails while the database answers is quarantined; once the database does not answer, the
+     * carts not written yet are marked dirty again and the failure is rethrown, keeping the log segments
+     * @param quarantined Receives the quarantined carts
+     * @return Carts that are no longer ACTIVE in the database
+     */
+    private List<ActiveCart> writeEach(List<ActiveCart> batch, List<ActiveCart> quarantined) {
+        List<ActiveCart> missing = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            ActiveCart cart = batch.get(i);
+            try {
+                missing.addAll(transactionTemplate.execute(status -> write(List.of(cart))));
+            } catch (RuntimeException e) {
+                if (!isDatabaseReachable()) {
+                    markDirty(batch.subList(i, batch.size()));
+                    throw e;
+                }
+                try {
+                    quarantine(cart, e);
+                } catch (IOException io) {
+                    markDirty(batch.subList(i, batch.size()));
+                    throw new UncheckedIOException("Could not quarantine cart " + cart.id(), io);
+                }
+                quarantined.add(cart);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Moves a cart the database rejects out of the log, so it stops failing every flush
+     * The user's next request reads the cart from the database again, and the user is marked until
+     * {@link #takeQuarantined} so a checkout does not complete the older cart unnoticed
+     */
+    private void quarantine(ActiveCart cart, RuntimeException failure) throws IOException {
+        Path file = log.quarantine(cart);
+        logger.error("Cart id: {} of userId: {} was rejected by the database, quarantined to {} and dropped from memory: {}",
+                cart.id(), cart.userId(), file, failure.getMessage(), failure);
+        if (removeIfUnchanged(cart)) {
+            quarantinedUsers.add(cart.userId());
+        }
+    }
+
+    private boolean isDatabaseReachable() {
+        try {
+            jdbcTemplate.queryForObject(PING_SQL, Integer.class);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void dropInactive(ActiveCart cart) {
+        logger.warn("Cart id: {} of userId: {} is no longer active, dropping it from memory", cart.id(), cart.userId());
+        removeIfUnchanged(cart);
+    }
+
+    /**
+     * Drops a cart from memory unless it was saved again since it was collected for the flush
+     * @return Whether the cart was dropped
+     */
+    private boolean removeIfUnchanged(ActiveCart cart) {
+        Shard shard = shardOf(cart.userId());
+        synchronized (shard) {
+            Entry entry = shard.carts.get(cart.userId());
+            if (entry != null && entry.cart() == cart && !shard.dirty.contains(cart.userId())) {
+                shard.carts.remove(cart.userId());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Puts carts back in the dirty set after a failed flush, unless they were saved again meanwhile
+     */
+    private void markDirty(List<ActiveCart> batch) {
+        for (ActiveCart cart : batch) {
+            Shard shard = shardOf(cart.userId());
+            synchronized (shard) {
+                shard.carts.putIfAbsent(cart.userId(), new Entry(cart, System.currentTimeMillis()));
+                shard.dirty.add(cart.userId());
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleMillis;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<Map.Entry<Long, Entry>> entries = shard.carts.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Map.Entry<Long, Entry> entry = entries.next();
+                    if (entry.getValue().lastUsed() < idleBefore && !shard.dirty.contains(entry.getKey())) {
+                        entries.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private Shard shardOf(Long userId) {
+        return shards[CartLocks.stripeOf(userId, shards.length)];
+    }
+
+    private static Timestamp timestamp(LocalDateTime value, LocalDateTime fallback) {
+        return Timestamp.valueOf(value == null ? fallback : value);
+    }
+
+    private static final class Shard {
+        private final Map<Long, Entry> carts = new HashMap<>();
+        private final Set<Long> dirty = new LinkedHashSet<>();
+    }
+
+    private record Entry(ActiveCart cart, long lastUsed) {
+    }
+}
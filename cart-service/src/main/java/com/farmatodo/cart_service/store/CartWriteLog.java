@@ -0,0 +1,180 @@
+package com.farmatodo.cart_service.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the carts saved in {@link ActiveCartStore}, one JSON line per save
+ *
+ * Lines go to the active segment; {@link #rotate} seals it and starts the next one. Once the carts in
+ * the sealed segments are in the database they are deleted with {@link #deleteSealed}. Segments left
+ * by a crash are read back by {@link #open}: the last line of a cart is its latest content. With sync
+ * each line is forced to disk before the save returns, otherwise a process crash loses nothing but
+ * a machine crash can lose the lines still in the OS page cache. Carts the database rejects are
+ * kept in the quarantine directory by {@link #quarantine}, which deleting segments never touches.
+ */
+class CartWriteLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteLog.class);
+    private static final String PREFIX = "carts-";
+    private static final String SUFFIX = ".log";
+    static final String QUARANTINE_DIR = "quarantine";
+
+    private final Path directory;
+    private final boolean sync;
+    private final ObjectMapper objectMapper;
+    private final List<Path> sealed = new ArrayList<>();
+    private volatile FileChannel active;
+    private long sequence;
+
+    CartWriteLog(Path directory, boolean sync, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.sync = sync;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the segments left by a previous run, oldest first, and opens a new active segment
+     * The old segments are kept as sealed until the next successful flush
+     * @return Every cart found, in the order they were saved
+     */
+    synchronized List<ActiveCart> open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(path -> segmentNumber(path) >= 0)
+                    .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                    .toList();
+        }
+        List<ActiveCart> carts = new ArrayList<>();
+        for (Path segment : segments) {
+            readSegment(segment, carts);
+            sealed.add(segment);
+            sequence = Math.max(sequence, segmentNumber(segment));
+        }
+        startSegment();
+        return carts;
+    }
+
+    void append(ActiveCart cart) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(cart);
+            ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+            FileChannel channel = active;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append cart " + cart.id() + " to the cart log", e);
+        }
+    }
+
+    /**
+     * Seals the active segment; lines appended from now on go to a new one
+     * Callers make sure no append runs at the same time
+     */
+    synchronized void rotate() throws IOException {
+        active.close();
+        sealed.add(segmentPath(sequence));
+        startSegment();
+    }
+
+    /**
+     * Writes a cart to its own file in the quarantine directory, forced to disk, to be inspected and
+     * re-applied by hand
+     * @return The file written
+     */
+    synchronized Path quarantine(ActiveCart cart) throws IOException {
+        Path quarantine = Files.createDirectories(directory.resolve(QUARANTINE_DIR));
+        Path file = quarantine.resolve("cart-" + cart.id() + "-" + System.currentTimeMillis() + ".json");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(objectMapper.writeValueAsBytes(cart));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        return file;
+    }
+
+    /**
+     * Deletes the sealed segments, once everything in them is in the database
+     */
+    synchronized void deleteSealed() {
+        for (Path segment : sealed) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                logger.warn("Could not delete cart log segment {}: {}", segment, e.getMessage());
+            }
+        }
+        sealed.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        sequence++;
+        active = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void readSegment(Path segment, List<ActiveCart> carts) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    carts.add(objectMapper.readValue(line, ActiveCart.class));
+                } catch (IOException e) {
+                    // A line cut short by a crash while it was being written
+                    logger.warn("Skipping unreadable line {} of cart log segment {}: {}",
+                            lineNumber, segment, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(PREFIX + String.format("%012d", number) + SUFFIX);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
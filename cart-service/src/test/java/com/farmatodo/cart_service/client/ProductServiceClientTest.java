@@ -0,0 +1,264 @@
+package com.farmatodo.cart_service.client;
+
+import com.farmatodo.cart_service.dto.ProductDTO;
+import com.farmatodo.cart_service.exception.BusinessException;
+import com.farmatodo.cart_service.snapshot.ProductSnapshotSource;
+import com.farmatodo.snapshot.ProductSnapshot;
+import com.farmatodo.snapshot.ProductSnapshotWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProductServiceClient} and {@link ProductCache}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductServiceClientTest {
+
+    private static final long TTL_MILLIS = 30_000;
+    private static final long STALE_MILLIS = 30_000;
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ProductSnapshotSource productSnapshotSource;
+
+    @Mock
+    private Clock clock;
+
+    private ProductCache productCache;
+    private ProductServiceClient client;
+    private ExecutorService refreshExecutor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(clock.millis()).thenReturn(1_000_000L);
+        productCache = new ProductCache(clock, 100, TTL_MILLIS, STALE_MILLIS);
+        client = new ProductServiceClient(restTemplate, productSnapshotSource, productCache);
+        setField("productServiceUrl", "http://product-service");
+        setField("productServiceApiKey", "test-key");
+        refreshExecutor = Executors.newSingleThreadExecutor();
+        client.setRefreshExecutor(refreshExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = ProductServiceClient.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(client, value);
+    }
+
+    private static ProductDTO product(long id, String price) {
+        return ProductDTO.builder().id(id).name("Product " + id).price(new BigDecimal(price)).stock(10).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void byIdsReturns(ProductDTO... products) {
+        when(restTemplate.exchange(eq("http://product-service/products/by-ids"), eq(HttpMethod.POST),
+                any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(List.of(products)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Long>> requestedIds(int calls) {
+        ArgumentCaptor<HttpEntity<List<Long>>> captor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(calls)).exchange(eq("http://product-service/products/by-ids"), eq(HttpMethod.POST),
+                captor.capture(), any(ParameterizedTypeReference.class));
+        return captor.getAllValues().stream().map(HttpEntity::getBody).toList();
+    }
+
+    /**
+     * Writes and maps a snapshot with the given products, {id, price, active} each
+     */
+    private ProductSnapshot snapshot(Object[]... products) throws IOException {
+        Path file = directory.resolve("products.snapshot");
+        try (ProductSnapshotWriter writer = new ProductSnapshotWriter(file)) {
+            for (Object[] product : products) {
+                long id = (Long) product[0];
+                writer.add(id, new BigDecimal((String) product[1]), 10, "Product " + id, (Boolean) product[2]);
+            }
+            writer.finish(System.currentTimeMillis());
+        }
+        return ProductSnapshot.open(file);
+    }
+
+    private void awaitRefresh() throws InterruptedException {
+        refreshExecutor.shutdown();
+        assertThat(refreshExecutor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    // ==================== CACHE TESTS ====================
+
+    @Test
+    void testGetProductsByIds_ShouldOnlyFetchIdsNotCached() {
+        productCache.put(product(1L, "5.99"));
+        byIdsReturns(product(2L, "12.50"));
+
+        Map<Long, ProductDTO> products = client.getProductsByIds(List.of(1L, 2L));
+
+        assertThat(products).containsOnlyKeys(1L, 2L);
+        assertThat(requestedIds(1)).containsExactly(List.of(2L));
+        assertThat(productCache.get(2L).product().getPrice()).isEqualTo(new BigDecimal("12.50"));
+    }
+
+    @Test
+    void testGetProductById_ThenGetProductsByIds_ShouldMakeOneRoundTrip() {
+        when(restTemplate.exchange(eq("http://product-service/products/7"), eq(HttpMethod.GET),
+                any(HttpEntity.class), eq(ProductDTO.class)))
+                .thenReturn(ResponseEntity.ok(product(7L, "3.00")));
+
+        client.getProductById(7L);
+        Map<Long, ProductDTO> products = client.getProductsByIds(List.of(7L));
+
+        assertThat(products.get(7L).getPrice()).isEqualTo(new BigDecimal("3.00"));
+        verify(restTemplate, times(1)).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                eq(ProductDTO.class));
+        verifyNoMoreInteractions(restTemplate);
+    }
+
+    @Test
+    void testGetProductsByIds_StaleEntry_ShouldServeStaleAndRefreshInBackground() throws InterruptedException {
+        productCache.put(product(1L, "5.99"));
+        when(clock.millis()).thenReturn(1_000_000L + TTL_MILLIS + 1);
+        byIdsReturns(product(1L, "6.49"));
+
+        Map<Long, ProductDTO> products = client.getProductsByIds(List.of(1L));
+        awaitRefresh();
+
+        assertThat(products.get(1L).getPrice()).isEqualTo(new BigDecimal("5.99"));
+        assertThat(requestedIds(1)).containsExactly(List.of(1L));
+        ProductCache.Hit hit = productCache.get(1L);
+        assertThat(hit.stale()).isFalse();
+        assertThat(hit.product().getPrice()).isEqualTo(new BigDecimal("6.49"));
+    }
+
+    @Test
+    void testGetProductsByIds_RefreshWithoutProduct_ShouldEvictIt() throws InterruptedException {
+        productCache.put(product(1L, "5.99"));
+        productCache.put(product(2L, "8.00"));
+        when(clock.millis()).thenReturn(1_000_000L + TTL_MILLIS + 1);
+        byIdsReturns(product(1L, "6.49"));
+
+        client.getProductsByIds(List.of(1L, 2L));
+        awaitRefresh();
+
+        assertThat(productCache.get(1L).product().getPrice()).isEqualTo(new BigDecimal("6.49"));
+        assertThat(productCache.get(2L)).isNull();
+    }
+
+    @Test
+    void testGetProductsByIds_RefreshFails_ShouldKeepServingStaleCopy() throws InterruptedException {
+        productCache.put(product(1L, "5.99"));
+        when(clock.millis()).thenReturn(1_000_000L + TTL_MILLIS + 1);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)))
+                .thenThrow(new ResourceAccessException("product service down"));
+
+        client.getProductsByIds(List.of(1L));
+        awaitRefresh();
+
+        assertThat(productCache.get(1L).product().getPrice()).isEqualTo(new BigDecimal("5.99"));
+        assertThat(productCache.claimRefresh(List.of(1L))).containsExactly(1L);
+    }
+
+    @Test
+    void testGetProductsByIds_ExpiredEntry_ShouldFetchSynchronously() {
+        productCache.put(product(1L, "5.99"));
+        when(clock.millis()).thenReturn(1_000_000L + TTL_MILLIS + STALE_MILLIS + 1);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)))
+                .thenThrow(new ResourceAccessException("product service down"));
+
+        assertThatThrownBy(() -> client.getProductsByIds(List.of(1L)))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    // ==================== SNAPSHOT TESTS ====================
+
+    @Test
+    void testGetProductsByIds_NotCached_ShouldServeActiveProductsFromSnapshot() throws IOException {
+        when(productSnapshotSource.current()).thenReturn(snapshot(
+                new Object[]{1L, "5.99", true},
+                new Object[]{2L, "12.50", false}));
+        byIdsReturns(product(2L, "12.50"), product(3L, "3.00"));
+
+        Map<Long, ProductDTO> products = client.getProductsByIds(List.of(1L, 2L, 3L));
+
+        assertThat(products).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(products.get(1L).getPrice()).isEqualTo(new BigDecimal("5.99"));
+        assertThat(products.get(1L).getName()).isEqualTo("Product 1");
+        assertThat(requestedIds(1)).containsExactly(List.of(2L, 3L));
+    }
+
+    @Test
+    void testGetProductById_Cached_ShouldPreferCacheOverSnapshot() throws IOException {
+        lenient().when(productSnapshotSource.current()).thenReturn(snapshot(new Object[]{1L, "5.99", true}));
+        productCache.put(product(1L, "6.49"));
+
+        ProductDTO product = client.getProductById(1L);
+
+        assertThat(product.getPrice()).isEqualTo(new BigDecimal("6.49"));
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void testGetProductById_InactiveInSnapshot_ShouldAskProductService() throws IOException {
+        when(productSnapshotSource.current()).thenReturn(snapshot(new Object[]{1L, "5.99", false}));
+        when(restTemplate.exchange(eq("http://product-service/products/1"), eq(HttpMethod.GET),
+                any(HttpEntity.class), eq(ProductDTO.class)))
+                .thenReturn(ResponseEntity.ok(product(1L, "5.99")));
+
+        client.getProductById(1L);
+
+        verify(restTemplate).exchange(eq("http://product-service/products/1"), eq(HttpMethod.GET),
+                any(HttpEntity.class), eq(ProductDTO.class));
+    }
+
+    // ==================== REFRESH CLAIM TESTS ====================
+
+    @Test
+    void testClaimRefresh_AlreadyClaimed_ShouldSkip() {
+        assertThat(productCache.claimRefresh(List.of(1L, 2L))).containsExactly(1L, 2L);
+        assertThat(productCache.claimRefresh(List.of(2L, 3L))).containsExactly(3L);
+
+        productCache.refreshDone(List.of(1L, 2L));
+
+        assertThat(productCache.claimRefresh(List.of(2L))).containsExactly(2L);
+    }
+}
@@ -1,7 +1,9 @@
 package com.farmatodo.cart_service.controller;
 
 import com.farmatodo.cart_service.dto.AddItemRequestDTO;
+import com.farmatodo.cart_service.dto.BatchCartRequestDTO;
 import com.farmatodo.cart_service.dto.CartItemDTO;
+import com.farmatodo.cart_service.dto.CartItemOperationDTO;
 import com.farmatodo.cart_service.dto.CartResponseDTO;
 import com.farmatodo.cart_service.dto.UpdateItemQuantityRequestDTO;
 import com.farmatodo.cart_service.service.CartService;
@@ -19,6 +21,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -242,6 +245,30 @@ class CartControllerTest {
         verify(cartService, never()).addItemToCart(anyLong(), any());
     }
 
+    // ==================== BATCH OPERATIONS TESTS ====================
+
+    @Test
+    void testApplyItemOperations_ShouldReturnFinalCart() throws Exception {
+        // Arrange
+        BatchCartRequestDTO request = BatchCartRequestDTO.builder()
+                .operations(List.of(
+                        CartItemOperationDTO.builder().op("ADD").productId(101L).quantity(2).build(),
+                        CartItemOperationDTO.builder().op("ADD").productId(102L).quantity(1).build()))
+                .build();
+        when(cartService.applyItemOperations(eq(1L), any(BatchCartRequestDTO.class))).thenReturn(cartWithItems);
+
+        // Act & Assert
+        mockMvc.perform(post("/carts/1/items/batch")
+                        .header("Authorization", "ApiKey cart-service-api-key-change-in-production")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.totalAmount").value(24.97));
+
+        verify(cartService, times(1)).applyItemOperations(eq(1L), any(BatchCartRequestDTO.class));
+    }
+
     // ==================== UPDATE ITEM QUANTITY TESTS ====================
 
     @Test
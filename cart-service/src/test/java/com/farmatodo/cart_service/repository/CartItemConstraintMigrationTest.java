@@ -0,0 +1,79 @@
+package com.farmatodo.cart_service.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link CartItemConstraintMigration}
+ */
+@ExtendWith(MockitoExtension.class)
+class CartItemConstraintMigrationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CartItemConstraintMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testMigrate_ConstraintMissing_ShouldMergeDuplicatesThenAddConstraint() {
+        when(jdbcTemplate.queryForObject(CartItemConstraintMigration.CONSTRAINT_EXISTS_SQL, Integer.class))
+                .thenReturn(0);
+
+        migration.migrate();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute(CartItemConstraintMigration.LOCK_SQL);
+        order.verify(jdbcTemplate).update(CartItemConstraintMigration.MERGE_DUPLICATES_SQL);
+        order.verify(jdbcTemplate).update(CartItemConstraintMigration.DELETE_DUPLICATES_SQL);
+        order.verify(jdbcTemplate).execute(CartItemConstraintMigration.ADD_CONSTRAINT_SQL);
+    }
+
+    @Test
+    void testMigrate_ConstraintPresent_ShouldDoNothing() {
+        when(jdbcTemplate.queryForObject(CartItemConstraintMigration.CONSTRAINT_EXISTS_SQL, Integer.class))
+                .thenReturn(1);
+
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    void testMigrate_AddedByAnotherInstanceWhileWaiting_ShouldNotAddAgain() {
+        when(jdbcTemplate.queryForObject(CartItemConstraintMigration.CONSTRAINT_EXISTS_SQL, Integer.class))
+                .thenReturn(0, 1);
+
+        migration.migrate();
+
+        verify(jdbcTemplate).execute(CartItemConstraintMigration.LOCK_SQL);
+        verify(jdbcTemplate, never()).execute(CartItemConstraintMigration.ADD_CONSTRAINT_SQL);
+        verify(jdbcTemplate, never()).update(anyString());
+    }
+}
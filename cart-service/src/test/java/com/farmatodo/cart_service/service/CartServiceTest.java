@@ -2,6 +2,9 @@ package com.farmatodo.cart_service.service;
 
 import com.farmatodo.cart_service.client.ProductServiceClient;
 import com.farmatodo.cart_service.dto.AddItemRequestDTO;
+import com.farmatodo.cart_service.dto.BatchCartRequestDTO;
+import com.farmatodo.cart_service.dto.CartItemOperationDTO;
+import com.farmatodo.cart_service.dto.CartItemDTO;
 import com.farmatodo.cart_service.dto.CartResponseDTO;
 import com.farmatodo.cart_service.dto.ProductDTO;
 import com.farmatodo.cart_service.dto.UpdateItemQuantityRequestDTO;
@@ -10,20 +13,36 @@ import com.farmatodo.cart_service.model.Cart;
 import com.farmatodo.cart_service.model.CartItem;
 import com.farmatodo.cart_service.repository.CartItemRepository;
 import com.farmatodo.cart_service.repository.CartRepository;
+import com.farmatodo.cart_service.repository.UpsertedCartLine;
+import com.farmatodo.cart_service.store.ActiveCartStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -46,6 +65,15 @@ class CartServiceTest {
     @Mock
     private ProductServiceClient productServiceClient;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private CartLocks cartLocks = new CartLocks(4);
+
+    @Mock
+    private ActiveCartStore activeCartStore;
+
     @InjectMocks
     private CartService cartService;
 
@@ -90,6 +118,38 @@ class CartServiceTest {
                 .productId(101L)
                 .quantity(2)
                 .build();
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        // Behaves like the ON CONFLICT upsert against the lines of activeCart
+        lenient().when(cartItemRepository.upsertItem(any(), anyLong(), anyInt(), any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    Long productId = inv.getArgument(1);
+                    int quantity = inv.<Integer>getArgument(2) + activeCart.getItems().stream()
+                            .filter(item -> item.getProductId().equals(productId))
+                            .mapToInt(CartItem::getQuantity)
+                            .sum();
+                    return upsertedLine(50L, quantity, inv.<BigDecimal>getArgument(4).multiply(BigDecimal.valueOf(quantity)));
+                });
+    }
+
+    private static UpsertedCartLine upsertedLine(Long id, int quantity, BigDecimal subtotal) {
+        return new UpsertedCartLine() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+
+            @Override
+            public BigDecimal getSubtotal() {
+                return subtotal;
+            }
+        };
     }
 
     // ==================== ADD VALID PRODUCT TO CART TESTS ====================
@@ -97,7 +157,7 @@ class CartServiceTest {
     @Test
     void testAddItemToCart_ValidProduct_ShouldAddSuccessfully() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -117,23 +177,23 @@ class CartServiceTest {
     @Test
     void testAddItemToCart_NewProduct_ShouldCreateNewCartItem() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        ArgumentCaptor<Cart> cartCaptor = ArgumentCaptor.forClass(Cart.class);
-
         // Act
         CartResponseDTO response = cartService.addItemToCart(1L, addItemRequest);
 
-        // Assert
-        verify(cartRepository).save(cartCaptor.capture());
+        // Assert - the line is written by the upsert, priced with the fetched product
+        verify(cartItemRepository).upsertItem(eq(1L), eq(101L), eq(2), eq("Aspirin 500mg"),
+                eq(new BigDecimal("5.99")), isNull(), any(LocalDateTime.class));
+        verify(cartItemRepository, never()).findByCartIdAndProductId(anyLong(), anyLong());
+        verify(cartRepository).save(any(Cart.class));
 
-        Cart savedCart = cartCaptor.getValue();
-        assertThat(savedCart.getItems()).hasSize(1);
-        assertThat(savedCart.getItems().get(0).getProductId()).isEqualTo(101L);
-        assertThat(savedCart.getItems().get(0).getQuantity()).isEqualTo(2);
+        assertThat(response.getItems()).hasSize(1);
+        assertThat(response.getItems().get(0).getProductId()).isEqualTo(101L);
+        assertThat(response.getItems().get(0).getQuantity()).isEqualTo(2);
     }
 
     @Test
@@ -150,28 +210,26 @@ class CartServiceTest {
 
         activeCart.getItems().add(existingItem);
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        ArgumentCaptor<Cart> cartCaptor = ArgumentCaptor.forClass(Cart.class);
-
         // Act
-        cartService.addItemToCart(1L, addItemRequest);
+        CartResponseDTO response = cartService.addItemToCart(1L, addItemRequest);
 
         // Assert
-        verify(cartRepository).save(cartCaptor.capture());
+        verify(cartItemRepository).upsertItem(eq(1L), eq(101L), eq(2), any(), any(), any(), any());
+        verify(cartRepository).save(any(Cart.class));
 
-        Cart savedCart = cartCaptor.getValue();
-        assertThat(savedCart.getItems()).hasSize(1); // Still only one item
-        assertThat(savedCart.getItems().get(0).getQuantity()).isEqualTo(4); // 2 + 2
+        assertThat(response.getItems()).hasSize(1); // Still only one item
+        assertThat(response.getItems().get(0).getQuantity()).isEqualTo(4); // 2 + 2
     }
 
     @Test
     void testAddItemToCart_CreatesNewCartIfNotExists() {
         // Arrange - No active cart exists
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.empty());
         when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -195,7 +253,7 @@ class CartServiceTest {
     @Test
     void testAddItemToCart_ProductNotFound_ShouldThrowBusinessException() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(999L))
                 .thenThrow(new BusinessException("Product not found", "PRODUCT_NOT_FOUND", 404));
@@ -219,7 +277,7 @@ class CartServiceTest {
     @Test
     void testAddItemToCart_ProductServiceFailure_ShouldPropagateException() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(101L))
                 .thenThrow(new RuntimeException("Product service unavailable"));
@@ -238,7 +296,7 @@ class CartServiceTest {
     @Test
     void testAddItemToCart_InsufficientStock_ShouldThrowBusinessException() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(102L)).thenReturn(productWithLowStock);
 
@@ -271,7 +329,7 @@ class CartServiceTest {
     @Test
     void testAddItemToCart_StockAvailable_ShouldSucceed() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(102L)).thenReturn(productWithLowStock);
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -295,7 +353,7 @@ class CartServiceTest {
     @Test
     void testAddItemToCart_ShouldCalculateCorrectTotal() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -323,7 +381,7 @@ class CartServiceTest {
 
         activeCart.getItems().add(existingItem);
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductById(eq(101L))).thenReturn(validProduct);
         when(productServiceClient.getProductById(eq(102L))).thenReturn(productWithLowStock);
@@ -354,7 +412,7 @@ class CartServiceTest {
                 .quantity(0)
                 .build();
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
 
         // Act & Assert
@@ -374,7 +432,7 @@ class CartServiceTest {
                 .quantity(-5)
                 .build();
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
 
         // Act & Assert
@@ -402,11 +460,10 @@ class CartServiceTest {
 
         activeCart.getItems().add(existingItem);
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(cartItemRepository.findByCartIdAndProductId(1L, 101L))
                 .thenReturn(Optional.of(existingItem));
-        when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
         when(productServiceClient.getProductsByIds(anyList())).thenReturn(Map.of(101L, validProduct));
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -425,7 +482,7 @@ class CartServiceTest {
     @Test
     void testUpdateItemQuantity_ProductNotInCart_ShouldThrowException() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(cartItemRepository.findByCartIdAndProductId(1L, 999L))
                 .thenReturn(Optional.empty());
@@ -458,7 +515,7 @@ class CartServiceTest {
 
         activeCart.getItems().add(itemToRemove);
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(cartItemRepository.findByCartIdAndProductId(1L, 101L))
                 .thenReturn(Optional.of(itemToRemove));
@@ -478,7 +535,7 @@ class CartServiceTest {
     @Test
     void testRemoveItemFromCart_NonExistingItem_ShouldThrowException() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(cartItemRepository.findByCartIdAndProductId(1L, 999L))
                 .thenReturn(Optional.empty());
@@ -514,7 +571,7 @@ class CartServiceTest {
         activeCart.getItems().add(item1);
         activeCart.getItems().add(item2);
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -534,7 +591,7 @@ class CartServiceTest {
     @Test
     void testClearCart_NonExistingCart_ShouldThrowException() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.empty());
 
         // Act & Assert
@@ -559,7 +616,7 @@ class CartServiceTest {
 
         activeCart.getItems().add(item);
 
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
         when(productServiceClient.getProductsByIds(anyList())).thenReturn(Map.of(101L, validProduct));
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -579,7 +636,7 @@ class CartServiceTest {
     @Test
     void testCheckoutCart_EmptyCart_ShouldThrowException() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart)); // Empty cart
 
         // Act & Assert
@@ -595,7 +652,7 @@ class CartServiceTest {
     @Test
     void testGetOrCreateCart_ExistingCart_ShouldReturnCart() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE"))
                 .thenReturn(Optional.of(activeCart));
 
         // Act
@@ -606,14 +663,14 @@ class CartServiceTest {
         assertThat(response.getUserId()).isEqualTo(1L);
         assertThat(response.getStatus()).isEqualTo("ACTIVE");
 
-        verify(cartRepository, times(1)).findByUserIdAndStatusWithItems(1L, "ACTIVE");
+        verify(cartRepository, times(1)).findByUserIdAndStatusForUpdate(1L, "ACTIVE");
         verify(cartRepository, never()).save(any());
     }
 
     @Test
     void testGetOrCreateCart_NoExistingCart_ShouldCreateNew() {
         // Arrange
-        when(cartRepository.findByUserIdAndStatusWithItems(2L, "ACTIVE"))
+        when(cartRepository.findByUserIdAndStatusForUpdate(2L, "ACTIVE"))
                 .thenReturn(Optional.empty());
         when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> {
             Cart cart = invocation.getArgument(0);
@@ -634,4 +691,383 @@ class CartServiceTest {
         assertThat(savedCart.getStatus()).isEqualTo("ACTIVE");
         assertThat(savedCart.getTotalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
     }
+
+    // ==================== INCREMENTAL TOTAL TESTS ====================
+
+    private CartItem pricedItem(Long id, ProductDTO product, int quantity) {
+        CartItem item = CartItem.builder()
+                .id(id)
+                .productId(product.getId())
+                .quantity(quantity)
+                .build();
+        activeCart.addToTotal(item.price(product.getPrice(), product.getVersion(), product.getName()));
+        activeCart.getItems().add(item);
+        return item;
+    }
+
+    @Test
+    void testUpdateItemQuantity_ShouldMoveTotalByLineDelta() {
+        CartItem aspirin = pricedItem(1L, validProduct, 2);
+        pricedItem(2L, productWithLowStock, 1);
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(cartItemRepository.findByCartIdAndProductId(1L, 101L)).thenReturn(Optional.of(aspirin));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productServiceClient.getProductsByIds(List.of(101L, 102L)))
+                .thenReturn(Map.of(101L, validProduct, 102L, productWithLowStock));
+
+        CartResponseDTO response = cartService.updateItemQuantity(1L, 101L,
+                UpdateItemQuantityRequestDTO.builder().quantity(3).build());
+
+        // 5.99 x 3 + 12.99
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("30.96");
+        assertThat(aspirin.getSubtotal()).isEqualByComparingTo("17.97");
+        verify(cartRepository, times(1)).save(any(Cart.class));
+    }
+
+    @Test
+    void testGetCart_PriceVersionChanged_ShouldRepriceOnlyThatLine() {
+        validProduct.setVersion(1L);
+        productWithLowStock.setVersion(4L);
+        CartItem aspirin = pricedItem(1L, validProduct, 2);
+        CartItem vitamin = pricedItem(2L, productWithLowStock, 1);
+        ProductDTO repricedAspirin = ProductDTO.builder()
+                .id(101L)
+                .name("Aspirin 500mg")
+                .price(new BigDecimal("4.99"))
+                .version(2L)
+                .build();
+        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(productServiceClient.getProductsByIds(List.of(101L, 102L)))
+                .thenReturn(Map.of(101L, repricedAspirin, 102L, productWithLowStock));
+
+        CartResponseDTO response = cartService.getCart(1L);
+
+        // 11.98 + 12.99 - 2 x 1.00
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("22.97");
+        assertThat(aspirin.getUnitPrice()).isEqualByComparingTo("4.99");
+        assertThat(aspirin.getProductVersion()).isEqualTo(2L);
+        assertThat(vitamin.getProductVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void testGetCart_LinesWithoutStoredPrices_ShouldRepriceWholeCart() {
+        activeCart.setTotalAmount(new BigDecimal("99.00"));
+        activeCart.getItems().add(CartItem.builder().id(1L).productId(101L).quantity(2).build());
+        activeCart.getItems().add(CartItem.builder().id(2L).productId(102L).quantity(1).build());
+        when(cartRepository.findByUserIdAndStatusWithItems(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(productServiceClient.getProductsByIds(List.of(101L, 102L)))
+                .thenReturn(Map.of(101L, validProduct, 102L, productWithLowStock));
+
+        CartResponseDTO response = cartService.getCart(1L);
+
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("24.97");
+        assertThat(response.getItems()).extracting(CartItemDTO::getSubtotal)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("11.98"), new BigDecimal("12.99"));
+    }
+
+    @Test
+    void testRemoveItemFromCart_ShouldSubtractLineSubtotal() {
+        CartItem aspirin = pricedItem(1L, validProduct, 2);
+        pricedItem(2L, productWithLowStock, 1);
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(cartItemRepository.findByCartIdAndProductId(1L, 101L)).thenReturn(Optional.of(aspirin));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productServiceClient.getProductsByIds(List.of(102L))).thenReturn(Map.of(102L, productWithLowStock));
+
+        CartResponseDTO response = cartService.removeItemFromCart(1L, 101L);
+
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("12.99");
+    }
+
+    // ==================== UPSERT TESTS ====================
+
+    @Test
+    void testAddItemToCart_ExistingLine_ShouldMoveTotalByUpsertedDelta() {
+        CartItem aspirin = pricedItem(1L, validProduct, 2);
+        pricedItem(2L, productWithLowStock, 1);
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productServiceClient.getProductsByIds(List.of(102L))).thenReturn(Map.of(102L, productWithLowStock));
+
+        CartResponseDTO response = cartService.addItemToCart(1L, addItemRequest);
+
+        // 5.99 x 4 + 12.99
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("36.95");
+        assertThat(response.getItems()).extracting(CartItemDTO::getProductId, CartItemDTO::getQuantity)
+                .containsExactly(tuple(101L, 4), tuple(102L, 1));
+        // The stored line was written by the upsert, the loaded entity is not flushed over it
+        assertThat(aspirin.getQuantity()).isEqualTo(2);
+        verify(cartItemRepository, never()).save(any());
+        verify(cartItemRepository, never()).sumSubtotals(anyLong());
+    }
+
+    @Test
+    void testAddItemToCart_LineChangedConcurrently_ShouldTakeTotalFromStoredLines() {
+        pricedItem(1L, validProduct, 2);
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Another instance added 3 more between reading the cart and the upsert
+        doReturn(upsertedLine(1L, 7, new BigDecimal("41.93")))
+                .when(cartItemRepository).upsertItem(any(), anyLong(), anyInt(), any(), any(), any(), any());
+        when(cartItemRepository.sumSubtotals(1L)).thenReturn(new BigDecimal("41.93"));
+
+        CartResponseDTO response = cartService.addItemToCart(1L, addItemRequest);
+
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("41.93");
+        assertThat(response.getItems()).extracting(CartItemDTO::getQuantity).containsExactly(7);
+    }
+
+    @Test
+    void testRemoveItemAndClearCart_ShouldRunUnderUserLockInOneTransaction() {
+        CartItem aspirin = pricedItem(1L, validProduct, 2);
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(cartItemRepository.findByCartIdAndProductId(1L, 101L)).thenReturn(Optional.of(aspirin));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        cartService.removeItemFromCart(1L, 101L);
+        cartService.clearCart(1L);
+
+        verify(cartLocks, times(2)).withUserLock(eq(1L), any());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void testUpdateAndRemove_Concurrent_ShouldKeepBothTotalDeltas() throws Exception {
+        // Stored cart: aspirin x2 (11.98) + vitamin C x1 (12.99)
+        Map<Long, ProductDTO> products = Map.of(101L, validProduct, 102L, productWithLowStock);
+        Map<Long, Integer> storedLines = new ConcurrentHashMap<>(Map.of(101L, 2, 102L, 1));
+        AtomicReference<BigDecimal> storedTotal =
+                new AtomicReference<>(new BigDecimal("24.97"));
+        // Holds each read until the other request has read too, unless the requests are serialized
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        ThreadLocal<Cart> loaded = new ThreadLocal<>();
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenAnswer(invocation -> {
+            Cart cart = Cart.builder().id(1L).userId(1L).status("ACTIVE").totalAmount(storedTotal.get()).build();
+            loaded.set(cart);
+            storedLines.forEach((productId, quantity) -> {
+                ProductDTO product = products.get(productId);
+                CartItem line = CartItem.builder().id(productId).productId(productId).quantity(quantity).build();
+                line.price(product.getPrice(), product.getVersion(), product.getName());
+                cart.getItems().add(line);
+            });
+            try {
+                bothRead.await(200, TimeUnit.MILLISECONDS);
+            } catch (BrokenBarrierException | TimeoutException e) {
+                // Serialized: the other request is waiting for this one
+            }
+            return Optional.of(cart);
+        });
+        // Like the persistence context: the line lookup returns the instance loaded with this request's cart
+        when(cartItemRepository.findByCartIdAndProductId(eq(1L), anyLong())).thenAnswer(invocation ->
+                loaded.get().getItems().stream()
+                        .filter(line -> line.getProductId().equals(invocation.getArgument(1)))
+                        .findFirst());
+        when(cartItemRepository.save(any(CartItem.class))).thenAnswer(invocation -> {
+            CartItem line = invocation.getArgument(0);
+            storedLines.put(line.getProductId(), line.getQuantity());
+            return line;
+        });
+        doAnswer(invocation -> storedLines.remove(invocation.<CartItem>getArgument(0).getProductId()))
+                .when(cartItemRepository).delete(any(CartItem.class));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> {
+            storedTotal.set(invocation.<Cart>getArgument(0).getTotalAmount());
+            return invocation.getArgument(0);
+        });
+        when(productServiceClient.getProductsByIds(anyList())).thenReturn(products);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CartResponseDTO> update = executor.submit(() -> cartService.updateItemQuantity(1L, 101L,
+                    UpdateItemQuantityRequestDTO.builder().quantity(3).build()));
+            Future<CartResponseDTO> remove = executor.submit(() -> cartService.removeItemFromCart(1L, 102L));
+            update.get(5, TimeUnit.SECONDS);
+            remove.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 5.99 x 3, vitamin C removed: neither delta overwrote the other
+        assertThat(storedLines).containsOnlyKeys(101L);
+        assertThat(storedTotal.get()).isEqualByComparingTo("17.97");
+    }
+
+    @Test
+    void testCartLocks_InvalidStripeCount_ShouldFailFast() {
+        assertThatThrownBy(() -> new CartLocks(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cart.locks.stripes");
+    }
+
+    @Test
+    void testCartLocks_StripeOf_ShouldSpreadSequentialIdsWithinCount() {
+        int[] perStripe = new int[4];
+        for (long id = 1; id <= 400; id++) {
+            perStripe[CartLocks.stripeOf(id, 4)]++;
+        }
+
+        for (int count : perStripe) {
+            assertThat(count).isBetween(50, 150);
+        }
+        assertThat(CartLocks.stripeOf(-7L, 4)).isBetween(0, 3);
+    }
+
+    // ==================== IN-MEMORY STORE TESTS ====================
+
+    @Test
+    void testAddItemToCart_MemoryStore_ShouldChangeStoredCopyOnly() {
+        pricedItem(1L, validProduct, 2);
+        when(activeCartStore.isEnabled()).thenReturn(true);
+        when(activeCartStore.find(1L)).thenReturn(Optional.of(activeCart));
+        when(productServiceClient.getProductById(101L)).thenReturn(validProduct);
+        when(productServiceClient.getProductsByIds(List.of(101L))).thenReturn(Map.of(101L, validProduct));
+
+        CartResponseDTO response = cartService.addItemToCart(1L, addItemRequest);
+
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("23.96");
+        assertThat(response.getItems()).extracting(CartItemDTO::getQuantity).containsExactly(4);
+        verify(activeCartStore).save(activeCart);
+        verifyNoInteractions(cartRepository, cartItemRepository, transactionTemplate);
+    }
+
+    @Test
+    void testCheckoutCart_MemoryStore_ShouldFlushBeforeCompleting() {
+        pricedItem(1L, validProduct, 2);
+        when(activeCartStore.isEnabled()).thenReturn(true);
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CartResponseDTO response = cartService.checkoutCart(1L);
+
+        assertThat(response.getStatus()).isEqualTo("COMPLETED");
+        var inOrder = inOrder(activeCartStore, cartRepository);
+        inOrder.verify(activeCartStore).flush();
+        inOrder.verify(activeCartStore).evict(1L);
+        inOrder.verify(cartRepository).findByUserIdAndStatusForUpdate(1L, "ACTIVE");
+    }
+
+    @Test
+    void testCheckoutCart_MemoryStore_ChangesRejected_ShouldThrowConflict() {
+        when(activeCartStore.isEnabled()).thenReturn(true);
+        when(activeCartStore.takeQuarantined(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> cartService.checkoutCart(1L))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("could not be saved")
+                .matches(e -> ((BusinessException) e).getErrorCode().equals("CART_CHANGES_LOST"));
+
+        verify(activeCartStore).flush();
+        verifyNoInteractions(cartRepository);
+    }
+
+    // ==================== BATCH OPERATION TESTS ====================
+
+    private static CartItemOperationDTO operation(String op, Long productId, Integer quantity) {
+        return CartItemOperationDTO.builder().op(op).productId(productId).quantity(quantity).build();
+    }
+
+    private static BatchCartRequestDTO batch(CartItemOperationDTO... operations) {
+        return BatchCartRequestDTO.builder().operations(List.of(operations)).build();
+    }
+
+    @Test
+    void testApplyItemOperations_ShouldMergeInMemoryWithOneProductLookup() {
+        pricedItem(1L, validProduct, 2);
+        ProductDTO ibuprofen = ProductDTO.builder().id(103L).name("Ibuprofen").price(new BigDecimal("3.50")).build();
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productServiceClient.getProductsByIds(List.of(101L, 103L)))
+                .thenReturn(Map.of(101L, validProduct, 103L, ibuprofen));
+
+        CartResponseDTO response = cartService.applyItemOperations(1L, batch(
+                operation("ADD", 102L, 1),
+                operation("ADD", 103L, 1),
+                operation("ADD", 101L, 1),
+                operation("REMOVE", 102L, null),
+                operation("UPDATE", 103L, 4)));
+
+        // 5.99 x 3 + 3.50 x 4
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("31.97");
+        assertThat(response.getItems()).extracting(CartItemDTO::getProductId, CartItemDTO::getQuantity)
+                .containsExactly(tuple(101L, 3), tuple(103L, 4));
+        verify(productServiceClient, times(1)).getProductsByIds(anyList());
+        verify(productServiceClient, never()).getProductById(any());
+        verify(cartItemRepository, never()).findByCartIdAndProductId(any(), any());
+        verify(cartItemRepository).upsertItem(eq(1L), eq(103L), eq(4), eq("Ibuprofen"),
+                eq(new BigDecimal("3.50")), any(), any());
+        verify(cartItemRepository, never()).saveAll(any());
+        assertThat(activeCart.getItems()).extracting(CartItem::getProductId).containsExactly(101L);
+    }
+
+    @Test
+    void testApplyItemOperations_NewLineWrittenConcurrently_ShouldAddUpAndTakeTotalFromLines() {
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productServiceClient.getProductsByIds(List.of(101L))).thenReturn(Map.of(101L, validProduct));
+        // Another request added 1 unit of the line after the cart was read
+        doReturn(upsertedLine(50L, 3, new BigDecimal("17.97")))
+                .when(cartItemRepository).upsertItem(any(), eq(101L), eq(2), any(), any(), any(), any());
+        when(cartItemRepository.sumSubtotals(1L)).thenReturn(new BigDecimal("17.97"));
+
+        CartResponseDTO response = cartService.applyItemOperations(1L, batch(operation("ADD", 101L, 2)));
+
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("17.97");
+        assertThat(response.getItems()).extracting(CartItemDTO::getId, CartItemDTO::getQuantity)
+                .containsExactly(tuple(50L, 3));
+    }
+
+    @Test
+    void testApplyItemOperations_RemoveExistingLine_ShouldDeleteAndSubtract() {
+        CartItem aspirin = pricedItem(1L, validProduct, 2);
+        pricedItem(2L, productWithLowStock, 1);
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(productServiceClient.getProductsByIds(List.of(102L))).thenReturn(Map.of(102L, productWithLowStock));
+
+        CartResponseDTO response = cartService.applyItemOperations(1L, batch(operation("REMOVE", 101L, null)));
+
+        assertThat(response.getTotalAmount()).isEqualByComparingTo("12.99");
+        verify(cartItemRepository).deleteAll(List.of(aspirin));
+    }
+
+    @Test
+    void testApplyItemOperations_UpdateLineNotInCart_ShouldRejectWholeBatch() {
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+
+        assertThatThrownBy(() -> cartService.applyItemOperations(1L, batch(
+                operation("ADD", 101L, 1),
+                operation("REMOVE", 101L, null),
+                operation("UPDATE", 101L, 2))))
+                .isInstanceOf(BusinessException.class)
+                .matches(e -> ((BusinessException) e).getErrorCode().equals("ITEM_NOT_FOUND"));
+
+        verifyNoInteractions(productServiceClient);
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    void testApplyItemOperations_InvalidOperations_ShouldReturnBadRequest() {
+        assertThatThrownBy(() -> cartService.applyItemOperations(1L, batch()))
+                .matches(e -> ((BusinessException) e).getErrorCode().equals("EMPTY_BATCH"));
+        assertThatThrownBy(() -> cartService.applyItemOperations(1L, batch(operation("MOVE", 101L, 1))))
+                .matches(e -> ((BusinessException) e).getErrorCode().equals("INVALID_OPERATION"));
+        assertThatThrownBy(() -> cartService.applyItemOperations(1L, batch(operation(null, 101L, 1))))
+                .matches(e -> ((BusinessException) e).getErrorCode().equals("INVALID_OPERATION"));
+        assertThatThrownBy(() -> cartService.applyItemOperations(1L, batch(operation("ADD", 101L, 0))))
+                .matches(e -> ((BusinessException) e).getErrorCode().equals("INVALID_QUANTITY"));
+
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void testApplyItemOperations_UnknownProduct_ShouldThrowNotFound() {
+        when(cartRepository.findByUserIdAndStatusForUpdate(1L, "ACTIVE")).thenReturn(Optional.of(activeCart));
+        when(productServiceClient.getProductsByIds(List.of(999L))).thenReturn(Map.of());
+
+        assertThatThrownBy(() -> cartService.applyItemOperations(1L, batch(operation("ADD", 999L, 1))))
+                .isInstanceOf(BusinessException.class)
+                .matches(e -> ((BusinessException) e).getErrorCode().equals("PRODUCT_NOT_FOUND"));
+    }
 }
@@ -0,0 +1,287 @@
+package com.farmatodo.cart_service.store;
+
+import com.farmatodo.cart_service.model.Cart;
+import com.farmatodo.cart_service.model.CartItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ActiveCartStore} and {@link CartWriteLog}
+ */
+@ExtendWith(MockitoExtension.class)
+class ActiveCartStoreTest {
+
+    @TempDir
+    Path logDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<ActiveCartStore> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jdbcTemplate.batchUpdate(eq(ActiveCartStore.UPDATE_CART_SQL), anyList()))
+                .thenAnswer(inv -> ones(inv.<List<?>>getArgument(1).size()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (ActiveCartStore store : started) {
+            store.stop();
+        }
+    }
+
+    private static int[] ones(int size) {
+        int[] counts = new int[size];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+
+    private ActiveCartStore startStore() throws Exception {
+        ActiveCartStore store = new ActiveCartStore(jdbcTemplate, transactionManager);
+        setField(store, "mode", "memory");
+        setField(store, "shardCount", 4);
+        setField(store, "logDir", logDir.toString());
+        setField(store, "flushMillis", 3_600_000L);
+        store.start();
+        started.add(store);
+        return store;
+    }
+
+    private static void setField(ActiveCartStore store, String name, Object value) throws Exception {
+        var field = ActiveCartStore.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(store, value);
+    }
+
+    private static Cart cart(Long id, Long userId) {
+        return Cart.builder()
+                .id(id)
+                .userId(userId)
+                .totalAmount(BigDecimal.ZERO)
+                .createdAt(LocalDateTime.of(2025, 10, 21, 10, 0))
+                .updatedAt(LocalDateTime.of(2025, 10, 21, 10, 0))
+                .build();
+    }
+
+    private static void addLine(Cart cart, Long productId, int quantity, String price) {
+        CartItem item = CartItem.builder().productId(productId).quantity(quantity).build();
+        item.price(new BigDecimal(price), 1L, "Product " + productId);
+        cart.addItem(item);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(logDir)) {
+            return files.count();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> rowsWritten(String sql) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(sql), rows.capture());
+        return rows.getValue();
+    }
+
+    // ==================== WRITE-BEHIND TESTS ====================
+
+    @Test
+    void testSave_ShouldServeCopiesWithoutTouchingDatabase() throws Exception {
+        ActiveCartStore store = startStore();
+        Cart cart = store.load(cart(1L, 7L));
+        addLine(cart, 101L, 2, "5.99");
+
+        store.save(cart);
+        Cart found = store.find(7L).orElseThrow();
+        found.clearItems();
+
+        assertThat(store.find(7L).orElseThrow().getItems()).extracting(CartItem::getQuantity).containsExactly(2);
+        assertThat(store.find(7L).orElseThrow().getTotalAmount()).isEqualByComparingTo("11.98");
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testFlush_ShouldWriteLatestContentOncePerCart() throws Exception {
+        ActiveCartStore store = startStore();
+        Cart cart = store.load(cart(1L, 7L));
+        addLine(cart, 101L, 2, "5.99");
+        store.save(cart);
+        cart.addToTotal(cart.getItems().get(0).incrementQuantity(1));
+        store.save(cart);
+
+        assertThat(store.flush()).isEqualTo(1);
+
+        List<Object[]> cartRows = rowsWritten(ActiveCartStore.UPDATE_CART_SQL);
+        assertThat(cartRows).hasSize(1);
+        assertThat((BigDecimal) cartRows.get(0)[0]).isEqualByComparingTo("17.97");
+        List<Object[]> lineRows = rowsWritten(ActiveCartStore.UPSERT_LINE_SQL);
+        assertThat(lineRows).hasSize(1);
+        assertThat(lineRows.get(0)[1]).isEqualTo(101L);
+        assertThat(lineRows.get(0)[2]).isEqualTo(3);
+        assertThat((Long[]) rowsWritten(ActiveCartStore.DELETE_REMOVED_LINES_SQL).get(0)[1]).containsExactly(101L);
+        assertThat(store.flush()).isZero();
+        assertThat(segmentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testSave_UnchangedCart_ShouldNotMarkDirty() throws Exception {
+        ActiveCartStore store = startStore();
+        Cart cart = store.load(cart(1L, 7L));
+
+        store.save(cart);
+
+        assertThat(store.flush()).isZero();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testFlush_DatabaseDown_ShouldKeepCartsDirtyAndLog() throws Exception {
+        ActiveCartStore store = startStore();
+        Cart cart = store.load(cart(1L, 7L));
+        addLine(cart, 101L, 2, "5.99");
+        store.save(cart);
+        doThrow(new DataAccessResourceFailureException("database down"))
+                .when(jdbcTemplate).batchUpdate(eq(ActiveCartStore.UPDATE_CART_SQL), anyList());
+        when(jdbcTemplate.queryForObject(ActiveCartStore.PING_SQL, Integer.class))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        assertThatThrownBy(store::flush).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(segmentCount()).isEqualTo(2);
+
+        doReturn(new int[]{1}).when(jdbcTemplate).batchUpdate(eq(ActiveCartStore.UPDATE_CART_SQL), anyList());
+        assertThat(store.flush()).isEqualTo(1);
+        assertThat(segmentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFlush_CartRejected_ShouldWriteOthersAndQuarantineIt() throws Exception {
+        ActiveCartStore store = startStore();
+        Cart rejected = store.load(cart(1L, 7L));
+        addLine(rejected, 101L, 2, "5.99");
+        store.save(rejected);
+        Cart accepted = store.load(cart(2L, 8L));
+        addLine(accepted, 102L, 1, "12.99");
+        store.save(accepted);
+        when(jdbcTemplate.batchUpdate(eq(ActiveCartStore.UPDATE_CART_SQL), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            if (rows.stream().anyMatch(row -> Long.valueOf(1L).equals(row[2]))) {
+                throw new DataIntegrityViolationException("value out of range");
+            }
+            return ones(rows.size());
+        });
+
+        assertThat(store.flush()).isEqualTo(1);
+
+        assertThat(store.find(7L)).isEmpty();
+        assertThat(store.find(8L)).isPresent();
+        assertThat(store.takeQuarantined(8L)).isFalse();
+        assertThat(store.flush()).isZero();
+        try (Stream<Path> files = Files.list(logDir.resolve(CartWriteLog.QUARANTINE_DIR))) {
+            List<Path> quarantined = files.toList();
+            assertThat(quarantined).hasSize(1);
+            assertThat(Files.readString(quarantined.get(0))).contains("\"userId\":7");
+        }
+        assertThat(segmentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testTakeQuarantined_ShouldReportRejectedCartOnceUntilNextSave() throws Exception {
+        ActiveCartStore store = startStore();
+        Cart rejected = store.load(cart(1L, 7L));
+        addLine(rejected, 101L, 2, "5.99");
+        store.save(rejected);
+        when(jdbcTemplate.batchUpdate(eq(ActiveCartStore.UPDATE_CART_SQL), anyList()))
+                .thenThrow(new DataIntegrityViolationException("value out of range"));
+
+        store.flush();
+
+        assertThat(store.takeQuarantined(7L)).isTrue();
+        assertThat(store.takeQuarantined(7L)).isFalse();
+
+        store.flush();
+        Cart reloaded = store.load(cart(1L, 7L));
+        addLine(reloaded, 102L, 1, "12.99");
+        store.save(reloaded);
+
+        assertThat(store.takeQuarantined(7L)).isFalse();
+    }
+
+    @Test
+    void testFlush_CartNoLongerActive_ShouldSkipLinesAndDropIt() throws Exception {
+        ActiveCartStore store = startStore();
+        Cart cart = store.load(cart(1L, 7L));
+        addLine(cart, 101L, 2, "5.99");
+        store.save(cart);
+        doReturn(new int[]{0}).when(jdbcTemplate).batchUpdate(eq(ActiveCartStore.UPDATE_CART_SQL), anyList());
+
+        store.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(eq(ActiveCartStore.UPSERT_LINE_SQL), anyList());
+        assertThat(store.find(7L)).isEmpty();
+    }
+
+    // ==================== RECOVERY TESTS ====================
+
+    @Test
+    void testStart_ShouldReplayLogLeftByCrash() throws Exception {
+        ActiveCartStore crashed = startStore();
+        Cart cart = crashed.load(cart(1L, 7L));
+        addLine(cart, 101L, 2, "5.99");
+        crashed.save(cart);
+        addLine(cart, 102L, 1, "12.99");
+        crashed.save(cart);
+        started.clear();
+        Files.writeString(Files.list(logDir).findFirst().orElseThrow(), "{\"id\":1,\"us",
+                StandardOpenOption.APPEND);
+
+        ActiveCartStore restarted = startStore();
+
+        assertThat(restarted.find(7L).orElseThrow().getItems()).extracting(CartItem::getProductId)
+                .containsExactly(101L, 102L);
+        assertThat(restarted.flush()).isEqualTo(1);
+        assertThat(rowsWritten(ActiveCartStore.UPSERT_LINE_SQL)).hasSize(2);
+        assertThat(segmentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testStart_DatabaseMode_ShouldNotCreateLog() throws Exception {
+        ActiveCartStore store = new ActiveCartStore(jdbcTemplate, transactionManager);
+        setField(store, "logDir", logDir.resolve("unused").toString());
+
+        store.start();
+
+        assertThat(store.isEnabled()).isFalse();
+        assertThat(Files.exists(logDir.resolve("unused"))).isFalse();
+    }
+}
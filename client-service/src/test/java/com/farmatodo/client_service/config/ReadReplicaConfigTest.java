@@ -0,0 +1,63 @@
+package com.farmatodo.client_service.config;
+
+import com.farmatodo.replica.ReplicaLagMonitor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read replica routing from the replica-datasource module, auto-configured into client-service
+ * and run against two H2 databases: testdb as primary and replicadb as replica
+ */
+@SpringBootTest(properties = {
+        "replica.datasource.url=jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1",
+        "replica.datasource.lagQuery=SELECT 0"
+})
+class ReadReplicaConfigTest {
+
+    private static final String DATABASE_QUERY = "SELECT DATABASE()";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    private String databaseIn(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject(DATABASE_QUERY, String.class));
+    }
+
+    @Test
+    void testReadOnlyTransaction_ShouldRunOnReplica() {
+        assertThat(databaseIn(true)).isEqualToIgnoringCase("replicadb");
+    }
+
+    @Test
+    void testReadWriteTransaction_ShouldRunOnPrimary() {
+        assertThat(databaseIn(false)).isEqualToIgnoringCase("testdb");
+    }
+
+    @Test
+    void testReadOnlyTransaction_ReplicaOutOfRotation_ShouldRunOnPrimary() {
+        replicaLagMonitor.markUnavailable(new IllegalStateException("test"));
+        try {
+            assertThat(databaseIn(true)).isEqualToIgnoringCase("testdb");
+        } finally {
+            replicaLagMonitor.check();
+        }
+        assertThat(replicaLagMonitor.isReplicaAvailable()).isTrue();
+    }
+}
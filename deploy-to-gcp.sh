@@ -76,6 +76,10 @@ step_1_authenticate() {
 step_2_build_services() {
     print_header "Step 2: Build All Services"
 
+    echo "Installing shared replica-datasource and product-snapshot modules..."
+    mvn -q -f replica-datasource/pom.xml install -DskipTests
+    mvn -q -f product-snapshot/pom.xml install -DskipTests
+
     for service in "${SERVICES[@]}"; do
         echo "Building ${service}..."
         cd "${service}"
@@ -98,9 +102,17 @@ step_3_build_docker_images() {
 
     for service in "${SERVICES[@]}"; do
         echo "Building Docker image for ${service}..."
-        cd "${service}"
-        docker build -t "farmatodo/${service}:latest" .
-        cd ..
+        case "${service}" in
+            client-service|product-service|cart-service)
+                # Built from the repository root so the image can compile the shared modules
+                docker build -f "${service}/Dockerfile" -t "farmatodo/${service}:latest" .
+                ;;
+            *)
+                cd "${service}"
+                docker build -t "farmatodo/${service}:latest" .
+                cd ..
+                ;;
+        esac
         print_success "Docker image built for ${service}"
     done
 }
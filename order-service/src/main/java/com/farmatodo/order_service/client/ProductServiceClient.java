@@ -1,6 +1,8 @@
 package com.farmatodo.order_service.client;
 
 import com.farmatodo.order_service.dto.ProductDTO;
+import com.farmatodo.order_service.dto.ProductPageDTO;
+import com.farmatodo.order_service.dto.StockReservationDTO;
 import com.farmatodo.order_service.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -12,8 +14,10 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -21,6 +25,7 @@ import java.util.List;
 public class ProductServiceClient {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceClient.class);
+    private static final int ALL_PRODUCTS_PAGE_SIZE = 500;
 
     private final RestTemplate restTemplate;
 
@@ -107,31 +112,42 @@ public class ProductServiceClient {
 
     public List<ProductDTO> getAllProducts() {
         try {
-            String url = productServiceUrl + "/products/all";
-
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "ApiKey " + apiKey);
             HttpEntity<Void> entity = new HttpEntity<>(headers);
 
             logger.info("Fetching all products from product-service");
 
-            ResponseEntity<List<ProductDTO>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<List<ProductDTO>>() {}
-            );
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                logger.info("Successfully fetched {} products", response.getBody().size());
-                return response.getBody();
-            } else {
-                throw new BusinessException(
-                        "Failed to fetch all products",
-                        "PRODUCTS_FETCH_FAILED",
-                        500
+            // product-service pages the catalog; follow nextCursor until the last page
+            List<ProductDTO> products = new ArrayList<>();
+            String cursor = null;
+            do {
+                String url = productServiceUrl + "/products/all?limit=" + ALL_PRODUCTS_PAGE_SIZE
+                        + (cursor != null ? "&cursor=" + cursor : "");
+
+                ResponseEntity<ProductPageDTO> response = restTemplate.exchange(
+                        url,
+                        HttpMethod.GET,
+                        entity,
+                        ProductPageDTO.class
                 );
-            }
+
+                if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                    throw new BusinessException(
+                            "Failed to fetch all products",
+                            "PRODUCTS_FETCH_FAILED",
+                            500
+                    );
+                }
+
+                if (response.getBody().getProducts() != null) {
+                    products.addAll(response.getBody().getProducts());
+                }
+                cursor = response.getBody().getNextCursor();
+            } while (cursor != null);
+
+            logger.info("Successfully fetched {} products", products.size());
+            return products;
         } catch (Exception e) {
             logger.error("Error fetching all products", e);
             throw new BusinessException(
@@ -141,4 +157,78 @@ public class ProductServiceClient {
             );
         }
     }
+
+    /**
+     * Reserves the stock of every item of an order; all items are reserved or none is
+     * @throws BusinessException INSUFFICIENT_STOCK (409) when any product is short
+     */
+    public StockReservationDTO reserveStock(StockReservationDTO reservation) {
+        try {
+            logger.info("Reserving stock in product-service for orderId: {}, {} items",
+                    reservation.getOrderId(), reservation.getItems().size());
+
+            StockReservationDTO response = postReservation("/products/stock/reserve", reservation);
+
+            logger.info("Successfully reserved stock for orderId: {}", reservation.getOrderId());
+            return response;
+        } catch (HttpClientErrorException.Conflict e) {
+            logger.warn("Insufficient stock for orderId: {}", reservation.getOrderId());
+            throw new BusinessException(
+                    "Insufficient stock for one or more products",
+                    "INSUFFICIENT_STOCK",
+                    409
+            );
+        } catch (Exception e) {
+            logger.error("Error reserving stock for orderId: {}", reservation.getOrderId(), e);
+            throw new BusinessException(
+                    "Product service unavailable",
+                    "PRODUCT_SERVICE_ERROR",
+                    500
+            );
+        }
+    }
+
+    /**
+     * Returns the stock of a previous reservation
+     */
+    public StockReservationDTO releaseStock(StockReservationDTO reservation) {
+        try {
+            logger.info("Releasing stock in product-service for orderId: {}", reservation.getOrderId());
+
+            StockReservationDTO response = postReservation("/products/stock/release", reservation);
+
+            logger.info("Successfully released stock for orderId: {}", reservation.getOrderId());
+            return response;
+        } catch (Exception e) {
+            logger.error("Error releasing stock for orderId: {}", reservation.getOrderId(), e);
+            throw new BusinessException(
+                    "Product service unavailable",
+                    "PRODUCT_SERVICE_ERROR",
+                    500
+            );
+        }
+    }
+
+    private StockReservationDTO postReservation(String path, StockReservationDTO reservation) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "ApiKey " + apiKey);
+        headers.set("Content-Type", "application/json");
+        HttpEntity<StockReservationDTO> entity = new HttpEntity<>(reservation, headers);
+
+        ResponseEntity<StockReservationDTO> response = restTemplate.exchange(
+                productServiceUrl + path,
+                HttpMethod.POST,
+                entity,
+                StockReservationDTO.class
+        );
+
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            return response.getBody();
+        }
+        throw new BusinessException(
+                "Failed to update product stock",
+                "STOCK_UPDATE_FAILED",
+                500
+        );
+    }
 }
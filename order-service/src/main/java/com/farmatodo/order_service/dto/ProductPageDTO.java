@@ -0,0 +1,21 @@
+package com.farmatodo.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of the product-service catalog listing
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageDTO {
+    private Integer totalResults;
+    private List<ProductDTO> products;
+    private String nextCursor;
+}
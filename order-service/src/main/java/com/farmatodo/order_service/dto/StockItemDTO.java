@@ -0,0 +1,15 @@
+package com.farmatodo.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockItemDTO {
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,18 @@
+package com.farmatodo.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+    private Long orderId;
+    private String status; // RESERVED or RELEASED (responses only)
+    private List<StockItemDTO> items;
+}
@@ -2,6 +2,7 @@ package com.farmatodo.order_service.service;
 
 import com.farmatodo.order_service.client.CartServiceClient;
 import com.farmatodo.order_service.client.ClientServiceClient;
+import com.farmatodo.order_service.client.ProductServiceClient;
 import com.farmatodo.order_service.client.TokenServiceClient;
 import com.farmatodo.order_service.dto.*;
 import com.farmatodo.order_service.exception.BusinessException;
@@ -13,7 +14,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -30,10 +30,14 @@ public class OrderService {
     private final ClientServiceClient clientServiceClient;
     private final TokenServiceClient tokenServiceClient;
     private final CartServiceClient cartServiceClient;
+    private final ProductServiceClient productServiceClient;
     private final LogService logService;
     private final EmailService emailService;
 
-    @Transactional
+    /**
+     * Not transactional on purpose: every save commits on its own, so the PENDING order row exists
+     * before product-service is called and no database transaction stays open across remote calls
+     */
     public OrderResponseDTO createOrder(CreateOrderRequestDTO request) {
         String transactionId = MDC.get("transactionId");
         logger.info("Creating order - TransactionId: {}, ClientId: {}", transactionId, request.getClientId());
@@ -111,7 +115,40 @@ public class OrderService {
         logService.logInfo("Order entity created",
                 String.format("OrderId: %d, TotalAmount: %s", order.getId(), order.getTotalAmount()));
 
-        // Step 4: Process payment
+        // Step 4: Reserve stock, all items or none
+        StockReservationDTO reservation = StockReservationDTO.builder()
+                .orderId(order.getId())
+                .items(order.getItems().stream()
+                        .map(item -> StockItemDTO.builder()
+                                .productId(item.getProductId())
+                                .quantity(item.getQuantity())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+        try {
+            logger.info("Reserving stock for order: {}", order.getId());
+            productServiceClient.reserveStock(reservation);
+            logService.logInfo("Stock reserved",
+                    String.format("OrderId: %d, Items: %d", order.getId(), reservation.getItems().size()));
+        } catch (Exception e) {
+            order.setStatus("REJECTED");
+            order.setRejectionReason("Stock reservation failed: " + e.getMessage());
+            logger.warn("Stock reservation failed for order: {} - Error: {}", order.getId(), e.getMessage());
+            logService.logWarn("Stock reservation failed",
+                    String.format("OrderId: %d, Error: %s", order.getId(), e.getMessage()));
+
+            // Only a conflict answer says nothing was taken; after a timeout or a 5xx the reservation
+            // may have committed. Release is keyed by order id and idempotent, and also stops a
+            // reserve still in flight from taking stock later
+            if (!isInsufficientStock(e)) {
+                releaseStock(reservation);
+            }
+
+            order = orderRepository.save(order);
+            return convertToDTO(order);
+        }
+
+        // Step 5: Process payment
         logger.info("Processing payment for order: {}", order.getId());
         order.setStatus("PROCESSING");
         order = orderRepository.save(order);
@@ -196,6 +233,11 @@ public class OrderService {
                     String.format("OrderId: %d, Error: %s", order.getId(), e.getMessage()));
         }
 
+        // Give the reserved stock back if the order was not paid
+        if ("REJECTED".equals(order.getStatus())) {
+            releaseStock(reservation);
+        }
+
         // Save final order state
         order = orderRepository.save(order);
 
@@ -221,6 +263,24 @@ public class OrderService {
         return convertToDTO(order);
     }
 
+    private static boolean isInsufficientStock(Exception e) {
+        return e instanceof BusinessException business && "INSUFFICIENT_STOCK".equals(business.getErrorCode());
+    }
+
+    private void releaseStock(StockReservationDTO reservation) {
+        try {
+            logger.info("Releasing reserved stock for order: {}", reservation.getOrderId());
+            productServiceClient.releaseStock(reservation);
+            logService.logInfo("Stock released",
+                    String.format("OrderId: %d", reservation.getOrderId()));
+        } catch (Exception ex) {
+            logger.warn("Failed to release stock for order: {} - Error: {}",
+                    reservation.getOrderId(), ex.getMessage());
+            logService.logWarn("Stock release failed",
+                    String.format("OrderId: %d, Error: %s", reservation.getOrderId(), ex.getMessage()));
+        }
+    }
+
     private OrderResponseDTO convertToDTO(Order order) {
         List<OrderItemResponseDTO> items = order.getItems().stream()
                 .map(item -> OrderItemResponseDTO.builder()
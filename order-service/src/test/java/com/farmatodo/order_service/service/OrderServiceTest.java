@@ -2,6 +2,7 @@ package com.farmatodo.order_service.service;
 
 import com.farmatodo.order_service.client.CartServiceClient;
 import com.farmatodo.order_service.client.ClientServiceClient;
+import com.farmatodo.order_service.client.ProductServiceClient;
 import com.farmatodo.order_service.client.TokenServiceClient;
 import com.farmatodo.order_service.dto.*;
 import com.farmatodo.order_service.exception.BusinessException;
@@ -26,6 +27,7 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -51,6 +53,9 @@ class OrderServiceTest {
     @Mock
     private TokenServiceClient tokenServiceClient;
 
+    @Mock
+    private ProductServiceClient productServiceClient;
+
     @Mock
     private LogService logService;
 
@@ -262,6 +267,103 @@ class OrderServiceTest {
         verify(cartServiceClient, never()).clearCart(anyLong());
     }
 
+    // ==================== STOCK RESERVATION TESTS ====================
+
+    @Test
+    void testCreateOrder_ShouldReserveStockForEveryItemBeforePayment() {
+        // Arrange
+        when(cartServiceClient.getCartByUserId(1L)).thenReturn(validCart);
+        when(clientServiceClient.getClientById(1L)).thenReturn(validClient);
+        when(tokenServiceClient.processPayment(any(PaymentRequestDTO.class))).thenReturn(approvedPayment);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+
+        ArgumentCaptor<StockReservationDTO> reservationCaptor = ArgumentCaptor.forClass(StockReservationDTO.class);
+
+        // Act
+        orderService.createOrder(validOrderRequest);
+
+        // Assert
+        var inOrder = inOrder(productServiceClient, tokenServiceClient);
+        inOrder.verify(productServiceClient).reserveStock(reservationCaptor.capture());
+        inOrder.verify(tokenServiceClient).processPayment(any(PaymentRequestDTO.class));
+        verify(productServiceClient, never()).releaseStock(any());
+
+        StockReservationDTO reservation = reservationCaptor.getValue();
+        assertThat(reservation.getOrderId()).isEqualTo(1L);
+        assertThat(reservation.getItems()).extracting("productId", "quantity")
+                .containsExactly(tuple(101L, 2), tuple(102L, 1));
+    }
+
+    @Test
+    void testCreateOrder_InsufficientStock_ShouldRejectWithoutPayment() {
+        // Arrange
+        when(cartServiceClient.getCartByUserId(1L)).thenReturn(validCart);
+        when(clientServiceClient.getClientById(1L)).thenReturn(validClient);
+        when(productServiceClient.reserveStock(any(StockReservationDTO.class)))
+                .thenThrow(new BusinessException("Insufficient stock for one or more products", "INSUFFICIENT_STOCK", 409));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+
+        // Act
+        OrderResponseDTO response = orderService.createOrder(validOrderRequest);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo("REJECTED");
+        assertThat(response.getRejectionReason()).contains("Insufficient stock");
+        verify(tokenServiceClient, never()).processPayment(any());
+        verify(productServiceClient, never()).releaseStock(any());
+        verify(cartServiceClient, never()).clearCart(anyLong());
+    }
+
+    @Test
+    void testCreateOrder_StockServiceUnavailable_ShouldRejectAndReleaseByOrderId() {
+        // Arrange
+        when(cartServiceClient.getCartByUserId(1L)).thenReturn(validCart);
+        when(clientServiceClient.getClientById(1L)).thenReturn(validClient);
+        when(productServiceClient.reserveStock(any(StockReservationDTO.class)))
+                .thenThrow(new BusinessException("Product service unavailable", "PRODUCT_SERVICE_ERROR", 500));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+
+        // Act
+        OrderResponseDTO response = orderService.createOrder(validOrderRequest);
+
+        // Assert: the reserve may have committed before the failure, so it is released
+        assertThat(response.getStatus()).isEqualTo("REJECTED");
+        verify(productServiceClient).releaseStock(argThat(reservation -> reservation.getOrderId().equals(1L)));
+        verify(tokenServiceClient, never()).processPayment(any());
+    }
+
+    @Test
+    void testCreateOrder_PaymentRejected_ShouldReleaseReservedStock() {
+        // Arrange
+        when(cartServiceClient.getCartByUserId(1L)).thenReturn(validCart);
+        when(clientServiceClient.getClientById(1L)).thenReturn(validClient);
+        when(tokenServiceClient.processPayment(any(PaymentRequestDTO.class))).thenReturn(rejectedPayment);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+
+        // Act
+        orderService.createOrder(validOrderRequest);
+
+        // Assert
+        verify(productServiceClient).releaseStock(argThat(reservation ->
+                reservation.getOrderId().equals(1L) && reservation.getItems().size() == 2));
+    }
+
     // ==================== PAYMENT REJECTION TESTS ====================
 
     @Test
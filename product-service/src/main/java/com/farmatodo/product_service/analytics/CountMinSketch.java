@@ -0,0 +1,96 @@
+package com.farmatodo.product_service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch: approximate per-term counts in fixed memory (depth x width counters)
+ * Estimates never undercount; they overcount by at most ~2/width of the total with high probability
+ *
+ * Counters are linear, so a sketch can be subtracted from another built with the same
+ * dimensions, which is what lets {@link WindowedHeavyHitters} expire old time buckets
+ *
+ * Not thread-safe; callers guard access
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[width * depth];
+    }
+
+    /**
+     * Adds occurrences of an item
+     * @return Estimated count of the item after the update
+     */
+    public long add(String item, long count) {
+        int h1 = mix(item.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + Math.floorMod(h1 + row * h2, width);
+            counters[index] += count;
+            estimate = Math.min(estimate, counters[index]);
+        }
+        total += count;
+        return estimate;
+    }
+
+    /**
+     * @return Estimated count of the item (never lower than the true count)
+     */
+    public long estimate(String item) {
+        int h1 = mix(item.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + Math.floorMod(h1 + row * h2, width)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Removes the counts of another sketch with the same dimensions
+     */
+    public void subtract(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketch dimensions do not match");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] -= other.counters[i];
+        }
+        total -= other.total;
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0L);
+        total = 0;
+    }
+
+    /**
+     * @return Exact number of occurrences added (minus subtracted)
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Murmur3 32-bit finalizer, spreads String.hashCode bits across the row index
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,160 @@
+package com.farmatodo.product_service.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Sliding-window heavy hitters: the most frequent terms of the last window
+ * The window is split into time buckets, each with its own {@link CountMinSketch}; a running
+ * window sketch holds their sum, and when a bucket expires its sketch is subtracted
+ *
+ * Candidate terms are kept in a bounded min-heap keyed by their window estimate: a new term
+ * only enters when its estimate beats the current minimum, so memory stays fixed
+ * regardless of how many distinct terms are seen
+ *
+ * Not thread-safe; callers guard access
+ */
+public class WindowedHeavyHitters {
+
+    /**
+     * Term and its estimated count in the window
+     */
+    public record TermCount(String term, long count) {
+    }
+
+    private final long bucketMillis;
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch window;
+    private final int capacity;
+
+    private final Map<String, Candidate> candidates = new HashMap<>();
+    private final PriorityQueue<Candidate> heap = new PriorityQueue<>(
+            Comparator.comparingLong((Candidate c) -> c.count).thenComparing(c -> c.term));
+
+    private long currentBucket = Long.MIN_VALUE;
+
+    /**
+     * @param windowMillis Window length
+     * @param bucketCount Number of buckets the window is split into (expiry granularity)
+     * @param capacity Number of candidate terms tracked
+     * @param sketchWidth Counters per sketch row
+     * @param sketchDepth Sketch rows (hash functions)
+     */
+    public WindowedHeavyHitters(long windowMillis, int bucketCount, int capacity, int sketchWidth, int sketchDepth) {
+        if (bucketCount <= 0 || capacity <= 0 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("Invalid heavy hitter window configuration");
+        }
+        this.bucketMillis = windowMillis / bucketCount;
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(sketchWidth, sketchDepth);
+        }
+        this.window = new CountMinSketch(sketchWidth, sketchDepth);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records one occurrence of a term
+     * @param term Normalized term
+     * @param nowMillis Current time
+     */
+    public void add(String term, long nowMillis) {
+        advance(nowMillis);
+        buckets[slot(currentBucket)].add(term, 1);
+        long estimate = window.add(term, 1);
+
+        Candidate candidate = candidates.get(term);
+        if (candidate != null) {
+            heap.remove(candidate);
+            candidate.count = estimate;
+            heap.add(candidate);
+        } else if (candidates.size() < capacity) {
+            offer(term, estimate);
+        } else if (estimate > heap.peek().count) {
+            candidates.remove(heap.poll().term);
+            offer(term, estimate);
+        }
+    }
+
+    /**
+     * @param limit Maximum number of terms
+     * @param nowMillis Current time
+     * @return Most frequent terms of the window, highest count first
+     */
+    public List<TermCount> top(int limit, long nowMillis) {
+        advance(nowMillis);
+        List<TermCount> result = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates.values()) {
+            result.add(new TermCount(candidate.term, candidate.count));
+        }
+        result.sort(Comparator.comparingLong(TermCount::count).reversed().thenComparing(TermCount::term));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * @return Exact number of occurrences in the window
+     */
+    public long total(long nowMillis) {
+        advance(nowMillis);
+        return window.total();
+    }
+
+    /**
+     * Moves the window forward, expiring every bucket that fell out of it
+     */
+    private void advance(long nowMillis) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        if (currentBucket == Long.MIN_VALUE) {
+            currentBucket = bucket;
+            return;
+        }
+        if (bucket <= currentBucket) {
+            return;
+        }
+
+        long steps = Math.min(bucket - currentBucket, buckets.length);
+        for (long i = 1; i <= steps; i++) {
+            CountMinSketch expired = buckets[slot(currentBucket + i)];
+            window.subtract(expired);
+            expired.clear();
+        }
+        currentBucket = bucket;
+        refreshCandidates();
+    }
+
+    /**
+     * Re-estimates candidates against the shrunken window and drops those that left it
+     */
+    private void refreshCandidates() {
+        heap.clear();
+        candidates.values().removeIf(candidate -> {
+            candidate.count = window.estimate(candidate.term);
+            return candidate.count <= 0;
+        });
+        heap.addAll(candidates.values());
+    }
+
+    private void offer(String term, long estimate) {
+        Candidate candidate = new Candidate(term, estimate);
+        candidates.put(term, candidate);
+        heap.add(candidate);
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.length);
+    }
+
+    private static final class Candidate {
+        private final String term;
+        private long count;
+
+        private Candidate(String term, long count) {
+            this.term = term;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.farmatodo.product_service.cache;
+
+import com.farmatodo.product_service.dto.ProductDTO;
+import com.farmatodo.product_service.event.ProductChangeListener;
+import com.farmatodo.product_service.event.ProductChangePoller;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Serialized UTF-8 JSON of single products, as returned by GET /products/{id}
+ *
+ * Reads are served from memory without touching the database. Entries are dropped when the product
+ * changes: stock writes of this instance invalidate directly, and changes made by any instance arrive
+ * through {@link ProductChangePoller}, so another instance's write is visible here within
+ * product.changes.pollMillis. Each entry remembers the product version it was serialized from: a
+ * change only evicts older entries, and a put never replaces a newer one. A read that raced a change
+ * and cached the old row is evicted again when the poller redelivers the change within its overlap.
+ * Products without a version (not changed since the column was added) are keyed as version 0. The
+ * cache is bounded by the total size of the JSON held (product.json.cache.maxBytes).
+ *
+ * Hit, miss and eviction counts are published as cache.* meters with cache=product.json
+ */
+@Component
+public class ProductJsonCache implements MeterBinder, ProductChangeListener {
+
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    private final Cache<Long, Entry> cache;
+    private final ObjectWriter writer;
+
+    public ProductJsonCache(ObjectMapper objectMapper,
+                            @Value("${product.json.cache.maxBytes:67108864}") long maxBytes) {
+        this.writer = objectMapper.writerFor(ProductDTO.class);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Entry entry) -> entry.json().length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return The cached JSON of the product, or null when it is not cached
+     */
+    public byte[] get(long id) {
+        Entry entry = cache.getIfPresent(id);
+        return entry != null ? entry.json() : null;
+    }
+
+    /**
+     * Serializes a product and caches it, unless a newer version is already cached
+     * @return The serialized JSON
+     */
+    public byte[] put(ProductDTO product) {
+        byte[] json;
+        try {
+            json = writer.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize product " + product.getId(), e);
+        }
+        Entry serialized = new Entry(versionKey(product.getVersion()), json);
+        cache.asMap().merge(product.getId(), serialized,
+                (cached, candidate) -> cached.version() > candidate.version() ? cached : candidate);
+        return json;
+    }
+
+    /**
+     * Drops the cached JSON of a product written by this instance
+     */
+    public void invalidate(long id) {
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void onProductChanges(List<ProductChange> changes) {
+        for (ProductChange change : changes) {
+            long version = versionKey(change.getVersion());
+            cache.asMap().computeIfPresent(change.getId(),
+                    (id, cached) -> cached.version() < version ? null : cached);
+        }
+    }
+
+    /**
+     * Joins serialized products into a JSON array with a single copy of each slice
+     */
+    public static byte[] toJsonArray(List<byte[]> products) {
+        if (products.isEmpty()) {
+            return EMPTY_ARRAY.clone();
+        }
+        int length = 1 + products.size();
+        for (byte[] product : products) {
+            length += product.length;
+        }
+        byte[] array = new byte[length];
+        int position = 0;
+        for (byte[] product : products) {
+            array[position] = (byte) (position == 0 ? '[' : ',');
+            position++;
+            System.arraycopy(product, 0, array, position, product.length);
+            position += product.length;
+        }
+        array[position] = ']';
+        return array;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "product.json");
+    }
+
+    private static long versionKey(Long version) {
+        return version == null ? 0L : version;
+    }
+
+    private record Entry(long version, byte[] json) {
+    }
+}
@@ -1,30 +1,64 @@
 package com.farmatodo.product_service.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 /**
  * Configuration for asynchronous task execution
  * Enables @Async annotations throughout the application
+ *
+ * Tasks run on a bounded thread pool; when all threads are busy and the queue is full the
+ * async.executor.saturationPolicy is applied (CALLER_RUNS, DROP_OLDEST, BLOCK or ABORT).
+ * Publishes async.executor.queue.size, async.executor.active and async.executor.rejected
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    static final String THREAD_NAME_PREFIX = "async-search-";
+    static final int AWAIT_TERMINATION_SECONDS = 60;
+
+    @Bean
+    public AsyncExecutorMonitor asyncExecutorMonitor() {
+        return new AsyncExecutorMonitor();
+    }
+
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public AsyncTaskExecutor taskExecutor(
+            AsyncExecutorMonitor asyncExecutorMonitor,
+            @Value("${async.executor.corePoolSize:2}") int corePoolSize,
+            @Value("${async.executor.maxPoolSize:5}") int maxPoolSize,
+            @Value("${async.executor.queueCapacity:100}") int queueCapacity,
+            @Value("${async.executor.saturationPolicy:CALLER_RUNS}") SaturationPolicy saturationPolicy,
+            @Value("${async.executor.blockTimeoutMillis:1000}") long blockTimeoutMillis) {
+        logger.info("Async executor: thread pool - core: {}, max: {}, queue: {}, saturationPolicy: {}",
+                corePoolSize, maxPoolSize, queueCapacity, saturationPolicy);
+        return threadPoolExecutor(asyncExecutorMonitor, corePoolSize, maxPoolSize, queueCapacity,
+                saturationPolicy, blockTimeoutMillis);
+    }
+
+    static ThreadPoolTaskExecutor threadPoolExecutor(AsyncExecutorMonitor monitor, int corePoolSize, int maxPoolSize,
+                                                     int queueCapacity, SaturationPolicy saturationPolicy,
+                                                     long blockTimeoutMillis) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("async-search-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.setTaskDecorator(monitor);
+        executor.setRejectedExecutionHandler(monitor.counting(saturationPolicy.handler(blockTimeoutMillis)));
         executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
+        executor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
         executor.initialize();
+        monitor.setQueueDepth(executor::getQueueSize);
         return executor;
     }
 }
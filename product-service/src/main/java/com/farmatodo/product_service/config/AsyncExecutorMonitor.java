@@ -0,0 +1,91 @@
+package com.farmatodo.product_service.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Queue depth, running tasks and saturation events of the async task executor,
+ * published as async.executor.* meters
+ *
+ * Running tasks are counted by decorating each task. The decorator also carries the submitter's MDC
+ * (transactionId) over to the thread that runs the task
+ */
+public class AsyncExecutorMonitor implements MeterBinder, TaskDecorator {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile IntSupplier queueDepth = () -> 0;
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(context);
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+                setContext(previous);
+            }
+        };
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
+    /**
+     * Wraps a saturation policy so every time it is applied is counted
+     */
+    public RejectedExecutionHandler counting(RejectedExecutionHandler handler) {
+        return (task, executor) -> {
+            rejected.incrementAndGet();
+            handler.rejectedExecution(task, executor);
+        };
+    }
+
+    void setQueueDepth(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("async.executor.queue.size", this, AsyncExecutorMonitor::getQueueDepth)
+                .description("Async tasks waiting for a thread")
+                .register(registry);
+        Gauge.builder("async.executor.active", active, AtomicInteger::get)
+                .description("Async tasks running")
+                .register(registry);
+        FunctionCounter.builder("async.executor.rejected", rejected, AtomicLong::get)
+                .description("Async tasks that found the executor saturated and were handled by the saturation policy")
+                .register(registry);
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,58 @@
+package com.farmatodo.product_service.config;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the async thread pool does with a task when all threads are busy and the queue is full
+ * (async.executor.saturationPolicy)
+ */
+public enum SaturationPolicy {
+
+    /**
+     * Run the task on the submitting thread, slowing the producer down
+     */
+    CALLER_RUNS,
+
+    /**
+     * Discard the oldest queued task and queue the new one
+     */
+    DROP_OLDEST,
+
+    /**
+     * Wait up to async.executor.blockTimeoutMillis for queue space, then reject
+     */
+    BLOCK,
+
+    /**
+     * Reject the task (TaskRejectedException to the caller)
+     */
+    ABORT;
+
+    /**
+     * @param blockTimeoutMillis Maximum wait for queue space with {@link #BLOCK}
+     */
+    public RejectedExecutionHandler handler(long blockTimeoutMillis) {
+        return switch (this) {
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case DROP_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            case BLOCK -> (task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Executor is shut down");
+                }
+                try {
+                    if (!executor.getQueue().offer(task, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        throw new RejectedExecutionException(
+                                "Queue still full after waiting " + blockTimeoutMillis + " ms");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+                }
+            };
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+        };
+    }
+}
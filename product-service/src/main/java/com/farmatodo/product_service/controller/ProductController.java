@@ -1,18 +1,34 @@
 package com.farmatodo.product_service.controller;
 
+import com.farmatodo.product_service.dto.ProductChangesDTO;
 import com.farmatodo.product_service.dto.ProductDTO;
+import com.farmatodo.product_service.dto.ProductImportEventDTO;
 import com.farmatodo.product_service.dto.ProductRequestDTO;
 import com.farmatodo.product_service.dto.ProductSearchResponseDTO;
+import com.farmatodo.product_service.dto.SearchTrendsDTO;
+import com.farmatodo.product_service.dto.StockReservationRequestDTO;
+import com.farmatodo.product_service.dto.StockReservationResponseDTO;
+import com.farmatodo.product_service.dto.SuggestionResponseDTO;
+import com.farmatodo.product_service.importer.ProductImportReader;
+import com.farmatodo.product_service.service.ProductImportService;
 import com.farmatodo.product_service.service.ProductService;
+import com.farmatodo.product_service.service.ProductSnapshotService;
+import com.farmatodo.product_service.service.SearchTrendsService;
+import com.farmatodo.product_service.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 
 @RestController
@@ -21,21 +37,31 @@ import java.util.List;
 public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String CSV_MEDIA_TYPE = "text/csv";
 
     private final ProductService productService;
+    private final SearchTrendsService searchTrendsService;
+    private final StockReservationService stockReservationService;
+    private final ProductImportService productImportService;
+    private final ProductSnapshotService productSnapshotService;
 
     /**
      * Search products by name or description
      *
-     * GET /products?query=aspirin
+     * GET /products?query=aspirin&limit=50&cursor=...
      *
      * @param query Search term to find in product name or description
+     * @param cursor nextCursor of the previous page (omit for the first page)
+     * @param limit Page size
      * @param request HTTP request to extract user identifier (IP address)
-     * @return List of products matching the search criteria with stock > minStock
+     * @return One page of products matching the search criteria with stock > minStock
      */
     @GetMapping
     public ResponseEntity<ProductSearchResponseDTO> searchProducts(
             @RequestParam(required = false, defaultValue = "") String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             HttpServletRequest request) {
 
         logger.info("Product search endpoint called with query: '{}', transaction: {}",
@@ -45,10 +71,10 @@ public class ProductController {
         String userIdentifier = extractUserIdentifier(request);
 
         // Search products (search logging happens asynchronously)
-        ProductSearchResponseDTO response = productService.searchProducts(query, userIdentifier);
+        ProductSearchResponseDTO response = productService.searchProducts(query, userIdentifier, cursor, limit);
 
         logger.info("Product search completed - Query: '{}', Results: {}, transaction: {}",
-                query, response.getTotalResults(), MDC.get("transactionId"));
+                query, response.getProducts().size(), MDC.get("transactionId"));
 
         return ResponseEntity.ok(response);
     }
@@ -56,27 +82,61 @@ public class ProductController {
     /**
      * Get all active products with stock less than the specified threshold
      *
-     * GET /products/low-stock?maxStock=10
+     * GET /products/low-stock?maxStock=10&limit=50&cursor=...
      *
      * @param maxStock Maximum stock level (products with stock < maxStock will be returned)
-     * @return List of products with low stock, ordered by stock ascending
+     * @param cursor nextCursor of the previous page (omit for the first page)
+     * @param limit Page size
+     * @return One page of products with low stock, ordered by stock ascending
      */
     @GetMapping("/low-stock")
     public ResponseEntity<ProductSearchResponseDTO> getProductsWithLowStock(
-            @RequestParam(required = true) int maxStock) {
+            @RequestParam(required = true) int maxStock,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
         logger.info("Low stock endpoint called with maxStock: {}, transaction: {}",
                 maxStock, MDC.get("transactionId"));
 
-        ProductSearchResponseDTO response = productService.getProductsWithLowStock(maxStock);
+        ProductSearchResponseDTO response = productService.getProductsWithLowStock(maxStock, cursor, limit);
 
         logger.info("Low stock query completed - maxStock: {}, Results: {}, transaction: {}",
-                maxStock, response.getTotalResults(), MDC.get("transactionId"));
+                maxStock, response.getProducts().size(), MDC.get("transactionId"));
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Autocomplete product names and categories, most searched first
+     *
+     * GET /products/suggest?prefix=acet&limit=10
+     *
+     * @param prefix Text typed so far
+     * @param limit Maximum number of suggestions
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<SuggestionResponseDTO> suggestProducts(
+            @RequestParam(required = false, defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limit) {
 
+        logger.debug("Suggest endpoint called with prefix: '{}', transaction: {}",
+                prefix, MDC.get("transactionId"));
+
+        return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
+    }
+
+    /**
+     * Most searched terms and most searched terms without results in the recent window
+     * Computed in memory from live searches; counts are approximate
+     *
+     * GET /products/search-trends?limit=10
+     */
+    @GetMapping("/search-trends")
+    public ResponseEntity<SearchTrendsDTO> getSearchTrends(@RequestParam(required = false) Integer limit) {
+        logger.info("Search trends endpoint called, transaction: {}", MDC.get("transactionId"));
+
+        return ResponseEntity.ok(searchTrendsService.getTrends(limit));
+    }
 
     /**
      * Create a new product
@@ -94,6 +154,58 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Bulk import products from a CSV (with header row) or NDJSON upload
+     * The body is read as a stream; progress and per-row errors are streamed back as NDJSON,
+     * ending with a SUMMARY line
+     *
+     * POST /products/import
+     */
+    @PostMapping(value = "/import", consumes = {CSV_MEDIA_TYPE, NDJSON_MEDIA_TYPE}, produces = NDJSON_MEDIA_TYPE)
+    public void importProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Import products endpoint called with {}, transaction: {}",
+                request.getContentType(), MDC.get("transactionId"));
+
+        ProductImportReader.Format format = request.getContentType().startsWith(CSV_MEDIA_TYPE)
+                ? ProductImportReader.Format.CSV
+                : ProductImportReader.Format.NDJSON;
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        ProductImportEventDTO summary = productImportService.importProducts(
+                request.getInputStream(), format, response.getOutputStream());
+
+        logger.info("Import completed - imported: {}, failed: {}, transaction: {}",
+                summary.getImported(), summary.getFailed(), MDC.get("transactionId"));
+    }
+
+    /**
+     * Reserve stock for the items of an order (for order service)
+     * All items are reserved or none is; responds 409 when any product is short
+     *
+     * POST /products/stock/reserve
+     */
+    @PostMapping("/stock/reserve")
+    public ResponseEntity<StockReservationResponseDTO> reserveStock(@RequestBody StockReservationRequestDTO request) {
+        logger.info("Reserve stock endpoint called for order: {}, transaction: {}",
+                request.getOrderId(), MDC.get("transactionId"));
+
+        return ResponseEntity.ok(stockReservationService.reserve(request));
+    }
+
+    /**
+     * Release the stock of a previous reservation (for order service)
+     *
+     * POST /products/stock/release
+     */
+    @PostMapping("/stock/release")
+    public ResponseEntity<StockReservationResponseDTO> releaseStock(@RequestBody StockReservationRequestDTO request) {
+        logger.info("Release stock endpoint called for order: {}, transaction: {}",
+                request.getOrderId(), MDC.get("transactionId"));
+
+        return ResponseEntity.ok(stockReservationService.release(request));
+    }
+
     /**
      * Simple ping endpoint
      *
@@ -110,48 +222,128 @@ public class ProductController {
      * GET /products/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id) {
         logger.info("Get product by ID endpoint called for ID: {}, transaction: {}", id, MDC.get("transactionId"));
 
-        ProductDTO response = productService.getProductById(id);
+        // Pre-serialized JSON from the product JSON cache, written as is
+        byte[] response = productService.getProductJsonById(id);
 
-        logger.info("Product retrieved: {}, transaction: {}", response.getName(), MDC.get("transactionId"));
+        logger.info("Product retrieved: {}, transaction: {}", id, MDC.get("transactionId"));
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
     }
 
     /**
-     * Get all products
+     * Get all products, one page at a time
      *
-     * GET /products/all
+     * GET /products/all?limit=50&cursor=...
      */
     @GetMapping("/all")
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
+    public ResponseEntity<ProductSearchResponseDTO> getAllProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         logger.info("Get all products endpoint called, transaction: {}", MDC.get("transactionId"));
 
-        List<ProductDTO> response = productService.getAllProducts();
+        ProductSearchResponseDTO response = productService.getAllProducts(cursor, limit);
 
-        logger.info("{} products retrieved, transaction: {}", response.size(), MDC.get("transactionId"));
+        logger.info("{} products retrieved, transaction: {}", response.getProducts().size(), MDC.get("transactionId"));
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get the products changed since a watermark, for downstream replicas
+     *
+     * GET /products/changes?since=...&limit=500
+     *
+     * @param since nextSince of the previous pull (omit to start from the beginning)
+     * @param limit Page size
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesDTO> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit) {
+        logger.info("Product changes endpoint called, transaction: {}", MDC.get("transactionId"));
+
+        ProductChangesDTO response = productService.getChanges(since, limit);
+
+        logger.info("{} product changes retrieved, transaction: {}", response.getProducts().size(), MDC.get("transactionId"));
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Export the whole catalog as newline-delimited JSON, streamed row by row
+     *
+     * GET /products/export
+     */
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        String transactionId = MDC.get("transactionId");
+        logger.info("Export products endpoint called, transaction: {}", transactionId);
+
+        StreamingResponseBody body = outputStream -> {
+            // Runs on an async thread, so carry the transaction id over for logging
+            MDC.put("transactionId", transactionId);
+            try {
+                productService.exportProducts(outputStream);
+            } finally {
+                MDC.clear();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .body(body);
+    }
+
+    /**
+     * Download the binary catalog snapshot (id, name, price, stock, active) for cart-service
+     * Serves the last written snapshot, rewritten at most every product.snapshot.refreshMillis
+     *
+     * GET /products/snapshot
+     */
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> downloadSnapshot() {
+        String transactionId = MDC.get("transactionId");
+        logger.info("Product snapshot endpoint called, transaction: {}", transactionId);
+
+        StreamingResponseBody body = outputStream -> {
+            // Runs on an async thread, so carry the transaction id over for logging
+            MDC.put("transactionId", transactionId);
+            try {
+                Files.copy(productSnapshotService.currentSnapshot(), outputStream);
+            } finally {
+                MDC.clear();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
     /**
      * Get products by IDs (for order service)
      *
      * POST /products/by-ids
      */
     @PostMapping("/by-ids")
-    public ResponseEntity<List<ProductDTO>> getProductsByIds(@RequestBody List<Long> ids) {
+    public ResponseEntity<byte[]> getProductsByIds(@RequestBody List<Long> ids) {
         logger.info("Get products by IDs endpoint called with {} IDs, transaction: {}",
                 ids.size(), MDC.get("transactionId"));
 
-        List<ProductDTO> response = productService.getProductsByIds(ids);
+        // JSON array concatenated from the cached JSON of each product
+        byte[] response = productService.getProductsJsonByIds(ids);
 
-        logger.info("{} products retrieved for {} IDs, transaction: {}",
-                response.size(), ids.size(), MDC.get("transactionId"));
+        logger.info("{} bytes of products retrieved for {} IDs, transaction: {}",
+                response.length, ids.size(), MDC.get("transactionId"));
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
     }
 
     /**
@@ -0,0 +1,18 @@
+package com.farmatodo.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesDTO {
+    private List<ProductDTO> products; // Current state of each changed product, oldest change first
+    private String nextSince; // Watermark to pass as since on the next pull
+    private boolean hasMore; // true when more changes are already available
+}
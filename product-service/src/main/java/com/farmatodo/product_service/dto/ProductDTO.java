@@ -1,5 +1,6 @@
 package com.farmatodo.product_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,9 +15,14 @@ import java.math.BigDecimal;
 public class ProductDTO {
     private Long id;
     private String name;
+    @JsonInclude(JsonInclude.Include.NON_NULL) // not loaded for listing endpoints
     private String description;
     private BigDecimal price;
     private Integer stock;
     private String category;
     private String sku;
+    @JsonInclude(JsonInclude.Include.NON_NULL) // change feed only
+    private String status;
+    @JsonInclude(JsonInclude.Include.NON_NULL) // not loaded for listing endpoints
+    private Long version;
 }
@@ -0,0 +1,27 @@
+package com.farmatodo.product_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the bulk import response stream
+ * ERROR lines carry line, sku and message; PROGRESS and SUMMARY lines carry the counters
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportEventDTO {
+    private String type; // ERROR, PROGRESS or SUMMARY
+    private Long line;
+    private String sku;
+    private String message;
+    private Long processed;
+    private Long imported;
+    private Long failed;
+    private Long elapsedMs;
+}
@@ -15,4 +15,8 @@ public class ProductSearchResponseDTO {
     private String query;
     private Integer totalResults;
     private List<ProductDTO> products;
+    private String nextCursor; // null when there are no more pages
+    private boolean fuzzy; // true when results come from typo-tolerant matching
+    private List<FacetCountDTO> categoryFacets; // counts over all matches, first page only
+    private List<FacetCountDTO> priceFacets; // counts per price range, first page only
 }
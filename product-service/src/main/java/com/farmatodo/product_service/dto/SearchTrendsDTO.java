@@ -0,0 +1,20 @@
+package com.farmatodo.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchTrendsDTO {
+    private Integer windowMinutes;
+    private Long totalSearches;
+    private Long zeroResultSearches;
+    private List<TermCountDTO> topTerms;
+    private List<TermCountDTO> zeroResultTerms;
+}
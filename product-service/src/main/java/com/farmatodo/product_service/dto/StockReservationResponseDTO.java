@@ -0,0 +1,18 @@
+package com.farmatodo.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationResponseDTO {
+    private Long orderId;
+    private String status; // RESERVED or RELEASED
+    private List<StockItemDTO> items; // One entry per product, quantities merged
+}
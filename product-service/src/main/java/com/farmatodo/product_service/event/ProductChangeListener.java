@@ -0,0 +1,19 @@
+package com.farmatodo.product_service.event;
+
+import com.farmatodo.product_service.repository.ProductChange;
+
+import java.util.List;
+
+/**
+ * In-memory structure kept in sync with product changes made by any instance
+ * Pages polled by {@link ProductChangePoller} overlap, so a change can be delivered more than
+ * once and after a newer local write: implementations apply a row only if its version is not
+ * older than what they hold
+ */
+public interface ProductChangeListener {
+
+    /**
+     * @param changes Current state of changed products, oldest change first
+     */
+    void onProductChanges(List<ProductChange> changes);
+}
@@ -0,0 +1,98 @@
+package com.farmatodo.product_service.event;
+
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Feeds product changes made by other instances to the in-memory structures of this one
+ *
+ * Every product.changes.pollMillis the products changed since the newest change already seen,
+ * minus product.changes.overlapMillis, are read from the primary in (updatedAt, id) pages and
+ * handed to every {@link ProductChangeListener}. The overlap covers transactions that committed
+ * after a later-stamped one was read and clock skew between instances, so it is re-read on
+ * every poll and listeners dedupe by version.
+ */
+@Component
+public class ProductChangePoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangePoller.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<ProductChangeListener> listeners;
+
+    @Value("${product.changes.overlapMillis:30000}")
+    private long overlapMillis = 30_000;
+
+    @Value("${product.changes.pollBatchSize:1000}")
+    private int batchSize = 1000;
+
+    // Changes before startup are covered by the listeners' own startup load
+    private volatile LocalDateTime newestSeen = LocalDateTime.now();
+
+    public ProductChangePoller(ProductRepository productRepository,
+                               TransactionTemplate transactionTemplate,
+                               List<ProductChangeListener> listeners) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.listeners = listeners;
+    }
+
+    /**
+     * A failure is logged; the next poll starts from the same point
+     */
+    @Scheduled(initialDelayString = "${product.changes.pollMillis:5000}",
+               fixedDelayString = "${product.changes.pollMillis:5000}")
+    public synchronized void poll() {
+        try {
+            int changes = pollOnce();
+            if (changes > 0) {
+                logger.debug("Applied {} product changes to {} listeners, newest: {}",
+                        changes, listeners.size(), newestSeen);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Product change poll failed. Error: {}", e.getMessage(), e);
+        }
+    }
+
+    int pollOnce() {
+        LocalDateTime afterUpdatedAt = newestSeen.minusNanos(overlapMillis * 1_000_000);
+        long afterId = 0L;
+        LocalDateTime newest = newestSeen;
+        int total = 0;
+        List<ProductChange> page;
+        do {
+            LocalDateTime from = afterUpdatedAt;
+            long fromId = afterId;
+            // Read-write transaction: stays on the primary, a lagging replica would hide changes
+            page = transactionTemplate.execute(status ->
+                    productRepository.findChangesFrom(from, fromId, PageRequest.of(0, batchSize)));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (ProductChangeListener listener : listeners) {
+                listener.onProductChanges(page);
+            }
+            ProductChange last = page.get(page.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getId();
+            if (afterUpdatedAt.isAfter(newest)) {
+                newest = afterUpdatedAt;
+            }
+            total += page.size();
+        } while (page.size() == batchSize);
+
+        newestSeen = newest;
+        return total;
+    }
+}
@@ -2,7 +2,8 @@ package com.farmatodo.product_service.event;
 
 /**
  * Abstraction for publishing search events
- * Current implementation: Spring @Async with ApplicationEventPublisher
+ * Current implementation: {@link com.farmatodo.product_service.event.impl.LocalSearchEventPublisher},
+ * ApplicationEventPublisher called on the @Async "taskExecutor" defined in AsyncConfig
  * Future: Can be replaced with GCP Pub/Sub, Kafka, RabbitMQ, etc.
  */
 public interface SearchEventPublisher {
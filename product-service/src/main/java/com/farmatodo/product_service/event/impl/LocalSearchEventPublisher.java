@@ -6,12 +6,17 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
  * Local implementation using Spring's ApplicationEventPublisher
  * This is the default implementation for non-GCP environments
  *
+ * The event is published on the async "taskExecutor", so the search listeners (log buffer, trends,
+ * suggester popularity) run off the request thread; when the executor is saturated its
+ * async.executor.saturationPolicy decides (CALLER_RUNS by default)
+ *
  * To switch to GCP Pub/Sub:
  * 1. Create GcpPubSubSearchEventPublisher implements SearchEventPublisher
  * 2. Annotate it with @Component and @Profile("gcp")
@@ -26,6 +31,7 @@ public class LocalSearchEventPublisher implements SearchEventPublisher {
     private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
+    @Async("taskExecutor")
     public void publishSearchEvent(SearchEvent event) {
         logger.debug("Publishing search event locally: {}", event.getSearchTerm());
         applicationEventPublisher.publishEvent(event);
@@ -0,0 +1,204 @@
+package com.farmatodo.product_service.importer;
+
+import com.farmatodo.product_service.dto.ProductRequestDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads an uploaded catalog one line at a time, so memory does not depend on the upload size
+ *
+ * CSV needs a header row naming the columns (name, description, price, stock, category, sku in any
+ * order; name, price and stock are required). Quoted fields may contain commas and doubled quotes,
+ * but not line breaks. NDJSON has one product request object per line. Blank lines are skipped.
+ */
+public class ProductImportReader {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * One parsed line: either a request or the reason it could not be parsed
+     */
+    public record Row(long line, ProductRequestDTO request, String error) {
+    }
+
+    private static final List<String> COLUMNS = List.of("name", "description", "price", "stock", "category", "sku");
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "price", "stock");
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+
+    private Map<String, Integer> columns;
+    private long line;
+    private boolean exhausted;
+
+    public ProductImportReader(InputStream in, Format format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return The next non-blank line, or null at the end of the input
+     */
+    public Row next() throws IOException {
+        if (exhausted) {
+            return null;
+        }
+        if (format == Format.CSV && columns == null) {
+            String headerError = readHeader();
+            if (headerError != null) {
+                // Nothing after an unusable header can be mapped; report it once and stop
+                exhausted = true;
+                return new Row(line, null, headerError);
+            }
+        }
+
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                exhausted = true;
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        return format == Format.CSV ? parseCsv(text) : parseJson(text);
+    }
+
+    /**
+     * Maps column names to positions
+     * @return Why the header is unusable, or null
+     */
+    private String readHeader() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                columns = Map.of();
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        Map<String, Integer> header = new HashMap<>();
+        List<String> names;
+        try {
+            names = splitCsv(text);
+        } catch (IllegalArgumentException e) {
+            return "Invalid CSV header: " + e.getMessage();
+        }
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            if (COLUMNS.contains(name)) {
+                header.putIfAbsent(name, i);
+            }
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!header.containsKey(required)) {
+                return "CSV header must include the columns " + REQUIRED_COLUMNS;
+            }
+        }
+        columns = header;
+        return null;
+    }
+
+    private Row parseCsv(String text) {
+        List<String> fields;
+        try {
+            fields = splitCsv(text);
+        } catch (IllegalArgumentException e) {
+            return new Row(line, null, e.getMessage());
+        }
+
+        ProductRequestDTO request = ProductRequestDTO.builder()
+                .name(field(fields, "name"))
+                .description(field(fields, "description"))
+                .category(field(fields, "category"))
+                .sku(field(fields, "sku"))
+                .build();
+
+        String price = field(fields, "price");
+        try {
+            request.setPrice(price == null ? null : new BigDecimal(price));
+        } catch (NumberFormatException e) {
+            return new Row(line, null, "Invalid price '" + price + "'");
+        }
+        String stock = field(fields, "stock");
+        try {
+            request.setStock(stock == null ? null : Integer.valueOf(stock));
+        } catch (NumberFormatException e) {
+            return new Row(line, null, "Invalid stock '" + stock + "'");
+        }
+        return new Row(line, request, null);
+    }
+
+    private Row parseJson(String text) {
+        try {
+            return new Row(line, objectMapper.readValue(text, ProductRequestDTO.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Trimmed value of a column, null when the column is absent or the value is empty
+     */
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
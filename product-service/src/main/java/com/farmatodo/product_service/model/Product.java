@@ -1,5 +1,6 @@
 package com.farmatodo.product_service.model;
 
+import com.farmatodo.product_service.search.SearchTokenizer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,7 +14,9 @@ import java.time.LocalDateTime;
 @Table(name = "products", indexes = {
     @Index(name = "idx_name", columnList = "name"),
     @Index(name = "idx_stock", columnList = "stock"),
-    @Index(name = "idx_status", columnList = "status")
+    @Index(name = "idx_stock_id", columnList = "stock, id"),
+    @Index(name = "idx_status", columnList = "status"),
+    @Index(name = "idx_updated_at_id", columnList = "updatedAt, id")
 })
 @Data
 @Builder
@@ -46,12 +49,19 @@ public class Product {
     @Column(nullable = false, length = 20)
     private String status;
 
+    // Accent- and case-folded name, category and description, maintained on save
+    @Column(columnDefinition = "TEXT")
+    private String searchKey;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Incremented on every change (null for rows not changed since the column was added)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -59,10 +69,28 @@ public class Product {
         if (status == null) {
             status = "ACTIVE";
         }
+        version = 1L;
+        refreshSearchKey();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        version = version == null ? 1L : version + 1;
+        refreshSearchKey();
+    }
+
+    /**
+     * Recomputes the search key from name, category and the whole description
+     */
+    public void refreshSearchKey() {
+        StringBuilder text = new StringBuilder(name == null ? "" : name);
+        if (category != null) {
+            text.append(' ').append(category);
+        }
+        if (description != null) {
+            text.append(' ').append(description);
+        }
+        searchKey = SearchTokenizer.normalize(text.toString());
     }
 }
@@ -0,0 +1,29 @@
+package com.farmatodo.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Start of the first hour not rolled up yet, shared by every instance running
+ * {@link com.farmatodo.product_service.service.SearchLogRollupService}
+ */
+@Entity
+@Table(name = "search_rollup_watermarks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchRollupWatermark {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime rolledUpTo;
+}
@@ -0,0 +1,46 @@
+package com.farmatodo.product_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Searches per lower-cased term in one hour or one day, maintained from search_logs by
+ * {@link com.farmatodo.product_service.service.SearchLogRollupService}
+ */
+@Entity
+@Table(name = "search_term_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_rollup_bucket_term", columnNames = {"granularity", "bucketStart", "term"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchTermRollup {
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 5)
+    private String granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, length = 500)
+    private String term;
+
+    @Column(nullable = false)
+    private Long searches;
+
+    @Column(nullable = false)
+    private Long zeroResultSearches;
+}
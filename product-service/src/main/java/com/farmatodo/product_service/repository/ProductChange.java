@@ -0,0 +1,21 @@
+package com.farmatodo.product_service.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Row of the product change feed: listing columns plus status, version and change time
+ * The description is only selected by the poller query, for the search index
+ */
+public interface ProductChange {
+    Long getId();
+    String getName();
+    String getDescription();
+    BigDecimal getPrice();
+    Integer getStock();
+    String getCategory();
+    String getSku();
+    String getStatus();
+    Long getVersion();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,15 @@
+package com.farmatodo.product_service.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Number of matching products sharing a category and price
+ */
+public interface ProductFacetCount {
+
+    String getCategory();
+
+    BigDecimal getPrice();
+
+    Long getProducts();
+}
@@ -1,24 +1,110 @@
 package com.farmatodo.product_service.repository;
 
 import com.farmatodo.product_service.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    /**
+     * Substring search over the precomputed search key
+     * @param query Query normalized with {@link com.farmatodo.product_service.search.SearchTokenizer#normalize}
+     */
     @Query("SELECT p FROM Product p WHERE " +
-           "(LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(p.category) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+           "p.searchKey LIKE CONCAT('%', :query, '%') AND " +
            "p.stock > :minStock AND " +
            "p.status = 'ACTIVE'")
     List<Product> searchProducts(@Param("query") String query, @Param("minStock") int minStock);
 
+    /**
+     * Keyset page of {@link #searchProducts}: matching products with id greater than the cursor
+     * @param query Normalized query
+     * @param afterId Id of the last product of the previous page (0 for the first page)
+     * @param pageable Page size only; rows are always ordered by id
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.price AS price, p.stock AS stock, " +
+           "p.category AS category, p.sku AS sku FROM Product p WHERE " +
+           "p.searchKey LIKE CONCAT('%', :query, '%') AND " +
+           "p.stock > :minStock AND " +
+           "p.status = 'ACTIVE' AND " +
+           "p.id > :afterId " +
+           "ORDER BY p.id ASC")
+    List<ProductSummary> searchProductsAfter(@Param("query") String query, @Param("minStock") int minStock,
+                                      @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Facet source for {@link #searchProductsAfter}: matching products grouped by category and price
+     * One grouped query instead of one count per category; price ranges are bucketed by the caller
+     * @param query Normalized query
+     */
+    @Query("SELECT p.category AS category, p.price AS price, COUNT(p) AS products FROM Product p WHERE " +
+           "p.searchKey LIKE CONCAT('%', :query, '%') AND " +
+           "p.stock > :minStock AND " +
+           "p.status = 'ACTIVE' " +
+           "GROUP BY p.category, p.price")
+    List<ProductFacetCount> countSearchFacets(@Param("query") String query, @Param("minStock") int minStock);
+
+    /**
+     * Keyset page over the whole catalog ordered by id
+     * @param afterId Id of the last product of the previous page (0 for the first page)
+     * @param pageable Page size only
+     */
+    List<ProductSummary> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Keyset page of whole products over the catalog ordered by id, for in-memory indexes that need every column
+     * @param afterId Id of the last product of the previous page (0 for the first page)
+     * @param pageable Page size only
+     */
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findProductsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Products saved before the search key column existed
+     * @param pageable Batch size only
+     */
+    List<Product> findBySearchKeyIsNull(Pageable pageable);
+
+    /**
+     * Streams the whole catalog ordered by id with a JDBC fetch size, so rows are read
+     * from the database cursor in chunks instead of being loaded all at once
+     * Must be consumed inside a read-only transaction and closed afterwards
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id ASC")
+    Stream<Product> streamAllOrderById();
+
+    /**
+     * Load active products by id (primary key lookup) with stock greater than the threshold
+     * Used to hydrate the ids resolved by the in-memory search index
+     * @param ids Candidate product ids
+     * @param minStock Minimum stock level (exclusive)
+     * @return Matching products ordered by id
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.price AS price, p.stock AS stock, " +
+           "p.category AS category, p.sku AS sku FROM Product p WHERE " +
+           "p.id IN :ids AND " +
+           "p.stock > :minStock AND " +
+           "p.status = 'ACTIVE' " +
+           "ORDER BY p.id ASC")
+    List<ProductSummary> findActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("minStock") int minStock);
+
     /**
      * Find all active products with stock less than the specified threshold
      * @param maxStock Maximum stock level (exclusive)
@@ -30,6 +116,95 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "ORDER BY p.stock ASC")
     List<Product> findProductsWithLowStock(@Param("maxStock") int maxStock);
 
+    /**
+     * Keyset page of {@link #findProductsWithLowStock} ordered by (stock, id)
+     * @param maxStock Maximum stock level (exclusive)
+     * @param afterStock Stock of the last product of the previous page (-1 for the first page)
+     * @param afterId Id of the last product of the previous page (0 for the first page)
+     * @param pageable Page size only
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.price AS price, p.stock AS stock, " +
+           "p.category AS category, p.sku AS sku FROM Product p WHERE " +
+           "p.stock < :maxStock AND " +
+           "p.status = 'ACTIVE' AND " +
+           "(p.stock > :afterStock OR (p.stock = :afterStock AND p.id > :afterId)) " +
+           "ORDER BY p.stock ASC, p.id ASC")
+    List<ProductSummary> findProductsWithLowStockAfter(@Param("maxStock") int maxStock,
+                                                @Param("afterStock") int afterStock,
+                                                @Param("afterId") long afterId,
+                                                Pageable pageable);
+
+    /**
+     * Number of rows {@link #findProductsWithLowStockAfter} pages through, for the first page's total
+     * @param maxStock Maximum stock level (exclusive)
+     */
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock < :maxStock AND p.status = 'ACTIVE'")
+    long countProductsWithLowStock(@Param("maxStock") int maxStock);
+
+    /**
+     * Keyset page over active products ordered by id, used to seed in-memory stock structures
+     * @param afterId Id of the last product of the previous page (0 for the first page)
+     * @param pageable Page size only
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.price AS price, p.stock AS stock, " +
+           "p.category AS category, p.sku AS sku FROM Product p WHERE " +
+           "p.status = 'ACTIVE' AND " +
+           "p.id > :afterId " +
+           "ORDER BY p.id ASC")
+    List<ProductSummary> findActiveAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Takes stock from an active product only if enough is left
+     * The check and the decrement are one conditional UPDATE, so concurrent reservations
+     * can never drive the stock below zero
+     * @param id Product id
+     * @param quantity Units to take (positive)
+     * @param now Update timestamp (entity callbacks do not run for bulk updates)
+     * @return 1 if the stock was taken, 0 if the product is missing, inactive or short
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.updatedAt = :now, " +
+           "p.version = COALESCE(p.version, 0) + 1 WHERE " +
+           "p.id = :id AND " +
+           "p.stock >= :quantity AND " +
+           "p.status = 'ACTIVE'")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * Returns previously reserved units to a product
+     * @param id Product id
+     * @param quantity Units to return (positive)
+     * @param now Update timestamp
+     * @return 1 if the product exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, p.updatedAt = :now, " +
+           "p.version = COALESCE(p.version, 0) + 1 WHERE p.id = :id")
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * Products changed after the (updatedAt, id) position, oldest change first
+     * updatedAt is not commit ordered, so callers re-read an overlap and dedupe by version
+     * @param afterUpdatedAt updatedAt of the position
+     * @param afterId Id of the position
+     * @param pageable Page size only
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.price AS price, " +
+           "p.stock AS stock, p.category AS category, p.sku AS sku, p.status AS status, " +
+           "p.version AS version, p.updatedAt AS updatedAt FROM Product p WHERE " +
+           "(p.updatedAt > :afterUpdatedAt OR (p.updatedAt = :afterUpdatedAt AND p.id > :afterId)) " +
+           "ORDER BY p.updatedAt ASC, p.id ASC")
+    List<ProductChange> findChangesFrom(@Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                        @Param("afterId") long afterId,
+                                        Pageable pageable);
+
+    /**
+     * Current stock of the given products
+     * @param ids Product ids
+     */
+    @Query("SELECT p.id AS id, p.stock AS stock FROM Product p WHERE p.id IN :ids")
+    List<StockLevel> findStockLevels(@Param("ids") Collection<Long> ids);
+
     /**
      * Find all active products with stock greater than the specified threshold
      * @param minStock Minimum stock level (exclusive)
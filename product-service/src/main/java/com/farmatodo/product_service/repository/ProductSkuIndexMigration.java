@@ -0,0 +1,84 @@
+package com.farmatodo.product_service.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the plain idx_sku index with uk_products_sku, a unique index on the SKUs that are set
+ *
+ * The bulk import inserts with ON CONFLICT (sku) and POST /products relies on the index to reject
+ * a SKU that is already taken, so SKUs stay unique across concurrent imports and instances. Rows
+ * created before the index may share a SKU: the lowest id keeps it and the others get a null SKU
+ * (and a new version, so caches and the change feed pick them up). This drops data: each cleared
+ * id is logged at WARN with the SKU it had and the id that kept it, so it can be fixed by hand. Runs once, before the application takes requests; the table lock keeps other instances
+ * from writing products meanwhile, and an instance that waited on it finds the index already there.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class ProductSkuIndexMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSkuIndexMigration.class);
+
+    public static final String INDEX_NAME = "uk_products_sku";
+
+    static final String INDEX_EXISTS_SQL =
+            "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'products' AND indexname = '" + INDEX_NAME + "'";
+
+    static final String LOCK_SQL = "LOCK TABLE products IN SHARE ROW EXCLUSIVE MODE";
+
+    private static final String DUPLICATE_CONDITION =
+            "p.sku IS NOT NULL AND EXISTS (SELECT 1 FROM products k WHERE k.sku = p.sku AND k.id < p.id)";
+
+    static final String FIND_DUPLICATES_SQL =
+            "SELECT p.id, p.sku, (SELECT MIN(k.id) FROM products k WHERE k.sku = p.sku) AS kept_id " +
+            "FROM products p WHERE " + DUPLICATE_CONDITION + " ORDER BY p.sku, p.id";
+
+    static final String CLEAR_DUPLICATES_SQL =
+            "UPDATE products p SET sku = NULL, version = COALESCE(p.version, 0) + 1, updated_at = LOCALTIMESTAMP WHERE " +
+            DUPLICATE_CONDITION;
+
+    static final String CREATE_INDEX_SQL =
+            "CREATE UNIQUE INDEX " + INDEX_NAME + " ON products (sku) WHERE sku IS NOT NULL";
+
+    static final String DROP_OLD_INDEX_SQL = "DROP INDEX IF EXISTS idx_sku";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        if (indexExists()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            if (indexExists()) {
+                return;
+            }
+            List<Map<String, Object>> duplicates = jdbcTemplate.queryForList(FIND_DUPLICATES_SQL);
+            for (Map<String, Object> duplicate : duplicates) {
+                logger.warn("Product id: {} shares sku {} with product id: {}, clearing its sku",
+                        duplicate.get("id"), duplicate.get("sku"), duplicate.get("kept_id"));
+            }
+            int cleared = duplicates.isEmpty() ? 0 : jdbcTemplate.update(CLEAR_DUPLICATES_SQL);
+            jdbcTemplate.execute(CREATE_INDEX_SQL);
+            jdbcTemplate.execute(DROP_OLD_INDEX_SQL);
+            logger.info("Added {} - cleared {} duplicated skus", INDEX_NAME, cleared);
+        });
+    }
+
+    private boolean indexExists() {
+        Integer count = jdbcTemplate.queryForObject(INDEX_EXISTS_SQL, Integer.class);
+        return count != null && count > 0;
+    }
+}
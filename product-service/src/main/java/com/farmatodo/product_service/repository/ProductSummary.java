@@ -0,0 +1,16 @@
+package com.farmatodo.product_service.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Closed projection with the columns listing screens need
+ * Skips the TEXT description and timestamps, and is not attached to the persistence context
+ */
+public interface ProductSummary {
+    Long getId();
+    String getName();
+    BigDecimal getPrice();
+    Integer getStock();
+    String getCategory();
+    String getSku();
+}
@@ -0,0 +1,64 @@
+package com.farmatodo.product_service.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Widens products.search_key from varchar(1000) to TEXT
+ *
+ * Keys used to be cut at 1000 characters, so terms late in a long description were not found by
+ * the database search. Hibernate does not change the type of an existing column, so it is altered
+ * here (varchar to TEXT needs no table rewrite) and keys that may have been cut are cleared for
+ * SearchKeyBackfill to recompute in full. Runs once, before the application takes requests, under
+ * the same table lock as the other product migrations.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class SearchKeyColumnMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchKeyColumnMigration.class);
+
+    static final int OLD_LENGTH = 1000;
+
+    static final String COLUMN_LIMITED_SQL =
+            "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = 'products' " +
+            "AND column_name = 'search_key' AND character_maximum_length IS NOT NULL";
+
+    static final String LOCK_SQL = "LOCK TABLE products IN SHARE ROW EXCLUSIVE MODE";
+
+    static final String ALTER_COLUMN_SQL = "ALTER TABLE products ALTER COLUMN search_key TYPE TEXT";
+
+    static final String CLEAR_CUT_KEYS_SQL =
+            "UPDATE products SET search_key = NULL WHERE length(search_key) >= " + OLD_LENGTH;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        if (!columnLimited()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            if (!columnLimited()) {
+                return;
+            }
+            jdbcTemplate.execute(ALTER_COLUMN_SQL);
+            int cleared = jdbcTemplate.update(CLEAR_CUT_KEYS_SQL);
+            logger.info("Changed products.search_key to TEXT - {} cut keys cleared for backfill", cleared);
+        });
+    }
+
+    private boolean columnLimited() {
+        Integer count = jdbcTemplate.queryForObject(COLUMN_LIMITED_SQL, Integer.class);
+        return count != null && count > 0;
+    }
+}
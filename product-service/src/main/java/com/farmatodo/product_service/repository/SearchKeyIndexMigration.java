@@ -0,0 +1,72 @@
+package com.farmatodo.product_service.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Indexes products.search_key for the substring LIKE of the database search
+ *
+ * The search matches '%term%', which a B-tree cannot serve, so the old idx_search_key only cost
+ * writes. It is replaced with a pg_trgm GIN index, which PostgreSQL uses for LIKE patterns with
+ * at least three characters. When the extension cannot be created (e.g. the application user may
+ * not create extensions) the B-tree is still dropped and a warning explains what to run by hand.
+ * Runs once, before the application takes requests, under the same table lock as the other
+ * product migrations.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class SearchKeyIndexMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchKeyIndexMigration.class);
+
+    static final String INDEX_EXISTS_SQL =
+            "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'products' AND indexname = 'idx_search_key_trgm'";
+
+    static final String LOCK_SQL = "LOCK TABLE products IN SHARE ROW EXCLUSIVE MODE";
+
+    static final String CREATE_EXTENSION_SQL = "CREATE EXTENSION IF NOT EXISTS pg_trgm";
+
+    static final String CREATE_INDEX_SQL =
+            "CREATE INDEX idx_search_key_trgm ON products USING gin (search_key gin_trgm_ops)";
+
+    static final String DROP_OLD_INDEX_SQL = "DROP INDEX IF EXISTS idx_search_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        if (indexExists()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute(LOCK_SQL);
+                if (indexExists()) {
+                    return;
+                }
+                jdbcTemplate.execute(CREATE_EXTENSION_SQL);
+                jdbcTemplate.execute(CREATE_INDEX_SQL);
+                jdbcTemplate.execute(DROP_OLD_INDEX_SQL);
+                logger.info("Replaced idx_search_key with trigram index idx_search_key_trgm");
+            });
+        } catch (DataAccessException e) {
+            logger.warn("Could not create trigram index on products.search_key, database search scans the table. " +
+                    "Run '{}; {}' as a superuser. Error: {}", CREATE_EXTENSION_SQL, CREATE_INDEX_SQL, e.getMessage());
+            jdbcTemplate.execute(DROP_OLD_INDEX_SQL);
+        }
+    }
+
+    private boolean indexExists() {
+        Integer count = jdbcTemplate.queryForObject(INDEX_EXISTS_SQL, Integer.class);
+        return count != null && count > 0;
+    }
+}
@@ -2,8 +2,18 @@ package com.farmatodo.product_service.repository;
 
 import com.farmatodo.product_service.model.SearchLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface SearchLogRepository extends JpaRepository<SearchLog, Long> {
+
+    /**
+     * Time of the oldest raw search log, or null when the table is empty
+     */
+    @Query("SELECT MIN(s.searchedAt) FROM SearchLog s")
+    LocalDateTime findOldestSearchedAt();
 }
@@ -0,0 +1,11 @@
+package com.farmatodo.product_service.repository;
+
+/**
+ * Number of searches logged for a (lower-cased) search term
+ */
+public interface SearchTermCount {
+
+    String getTerm();
+
+    Long getSearches();
+}
@@ -0,0 +1,49 @@
+package com.farmatodo.product_service.repository;
+
+import com.farmatodo.product_service.model.SearchTermRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SearchTermRollupRepository extends JpaRepository<SearchTermRollup, Long> {
+
+    /**
+     * Start of the most recent bucket of the given granularity, or null when there is none
+     */
+    @Query("SELECT MAX(r.bucketStart) FROM SearchTermRollup r WHERE r.granularity = :granularity")
+    LocalDateTime findLatestBucketStart(@Param("granularity") String granularity);
+
+    /**
+     * Most searched terms since the given time, counting only searches that returned results
+     * Daily rollups cover the complete days; hourly rollups from hourlyFrom on cover the days not rolled up yet
+     * @param since Start of the popularity window
+     * @param hourlyFrom Start of the first day without a daily rollup
+     * @param pageable Maximum number of terms to return
+     * @return Terms ordered by number of searches descending
+     */
+    @Query("SELECT r.term AS term, SUM(r.searches - r.zeroResultSearches) AS searches FROM SearchTermRollup r " +
+           "WHERE r.bucketStart >= :since AND " +
+           "(r.granularity = 'DAY' OR (r.granularity = 'HOUR' AND r.bucketStart >= :hourlyFrom)) " +
+           "GROUP BY r.term " +
+           "HAVING SUM(r.searches - r.zeroResultSearches) > 0 " +
+           "ORDER BY SUM(r.searches - r.zeroResultSearches) DESC")
+    List<SearchTermCount> findPopularTerms(@Param("since") LocalDateTime since,
+                                           @Param("hourlyFrom") LocalDateTime hourlyFrom,
+                                           Pageable pageable);
+
+    /**
+     * Most searched terms since the given time, counting only searches that returned results
+     * @param since Start of the popularity window
+     * @param pageable Maximum number of terms to return
+     */
+    default List<SearchTermCount> findPopularTermsSince(LocalDateTime since, Pageable pageable) {
+        LocalDateTime latestDay = findLatestBucketStart(SearchTermRollup.DAY);
+        return findPopularTerms(since, latestDay == null ? since : latestDay.plusDays(1), pageable);
+    }
+}
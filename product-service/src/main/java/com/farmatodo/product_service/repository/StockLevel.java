@@ -0,0 +1,9 @@
+package com.farmatodo.product_service.repository;
+
+/**
+ * Current stock of a product
+ */
+public interface StockLevel {
+    Long getId();
+    Integer getStock();
+}
@@ -0,0 +1,103 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.dto.FacetCountDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates category and price-range counts for a result set in a single pass
+ * Price ranges are defined by ascending bounds, e.g. [5, 10] gives "0-5", "5-10" and "10+"
+ *
+ * Not thread-safe; one instance per search
+ */
+public class FacetCounter {
+
+    private final BigDecimal[] bounds;
+    private final long[] priceCounts;
+    private final Map<String, Long> categoryCounts = new HashMap<>();
+    private long total;
+
+    public FacetCounter(BigDecimal[] bounds) {
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.priceCounts = new long[this.bounds.length + 1];
+    }
+
+    /**
+     * @param category Product category (null is not counted as a category)
+     * @param price Product price (null is not counted in a price range)
+     * @param count Number of products with this category and price
+     */
+    public void add(String category, BigDecimal price, long count) {
+        total += count;
+        if (category != null) {
+            categoryCounts.merge(category, count, Long::sum);
+        }
+        if (price != null) {
+            priceCounts[bucketOf(price)] += count;
+        }
+    }
+
+    /**
+     * @return Number of products counted, with or without category and price
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return Categories with at least one product, most products first
+     */
+    public List<FacetCountDTO> categoryFacets() {
+        List<FacetCountDTO> facets = new ArrayList<>(categoryCounts.size());
+        categoryCounts.forEach((category, count) ->
+                facets.add(FacetCountDTO.builder().value(category).count(count).build()));
+        facets.sort(Comparator.comparing(FacetCountDTO::getCount).reversed()
+                .thenComparing(FacetCountDTO::getValue));
+        return facets;
+    }
+
+    /**
+     * @return Price ranges with at least one product, cheapest first
+     */
+    public List<FacetCountDTO> priceFacets() {
+        List<FacetCountDTO> facets = new ArrayList<>();
+        for (int i = 0; i < priceCounts.length; i++) {
+            if (priceCounts[i] > 0) {
+                facets.add(FacetCountDTO.builder().value(label(i)).count(priceCounts[i]).build());
+            }
+        }
+        return facets;
+    }
+
+    /**
+     * Index of the first bound greater than the price (lower bound inclusive)
+     */
+    private int bucketOf(BigDecimal price) {
+        int low = 0;
+        int high = bounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (price.compareTo(bounds[mid]) < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private String label(int bucket) {
+        String lower = bucket == 0 ? "0" : bounds[bucket - 1].stripTrailingZeros().toPlainString();
+        if (bucket == bounds.length) {
+            return lower + "+";
+        }
+        return lower + "-" + bounds[bucket].stripTrailingZeros().toPlainString();
+    }
+}
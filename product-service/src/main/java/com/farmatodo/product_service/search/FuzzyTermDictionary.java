@@ -0,0 +1,173 @@
+package com.farmatodo.product_service.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Symmetric-delete spelling dictionary over the search index vocabulary
+ * Every term is stored under each variant obtained by deleting up to maxDistance characters
+ * from its first {@value #PREFIX_LENGTH} characters; a misspelled word is corrected by generating
+ * its own delete variants and verifying the hits with a bounded edit distance, so lookups never
+ * scan the vocabulary
+ *
+ * Not thread-safe; callers guard access
+ */
+public class FuzzyTermDictionary {
+
+    static final int PREFIX_LENGTH = 7;
+
+    private final int maxDistance;
+    private final Map<String, List<String>> deletes = new HashMap<>();
+    private final Set<String> terms = new HashSet<>();
+
+    public FuzzyTermDictionary(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    public void add(String term) {
+        if (!terms.add(term)) {
+            return;
+        }
+        for (String variant : variants(term)) {
+            deletes.computeIfAbsent(variant, v -> new ArrayList<>(1)).add(term);
+        }
+    }
+
+    public void remove(String term) {
+        if (!terms.remove(term)) {
+            return;
+        }
+        for (String variant : variants(term)) {
+            List<String> bucket = deletes.get(variant);
+            if (bucket != null) {
+                bucket.remove(term);
+                if (bucket.isEmpty()) {
+                    deletes.remove(variant);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        deletes.clear();
+        terms.clear();
+    }
+
+    /**
+     * Finds the vocabulary terms closest to a word
+     * Short words tolerate fewer edits: none up to 3 characters, 1 up to 7, then maxDistance
+     * @param word Folded word
+     * @return Terms at the smallest edit distance found (empty if none within the bound)
+     */
+    public List<String> closest(String word) {
+        int allowed = allowedDistance(word.length());
+        List<String> best = new ArrayList<>();
+        if (allowed == 0) {
+            return best;
+        }
+
+        int bestDistance = allowed + 1;
+        Set<String> seen = new HashSet<>();
+        for (String variant : variants(word)) {
+            List<String> bucket = deletes.get(variant);
+            if (bucket == null) {
+                continue;
+            }
+            for (String term : bucket) {
+                if (!seen.add(term)) {
+                    continue;
+                }
+                int distance = distance(word, term, Math.min(allowed, bestDistance));
+                if (distance > allowed) {
+                    continue;
+                }
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best.clear();
+                    best.add(term);
+                } else if (distance == bestDistance) {
+                    best.add(term);
+                }
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    private int allowedDistance(int length) {
+        if (length <= 3) {
+            return 0;
+        }
+        return length <= 7 ? Math.min(1, maxDistance) : maxDistance;
+    }
+
+    /**
+     * The word's prefix and every string reachable from it by deleting up to maxDistance characters
+     */
+    private Set<String> variants(String word) {
+        String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        Set<String> result = new HashSet<>();
+        result.add(prefix);
+        List<String> frontier = List.of(prefix);
+        for (int d = 0; d < maxDistance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                if (current.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < current.length(); i++) {
+                    String deleted = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(deleted)) {
+                        next.add(deleted);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions)
+     * @return The distance, or max + 1 as soon as it is known to exceed max
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
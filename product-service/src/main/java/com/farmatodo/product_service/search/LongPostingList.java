@@ -0,0 +1,173 @@
+package com.farmatodo.product_service.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable, sorted, duplicate-free list of primitive product ids
+ * Product ids are generated in increasing order, so adds are almost always appends
+ */
+public class LongPostingList {
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] ids;
+    private int size;
+
+    public LongPostingList() {
+        this.ids = new long[4];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Adds an id keeping the list sorted
+     * @return true if the id was not already present
+     */
+    public boolean add(long id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity(size + 1);
+            ids[size++] = id;
+            return true;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return false;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes an id if present
+     * @return true if the id was removed
+     */
+    public boolean remove(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long[] toArray() {
+        return size == 0 ? EMPTY : Arrays.copyOf(ids, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(capacity, ids.length + (ids.length >> 1)));
+        }
+    }
+
+    /**
+     * Merges any number of posting lists into their sorted union in a single pass
+     * A min-heap holds the list with the smallest next id, so n ids spread over k lists cost
+     * O(n log k) and one output array, instead of copying the growing result once per list
+     */
+    public static long[] unionAll(List<LongPostingList> lists) {
+        if (lists.isEmpty()) {
+            return EMPTY;
+        }
+        if (lists.size() == 1) {
+            return lists.get(0).toArray();
+        }
+        LongPostingList[] sources = new LongPostingList[lists.size()];
+        int[] positions = new int[sources.length];
+        int[] heap = new int[sources.length];
+        int heapSize = 0;
+        int total = 0;
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = lists.get(i);
+            total += sources[i].size;
+            if (!sources[i].isEmpty()) {
+                heap[heapSize++] = i;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, sources, positions);
+        }
+
+        long[] out = new long[total];
+        int n = 0;
+        while (heapSize > 0) {
+            int top = heap[0];
+            long id = sources[top].ids[positions[top]++];
+            if (n == 0 || out[n - 1] != id) {
+                out[n++] = id;
+            }
+            if (positions[top] == sources[top].size) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, sources, positions);
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int index, LongPostingList[] sources, int[] positions) {
+        if (heapSize == 0) {
+            return;
+        }
+        int source = heap[index];
+        long next = sources[source].ids[positions[source]];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize
+                    && headOf(heap[child + 1], sources, positions) < headOf(heap[child], sources, positions)) {
+                child++;
+            }
+            if (headOf(heap[child], sources, positions) >= next) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = source;
+    }
+
+    private static long headOf(int source, LongPostingList[] sources, int[] positions) {
+        return sources[source].ids[positions[source]];
+    }
+
+    /**
+     * Intersects two sorted id arrays
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+}
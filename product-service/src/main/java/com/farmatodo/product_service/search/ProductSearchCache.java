@@ -0,0 +1,77 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.dto.ProductSearchResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search result pages
+ * Keyed by normalized query, minStock, cursor and page size; entries expire after a TTL
+ * and the whole cache is invalidated whenever the catalog changes
+ *
+ * Hit, miss and eviction counts are published as cache.* meters with cache=product.search
+ */
+@Component
+public class ProductSearchCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchCache.class);
+
+    private final Cache<Key, ProductSearchResponseDTO> cache;
+
+    public ProductSearchCache(@Value("${product.search.cache.ttlSeconds:60}") long ttlSeconds,
+                              @Value("${product.search.cache.maxSize:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached page for the key, computing and caching it on a miss
+     * @param query Raw query (normalized for the key)
+     * @param minStock Stock threshold applied to the results
+     * @param cursor Page cursor (null for the first page)
+     * @param pageSize Resolved page size
+     * @param loader Computes the page on a miss
+     */
+    public ProductSearchResponseDTO get(String query, int minStock, String cursor, int pageSize,
+                                        Supplier<ProductSearchResponseDTO> loader) {
+        Key key = new Key(SearchTokenizer.normalize(query), minStock, cursor, pageSize);
+        return cache.get(key, k -> loader.get());
+    }
+
+    /**
+     * Drops every cached page; called when products are created or changed
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        logger.debug("Product search cache invalidated");
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public double hitRate() {
+        return cache.stats().hitRate();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "product.search");
+    }
+
+    private record Key(String query, int minStock, String cursor, int pageSize) {
+    }
+}
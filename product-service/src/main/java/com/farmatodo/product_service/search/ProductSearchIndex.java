@@ -0,0 +1,333 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.event.ProductChangeListener;
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, description and category
+ * Maps each token to a sorted posting list of product ids, so a search only touches
+ * the terms it matches instead of scanning the products table
+ * Category, price, stock and status are kept per product for facet counts
+ *
+ * Query tokens are matched as prefixes of indexed tokens and combined with AND,
+ * e.g. "vita c" matches "Vitamina C 500mg"
+ *
+ * The vocabulary is mirrored in a {@link FuzzyTermDictionary} so misspelled tokens can be
+ * corrected (edit distance up to 2) when the exact search finds nothing
+ *
+ * Writes of this instance are indexed directly; writes of other instances arrive through the
+ * {@link com.farmatodo.product_service.event.ProductChangePoller}. Each product keeps the version
+ * it was indexed at, so a polled row not newer than the indexed state is skipped
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex implements ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private static final int FUZZY_MAX_DISTANCE = 2;
+
+    private final ProductRepository productRepository;
+
+    @Value("${product.search.index.batchSize:1000}")
+    private int batchSize = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, LongPostingList> terms = new TreeMap<>();
+    private final Map<Long, IndexedProduct> productsById = new HashMap<>();
+    private final LongPostingList allIds = new LongPostingList();
+    private final FuzzyTermDictionary dictionary = new FuzzyTermDictionary(FUZZY_MAX_DISTANCE);
+
+    private volatile boolean ready;
+
+    /**
+     * Builds the index from the database once the application has started
+     * Products are read in keyset pages ordered by id to keep memory bounded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            productsById.clear();
+            allIds.clear();
+            dictionary.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int indexed = 0;
+        long afterId = 0L;
+        List<Product> page;
+        do {
+            page = productRepository.findProductsAfter(afterId, PageRequest.of(0, batchSize));
+            for (Product product : page) {
+                index(product);
+                indexed++;
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == batchSize);
+
+        ready = true;
+        logger.info("Product search index built with {} products and {} terms in {} ms",
+                indexed, termCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or re-indexes a single product
+     * @param product Persisted product (must have an id)
+     */
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        IndexedProduct indexed = new IndexedProduct(
+                SearchTokenizer.tokenize(product.getName(), product.getDescription(), product.getCategory()),
+                product.getCategory(), product.getPrice(), product.getStock() == null ? 0 : product.getStock(),
+                "ACTIVE".equals(product.getStatus()), product.getVersion());
+
+        lock.writeLock().lock();
+        try {
+            put(product.getId(), indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes products changed by any instance, tokenizing outside the write lock
+     * Rows not newer than the indexed version are skipped
+     */
+    @Override
+    public void onProductChanges(List<ProductChange> changes) {
+        List<IndexedProduct> indexed = new ArrayList<>(changes.size());
+        for (ProductChange change : changes) {
+            indexed.add(new IndexedProduct(
+                    SearchTokenizer.tokenize(change.getName(), change.getDescription(), change.getCategory()),
+                    change.getCategory(), change.getPrice(), change.getStock() == null ? 0 : change.getStock(),
+                    "ACTIVE".equals(change.getStatus()), change.getVersion()));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < changes.size(); i++) {
+                put(changes.get(i).getId(), indexed.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records a new stock level for an indexed product, keeping its tokens and other attributes
+     * @param id Product id
+     * @param stock New stock level
+     */
+    public void updateStock(long id, int stock) {
+        lock.writeLock().lock();
+        try {
+            // The stock UPDATE bumped the row version by one; a polled row read before it is now older
+            productsById.computeIfPresent(id, (key, previous) -> new IndexedProduct(previous.tokens(),
+                    previous.category(), previous.price(), stock, previous.active(),
+                    previous.version() == null ? null : previous.version() + 1));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product from the index
+     * @param id Product id
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeTokens(id);
+            productsById.remove(id);
+            allIds.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves the ids of products matching every token of the query
+     * @param query Free text query; blank returns every indexed product
+     * @return Sorted array of matching product ids
+     */
+    public long[] search(String query) {
+        List<String> queryTokens = SearchTokenizer.tokenize(query);
+
+        lock.readLock().lock();
+        try {
+            if (queryTokens.isEmpty()) {
+                return allIds.toArray();
+            }
+            long[] result = null;
+            for (String token : queryTokens) {
+                long[] matches = prefixMatches(token);
+                result = result == null ? matches : LongPostingList.intersect(result, matches);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Typo-tolerant variant of {@link #search}: tokens without any prefix match are replaced by
+     * the closest vocabulary terms (edit distance up to 2, less for short tokens)
+     * Meant for queries whose exact search returned nothing
+     * @param query Free text query
+     * @return Sorted array of matching product ids
+     */
+    public long[] searchFuzzy(String query) {
+        List<String> queryTokens = SearchTokenizer.tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            long[] result = null;
+            for (String token : queryTokens) {
+                long[] matches = prefixMatches(token);
+                if (matches.length == 0) {
+                    List<LongPostingList> corrections = new ArrayList<>();
+                    for (String correction : dictionary.closest(token)) {
+                        corrections.add(terms.get(correction));
+                    }
+                    matches = LongPostingList.unionAll(corrections);
+                }
+                result = result == null ? matches : LongPostingList.intersect(result, matches);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts categories and price ranges of the matching products in one pass over the ids,
+     * applying the same active/stock filter as the search results
+     * @param ids Ids returned by {@link #search} or {@link #searchFuzzy}
+     * @param minStock Minimum stock level (exclusive)
+     * @param counter Receives the counts
+     */
+    public void collectFacets(long[] ids, int minStock, FacetCounter counter) {
+        lock.readLock().lock();
+        try {
+            for (long id : ids) {
+                IndexedProduct product = productsById.get(id);
+                if (product != null && product.active() && product.stock() > minStock) {
+                    counter.add(product.category(), product.price(), 1);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return allIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] prefixMatches(String prefix) {
+        return LongPostingList.unionAll(
+                new ArrayList<>(terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()));
+    }
+
+    /**
+     * Replaces the indexed state of a product unless it is not newer than what is indexed
+     * (overlapping polls re-deliver the same version, which would only re-tokenize it)
+     * Callers hold the write lock
+     */
+    private void put(long id, IndexedProduct indexed) {
+        IndexedProduct previous = productsById.get(id);
+        if (previous != null && indexed.version() != null && previous.version() != null
+                && indexed.version() <= previous.version()) {
+            return;
+        }
+        removeTokens(id);
+        for (String token : indexed.tokens()) {
+            terms.computeIfAbsent(token, t -> {
+                dictionary.add(t);
+                return new LongPostingList();
+            }).add(id);
+        }
+        productsById.put(id, indexed);
+        allIds.add(id);
+    }
+
+    private void removeTokens(long id) {
+        IndexedProduct previous = productsById.get(id);
+        if (previous == null) {
+            return;
+        }
+        for (String token : previous.tokens()) {
+            LongPostingList postings = terms.get(token);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    terms.remove(token);
+                    dictionary.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tokens of an indexed product plus the attributes needed for facet counts, and the row
+     * version they were read at (null when unknown, which always applies)
+     */
+    private record IndexedProduct(List<String> tokens, String category, BigDecimal price, int stock,
+                                  boolean active, Long version) {
+    }
+}
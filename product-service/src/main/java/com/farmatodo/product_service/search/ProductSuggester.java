@@ -0,0 +1,267 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.event.ProductChangeListener;
+import com.farmatodo.product_service.event.SearchEvent;
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.ProductSummary;
+import com.farmatodo.product_service.repository.SearchTermCount;
+import com.farmatodo.product_service.repository.SearchTermRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Type-ahead suggestions over normalized names and categories of ACTIVE products
+ * Backed by a {@link SuggestionTrie}; each suggestion is ranked by how often it (or one of
+ * its words) was searched, using the search term rollups of the popularity window plus the
+ * searches seen since they were loaded
+ *
+ * Products created or changed at runtime, on this instance or (through the change poller) on
+ * another, are added incrementally with their current score. Scores of suggestions already in
+ * the trie are only recomputed by a rebuild, which runs at startup and every
+ * product.suggest.rebuildMillis: it builds a new trie off the lock and swaps it in, so suggestions
+ * stay available meanwhile; products added during the build are replayed onto the new trie.
+ * Renamed and deactivated products keep their old suggestions until then, since another product
+ * may share the name or category.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSuggester implements ProductChangeListener {
+
+    public static final String TYPE_PRODUCT = "PRODUCT";
+    public static final String TYPE_CATEGORY = "CATEGORY";
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggester.class);
+
+    private final ProductRepository productRepository;
+    private final SearchTermRollupRepository searchTermRollupRepository;
+
+    @Value("${product.suggest.batchSize:1000}")
+    private int batchSize = 1000;
+
+    @Value("${product.suggest.popularityDays:30}")
+    private int popularityDays = 30;
+
+    @Value("${product.suggest.maxTerms:50000}")
+    private int maxTerms = 50000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; replaced as a whole by rebuild
+    private SuggestionTrie trie = new SuggestionTrie();
+    private volatile Map<String, Long> popularity = new ConcurrentHashMap<>();
+
+    /**
+     * Suggestions added while a rebuild reads the catalog, null otherwise; guarded by lock
+     */
+    private List<SuggestionTrie.Entry> addedDuringRebuild;
+
+    /**
+     * Loads term popularity from the search term rollups and builds a new trie from the active catalog
+     * Products are read in keyset pages through the listing projection
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+
+        Map<String, Long> loaded = new ConcurrentHashMap<>();
+        List<SearchTermCount> terms = searchTermRollupRepository.findPopularTermsSince(
+                LocalDateTime.now().minusDays(popularityDays), PageRequest.of(0, maxTerms));
+        for (SearchTermCount term : terms) {
+            String key = SearchTokenizer.normalize(term.getTerm());
+            if (!key.isEmpty() && term.getSearches() != null) {
+                loaded.merge(key, term.getSearches(), Long::sum);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            addedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        SuggestionTrie built = new SuggestionTrie();
+        boolean complete = false;
+        try {
+            long afterId = 0L;
+            List<ProductSummary> page;
+            do {
+                page = productRepository.findActiveAfter(afterId, PageRequest.of(0, batchSize));
+                for (ProductSummary product : page) {
+                    put(built, loaded, product.getName(), TYPE_PRODUCT);
+                    put(built, loaded, product.getCategory(), TYPE_CATEGORY);
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == batchSize);
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (complete) {
+                    for (SuggestionTrie.Entry added : addedDuringRebuild) {
+                        put(built, loaded, added.text(), added.type());
+                    }
+                    trie = built;
+                    popularity = loaded;
+                }
+                addedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        logger.info("Product suggester built with {} suggestions and {} popular terms in {} ms",
+                size(), popularity.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-ranks every suggestion with the latest rollups and drops names no active product has anymore
+     * A failure is logged and the current suggestions stay in place
+     */
+    @Scheduled(initialDelayString = "${product.suggest.rebuildMillis:600000}",
+               fixedDelayString = "${product.suggest.rebuildMillis:600000}")
+    public void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Failed to rebuild product suggester. Error: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Adds the name and category of a new or changed product, if it is active
+     * @param product Persisted product
+     */
+    public void add(Product product) {
+        if (product == null || !isActive(product.getStatus())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            add(product.getName(), TYPE_PRODUCT);
+            add(product.getCategory(), TYPE_CATEGORY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the names and categories of active products changed by any instance
+     */
+    @Override
+    public void onProductChanges(List<ProductChange> changes) {
+        lock.writeLock().lock();
+        try {
+            for (ProductChange change : changes) {
+                if (!isActive(change.getStatus())) {
+                    continue;
+                }
+                add(change.getName(), TYPE_PRODUCT);
+                add(change.getCategory(), TYPE_CATEGORY);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts searches that returned results towards the popularity of their term
+     * Applies to suggestions added from now on; existing ones are re-ranked on the next rebuild
+     */
+    @EventListener
+    public void onSearch(SearchEvent event) {
+        if (event.getResultsCount() == null || event.getResultsCount() <= 0) {
+            return;
+        }
+        String key = SearchTokenizer.normalize(event.getSearchTerm());
+        if (!key.isEmpty()) {
+            popularity.merge(key, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Returns the most popular suggestions starting with the prefix
+     * @param prefix Raw prefix typed by the user (normalized before lookup)
+     * @param limit Maximum number of suggestions
+     * @return Suggestions ordered by popularity descending, then alphabetically
+     */
+    public List<SuggestionTrie.Entry> suggest(String prefix, int limit) {
+        String key = SearchTokenizer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return trie.complete(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trie.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Caller holds the write lock
+     */
+    private void add(String text, String type) {
+        SuggestionTrie.Entry entry = put(trie, popularity, text, type);
+        if (entry != null && addedDuringRebuild != null) {
+            addedDuringRebuild.add(entry);
+        }
+    }
+
+    private static boolean isActive(String status) {
+        return "ACTIVE".equals(status);
+    }
+
+    private static SuggestionTrie.Entry put(SuggestionTrie target, Map<String, Long> popularity,
+                                            String text, String type) {
+        String key = SearchTokenizer.normalize(text);
+        if (key.isEmpty()) {
+            return null;
+        }
+        SuggestionTrie.Entry entry = new SuggestionTrie.Entry(text.trim(), type, score(popularity, key));
+        target.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Searches for the whole phrase plus searches for each of its words
+     */
+    private static long score(Map<String, Long> popularity, String key) {
+        long score = popularity.getOrDefault(key, 0L);
+        List<String> tokens = SearchTokenizer.tokenize(key);
+        if (tokens.size() > 1 || !tokens.contains(key)) {
+            for (String token : tokens) {
+                score += popularity.getOrDefault(token, 0L);
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,51 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills Product.searchKey for rows saved before the column existed
+ * New and updated products get their key from the entity callbacks, so this only has work
+ * to do on the first start after the upgrade; each batch runs in its own transaction
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchKeyBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchKeyBackfill.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${product.search.index.batchSize:1000}")
+    private int batchSize = 1000;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> {
+                List<Product> batch = productRepository.findBySearchKeyIsNull(PageRequest.of(0, batchSize));
+                batch.forEach(Product::refreshSearchKey);
+                return batch.size();
+            });
+            total += updated;
+        } while (updated == batchSize);
+
+        if (total > 0) {
+            logger.info("Backfilled search key for {} products", total);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.farmatodo.product_service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits product text and search queries into lower-cased, accent-free alphanumeric tokens
+ * Index and query side must use the same tokenizer so terms line up
+ */
+public final class SearchTokenizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Normalizes a query for use as a cache or search key: accents removed, lower-cased,
+     * trimmed, inner whitespace collapsed (e.g. " Acetaminofén  Niños" -> "acetaminofen ninos")
+     * @param text Raw query (null is treated as empty)
+     * @return Normalized query
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(fold(text).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Removes diacritics and lower-cases the text
+     * @param text Non-null text
+     * @return Folded text
+     */
+    public static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (isAscii(lower)) {
+            return lower;
+        }
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Tokenizes the given texts into a de-duplicated list of terms
+     * @param texts Values to tokenize (null values are ignored)
+     * @return Distinct tokens in order of first appearance
+     */
+    public static List<String> tokenize(String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text == null || text.isEmpty()) {
+                continue;
+            }
+            String lower = fold(text);
+            int start = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                boolean tokenChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+                if (tokenChar && start < 0) {
+                    start = i;
+                } else if (!tokenChar && start >= 0) {
+                    tokens.add(lower.substring(start, i));
+                    start = -1;
+                }
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,210 @@
+package com.farmatodo.product_service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Compressed (radix) trie of normalized suggestion keys
+ * Single-child chains are merged into one edge label, and every node keeps the best score
+ * of its subtree so the top-K completions of a prefix are found best-first without
+ * visiting the whole subtree
+ *
+ * Not thread-safe; callers guard access
+ */
+public class SuggestionTrie {
+
+    /**
+     * Completion stored at the end of a key
+     */
+    public record Entry(String text, String type, long score) {
+    }
+
+    private static final Comparator<Candidate> CANDIDATE_ORDER = Comparator
+            .comparingLong(Candidate::score).reversed()
+            .thenComparing(Candidate::key)
+            .thenComparing(candidate -> candidate.entry() == null);
+
+    private Node root = new Node("");
+    private int size;
+
+    /**
+     * Inserts or replaces the entry for a key, keeping the higher score on conflicts
+     * @param key Normalized key to match prefixes against
+     * @param entry Suggestion returned for the key
+     */
+    public void put(String key, Entry entry) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        int i = 0;
+        while (true) {
+            node.maxScore = Math.max(node.maxScore, entry.score());
+            if (i == key.length()) {
+                if (node.entry == null) {
+                    size++;
+                    node.entry = entry;
+                } else if (entry.score() >= node.entry.score()) {
+                    node.entry = entry;
+                }
+                return;
+            }
+
+            int childIndex = node.findChild(key.charAt(i));
+            if (childIndex < 0) {
+                Node leaf = new Node(key.substring(i));
+                leaf.entry = entry;
+                leaf.maxScore = entry.score();
+                node.insertChild(-childIndex - 1, leaf);
+                size++;
+                return;
+            }
+
+            Node child = node.children[childIndex];
+            int common = commonPrefixLength(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge: node -> mid(common part) -> child(rest)
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.maxScore = child.maxScore;
+                mid.insertChild(0, child);
+                node.children[childIndex] = mid;
+                child = mid;
+            }
+            node = child;
+            i += common;
+        }
+    }
+
+    /**
+     * Returns the best-ranked entries whose key starts with the prefix
+     * @param prefix Normalized prefix
+     * @param limit Maximum number of entries
+     * @return Entries ordered by score descending, then key
+     */
+    public List<Entry> complete(String prefix, int limit) {
+        List<Entry> result = new ArrayList<>();
+        Located start = locate(prefix);
+        if (start == null || limit <= 0) {
+            return result;
+        }
+
+        // Best-first walk ordered by (score desc, key asc): a node's maxScore bounds every
+        // score below it and its path bounds every key below it, so entries pop in rank order
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(CANDIDATE_ORDER);
+        queue.add(new Candidate(start.node().maxScore, start.path(), start.node(), null));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate next = queue.poll();
+            if (next.entry() != null) {
+                result.add(next.entry());
+                continue;
+            }
+            Node node = next.node();
+            if (node.entry != null) {
+                queue.add(new Candidate(node.entry.score(), next.key(), null, node.entry));
+            }
+            for (int c = 0; c < node.childCount; c++) {
+                Node child = node.children[c];
+                queue.add(new Candidate(child.maxScore, next.key() + child.label, child, null));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = new Node("");
+        size = 0;
+    }
+
+    private Located locate(String prefix) {
+        Node node = root;
+        StringBuilder path = new StringBuilder();
+        int i = 0;
+        while (i < prefix.length()) {
+            int childIndex = node.findChild(prefix.charAt(i));
+            if (childIndex < 0) {
+                return null;
+            }
+            Node child = node.children[childIndex];
+            int common = commonPrefixLength(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                // Prefix ends inside (or at the end of) this edge
+                return new Located(child, path.append(child.label).toString());
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            path.append(child.label);
+            node = child;
+            i += common;
+        }
+        return new Located(node, path.toString());
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    private record Located(Node node, String path) {
+    }
+
+    /**
+     * Queue element: either a subtree still to expand or an entry ready to emit
+     */
+    private record Candidate(long score, String key, Node node, Entry entry) {
+    }
+
+    private static final class Node {
+        private String label;
+        private Node[] children = new Node[0];
+        private int childCount;
+        private Entry entry;
+        private long maxScore;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Binary search on the first character of child labels
+         * @return index of the child, or (-(insertion point) - 1)
+         */
+        private int findChild(char c) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertChild(int index, Node child) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            children[index] = child;
+            childCount++;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.dto.ProductImportEventDTO;
+import com.farmatodo.product_service.dto.ProductRequestDTO;
+import com.farmatodo.product_service.importer.ProductIdAllocator;
+import com.farmatodo.product_service.importer.ProductImportReader;
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.search.ProductSearchCache;
+import com.farmatodo.product_service.search.ProductSearchIndex;
+import com.farmatodo.product_service.search.ProductSuggester;
+import com.farmatodo.product_service.stock.LowStockTracker;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk catalog import
+ *
+ * The upload is read line by line and validated with the same rules as POST /products, plus the
+ * column lengths so one bad row cannot fail a whole batch. SKUs are deduplicated against the rest of
+ * the upload, and against the catalog by the unique index on sku: rows are inserted with ON CONFLICT
+ * DO NOTHING, so a SKU taken by another import or a POST /products, even one committed while this
+ * batch runs, is reported instead of duplicated. Valid rows are inserted with JDBC batch inserts, one
+ * transaction per batch, using ids from {@link ProductIdAllocator}.
+ *
+ * Progress is written to the response as NDJSON while the upload is still being read: one ERROR line
+ * per rejected row, a PROGRESS line every progressInterval rows and a final SUMMARY line.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    static final String EVENT_ERROR = "ERROR";
+    static final String EVENT_PROGRESS = "PROGRESS";
+    static final String EVENT_SUMMARY = "SUMMARY";
+
+    static final String INSERT_SQL =
+            "INSERT INTO products (id, name, description, price, stock, category, sku, status, search_key, " +
+            "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1) " +
+            "ON CONFLICT (sku) WHERE sku IS NOT NULL DO NOTHING";
+
+    // Batched inserts are rewritten into multi-row statements without per-row counts, so the
+    // rows that went in are read back by id
+    static final String INSERTED_IDS_SQL = "SELECT id FROM products WHERE id = ANY (?)";
+
+    private static final int NAME_LENGTH = 200;
+    private static final int CATEGORY_LENGTH = 50;
+    private static final int SKU_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductIdAllocator productIdAllocator;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSearchCache productSearchCache;
+    private final ProductSuggester productSuggester;
+    private final LowStockTracker lowStockTracker;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.import.batchSize:1000}")
+    private int batchSize = 1000;
+
+    @Value("${product.import.progressInterval:10000}")
+    private int progressInterval = 10000;
+
+    /**
+     * Imports every valid row of the upload
+     * @param in Upload body
+     * @param format CSV or NDJSON
+     * @param out Response body the events are written to (not closed by this method)
+     * @return The summary event, also written as the last line
+     */
+    public ProductImportEventDTO importProducts(InputStream in, ProductImportReader.Format format,
+                                                OutputStream out) throws IOException {
+        String transactionId = MDC.get("transactionId");
+        logger.info("Importing products from {} upload, transaction: {}", format, transactionId);
+
+        ProductImportReader reader = new ProductImportReader(in, format, objectMapper);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            ImportRun run = new ImportRun(generator);
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                run.processed++;
+                accept(run, row);
+                if (run.batch.size() >= batchSize) {
+                    insertBatch(run);
+                }
+                if (run.processed % progressInterval == 0) {
+                    run.write(run.counters(EVENT_PROGRESS));
+                    generator.flush();
+                }
+            }
+            insertBatch(run);
+
+            if (run.imported > 0) {
+                productSearchCache.invalidateAll();
+            }
+            ProductImportEventDTO summary = run.counters(EVENT_SUMMARY);
+            run.write(summary);
+            generator.flush();
+
+            logger.info("Product import finished - processed: {}, imported: {}, failed: {} in {} ms, transaction: {}",
+                    summary.getProcessed(), summary.getImported(), summary.getFailed(), summary.getElapsedMs(),
+                    transactionId);
+            return summary;
+        }
+    }
+
+    /**
+     * Validates a row and queues it for the next batch, or reports why it was rejected
+     */
+    private void accept(ImportRun run, ProductImportReader.Row row) throws IOException {
+        if (row.error() != null) {
+            run.fail(row.line(), null, row.error());
+            return;
+        }
+        ProductRequestDTO request = row.request();
+        String sku = request.getSku() == null || request.getSku().isBlank() ? null : request.getSku().trim();
+        try {
+            ProductService.validateProductRequest(request);
+            validateLengths(request, sku);
+        } catch (IllegalArgumentException e) {
+            run.fail(row.line(), sku, e.getMessage());
+            return;
+        }
+        if (sku != null && !run.seenSkus.add(sku)) {
+            run.fail(row.line(), sku, "Duplicate sku in upload");
+            return;
+        }
+
+        Product product = Product.builder()
+                .name(request.getName().trim())
+                .description(request.getDescription())
+                .price(request.getPrice())
+                .stock(request.getStock())
+                .category(request.getCategory())
+                .sku(sku)
+                .status("ACTIVE")
+                .version(1L)
+                .build();
+        product.refreshSearchKey();
+        run.batch.add(new PendingRow(row.line(), product));
+    }
+
+    private static void validateLengths(ProductRequestDTO request, String sku) {
+        if (request.getName().trim().length() > NAME_LENGTH) {
+            throw new IllegalArgumentException("Product name cannot exceed " + NAME_LENGTH + " characters");
+        }
+        if (request.getCategory() != null && request.getCategory().length() > CATEGORY_LENGTH) {
+            throw new IllegalArgumentException("Product category cannot exceed " + CATEGORY_LENGTH + " characters");
+        }
+        if (sku != null && sku.length() > SKU_LENGTH) {
+            throw new IllegalArgumentException("Product sku cannot exceed " + SKU_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Inserts the queued rows in one transaction, skipping SKUs the catalog already has,
+     * then makes the new products searchable
+     * Ids and timestamps are set inside the transaction so they are as close to the commit as possible
+     */
+    private void insertBatch(ImportRun run) throws IOException {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+        List<PendingRow> batch = new ArrayList<>(run.batch);
+        run.batch.clear();
+
+        List<PendingRow> existing = new ArrayList<>();
+        List<Product> inserted;
+        try {
+            inserted = transactionTemplate.execute(status -> {
+                long[] ids = productIdAllocator.allocate(batch.size());
+                LocalDateTime now = LocalDateTime.now();
+                List<Product> products = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    Product product = batch.get(i).product();
+                    product.setId(ids[i]);
+                    product.setCreatedAt(now);
+                    product.setUpdatedAt(now);
+                    products.add(product);
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, products, products.size(), (ps, product) -> {
+                    ps.setLong(1, product.getId());
+                    ps.setString(2, product.getName());
+                    ps.setString(3, product.getDescription());
+                    ps.setBigDecimal(4, product.getPrice());
+                    ps.setInt(5, product.getStock());
+                    ps.setString(6, product.getCategory());
+                    ps.setString(7, product.getSku());
+                    ps.setString(8, product.getStatus());
+                    ps.setString(9, product.getSearchKey());
+                    ps.setTimestamp(10, Timestamp.valueOf(product.getCreatedAt()));
+                    ps.setTimestamp(11, Timestamp.valueOf(product.getUpdatedAt()));
+                });
+
+                Long[] candidates = products.stream().map(Product::getId).toArray(Long[]::new);
+                Set<Long> written = new HashSet<>(
+                        jdbcTemplate.queryForList(INSERTED_IDS_SQL, Long.class, (Object) candidates));
+                List<Product> insertedProducts = new ArrayList<>(written.size());
+                for (PendingRow pending : batch) {
+                    if (written.contains(pending.product().getId())) {
+                        insertedProducts.add(pending.product());
+                    } else {
+                        existing.add(pending);
+                    }
+                }
+                return insertedProducts;
+            });
+        } catch (Exception e) {
+            logger.error("Failed to insert import batch of {} rows. Error: {}", batch.size(), e.getMessage(), e);
+            for (PendingRow pending : batch) {
+                run.fail(pending.line(), pending.product().getSku(), "Batch insert failed: " + e.getMessage());
+            }
+            run.generator.flush();
+            return;
+        }
+
+        for (PendingRow pending : existing) {
+            run.fail(pending.line(), pending.product().getSku(), "Product with this sku already exists");
+        }
+        for (Product product : inserted) {
+            productSearchIndex.index(product);
+            productSuggester.add(product);
+            lowStockTracker.update(product);
+        }
+        run.imported += inserted.size();
+        run.generator.flush();
+    }
+
+    private record PendingRow(long line, Product product) {
+    }
+
+    /**
+     * State of one upload: counters, SKUs seen so far and the batch being filled
+     */
+    private final class ImportRun {
+        private final JsonGenerator generator;
+        private final ObjectWriter writer = objectMapper.writerFor(ProductImportEventDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private final long start = System.currentTimeMillis();
+        private final Set<String> seenSkus = new HashSet<>();
+        private final List<PendingRow> batch = new ArrayList<>(batchSize);
+
+        private long processed;
+        private long imported;
+        private long failed;
+
+        private ImportRun(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        private void fail(long line, String sku, String message) throws IOException {
+            failed++;
+            write(ProductImportEventDTO.builder()
+                    .type(EVENT_ERROR)
+                    .line(line)
+                    .sku(sku)
+                    .message(message)
+                    .build());
+        }
+
+        private ProductImportEventDTO counters(String type) {
+            return ProductImportEventDTO.builder()
+                    .type(type)
+                    .processed(processed)
+                    .imported(imported)
+                    .failed(failed)
+                    .elapsedMs(System.currentTimeMillis() - start)
+                    .build();
+        }
+
+        private void write(ProductImportEventDTO event) throws IOException {
+            writer.writeValue(generator, event);
+            generator.writeRaw('\n');
+        }
+    }
+}
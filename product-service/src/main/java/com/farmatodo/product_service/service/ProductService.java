@@ -1,38 +1,120 @@
 package com.farmatodo.product_service.service;
 
+import com.farmatodo.product_service.cache.ProductJsonCache;
+import com.farmatodo.product_service.dto.ProductChangesDTO;
 import com.farmatodo.product_service.dto.ProductDTO;
 import com.farmatodo.product_service.dto.ProductRequestDTO;
 import com.farmatodo.product_service.dto.ProductSearchResponseDTO;
+import com.farmatodo.product_service.dto.SuggestionDTO;
+import com.farmatodo.product_service.dto.SuggestionResponseDTO;
 import com.farmatodo.product_service.event.SearchEvent;
 import com.farmatodo.product_service.event.SearchEventPublisher;
+import com.farmatodo.product_service.exception.BusinessException;
 import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductFacetCount;
 import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.ProductSkuIndexMigration;
+import com.farmatodo.product_service.repository.ProductSummary;
+import com.farmatodo.product_service.search.FacetCounter;
+import com.farmatodo.product_service.search.ProductSearchCache;
+import com.farmatodo.product_service.search.ProductSearchIndex;
+import com.farmatodo.product_service.search.ProductSuggester;
+import com.farmatodo.product_service.search.SearchTokenizer;
+import com.farmatodo.product_service.search.SuggestionTrie;
+import com.farmatodo.product_service.stock.LowStockTracker;
+import com.farmatodo.product_service.util.CursorCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+    private static final int ID_LOOKUP_CHUNK_SIZE = 1000;
+    private static final int MIN_LOOKUP_CHUNK_SIZE = 32;
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    private static final int DEFAULT_SUGGESTION_LIMIT = 10;
+    private static final int MAX_SUGGESTION_LIMIT = 50;
 
     private final ProductRepository productRepository;
     private final SearchEventPublisher searchEventPublisher;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSearchCache productSearchCache;
+    private final ProductSuggester productSuggester;
+    private final LowStockTracker lowStockTracker;
+    private final ProductJsonCache productJsonCache;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
     @Value("${product.minStock:0}")
     private int minStock;
 
+    @Value("${product.search.fuzzy.enabled:true}")
+    private boolean fuzzyEnabled = true;
+
+    @Value("${product.search.facets.priceBuckets:5,10,20,50,100}")
+    private BigDecimal[] priceBucketBounds = {
+            BigDecimal.valueOf(5), BigDecimal.valueOf(10), BigDecimal.valueOf(20),
+            BigDecimal.valueOf(50), BigDecimal.valueOf(100)};
+
+    @Value("${product.page.defaultSize:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${product.page.maxSize:500}")
+    private int maxPageSize = 500;
+
+    @Value("${product.changes.overlapMillis:30000}")
+    private long changesOverlapMillis = 30_000;
+
+    /**
+     * Search products returning the first page with the default page size
+     */
     @Transactional(readOnly = true)
     public ProductSearchResponseDTO searchProducts(String query, String userIdentifier) {
+        return searchProducts(query, userIdentifier, null, null);
+    }
+
+    /**
+     * Search products using keyset pagination on product id
+     * @param query Search term
+     * @param userIdentifier Caller identifier for search logging
+     * @param cursor Cursor returned as nextCursor by the previous page (null for the first page)
+     * @param limit Page size (defaults to product.page.defaultSize, capped at product.page.maxSize)
+     * @return One page of matching products and the cursor of the next page
+     */
+    @Transactional(readOnly = true)
+    public ProductSearchResponseDTO searchProducts(String query, String userIdentifier, String cursor, Integer limit) {
         String transactionId = MDC.get("transactionId");
         logger.info("Searching products with query: '{}', minStock: {}, transaction: {}",
                 query, minStock, transactionId);
@@ -42,26 +124,108 @@ public class ProductService {
             query = "";
         }
 
-        // Search products in database
-        List<Product> products = productRepository.searchProducts(query.trim(), minStock);
+        String trimmedQuery = query.trim();
+        int pageSize = resolvePageSize(limit);
+        long afterId = CursorCodec.isPresent(cursor) ? CursorCodec.decode(cursor, 1)[0] : 0L;
 
-        logger.debug("Found {} products for query: '{}', transaction: {}",
-                products.size(), query, transactionId);
+        // Popular queries are served from the result cache; misses go to the index
+        ProductSearchResponseDTO page = productSearchCache.get(trimmedQuery, minStock, cursor, pageSize,
+                () -> findMatchingPage(trimmedQuery, afterId, pageSize));
 
-        // Convert to DTOs
-        List<ProductDTO> productDTOs = products.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        logger.debug("Found {} products for query: '{}', transaction: {}",
+                page.getProducts().size(), query, transactionId);
+
+        // Cached pages are shared, so echo the caller's query on a fresh response
+        ProductSearchResponseDTO response = ProductSearchResponseDTO.builder()
+                .query(trimmedQuery)
+                .totalResults(page.getTotalResults())
+                .products(page.getProducts())
+                .nextCursor(page.getNextCursor())
+                .fuzzy(page.isFuzzy())
+                .categoryFacets(page.getCategoryFacets())
+                .priceFacets(page.getPriceFacets())
+                .build();
 
-        // Publish search event asynchronously (non-blocking)
-        publishSearchEventAsync(query, products.size(), userIdentifier, transactionId);
+        // Publish search event asynchronously (non-blocking); following pages are the same search
+        if (afterId == 0L) {
+            publishSearchEventAsync(query, response.getTotalResults(), userIdentifier, transactionId);
+        }
 
         // Return response immediately (search logging happens in background)
-        return ProductSearchResponseDTO.builder()
-                .query(query.trim())
-                .totalResults(products.size())
-                .products(productDTOs)
-                .build();
+        return response;
+    }
+
+    /**
+     * Serves the search from the inverted index when it is built
+     * Falls back to the search key query while the index is still loading at startup
+     * Queries with no exact match are retried with typo-tolerant matching
+     */
+    private ProductSearchResponseDTO findMatchingPage(String query, long afterId, int pageSize) {
+        if (!productSearchIndex.isReady()) {
+            logger.debug("Search index not ready, falling back to database search for query: '{}'", query);
+            String normalizedQuery = SearchTokenizer.normalize(query);
+            List<ProductSummary> products = productRepository.searchProductsAfter(
+                    normalizedQuery, minStock, afterId, PageRequest.of(0, pageSize + 1));
+            ProductSearchResponseDTO page = buildPage(products, pageSize, ProductService::idCursor);
+            if (afterId == 0L) {
+                FacetCounter facets = new FacetCounter(priceBucketBounds);
+                for (ProductFacetCount row : productRepository.countSearchFacets(normalizedQuery, minStock)) {
+                    facets.add(row.getCategory(), row.getPrice(), row.getProducts());
+                }
+                applyFacets(page, facets);
+                page.setTotalResults((int) facets.total());
+            }
+            return page;
+        }
+
+        long[] ids = productSearchIndex.search(query);
+        boolean fuzzy = false;
+        if (ids.length == 0 && fuzzyEnabled && !query.isEmpty()) {
+            // Only misspelled queries pay for the correction lookup
+            ids = productSearchIndex.searchFuzzy(query);
+            fuzzy = ids.length > 0;
+            logger.debug("No exact match for query: '{}', fuzzy matches: {}", query, ids.length);
+        }
+
+        ProductSearchResponseDTO page = buildPage(loadByIds(ids, afterId, pageSize + 1), pageSize, ProductService::idCursor);
+        page.setFuzzy(fuzzy);
+        if (afterId == 0L) {
+            // Facets and the total cover every match, so they are computed once with the first page
+            FacetCounter facets = new FacetCounter(priceBucketBounds);
+            productSearchIndex.collectFacets(ids, minStock, facets);
+            applyFacets(page, facets);
+            page.setTotalResults((int) facets.total());
+        }
+        return page;
+    }
+
+    private static void applyFacets(ProductSearchResponseDTO page, FacetCounter facets) {
+        page.setCategoryFacets(facets.categoryFacets());
+        page.setPriceFacets(facets.priceFacets());
+    }
+
+    /**
+     * Loads the ids resolved by the index that come after the cursor, by primary key
+     * @param ids Sorted matching ids
+     * @param fetchSize Maximum number of products to load (page size + 1 to detect a next page)
+     */
+    private List<ProductSummary> loadByIds(long[] ids, long afterId, int fetchSize) {
+        int from = Arrays.binarySearch(ids, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+
+        // Hydrate only as many ids as the page needs; some may be dropped by the stock/status filter
+        List<ProductSummary> products = new ArrayList<>();
+        while (from < ids.length && products.size() < fetchSize) {
+            int chunkSize = Math.min(ID_LOOKUP_CHUNK_SIZE, Math.max(fetchSize - products.size(), MIN_LOOKUP_CHUNK_SIZE));
+            int to = Math.min(ids.length, from + chunkSize);
+            List<Long> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(ids[i]);
+            }
+            products.addAll(productRepository.findActiveByIdIn(chunk, minStock));
+            from = to;
+        }
+        return products.size() > fetchSize ? products.subList(0, fetchSize) : products;
     }
 
     /**
@@ -90,11 +254,23 @@ public class ProductService {
 
     /**
      * Get all active products with stock less than the specified threshold
+     * Returns the first page with the default page size
      * @param maxStock Maximum stock level (products with stock < maxStock)
      * @return Response with list of low stock products
      */
-    @Transactional(readOnly = true)
     public ProductSearchResponseDTO getProductsWithLowStock(int maxStock) {
+        return getProductsWithLowStock(maxStock, null, null);
+    }
+
+    /**
+     * Get active products with stock less than the specified threshold using (stock, id) keyset pagination
+     * @param maxStock Maximum stock level (products with stock < maxStock)
+     * @param cursor Cursor returned as nextCursor by the previous page (null for the first page)
+     * @param limit Page size (defaults to product.page.defaultSize, capped at product.page.maxSize)
+     * @return One page of low stock products ordered by stock ascending
+     */
+    // Not @Transactional: once the tracker is seeded no connection is needed at all
+    public ProductSearchResponseDTO getProductsWithLowStock(int maxStock, String cursor, Integer limit) {
         String transactionId = MDC.get("transactionId");
         logger.info("Finding products with stock < {}, transaction: {}", maxStock, transactionId);
 
@@ -104,26 +280,63 @@ public class ProductService {
             maxStock = 0;
         }
 
-        // Query products with low stock
-        List<Product> products = productRepository.findProductsWithLowStock(maxStock);
+        int pageSize = resolvePageSize(limit);
+        int afterStock = -1;
+        long afterId = 0L;
+        if (CursorCodec.isPresent(cursor)) {
+            long[] keys = CursorCodec.decode(cursor, 2);
+            afterStock = (int) keys[0];
+            afterId = keys[1];
+        }
 
-        logger.info("Found {} products with stock < {}, transaction: {}",
-                products.size(), maxStock, transactionId);
+        // Range read on the in-memory stock order; the database is only queried until it is seeded
+        List<ProductSummary> products = lowStockTracker.isReady()
+                ? lowStockTracker.findBelow(maxStock, afterStock, afterId, pageSize + 1)
+                : productRepository.findProductsWithLowStockAfter(
+                        maxStock, afterStock, afterId, PageRequest.of(0, pageSize + 1));
+
+        ProductSearchResponseDTO response = buildPage(products, pageSize, ProductService::stockIdCursor);
+        response.setQuery("stock < " + maxStock);
+        if (!CursorCodec.isPresent(cursor)) {
+            response.setTotalResults(lowStockTracker.isReady()
+                    ? lowStockTracker.countBelow(maxStock)
+                    : (int) productRepository.countProductsWithLowStock(maxStock));
+        }
 
-        // Convert to DTOs
-        List<ProductDTO> productDTOs = products.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        logger.info("Found {} products with stock < {}, transaction: {}",
+                response.getProducts().size(), maxStock, transactionId);
 
-        // Return response
-        return ProductSearchResponseDTO.builder()
-                .query("stock < " + maxStock)
-                .totalResults(products.size())
-                .products(productDTOs)
-                .build();
+        return response;
     }
 
+    /**
+     * Type-ahead suggestions for product names and categories starting with the prefix
+     * Served entirely from memory, ranked by search popularity
+     * @param prefix Text typed so far
+     * @param limit Maximum number of suggestions (defaults to 10, capped at 50)
+     */
+    public SuggestionResponseDTO suggestProducts(String prefix, Integer limit) {
+        int max = limit == null || limit <= 0 ? DEFAULT_SUGGESTION_LIMIT : Math.min(limit, MAX_SUGGESTION_LIMIT);
+        String trimmedPrefix = prefix == null ? "" : prefix.trim();
+
+        List<SuggestionTrie.Entry> entries = productSuggester.suggest(trimmedPrefix, max);
+        List<SuggestionDTO> suggestions = new ArrayList<>(entries.size());
+        for (SuggestionTrie.Entry entry : entries) {
+            suggestions.add(SuggestionDTO.builder()
+                    .text(entry.text())
+                    .type(entry.type())
+                    .score(entry.score())
+                    .build());
+        }
+
+        logger.debug("Found {} suggestions for prefix: '{}', transaction: {}",
+                suggestions.size(), trimmedPrefix, MDC.get("transactionId"));
 
+        return SuggestionResponseDTO.builder()
+                .prefix(trimmedPrefix)
+                .suggestions(suggestions)
+                .build();
+    }
 
     @Transactional
     public ProductDTO createProduct(ProductRequestDTO request) {
@@ -144,57 +357,221 @@ public class ProductService {
                 .status("ACTIVE")
                 .build();
 
-        // Save to database
-        product = productRepository.save(product);
+        // Save to database, the unique index on sku rejects a SKU that is already taken
+        try {
+            product = productRepository.save(product);
+        } catch (DataIntegrityViolationException e) {
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+            if (cause.getMessage() != null && cause.getMessage().contains(ProductSkuIndexMigration.INDEX_NAME)) {
+                logger.warn("Product sku {} already exists, transaction: {}", request.getSku(), transactionId);
+                throw new BusinessException("Product with this sku already exists", "PRODUCT_SKU_EXISTS", 409);
+            }
+            throw e;
+        }
+
+        // Make the new product searchable right away
+        productSearchIndex.index(product);
+        productSearchCache.invalidateAll();
+        productSuggester.add(product);
+        lowStockTracker.update(product);
 
         logger.info("Product created successfully with ID: {}, transaction: {}", product.getId(), transactionId);
 
         return mapToDTO(product);
     }
 
+    /**
+     * Get one page of the whole catalog using keyset pagination on product id
+     * @param cursor Cursor returned as nextCursor by the previous page (null for the first page)
+     * @param limit Page size (defaults to product.page.defaultSize, capped at product.page.maxSize)
+     */
     @Transactional(readOnly = true)
-    public ProductDTO getProductById(Long id) {
+    public ProductSearchResponseDTO getAllProducts(String cursor, Integer limit) {
         String transactionId = MDC.get("transactionId");
-        logger.info("Getting product by ID: {}, transaction: {}", id, transactionId);
+        logger.info("Getting all products, transaction: {}", transactionId);
 
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.warn("Product not found with ID: {}, transaction: {}", id, transactionId);
-                    return new RuntimeException("Product not found with ID: " + id);
-                });
+        int pageSize = resolvePageSize(limit);
+        long afterId = CursorCodec.isPresent(cursor) ? CursorCodec.decode(cursor, 1)[0] : 0L;
 
-        return mapToDTO(product);
+        List<ProductSummary> products = productRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId, PageRequest.of(0, pageSize + 1));
+
+        ProductSearchResponseDTO response = buildPage(products, pageSize, ProductService::idCursor);
+        if (afterId == 0L) {
+            response.setTotalResults((int) productRepository.count());
+        }
+
+        logger.info("Found {} products, transaction: {}", response.getProducts().size(), transactionId);
+
+        return response;
     }
 
+    /**
+     * Get the products changed after a watermark, oldest change first
+     * Pulling again with nextSince until hasMore is false yields every change at least once; without
+     * since the feed starts from the beginning, which doubles as the initial full load
+     * updatedAt is not commit ordered, so once a pull is caught up nextSince is moved back by
+     * product.changes.overlapMillis: the next pull re-reads that overlap and picks up transactions that
+     * committed behind the newest change, and callers keep a product only if its version is newer
+     * @param since nextSince returned by the previous pull (null to start from the beginning)
+     * @param limit Page size (defaults to product.page.defaultSize, capped at product.page.maxSize)
+     */
     @Transactional(readOnly = true)
-    public List<ProductDTO> getAllProducts() {
+    public ProductChangesDTO getChanges(String since, Integer limit) {
         String transactionId = MDC.get("transactionId");
-        logger.info("Getting all products, transaction: {}", transactionId);
+        logger.info("Getting product changes, transaction: {}", transactionId);
+
+        int pageSize = resolvePageSize(limit);
+        long[] watermark = CursorCodec.isPresent(since) ? CursorCodec.decode(since, 2) : new long[]{0L, 0L};
+
+        List<ProductChange> rows = productRepository.findChangesFrom(fromEpochMicros(watermark[0]), watermark[1],
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductChange> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<ProductDTO> products = new ArrayList<>(page.size());
+        for (ProductChange change : page) {
+            products.add(ProductDTO.builder()
+                    .id(change.getId())
+                    .name(change.getName())
+                    .price(change.getPrice())
+                    .stock(change.getStock())
+                    .category(change.getCategory())
+                    .sku(change.getSku())
+                    .status(change.getStatus())
+                    .version(change.getVersion())
+                    .build());
+        }
 
-        List<Product> products = productRepository.findAll();
+        String nextSince = since;
+        if (!page.isEmpty()) {
+            ProductChange last = page.get(page.size() - 1);
+            if (hasMore) {
+                nextSince = CursorCodec.encode(toEpochMicros(last.getUpdatedAt()), last.getId());
+            } else {
+                LocalDateTime rewound = last.getUpdatedAt().minusNanos(changesOverlapMillis * 1_000_000);
+                nextSince = CursorCodec.encode(toEpochMicros(rewound), 0L);
+            }
+        }
 
-        logger.info("Found {} products, transaction: {}", products.size(), transactionId);
+        logger.info("Found {} product changes, transaction: {}", products.size(), transactionId);
 
-        return products.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return ProductChangesDTO.builder()
+                .products(products)
+                .nextSince(nextSince)
+                .hasMore(hasMore)
+                .build();
     }
 
+    /**
+     * Streams the whole catalog as NDJSON (one ProductDTO per line)
+     * Rows are read through a fetch-size cursor and detached after being written,
+     * so heap usage does not depend on catalog size
+     * @param outputStream Response body to write to (not closed by this method)
+     * @return Number of products written
+     */
     @Transactional(readOnly = true)
-    public List<ProductDTO> getProductsByIds(List<Long> ids) {
+    public long exportProducts(OutputStream outputStream) throws IOException {
         String transactionId = MDC.get("transactionId");
-        logger.info("Getting products by IDs: {}, transaction: {}", ids, transactionId);
+        logger.info("Exporting product catalog, transaction: {}", transactionId);
+
+        ObjectWriter writer = objectMapper.writerFor(ProductDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+             Stream<Product> products = productRepository.streamAllOrderById()) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                writer.writeValue(generator, mapToDTO(product));
+                generator.writeRaw('\n');
+                entityManager.detach(product);
+
+                if (++count % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
 
-        List<Product> products = productRepository.findAllById(ids);
+        logger.info("Exported {} products, transaction: {}", count, transactionId);
+        return count;
+    }
+
+    /**
+     * Get product by ID as serialized JSON
+     * Served from the JSON cache without a query; on a miss the product is loaded and serialized
+     */
+    @Transactional(readOnly = true)
+    public byte[] getProductJsonById(Long id) {
+        String transactionId = MDC.get("transactionId");
+        logger.info("Getting product JSON by ID: {}, transaction: {}", id, transactionId);
 
-        logger.info("Found {} products for {} IDs, transaction: {}", products.size(), ids.size(), transactionId);
+        List<byte[]> json = loadProductJson(List.of(id));
+        if (json.isEmpty()) {
+            logger.warn("Product not found with ID: {}, transaction: {}", id, transactionId);
+            throw new RuntimeException("Product not found with ID: " + id);
+        }
+        return json.get(0);
+    }
 
-        return products.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    /**
+     * Get products by IDs as a serialized JSON array, assembled from the cached JSON of each product
+     * Products are returned in request order; unknown and repeated ids are skipped
+     */
+    @Transactional(readOnly = true)
+    public byte[] getProductsJsonByIds(List<Long> ids) {
+        String transactionId = MDC.get("transactionId");
+        logger.info("Getting product JSON for {} IDs, transaction: {}", ids.size(), transactionId);
+
+        List<byte[]> json = loadProductJson(ids);
+
+        logger.info("Found {} products for {} IDs, transaction: {}", json.size(), ids.size(), transactionId);
+        return ProductJsonCache.toJsonArray(json);
+    }
+
+    /**
+     * Resolves the JSON of each product, loading and serializing only the ones not cached
+     */
+    private List<byte[]> loadProductJson(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        if (uniqueIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, byte[]> json = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            byte[] cached = productJsonCache.get(id);
+            if (cached != null) {
+                json.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : productRepository.findAllById(missing)) {
+                json.put(product.getId(), productJsonCache.put(mapToDTO(product)));
+            }
+            logger.debug("Loaded {} products, {} served from JSON cache", missing.size(), uniqueIds.size() - missing.size());
+        }
+
+        List<byte[]> ordered = new ArrayList<>(json.size());
+        for (Long id : uniqueIds) {
+            byte[] product = json.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
     }
 
-    private void validateProductRequest(ProductRequestDTO request) {
+    static void validateProductRequest(ProductRequestDTO request) {
         if (request.getName() == null || request.getName().trim().isEmpty()) {
             throw new IllegalArgumentException("Product name is required");
         }
@@ -206,6 +583,65 @@ public class ProductService {
         }
     }
 
+    /**
+     * Builds a page response from up to pageSize + 1 rows
+     * The extra row only signals that a next page exists and is not returned
+     * totalResults is left for the caller to set on the first page
+     */
+    private ProductSearchResponseDTO buildPage(List<ProductSummary> rows, int pageSize,
+                                               Function<ProductSummary, String> cursorOf) {
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductSummary> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        List<ProductDTO> productDTOs = new ArrayList<>(page.size());
+        for (ProductSummary product : page) {
+            productDTOs.add(mapSummaryToDTO(product));
+        }
+
+        return ProductSearchResponseDTO.builder()
+                .products(productDTOs)
+                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static String idCursor(ProductSummary product) {
+        return CursorCodec.encode(product.getId());
+    }
+
+    private static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static String stockIdCursor(ProductSummary product) {
+        return CursorCodec.encode(product.getStock(), product.getId());
+    }
+
+    /**
+     * Maps a listing projection; description is not loaded for listings
+     */
+    private ProductDTO mapSummaryToDTO(ProductSummary product) {
+        return ProductDTO.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .stock(product.getStock())
+                .category(product.getCategory())
+                .sku(product.getSku())
+                .build();
+    }
+
     private ProductDTO mapToDTO(Product product) {
         return ProductDTO.builder()
                 .id(product.getId())
@@ -215,6 +651,7 @@ public class ProductService {
                 .stock(product.getStock())
                 .category(product.getCategory())
                 .sku(product.getSku())
+                .version(product.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,143 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.snapshot.ProductSnapshotWriter;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the binary catalog snapshot (id, name, price, stock, active) that cart-service maps into
+ * memory to price carts without calling this service, see {@link com.farmatodo.snapshot.ProductSnapshotFormat}
+ *
+ * When product.snapshot.path is set the snapshot is published there on startup and rewritten every
+ * product.snapshot.refreshMillis, e.g. on a volume shared with cart-service. GET /products/snapshot
+ * serves the last written file and only rewrites it once it is older than refreshMillis, so
+ * downloads do not each read the whole catalog.
+ */
+@Service
+public class ProductSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSnapshotService.class);
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${product.snapshot.path:}")
+    private String snapshotPath = "";
+
+    @Value("${product.snapshot.refreshMillis:60000}")
+    private long refreshMillis = 60000;
+
+    private Path target;
+    private volatile long writtenAt;
+
+    public ProductSnapshotService(ProductRepository productRepository, EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes the whole catalog, read through the same cursor as the NDJSON export
+     * @param target File to create or replace
+     * @return Number of products written
+     */
+    public int writeSnapshot(Path target) throws IOException {
+        String transactionId = MDC.get("transactionId");
+        long start = System.currentTimeMillis();
+
+        int count;
+        try {
+            count = readOnlyTransaction.execute(status -> {
+                try (ProductSnapshotWriter writer = new ProductSnapshotWriter(target);
+                     Stream<Product> products = productRepository.streamAllOrderById()) {
+                    Iterator<Product> iterator = products.iterator();
+                    while (iterator.hasNext()) {
+                        Product product = iterator.next();
+                        writer.add(product.getId(), product.getPrice(),
+                                product.getStock() == null ? 0 : product.getStock(), product.getName(),
+                                "ACTIVE".equals(product.getStatus()));
+                        entityManager.detach(product);
+                    }
+                    return writer.finish(start);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        logger.info("Product snapshot with {} products written to {} in {} ms, transaction: {}",
+                count, target, System.currentTimeMillis() - start, transactionId);
+        return count;
+    }
+
+    /**
+     * Returns the last written snapshot, writing a new one first when there is none yet or it is
+     * older than product.snapshot.refreshMillis
+     * The file is replaced atomically, so it can be read while the next one is written
+     * @return product.snapshot.path, or a temporary file owned by this service when it is not set
+     */
+    public synchronized Path currentSnapshot() throws IOException {
+        if (target == null) {
+            target = isPublished() ? Path.of(snapshotPath) : Files.createTempFile("products-", ".snapshot");
+        }
+        if (writtenAt == 0 || System.currentTimeMillis() - writtenAt >= refreshMillis) {
+            long start = System.currentTimeMillis();
+            writeSnapshot(target);
+            writtenAt = start;
+        }
+        return target;
+    }
+
+    /**
+     * Publishes the snapshot to product.snapshot.path, if configured
+     * A failure is logged and the previous snapshot stays in place
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${product.snapshot.refreshMillis:60000}",
+               fixedDelayString = "${product.snapshot.refreshMillis:60000}")
+    public void publish() {
+        if (!isPublished()) {
+            return;
+        }
+        try {
+            currentSnapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to publish product snapshot to {}. Error: {}", snapshotPath, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void deleteTemporarySnapshot() throws IOException {
+        if (target != null && !isPublished()) {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private boolean isPublished() {
+        return snapshotPath != null && !snapshotPath.isBlank();
+    }
+}
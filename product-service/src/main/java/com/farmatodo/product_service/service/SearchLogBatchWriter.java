@@ -0,0 +1,234 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.model.SearchLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects search logs in a bounded buffer and writes them with JDBC batch inserts
+ *
+ * - Producers never block: when the buffer is full the log is dropped and counted
+ * - A single writer thread flushes when a batch fills up or the flush interval elapses
+ * - Remaining logs are flushed when the application shuts down
+ */
+@Component
+public class SearchLogBatchWriter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchLogBatchWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO search_logs (search_term, results_count, user_identifier, transaction_id, searched_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<SearchLog> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public SearchLogBatchWriter(JdbcTemplate jdbcTemplate,
+                                @Value("${search.log.bufferCapacity:10000}") int bufferCapacity,
+                                @Value("${search.log.batchSize:500}") int batchSize,
+                                @Value("${search.log.flushIntervalMs:1000}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "search-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Search log writer started - capacity: {}, batchSize: {}, flushIntervalMs: {}",
+                buffer.remainingCapacity(), batchSize, flushIntervalMs);
+    }
+
+    /**
+     * Stops the writer thread and flushes everything still buffered
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        logger.info("Search log writer stopped - flushed: {}, dropped: {}, failed: {}",
+                flushedRows.get(), dropped.get(), failedRows.get());
+    }
+
+    /**
+     * Adds a search log to the buffer without blocking
+     * @param searchLog Log to persist
+     * @return false if the buffer was full and the log was dropped
+     */
+    public boolean enqueue(SearchLog searchLog) {
+        if (buffer.offer(searchLog)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+        long total = dropped.incrementAndGet();
+        if (total == 1 || total % 1000 == 0) {
+            logger.warn("Search log buffer full, {} logs dropped so far", total);
+        }
+        return false;
+    }
+
+    /**
+     * Writes everything currently buffered, one batch at a time
+     */
+    public void flush() {
+        List<SearchLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void runWriter() {
+        List<SearchLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    SearchLog head = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (head == null) {
+                        break;
+                    }
+                    batch.add(head);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Write the partially filled batch; stop() flushes whatever is left in the buffer
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in search log writer: {}", e.getMessage(), e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<SearchLog> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    SearchLog log = batch.get(i);
+                    LocalDateTime searchedAt = log.getSearchedAt() != null ? log.getSearchedAt() : LocalDateTime.now();
+                    ps.setString(1, log.getSearchTerm());
+                    ps.setInt(2, log.getResultsCount() != null ? log.getResultsCount() : 0);
+                    ps.setString(3, log.getUserIdentifier());
+                    ps.setString(4, log.getTransactionId());
+                    ps.setTimestamp(5, Timestamp.valueOf(searchedAt));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            flushedRows.addAndGet(batch.size());
+            flushedBatches.incrementAndGet();
+            logger.debug("Flushed {} search logs", batch.size());
+        } catch (Exception e) {
+            // Search logging is non-critical: count the loss and keep going
+            failedRows.addAndGet(batch.size());
+            logger.error("Failed to flush {} search logs. Error: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("search.log.buffer.size", buffer, BlockingQueue::size)
+                .description("Search logs waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("search.log.enqueued", enqueued, AtomicLong::get)
+                .description("Search logs accepted into the buffer")
+                .register(registry);
+        FunctionCounter.builder("search.log.dropped", dropped, AtomicLong::get)
+                .description("Search logs dropped because the buffer was full")
+                .register(registry);
+        FunctionCounter.builder("search.log.flushed", flushedRows, AtomicLong::get)
+                .description("Search logs written to the database")
+                .register(registry);
+        FunctionCounter.builder("search.log.flush.batches", flushedBatches, AtomicLong::get)
+                .description("JDBC batches written")
+                .register(registry);
+        FunctionCounter.builder("search.log.failed", failedRows, AtomicLong::get)
+                .description("Search logs lost because a batch insert failed")
+                .register(registry);
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedRows.get();
+    }
+
+    public long getFlushedBatchCount() {
+        return flushedBatches.get();
+    }
+
+    public long getFailedCount() {
+        return failedRows.get();
+    }
+
+    public int getBufferSize() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,239 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.model.SearchTermRollup;
+import com.farmatodo.product_service.repository.SearchLogRepository;
+import com.farmatodo.product_service.repository.SearchTermRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Keeps search_logs bounded and summarized
+ *
+ * - Rollup: every closed hour of raw logs is aggregated into an HOUR row per lower-cased term
+ *   (searches, zero-result searches); once the last hour of a day is done its HOUR rows are summed
+ *   into a DAY row. Hours are processed in order, each in its own transaction together with the
+ *   watermark in search_rollup_watermarks, and re-running a bucket overwrites it, so instances
+ *   running the job concurrently, restarts or a crash halfway through leave correct totals
+ * - Late logs: each run also re-rolls the search.rollup.reRollHours hours before the watermark,
+ *   so logs written after their hour was first rolled up are still counted
+ * - Retention: raw logs older than search.log.retentionDays and HOUR rollups older than
+ *   search.rollup.hourlyRetentionDays are deleted in chunks of search.log.purgeBatchSize rows,
+ *   one short statement per chunk, and never before their last re-roll. DAY rollups are kept
+ *
+ * Runs at startup (before the suggester loads popularity) and every search.rollup.intervalMillis
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchLogRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchLogRollupService.class);
+
+    static final String ROLLUP_HOUR_SQL =
+            "INSERT INTO search_term_rollups (granularity, bucket_start, term, searches, zero_result_searches) " +
+            "SELECT 'HOUR', ?, LOWER(search_term), COUNT(*), " +
+            "SUM(CASE WHEN COALESCE(results_count, 0) = 0 THEN 1 ELSE 0 END) " +
+            "FROM search_logs WHERE searched_at >= ? AND searched_at < ? AND search_term IS NOT NULL " +
+            "GROUP BY LOWER(search_term) " +
+            "ON CONFLICT (granularity, bucket_start, term) DO UPDATE " +
+            "SET searches = EXCLUDED.searches, zero_result_searches = EXCLUDED.zero_result_searches";
+
+    static final String ROLLUP_DAY_SQL =
+            "INSERT INTO search_term_rollups (granularity, bucket_start, term, searches, zero_result_searches) " +
+            "SELECT 'DAY', ?, term, SUM(searches), SUM(zero_result_searches) " +
+            "FROM search_term_rollups WHERE granularity = 'HOUR' AND bucket_start >= ? AND bucket_start < ? " +
+            "GROUP BY term " +
+            "ON CONFLICT (granularity, bucket_start, term) DO UPDATE " +
+            "SET searches = EXCLUDED.searches, zero_result_searches = EXCLUDED.zero_result_searches";
+
+    static final String WATERMARK_NAME = "search_logs";
+
+    static final String LOAD_WATERMARK_SQL = "SELECT rolled_up_to FROM search_rollup_watermarks WHERE name = ?";
+
+    static final String SAVE_WATERMARK_SQL =
+            "INSERT INTO search_rollup_watermarks (name, rolled_up_to) VALUES (?, ?) " +
+            "ON CONFLICT (name) DO UPDATE " +
+            "SET rolled_up_to = GREATEST(search_rollup_watermarks.rolled_up_to, EXCLUDED.rolled_up_to)";
+
+    static final String PURGE_LOGS_SQL =
+            "DELETE FROM search_logs WHERE id IN " +
+            "(SELECT id FROM search_logs WHERE searched_at < ? ORDER BY searched_at LIMIT ?)";
+
+    static final String PURGE_HOURLY_SQL =
+            "DELETE FROM search_term_rollups WHERE id IN " +
+            "(SELECT id FROM search_term_rollups WHERE granularity = 'HOUR' AND bucket_start < ? " +
+            "ORDER BY bucket_start LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SearchLogRepository searchLogRepository;
+    private final SearchTermRollupRepository searchTermRollupRepository;
+
+    @Value("${search.rollup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${search.rollup.settleMillis:60000}")
+    private long settleMillis = 60_000;
+
+    @Value("${search.rollup.reRollHours:2}")
+    private int reRollHours = 2;
+
+    @Value("${search.rollup.hourlyRetentionDays:7}")
+    private int hourlyRetentionDays = 7;
+
+    @Value("${search.log.retentionDays:30}")
+    private int retentionDays = 30;
+
+    @Value("${search.log.purgeBatchSize:10000}")
+    private int purgeBatchSize = 10_000;
+
+    /**
+     * Rolls up the closed hours and purges what is past retention
+     * A failure is logged; the next run resumes from the last completed hour
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Scheduled(initialDelayString = "${search.rollup.intervalMillis:300000}",
+               fixedDelayString = "${search.rollup.intervalMillis:300000}")
+    public synchronized void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            run(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            logger.error("Search log rollup failed. Error: {}", e.getMessage(), e);
+        }
+    }
+
+    void run(LocalDateTime now) {
+        long start = System.currentTimeMillis();
+        int hours = rollUp(now);
+        long purgedLogs = purgeLogs(now);
+        long purgedHourly = purgeHourlyRollups(now);
+        if (hours > 0 || purgedLogs > 0 || purgedHourly > 0) {
+            logger.info("Search log rollup - hours: {}, purged logs: {}, purged hourly rollups: {} in {} ms",
+                    hours, purgedLogs, purgedHourly, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Rolls up every hour that ended at least search.rollup.settleMillis ago, so logs still
+     * buffered by the batch writer land before their hour is closed, after re-rolling the last
+     * search.rollup.reRollHours hours
+     * @return Number of hours rolled up for the first time
+     */
+    int rollUp(LocalDateTime now) {
+        LocalDateTime watermark = loadWatermark();
+        if (watermark == null) {
+            return 0;
+        }
+        LocalDateTime settled = now.minusNanos(settleMillis * 1_000_000).truncatedTo(ChronoUnit.HOURS);
+
+        int hours = 0;
+        LocalDateTime hourStart = watermark.minusHours(reRollHours);
+        while (hourStart.isBefore(settled)) {
+            LocalDateTime start = hourStart;
+            LocalDateTime hourEnd = hourStart.plusHours(1);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(ROLLUP_HOUR_SQL,
+                        Timestamp.valueOf(start), Timestamp.valueOf(start), Timestamp.valueOf(hourEnd));
+                if (hourEnd.getHour() == 0) {
+                    LocalDateTime dayStart = hourEnd.minusDays(1);
+                    jdbcTemplate.update(ROLLUP_DAY_SQL,
+                            Timestamp.valueOf(dayStart), Timestamp.valueOf(dayStart), Timestamp.valueOf(hourEnd));
+                }
+                jdbcTemplate.update(SAVE_WATERMARK_SQL, WATERMARK_NAME, Timestamp.valueOf(hourEnd));
+            });
+            if (!start.isBefore(watermark)) {
+                hours++;
+            }
+            hourStart = hourEnd;
+        }
+        return hours;
+    }
+
+    /**
+     * Deletes raw logs past search.log.retentionDays that are rolled up and past the re-roll window
+     * @return Number of rows deleted
+     */
+    long purgeLogs(LocalDateTime now) {
+        LocalDateTime rolledUpTo = findSavedWatermark();
+        if (rolledUpTo == null) {
+            return 0;
+        }
+        LocalDateTime cutoff = min(now.minusDays(retentionDays), rolledUpTo.minusHours(reRollHours));
+        return purge(PURGE_LOGS_SQL, cutoff);
+    }
+
+    /**
+     * Deletes HOUR rollups past search.rollup.hourlyRetentionDays that are already summed into a DAY row
+     * @return Number of rows deleted
+     */
+    long purgeHourlyRollups(LocalDateTime now) {
+        LocalDateTime latestDay = searchTermRollupRepository.findLatestBucketStart(SearchTermRollup.DAY);
+        if (latestDay == null) {
+            return 0;
+        }
+        LocalDateTime cutoff = min(now.minusDays(hourlyRetentionDays), latestDay.plusDays(1));
+        return purge(PURGE_HOURLY_SQL, cutoff);
+    }
+
+    private long purge(String sql, LocalDateTime cutoff) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, Timestamp.valueOf(cutoff), purgeBatchSize);
+            total += deleted;
+        } while (deleted >= purgeBatchSize);
+        return total;
+    }
+
+    private LocalDateTime findSavedWatermark() {
+        List<LocalDateTime> saved = jdbcTemplate.queryForList(LOAD_WATERMARK_SQL, LocalDateTime.class, WATERMARK_NAME);
+        return saved.isEmpty() ? null : saved.get(0);
+    }
+
+    /**
+     * The saved watermark; before one is saved, the hour after the latest rollup, or the hour of the
+     * oldest raw log when nothing is rolled up yet
+     */
+    private LocalDateTime loadWatermark() {
+        LocalDateTime saved = findSavedWatermark();
+        if (saved != null) {
+            return saved;
+        }
+        LocalDateTime latestHour = searchTermRollupRepository.findLatestBucketStart(SearchTermRollup.HOUR);
+        LocalDateTime latestDay = searchTermRollupRepository.findLatestBucketStart(SearchTermRollup.DAY);
+        LocalDateTime watermark = null;
+        if (latestHour != null) {
+            watermark = latestHour.plusHours(1);
+        }
+        if (latestDay != null && (watermark == null || watermark.isBefore(latestDay.plusDays(1)))) {
+            watermark = latestDay.plusDays(1);
+        }
+        if (watermark != null) {
+            return watermark;
+        }
+        LocalDateTime oldest = searchLogRepository.findOldestSearchedAt();
+        return oldest == null ? null : oldest.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -2,20 +2,16 @@ package com.farmatodo.product_service.service;
 
 import com.farmatodo.product_service.event.SearchEvent;
 import com.farmatodo.product_service.model.SearchLog;
-import com.farmatodo.product_service.repository.SearchLogRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for logging search events asynchronously
- * Uses @Async to ensure HTTP responses are not delayed
- * Listens to SearchEvent published by LocalSearchEventPublisher
+ * Listens to SearchEvent published by LocalSearchEventPublisher and hands each log
+ * to {@link SearchLogBatchWriter}, which persists them in JDBC batches on its own thread
  */
 @Service
 @RequiredArgsConstructor
@@ -23,20 +19,18 @@ public class SearchLogService {
 
     private static final Logger logger = LoggerFactory.getLogger(SearchLogService.class);
 
-    private final SearchLogRepository searchLogRepository;
+    private final SearchLogBatchWriter searchLogBatchWriter;
 
     /**
-     * Asynchronously handles search events and persists them to the database
-     * Uses REQUIRES_NEW propagation to ensure independent transaction
+     * Buffers the search event for batched persistence
+     * Never blocks the caller: if the buffer is full the log is dropped and counted
      *
      * @param event The search event to log
      */
-    @Async
     @EventListener
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void handleSearchEvent(SearchEvent event) {
         try {
-            logger.info("Logging search asynchronously - Term: '{}', Results: {}, Transaction: {}",
+            logger.debug("Buffering search log - Term: '{}', Results: {}, Transaction: {}",
                     event.getSearchTerm(), event.getResultsCount(), event.getTransactionId());
 
             SearchLog searchLog = SearchLog.builder()
@@ -47,13 +41,13 @@ public class SearchLogService {
                     .searchedAt(event.getSearchedAt())
                     .build();
 
-            searchLogRepository.save(searchLog);
-
-            logger.debug("Search log saved successfully for transaction: {}", event.getTransactionId());
+            if (!searchLogBatchWriter.enqueue(searchLog)) {
+                logger.debug("Search log dropped for transaction: {}", event.getTransactionId());
+            }
 
         } catch (Exception e) {
             // Log error but don't fail - search logging is non-critical
-            logger.error("Failed to save search log for transaction: {}. Error: {}",
+            logger.error("Failed to buffer search log for transaction: {}. Error: {}",
                     event.getTransactionId(), e.getMessage(), e);
         }
     }
@@ -0,0 +1,107 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.analytics.WindowedHeavyHitters;
+import com.farmatodo.product_service.dto.SearchTrendsDTO;
+import com.farmatodo.product_service.dto.TermCountDTO;
+import com.farmatodo.product_service.event.SearchEvent;
+import com.farmatodo.product_service.search.SearchTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live search analytics computed in memory from SearchEvent
+ * Keeps sliding-window top terms and top zero-result terms, so "what are users searching
+ * for right now" is answered without scanning search_logs
+ *
+ * Counts are approximate (count-min sketch) and reset on restart; search_logs remains
+ * the source of truth for historical reporting
+ */
+@Service
+public class SearchTrendsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchTrendsService.class);
+    private static final int SKETCH_WIDTH = 2048;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final Clock clock;
+    private final int windowMinutes;
+    private final WindowedHeavyHitters searches;
+    private final WindowedHeavyHitters zeroResultSearches;
+
+    @Autowired
+    public SearchTrendsService(@Value("${search.trends.windowMinutes:60}") int windowMinutes,
+                               @Value("${search.trends.buckets:12}") int buckets,
+                               @Value("${search.trends.capacity:100}") int capacity) {
+        this(Clock.systemUTC(), windowMinutes, buckets, capacity);
+    }
+
+    SearchTrendsService(Clock clock, int windowMinutes, int buckets, int capacity) {
+        long windowMillis = windowMinutes * 60_000L;
+        this.clock = clock;
+        this.windowMinutes = windowMinutes;
+        this.searches = new WindowedHeavyHitters(windowMillis, buckets, capacity, SKETCH_WIDTH, SKETCH_DEPTH);
+        this.zeroResultSearches = new WindowedHeavyHitters(windowMillis, buckets, capacity, SKETCH_WIDTH, SKETCH_DEPTH);
+    }
+
+    /**
+     * Counts the search term in the current window
+     * Blank queries (browse all) are ignored
+     *
+     * @param event The search event to count
+     */
+    @EventListener
+    public void handleSearchEvent(SearchEvent event) {
+        try {
+            String term = SearchTokenizer.normalize(event.getSearchTerm());
+            if (term.isEmpty()) {
+                return;
+            }
+            long now = clock.millis();
+            boolean zeroResults = event.getResultsCount() == null || event.getResultsCount() == 0;
+            synchronized (this) {
+                searches.add(term, now);
+                if (zeroResults) {
+                    zeroResultSearches.add(term, now);
+                }
+            }
+        } catch (Exception e) {
+            // Analytics are non-critical, never fail the search
+            logger.error("Failed to count search event for transaction: {}. Error: {}",
+                    event.getTransactionId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the most searched terms and the most searched terms without results
+     * @param limit Maximum terms per list (defaults to 10)
+     */
+    public synchronized SearchTrendsDTO getTrends(Integer limit) {
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : limit;
+        long now = clock.millis();
+
+        return SearchTrendsDTO.builder()
+                .windowMinutes(windowMinutes)
+                .totalSearches(searches.total(now))
+                .zeroResultSearches(zeroResultSearches.total(now))
+                .topTerms(toDTOs(searches.top(max, now)))
+                .zeroResultTerms(toDTOs(zeroResultSearches.top(max, now)))
+                .build();
+    }
+
+    private static List<TermCountDTO> toDTOs(List<WindowedHeavyHitters.TermCount> counts) {
+        List<TermCountDTO> dtos = new ArrayList<>(counts.size());
+        for (WindowedHeavyHitters.TermCount count : counts) {
+            dtos.add(TermCountDTO.builder().term(count.term()).count(count.count()).build());
+        }
+        return dtos;
+    }
+}
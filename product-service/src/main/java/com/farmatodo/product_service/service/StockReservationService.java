@@ -0,0 +1,335 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.cache.ProductJsonCache;
+import com.farmatodo.product_service.dto.StockItemDTO;
+import com.farmatodo.product_service.dto.StockReservationRequestDTO;
+import com.farmatodo.product_service.dto.StockReservationResponseDTO;
+import com.farmatodo.product_service.exception.BusinessException;
+import com.farmatodo.product_service.model.StockReservation;
+import com.farmatodo.product_service.model.StockReservationItem;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.StockLevel;
+import com.farmatodo.product_service.repository.StockReservationRepository;
+import com.farmatodo.product_service.search.ProductSearchCache;
+import com.farmatodo.product_service.search.ProductSearchIndex;
+import com.farmatodo.product_service.stock.LowStockTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Reserves and releases stock for the items of an order
+ *
+ * Each item is taken with a conditional UPDATE (stock >= quantity), all items of an order in one
+ * transaction, so a batch is applied completely or not at all. Rows are updated in product id order
+ * to keep row-lock order consistent between concurrent batches.
+ *
+ * Retries: every order gets one {@link StockReservation} row (unique order id) written in the same
+ * transaction as the stock. A repeated reserve returns the recorded reservation without taking stock
+ * again, and release gives back the recorded quantities once, whatever items the caller sends.
+ *
+ * Hot products: batches touching the same products are serialized in memory on a fixed set of lock
+ * stripes before they reach the database, so concurrent orders for a popular SKU queue on a JVM lock
+ * instead of piling up on the same row lock. The conditional UPDATE stays the correctness guard
+ * across instances.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LowStockTracker lowStockTracker;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSearchCache productSearchCache;
+    private final ProductJsonCache productJsonCache;
+    private final ReentrantLock[] stripes;
+
+    @Value("${product.minStock:0}")
+    private int minStock;
+
+    public StockReservationService(ProductRepository productRepository,
+                                   StockReservationRepository stockReservationRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   LowStockTracker lowStockTracker,
+                                   ProductSearchIndex productSearchIndex,
+                                   ProductSearchCache productSearchCache,
+                                   ProductJsonCache productJsonCache,
+                                   @Value("${product.stock.reservation.stripes:64}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("product.stock.reservation.stripes must be positive");
+        }
+        this.productRepository = productRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.lowStockTracker = lowStockTracker;
+        this.productSearchIndex = productSearchIndex;
+        this.productSearchCache = productSearchCache;
+        this.productJsonCache = productJsonCache;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Takes the stock of every item, or none of it
+     * Repeating the call for the same order takes nothing and returns the recorded reservation
+     * @param request Order id and (productId, quantity) pairs; repeated products are merged
+     * @return Reserved quantities per product
+     * @throws BusinessException INSUFFICIENT_STOCK (409) if any product is missing, inactive or short,
+     *         RESERVATION_RELEASED (409) if the order's stock was already released
+     */
+    public StockReservationResponseDTO reserve(StockReservationRequestDTO request) {
+        Map<Long, Integer> quantities = mergeItems(request);
+        Long orderId = request.getOrderId();
+        logger.info("Reserving stock - OrderId: {}, Products: {}, transaction: {}",
+                orderId, quantities.size(), MDC.get("transactionId"));
+
+        Optional<StockReservation> recorded = stockReservationRepository.findByOrderId(orderId);
+        if (recorded.isPresent()) {
+            return alreadyReserved(recorded.get());
+        }
+
+        List<StockLevel> levels;
+        try {
+            levels = withStripes(quantities.keySet(), () -> transactionTemplate.execute(status -> {
+                // Inserted first: a concurrent reserve of the same order waits on the unique key here
+                stockReservationRepository.saveAndFlush(StockReservation.builder()
+                        .orderId(orderId)
+                        .status(StockReservation.RESERVED)
+                        .items(toItems(quantities))
+                        .build());
+                LocalDateTime now = LocalDateTime.now();
+                for (Map.Entry<Long, Integer> item : quantities.entrySet()) {
+                    if (productRepository.reserveStock(item.getKey(), item.getValue(), now) == 0) {
+                        // Thrown inside the callback, so the whole batch rolls back
+                        logger.warn("Insufficient stock - OrderId: {}, ProductId: {}, Quantity: {}",
+                                orderId, item.getKey(), item.getValue());
+                        throw new BusinessException(
+                                "Insufficient stock for product " + item.getKey(),
+                                "INSUFFICIENT_STOCK",
+                                409
+                        );
+                    }
+                }
+                return productRepository.findStockLevels(quantities.keySet());
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Lost the race against another reserve or release of the same order
+            return alreadyReserved(stockReservationRepository.findByOrderId(orderId).orElseThrow(() -> e));
+        }
+
+        refreshStock(levels, quantities, false);
+        logger.info("Stock reserved - OrderId: {}, Products: {}", orderId, quantities.size());
+        return toResponse(orderId, StockReservation.RESERVED, quantities);
+    }
+
+    /**
+     * Returns the stock of a previous reservation, e.g. when the order's payment is rejected
+     * Only the recorded quantities are returned, and only once; the request items are ignored.
+     * Releasing an order with no reservation yet records it as released, so a reserve still in
+     * flight for it (e.g. one the caller gave up on after a timeout) is refused when it arrives.
+     * Products that no longer exist are skipped
+     * @param request Order id
+     * @return Released quantities per product
+     */
+    public StockReservationResponseDTO release(StockReservationRequestDTO request) {
+        Long orderId = requireOrderId(request);
+        logger.info("Releasing stock - OrderId: {}, transaction: {}", orderId, MDC.get("transactionId"));
+
+        // Unlocked read, only to know which stripes to take
+        Set<Long> productIds = stockReservationRepository.findByOrderId(orderId)
+                .map(reservation -> toQuantities(reservation).keySet())
+                .orElse(Set.of());
+
+        Released released;
+        try {
+            released = withStripes(productIds, () -> transactionTemplate.execute(status -> releaseRecorded(orderId)));
+        } catch (DataIntegrityViolationException e) {
+            // A reserve of the same order committed between the read and the insert: release that one
+            released = transactionTemplate.execute(status -> releaseRecorded(orderId));
+        }
+
+        refreshStock(released.levels(), released.quantities(), true);
+        logger.info("Stock released - OrderId: {}, Products: {}", orderId, released.quantities().size());
+        return toResponse(orderId, StockReservation.RELEASED, released.quantities());
+    }
+
+    /**
+     * Releases the locked reservation row of the order, inside the caller's transaction
+     * @return Quantities given back, empty when there was nothing left to release, and the new levels
+     */
+    private Released releaseRecorded(Long orderId) {
+        Optional<StockReservation> found = stockReservationRepository.findByOrderIdForUpdate(orderId);
+        if (found.isEmpty()) {
+            logger.warn("No reservation to release, recording it as released - OrderId: {}", orderId);
+            stockReservationRepository.saveAndFlush(StockReservation.builder()
+                    .orderId(orderId)
+                    .status(StockReservation.RELEASED)
+                    .build());
+            return Released.NOTHING;
+        }
+        StockReservation reservation = found.get();
+        if (!StockReservation.RESERVED.equals(reservation.getStatus())) {
+            logger.info("Reservation already released - OrderId: {}", orderId);
+            return Released.NOTHING;
+        }
+
+        Map<Long, Integer> quantities = toQuantities(reservation);
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, Integer> item : quantities.entrySet()) {
+            if (productRepository.releaseStock(item.getKey(), item.getValue(), now) == 0) {
+                logger.warn("Stock release skipped, product not found - OrderId: {}, ProductId: {}",
+                        orderId, item.getKey());
+            }
+        }
+        reservation.setStatus(StockReservation.RELEASED);
+        stockReservationRepository.save(reservation);
+        return new Released(quantities, productRepository.findStockLevels(quantities.keySet()));
+    }
+
+    private record Released(Map<Long, Integer> quantities, List<StockLevel> levels) {
+        static final Released NOTHING = new Released(Map.of(), List.of());
+    }
+
+    private StockReservationResponseDTO alreadyReserved(StockReservation reservation) {
+        if (!StockReservation.RESERVED.equals(reservation.getStatus())) {
+            logger.warn("Reserve refused, stock already released - OrderId: {}", reservation.getOrderId());
+            throw new BusinessException(
+                    "Stock of order " + reservation.getOrderId() + " was already released",
+                    "RESERVATION_RELEASED",
+                    409
+            );
+        }
+        logger.info("Stock already reserved - OrderId: {}", reservation.getOrderId());
+        return toResponse(reservation.getOrderId(), StockReservation.RESERVED, toQuantities(reservation));
+    }
+
+    private Long requireOrderId(StockReservationRequestDTO request) {
+        if (request == null || request.getOrderId() == null) {
+            throw new BusinessException("Reservation must have an orderId", "INVALID_RESERVATION", 400);
+        }
+        return request.getOrderId();
+    }
+
+    /**
+     * Validates the items and sums the quantities of repeated products
+     * @return Quantities keyed by product id, in id order
+     */
+    private Map<Long, Integer> mergeItems(StockReservationRequestDTO request) {
+        requireOrderId(request);
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new BusinessException("Reservation must contain at least one item", "INVALID_RESERVATION", 400);
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockItemDTO item : request.getItems()) {
+            if (item == null || item.getProductId() == null
+                    || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new BusinessException(
+                        "Every item needs a productId and a positive quantity",
+                        "INVALID_RESERVATION",
+                        400
+                );
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Math::addExact);
+        }
+        return quantities;
+    }
+
+    /**
+     * Runs the action holding the lock stripes of every product
+     * Stripes are taken in index order, so two batches can never wait on each other
+     */
+    private <T> T withStripes(Set<Long> productIds, Supplier<T> action) {
+        int[] indexes = productIds.stream()
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Product ids are sequential, so they are mixed with the 64-bit golden ratio (Fibonacci hashing)
+     * and the high half folded into the low one before taking the modulo; a plain id % count would
+     * put ids that differ by a multiple of the stripe count on the same lock
+     */
+    int stripeOf(long productId) {
+        long mixed = productId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) stripes.length);
+    }
+
+    /**
+     * Pushes the committed stock levels to the in-memory structures, and drops cached search
+     * pages when a product crossed the search stock threshold in either direction
+     */
+    private void refreshStock(List<StockLevel> levels, Map<Long, Integer> quantities, boolean released) {
+        boolean crossed = false;
+        for (StockLevel level : levels) {
+            int stock = level.getStock() == null ? 0 : level.getStock();
+            int previous = released ? stock - quantities.get(level.getId()) : stock + quantities.get(level.getId());
+            lowStockTracker.updateStock(level.getId(), stock);
+            productSearchIndex.updateStock(level.getId(), stock);
+            productJsonCache.invalidate(level.getId());
+            crossed |= (previous > minStock) != (stock > minStock);
+        }
+        if (crossed) {
+            productSearchCache.invalidateAll();
+        }
+    }
+
+    private static List<StockReservationItem> toItems(Map<Long, Integer> quantities) {
+        List<StockReservationItem> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> items.add(new StockReservationItem(productId, quantity)));
+        return items;
+    }
+
+    private static Map<Long, Integer> toQuantities(StockReservation reservation) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservationItem item : reservation.getItems()) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private StockReservationResponseDTO toResponse(Long orderId, String status, Map<Long, Integer> quantities) {
+        List<StockItemDTO> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> items.add(StockItemDTO.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .build()));
+        return StockReservationResponseDTO.builder()
+                .orderId(orderId)
+                .status(status)
+                .items(items)
+                .build();
+    }
+}
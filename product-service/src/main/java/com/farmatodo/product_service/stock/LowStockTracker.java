@@ -0,0 +1,277 @@
+package com.farmatodo.product_service.stock;
+
+import com.farmatodo.product_service.event.ProductChangeListener;
+import com.farmatodo.product_service.event.ProductChangePoller;
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.ProductSummary;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Active products ordered by (stock, id), kept in memory
+ * Seeded from the database at startup and updated on every stock or status change, so the
+ * low-stock listing is a range read on the ordered set instead of an ORDER BY stock query.
+ * Changes made by other instances arrive through {@link ProductChangePoller}.
+ *
+ * Reads are lock-free; writes for the same product are serialized, and a write never replaces
+ * a newer product version
+ */
+@Component
+@RequiredArgsConstructor
+public class LowStockTracker implements ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockTracker.class);
+
+    private static final Comparator<TrackedProduct> BY_STOCK_AND_ID = Comparator
+            .comparingInt((TrackedProduct p) -> p.stock)
+            .thenComparingLong(p -> p.id);
+
+    private final ProductRepository productRepository;
+
+    @Value("${product.stock.tracker.batchSize:1000}")
+    private int batchSize = 1000;
+
+    private final NavigableSet<TrackedProduct> byStock = new ConcurrentSkipListSet<>(BY_STOCK_AND_ID);
+    private final Map<Long, TrackedProduct> byId = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * Loads every active product, page by page in id order
+     * Products updated while seeding keep their newer state
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long start = System.currentTimeMillis();
+        ready = false;
+
+        long afterId = 0L;
+        List<ProductSummary> page;
+        do {
+            page = productRepository.findActiveAfter(afterId, PageRequest.of(0, batchSize));
+            for (ProductSummary product : page) {
+                addIfAbsent(TrackedProduct.of(product));
+                afterId = product.getId();
+            }
+        } while (page.size() == batchSize);
+
+        ready = true;
+        logger.info("Low stock tracker seeded with {} active products in {} ms",
+                byId.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Records the current stock and status of a product
+     * Inactive products are dropped from the tracker
+     * @param product Persisted product
+     */
+    public void update(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        apply(product.getId(), product.getVersion(),
+                isActive(product.getStatus()) ? TrackedProduct.of(product) : null);
+    }
+
+    /**
+     * Applies changes polled from the database; rows older than the tracked version are skipped
+     */
+    @Override
+    public void onProductChanges(List<ProductChange> changes) {
+        for (ProductChange change : changes) {
+            apply(change.getId(), change.getVersion(),
+                    isActive(change.getStatus()) ? TrackedProduct.of(change) : null);
+        }
+    }
+
+    /**
+     * Records a new stock level for a tracked product, keeping its other attributes
+     * @param productId Product id
+     * @param stock New stock level
+     */
+    public void updateStock(long productId, int stock) {
+        byId.computeIfPresent(productId, (id, previous) -> {
+            // The stock UPDATE bumped the row version by one; a polled row read before it is now older
+            TrackedProduct tracked = previous.withStock(stock);
+            byStock.remove(previous);
+            byStock.add(tracked);
+            return tracked;
+        });
+    }
+
+    /**
+     * Replaces the tracked state of a product, removing it when tracked is null
+     * The map entry and the ordered set change together under the entry's lock. A state older than
+     * the tracked version is skipped. A row read just before a concurrent write can still land after
+     * it; the next poll reads the product again and puts the newer state back.
+     */
+    private void apply(long productId, Long version, TrackedProduct tracked) {
+        byId.compute(productId, (id, previous) -> {
+            if (previous != null && isOlder(version, previous.version)) {
+                return previous;
+            }
+            if (previous != null) {
+                byStock.remove(previous);
+            }
+            if (tracked != null) {
+                byStock.add(tracked);
+            }
+            return tracked;
+        });
+    }
+
+    private static boolean isOlder(Long version, Long trackedVersion) {
+        return version != null && trackedVersion != null && version < trackedVersion;
+    }
+
+    /**
+     * Seed rows carry no version: they only fill products nobody updated while seeding
+     */
+    private void addIfAbsent(TrackedProduct tracked) {
+        byId.compute(tracked.id, (id, previous) -> {
+            if (previous != null) {
+                return previous;
+            }
+            byStock.add(tracked);
+            return tracked;
+        });
+    }
+
+    private static boolean isActive(String status) {
+        return status == null || "ACTIVE".equals(status);
+    }
+
+    /**
+     * Range read of products with stock below the threshold, after the (stock, id) cursor
+     * @param maxStock Maximum stock level (exclusive)
+     * @param afterStock Stock of the last product of the previous page (-1 for the first page)
+     * @param afterId Id of the last product of the previous page (0 for the first page)
+     * @param limit Maximum number of products
+     * @return Products ordered by stock ascending, then id
+     */
+    public List<ProductSummary> findBelow(int maxStock, int afterStock, long afterId, int limit) {
+        List<ProductSummary> result = new ArrayList<>(Math.min(limit, 256));
+        for (TrackedProduct product : byStock.tailSet(new TrackedProduct(afterId, afterStock), false)) {
+            if (product.stock >= maxStock || result.size() >= limit) {
+                break;
+            }
+            result.add(product);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the products with stock below the threshold
+     * Walks the matching range of the ordered set, so it is only done for a first page
+     * @param maxStock Maximum stock level (exclusive)
+     */
+    public int countBelow(int maxStock) {
+        return byStock.headSet(new TrackedProduct(Long.MIN_VALUE, maxStock), false).size();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Immutable listing snapshot of an active product
+     */
+    private static final class TrackedProduct implements ProductSummary {
+        private final long id;
+        private final int stock;
+        private final String name;
+        private final BigDecimal price;
+        private final String category;
+        private final String sku;
+        private final Long version;
+
+        private TrackedProduct(long id, int stock) {
+            this(id, stock, null, null, null, null, null);
+        }
+
+        private TrackedProduct(long id, int stock, String name, BigDecimal price, String category, String sku,
+                               Long version) {
+            this.id = id;
+            this.stock = stock;
+            this.name = name;
+            this.price = price;
+            this.category = category;
+            this.sku = sku;
+            this.version = version;
+        }
+
+        private static TrackedProduct of(ProductSummary product) {
+            return new TrackedProduct(product.getId(), stockOf(product.getStock()), product.getName(),
+                    product.getPrice(), product.getCategory(), product.getSku(), null);
+        }
+
+        private static TrackedProduct of(ProductChange product) {
+            return new TrackedProduct(product.getId(), stockOf(product.getStock()), product.getName(),
+                    product.getPrice(), product.getCategory(), product.getSku(), product.getVersion());
+        }
+
+        private static TrackedProduct of(Product product) {
+            return new TrackedProduct(product.getId(), stockOf(product.getStock()), product.getName(),
+                    product.getPrice(), product.getCategory(), product.getSku(), product.getVersion());
+        }
+
+        private static int stockOf(Integer stock) {
+            return stock == null ? 0 : stock;
+        }
+
+        private TrackedProduct withStock(int newStock) {
+            return new TrackedProduct(id, newStock, name, price, category, sku, version == null ? null : version + 1);
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        @Override
+        public Integer getStock() {
+            return stock;
+        }
+
+        @Override
+        public String getCategory() {
+            return category;
+        }
+
+        @Override
+        public String getSku() {
+            return sku;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.farmatodo.product_service.util;
+
+import com.farmatodo.product_service.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset pagination positions as opaque, URL-safe cursors
+ * A cursor carries the sort key of the last row of the previous page,
+ * e.g. (id) for catalog listings or (stock, id) for low-stock listings
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = ":";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encodes the keyset values of the last returned row
+     * @param keys Sort key values in order
+     * @return Opaque cursor string
+     */
+    public static String encode(long... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(long...)}
+     * @param cursor Opaque cursor string
+     * @param expectedKeys Number of key values the cursor must carry
+     * @return Keyset values in order
+     * @throws BusinessException if the cursor is malformed
+     */
+    public static long[] decode(String cursor, int expectedKeys) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length != expectedKeys) {
+                throw invalidCursor();
+            }
+            long[] keys = new long[expectedKeys];
+            for (int i = 0; i < expectedKeys; i++) {
+                keys[i] = Long.parseLong(parts[i]);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+    }
+
+    public static boolean isPresent(String cursor) {
+        return cursor != null && !cursor.isBlank();
+    }
+
+    private static BusinessException invalidCursor() {
+        return new BusinessException("Invalid pagination cursor", "INVALID_CURSOR", 400);
+    }
+}
@@ -0,0 +1,61 @@
+package com.farmatodo.product_service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link CountMinSketch}
+ */
+class CountMinSketchTest {
+
+    @Test
+    void testAdd_ShouldNeverUndercount() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("term" + (i % 50), 1);
+        }
+        sketch.add("aspirin", 30);
+
+        assertThat(sketch.estimate("aspirin")).isGreaterThanOrEqualTo(30);
+        for (int i = 0; i < 50; i++) {
+            assertThat(sketch.estimate("term" + i)).isGreaterThanOrEqualTo(20);
+        }
+        assertThat(sketch.total()).isEqualTo(1030);
+    }
+
+    @Test
+    void testEstimate_WideSketch_ShouldBeExactForFewTerms() {
+        CountMinSketch sketch = new CountMinSketch(2048, 4);
+        assertThat(sketch.add("aspirin", 1)).isEqualTo(1);
+        assertThat(sketch.add("aspirin", 2)).isEqualTo(3);
+        sketch.add("vitamina", 5);
+
+        assertThat(sketch.estimate("aspirin")).isEqualTo(3);
+        assertThat(sketch.estimate("vitamina")).isEqualTo(5);
+        assertThat(sketch.estimate("unknown")).isZero();
+    }
+
+    @Test
+    void testSubtract_ShouldRemoveOtherSketchCounts() {
+        CountMinSketch window = new CountMinSketch(2048, 4);
+        CountMinSketch bucket = new CountMinSketch(2048, 4);
+        window.add("aspirin", 5);
+        bucket.add("aspirin", 3);
+        window.add("aspirin", 3);
+
+        window.subtract(bucket);
+
+        assertThat(window.estimate("aspirin")).isEqualTo(5);
+        assertThat(window.total()).isEqualTo(5);
+    }
+
+    @Test
+    void testSubtract_DifferentDimensions_ShouldThrow() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+
+        assertThatThrownBy(() -> sketch.subtract(new CountMinSketch(32, 4)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
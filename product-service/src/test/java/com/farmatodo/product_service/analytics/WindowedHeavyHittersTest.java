@@ -0,0 +1,61 @@
+package com.farmatodo.product_service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link WindowedHeavyHitters}
+ */
+class WindowedHeavyHittersTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private void add(WindowedHeavyHitters hitters, String term, int times, long now) {
+        for (int i = 0; i < times; i++) {
+            hitters.add(term, now);
+        }
+    }
+
+    @Test
+    void testTop_ShouldReturnMostFrequentTermsFirst() {
+        WindowedHeavyHitters hitters = new WindowedHeavyHitters(60 * MINUTE, 12, 10, 2048, 4);
+        add(hitters, "aspirin", 5, 0);
+        add(hitters, "vitamina c", 8, 0);
+        add(hitters, "jarabe", 2, 0);
+
+        assertThat(hitters.top(2, 0)).containsExactly(
+                new WindowedHeavyHitters.TermCount("vitamina c", 8),
+                new WindowedHeavyHitters.TermCount("aspirin", 5));
+        assertThat(hitters.total(0)).isEqualTo(15);
+    }
+
+    @Test
+    void testAdd_WhenCapacityFull_ShouldEvictLeastFrequentCandidate() {
+        WindowedHeavyHitters hitters = new WindowedHeavyHitters(60 * MINUTE, 12, 2, 2048, 4);
+        add(hitters, "aspirin", 3, 0);
+        add(hitters, "jarabe", 1, 0);
+        add(hitters, "vitamina", 2, 0);
+
+        assertThat(hitters.top(10, 0)).extracting(WindowedHeavyHitters.TermCount::term)
+                .containsExactly("aspirin", "vitamina");
+    }
+
+    @Test
+    void testTop_ShouldExpireBucketsThatLeftTheWindow() {
+        WindowedHeavyHitters hitters = new WindowedHeavyHitters(60 * MINUTE, 12, 10, 2048, 4);
+        add(hitters, "aspirin", 4, 0);
+        add(hitters, "vitamina", 3, 30 * MINUTE);
+        add(hitters, "aspirin", 1, 30 * MINUTE);
+
+        // 65 minutes later the first bucket has expired, the second is still in the window
+        assertThat(hitters.top(10, 65 * MINUTE)).containsExactly(
+                new WindowedHeavyHitters.TermCount("vitamina", 3),
+                new WindowedHeavyHitters.TermCount("aspirin", 1));
+        assertThat(hitters.total(65 * MINUTE)).isEqualTo(4);
+
+        // Two hours later everything has expired
+        assertThat(hitters.top(10, 3 * 60 * MINUTE)).isEmpty();
+        assertThat(hitters.total(3 * 60 * MINUTE)).isZero();
+    }
+}
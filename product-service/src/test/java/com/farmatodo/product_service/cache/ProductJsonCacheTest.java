@@ -0,0 +1,99 @@
+package com.farmatodo.product_service.cache;
+
+import com.farmatodo.product_service.dto.ProductDTO;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ProductJsonCache}
+ */
+class ProductJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductJsonCache cache = new ProductJsonCache(objectMapper, 1 << 20);
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private ProductDTO product(long id, Long version) {
+        return ProductDTO.builder()
+                .id(id)
+                .name("Aspirin 500mg")
+                .price(new BigDecimal("5.99"))
+                .stock(100)
+                .version(version)
+                .build();
+    }
+
+    private ProductChange change(long id, Long version) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("version", version);
+        return projectionFactory.createProjection(ProductChange.class, row);
+    }
+
+    @Test
+    void testPut_ShouldStoreJacksonOutputUnderId() throws Exception {
+        byte[] json = cache.put(product(1L, 4L));
+
+        assertThat(json).isEqualTo(objectMapper.writeValueAsBytes(product(1L, 4L)));
+        assertThat(cache.get(1L)).isSameAs(json);
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test
+    void testPut_OlderVersion_ShouldKeepNewerEntry() {
+        byte[] newer = cache.put(product(1L, 5L));
+
+        cache.put(product(1L, 4L));
+
+        assertThat(cache.get(1L)).isSameAs(newer);
+    }
+
+    @Test
+    void testOnProductChanges_ShouldEvictOnlyOlderEntries() {
+        cache.put(product(1L, 4L));
+        byte[] current = cache.put(product(2L, 7L));
+
+        cache.onProductChanges(List.of(change(1L, 5L), change(2L, 7L), change(3L, 1L)));
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isSameAs(current);
+    }
+
+    @Test
+    void testOnProductChanges_NullVersion_ShouldKeepUnversionedEntry() {
+        byte[] json = cache.put(product(1L, null));
+
+        cache.onProductChanges(List.of(change(1L, null)));
+
+        assertThat(cache.get(1L)).isSameAs(json);
+    }
+
+    @Test
+    void testInvalidate_ShouldDropEntry() {
+        cache.put(product(1L, 4L));
+
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void testToJsonArray_ShouldConcatenateSlices() throws Exception {
+        byte[] array = ProductJsonCache.toJsonArray(List.of(cache.put(product(1L, 1L)), cache.put(product(2L, 1L))));
+
+        assertThat(objectMapper.readValue(array, ProductDTO[].class))
+                .extracting(ProductDTO::getId).containsExactly(1L, 2L);
+        assertThat(new String(ProductJsonCache.toJsonArray(List.of()), StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+}
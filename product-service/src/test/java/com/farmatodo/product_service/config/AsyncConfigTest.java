@@ -0,0 +1,147 @@
+package com.farmatodo.product_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link AsyncConfig}, {@link SaturationPolicy} and {@link AsyncExecutorMonitor}
+ */
+class AsyncConfigTest {
+
+    private final AsyncExecutorMonitor monitor = new AsyncExecutorMonitor();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * One thread and one queue slot, with the thread held busy until the test releases it
+     */
+    private ThreadPoolTaskExecutor saturatedPool(SaturationPolicy policy) throws InterruptedException {
+        executor = AsyncConfig.threadPoolExecutor(monitor, 1, 1, 1, policy, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return executor;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== SATURATION POLICY TESTS ====================
+
+    @Test
+    void testCallerRuns_PoolSaturated_ShouldRunOnSubmittingThread() throws InterruptedException {
+        ThreadPoolTaskExecutor pool = saturatedPool(SaturationPolicy.CALLER_RUNS);
+        pool.execute(() -> { });
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        pool.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertThat(ranOn.get()).isSameAs(Thread.currentThread());
+        assertThat(monitor.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testDropOldest_PoolSaturated_ShouldReplaceQueuedTask() throws InterruptedException {
+        ThreadPoolTaskExecutor pool = saturatedPool(SaturationPolicy.DROP_OLDEST);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        CountDownLatch newestDone = new CountDownLatch(1);
+        pool.execute(() -> ran.add("oldest"));
+        pool.execute(() -> {
+            ran.add("newest");
+            newestDone.countDown();
+        });
+
+        release.countDown();
+
+        assertThat(newestDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ran).containsExactly("newest");
+        assertThat(monitor.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testBlock_QueueStaysFull_ShouldRejectAfterTimeout() throws InterruptedException {
+        ThreadPoolTaskExecutor pool = saturatedPool(SaturationPolicy.BLOCK);
+        pool.execute(() -> { });
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> pool.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50);
+        assertThat(monitor.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testAbort_PoolSaturated_ShouldReject() throws InterruptedException {
+        ThreadPoolTaskExecutor pool = saturatedPool(SaturationPolicy.ABORT);
+        pool.execute(() -> { });
+
+        assertThatThrownBy(() -> pool.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+        assertThat(monitor.getRejectedCount()).isEqualTo(1);
+    }
+
+    // ==================== METRICS TESTS ====================
+
+    @Test
+    void testMeters_ShouldReportQueueDepthActiveAndRejected() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        monitor.bindTo(registry);
+        ThreadPoolTaskExecutor pool = saturatedPool(SaturationPolicy.ABORT);
+        pool.execute(() -> { });
+        assertThatThrownBy(() -> pool.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+
+        assertThat(registry.get("async.executor.queue.size").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("async.executor.active").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("async.executor.rejected").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    // ==================== CONTEXT TESTS ====================
+
+    @Test
+    void testDecorate_ShouldCarrySubmitterMdcToTaskThread() throws InterruptedException {
+        executor = AsyncConfig.threadPoolExecutor(monitor, 1, 1, 1, SaturationPolicy.ABORT, 50);
+        AtomicReference<String> seen = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        MDC.put("transactionId", "txn-42");
+        try {
+            executor.execute(() -> {
+                seen.set(MDC.get("transactionId"));
+                done.countDown();
+            });
+        } finally {
+            MDC.clear();
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen.get()).isEqualTo("txn-42");
+    }
+}
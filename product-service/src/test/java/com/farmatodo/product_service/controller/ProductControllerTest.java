@@ -1,9 +1,24 @@
 package com.farmatodo.product_service.controller;
 
+import com.farmatodo.product_service.dto.ProductChangesDTO;
 import com.farmatodo.product_service.dto.ProductDTO;
+import com.farmatodo.product_service.dto.ProductImportEventDTO;
 import com.farmatodo.product_service.dto.ProductRequestDTO;
 import com.farmatodo.product_service.dto.ProductSearchResponseDTO;
+import com.farmatodo.product_service.dto.SearchTrendsDTO;
+import com.farmatodo.product_service.dto.StockItemDTO;
+import com.farmatodo.product_service.dto.StockReservationRequestDTO;
+import com.farmatodo.product_service.dto.StockReservationResponseDTO;
+import com.farmatodo.product_service.dto.SuggestionDTO;
+import com.farmatodo.product_service.dto.SuggestionResponseDTO;
+import com.farmatodo.product_service.dto.TermCountDTO;
+import com.farmatodo.product_service.importer.ProductImportReader;
+import com.farmatodo.product_service.service.ProductImportService;
 import com.farmatodo.product_service.service.ProductService;
+import com.farmatodo.product_service.service.ProductSnapshotService;
+import com.farmatodo.product_service.exception.BusinessException;
+import com.farmatodo.product_service.service.SearchTrendsService;
+import com.farmatodo.product_service.service.StockReservationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,12 +29,18 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -42,6 +63,18 @@ class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private SearchTrendsService searchTrendsService;
+
+    @MockBean
+    private StockReservationService stockReservationService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductSnapshotService productSnapshotService;
+
     private ProductDTO product1;
     private ProductDTO product2;
     private ProductSearchResponseDTO searchResponse;
@@ -98,7 +131,7 @@ class ProductControllerTest {
 
     @Test
     void testSearchProducts_WithQuery_ShouldReturnMatchingProducts() throws Exception {
-        when(productService.searchProducts(anyString(), anyString())).thenReturn(searchResponse);
+        when(productService.searchProducts(anyString(), anyString(), isNull(), isNull())).thenReturn(searchResponse);
 
         mockMvc.perform(get("/products")
                         .header("Authorization", "ApiKey test-api-key-12345")
@@ -109,7 +142,7 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.products[0].name").value("Aspirin 500mg"))
                 .andExpect(jsonPath("$.products[0].price").value(5.99));
 
-        verify(productService).searchProducts(eq("aspirin"), anyString());
+        verify(productService).searchProducts(eq("aspirin"), anyString(), isNull(), isNull());
     }
 
     @Test
@@ -120,7 +153,7 @@ class ProductControllerTest {
                 .products(Arrays.asList(product1, product2))
                 .build();
 
-        when(productService.searchProducts(eq(""), anyString())).thenReturn(allProductsResponse);
+        when(productService.searchProducts(eq(""), anyString(), isNull(), isNull())).thenReturn(allProductsResponse);
 
         mockMvc.perform(get("/products")
                         .header("Authorization", "ApiKey test-api-key-12345"))
@@ -136,7 +169,7 @@ class ProductControllerTest {
                 .products(Collections.emptyList())
                 .build();
 
-        when(productService.searchProducts(eq("none"), anyString())).thenReturn(emptyResponse);
+        when(productService.searchProducts(eq("none"), anyString(), isNull(), isNull())).thenReturn(emptyResponse);
 
         mockMvc.perform(get("/products")
                         .header("Authorization", "ApiKey test-api-key-12345")
@@ -156,7 +189,7 @@ class ProductControllerTest {
                 .products(List.of(product2))
                 .build();
 
-        when(productService.getProductsWithLowStock(10)).thenReturn(lowStockResponse);
+        when(productService.getProductsWithLowStock(10, null, null)).thenReturn(lowStockResponse);
 
         mockMvc.perform(get("/products/low-stock")
                         .header("Authorization", "ApiKey test-api-key-12345")
@@ -219,7 +252,7 @@ class ProductControllerTest {
 
     @Test
     void testGetProductById_ShouldReturnProduct() throws Exception {
-        when(productService.getProductById(1L)).thenReturn(product1);
+        when(productService.getProductJsonById(1L)).thenReturn(objectMapper.writeValueAsBytes(product1));
 
         mockMvc.perform(get("/products/1")
                         .header("Authorization", "ApiKey test-api-key-12345"))
@@ -232,12 +265,249 @@ class ProductControllerTest {
 
     @Test
     void testGetAllProducts_ShouldReturnAllProducts() throws Exception {
-        when(productService.getAllProducts()).thenReturn(Arrays.asList(product1, product2));
+        ProductSearchResponseDTO allProductsPage = ProductSearchResponseDTO.builder()
+                .totalResults(2)
+                .products(Arrays.asList(product1, product2))
+                .build();
+
+        when(productService.getAllProducts(null, null)).thenReturn(allProductsPage);
 
         mockMvc.perform(get("/products/all")
                         .header("Authorization", "ApiKey test-api-key-12345"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2));
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void testGetAllProducts_WithCursorAndLimit_ShouldReturnNextCursor() throws Exception {
+        ProductSearchResponseDTO page = ProductSearchResponseDTO.builder()
+                .totalResults(1)
+                .products(List.of(product2))
+                .nextCursor("Mg")
+                .build();
+
+        when(productService.getAllProducts("MQ", 1)).thenReturn(page);
+
+        mockMvc.perform(get("/products/all")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .param("cursor", "MQ")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].id").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("Mg"));
+    }
+
+    // ==================== SUGGEST ====================
+
+    @Test
+    void testSuggestProducts_ShouldReturnSuggestions() throws Exception {
+        SuggestionResponseDTO suggestions = SuggestionResponseDTO.builder()
+                .prefix("asp")
+                .suggestions(List.of(SuggestionDTO.builder()
+                        .text("Aspirin 500mg")
+                        .type("PRODUCT")
+                        .score(12L)
+                        .build()))
+                .build();
+        when(productService.suggestProducts("asp", 5)).thenReturn(suggestions);
+
+        mockMvc.perform(get("/products/suggest")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .param("prefix", "asp")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prefix").value("asp"))
+                .andExpect(jsonPath("$.suggestions[0].text").value("Aspirin 500mg"))
+                .andExpect(jsonPath("$.suggestions[0].type").value("PRODUCT"));
+    }
+
+    // ==================== SEARCH TRENDS ====================
+
+    @Test
+    void testGetSearchTrends_ShouldReturnTopAndZeroResultTerms() throws Exception {
+        when(searchTrendsService.getTrends(5)).thenReturn(SearchTrendsDTO.builder()
+                .windowMinutes(60)
+                .totalSearches(12L)
+                .zeroResultSearches(2L)
+                .topTerms(List.of(TermCountDTO.builder().term("aspirin").count(7L).build()))
+                .zeroResultTerms(List.of(TermCountDTO.builder().term("jarabe ninos").count(2L).build()))
+                .build());
+
+        mockMvc.perform(get("/products/search-trends")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalSearches").value(12))
+                .andExpect(jsonPath("$.topTerms[0].term").value("aspirin"))
+                .andExpect(jsonPath("$.zeroResultTerms[0].count").value(2));
+    }
+
+    // ==================== IMPORT ====================
+
+    @Test
+    void testImportProducts_Csv_ShouldStreamImportEvents() throws Exception {
+        when(productImportService.importProducts(any(), eq(ProductImportReader.Format.CSV), any()))
+                .thenAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(2);
+                    ProductImportEventDTO summary = ProductImportEventDTO.builder()
+                            .type("SUMMARY").processed(1L).imported(1L).failed(0L).build();
+                    out.write((objectMapper.writeValueAsString(summary) + "\n").getBytes(StandardCharsets.UTF_8));
+                    return summary;
+                });
+
+        mockMvc.perform(post("/products/import")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .contentType("text/csv")
+                        .content("name,price,stock\nAspirin,5.99,100\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(containsString("\"type\":\"SUMMARY\"")));
+    }
+
+    @Test
+    void testImportProducts_Ndjson_ShouldUseNdjsonFormat() throws Exception {
+        when(productImportService.importProducts(any(), eq(ProductImportReader.Format.NDJSON), any()))
+                .thenReturn(ProductImportEventDTO.builder().type("SUMMARY").imported(0L).failed(0L).build());
+
+        mockMvc.perform(post("/products/import")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\":\"Aspirin\",\"price\":5.99,\"stock\":1}\n"))
+                .andExpect(status().isOk());
+
+        verify(productImportService).importProducts(any(), eq(ProductImportReader.Format.NDJSON), any());
+    }
+
+    // ==================== STOCK RESERVATION ====================
+
+    @Test
+    void testReserveStock_ShouldReturnReservedItems() throws Exception {
+        StockReservationRequestDTO request = StockReservationRequestDTO.builder()
+                .orderId(7L)
+                .items(List.of(StockItemDTO.builder().productId(1L).quantity(2).build()))
+                .build();
+        when(stockReservationService.reserve(any(StockReservationRequestDTO.class)))
+                .thenReturn(StockReservationResponseDTO.builder()
+                        .orderId(7L)
+                        .status("RESERVED")
+                        .items(request.getItems())
+                        .build());
+
+        mockMvc.perform(post("/products/stock/reserve")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RESERVED"))
+                .andExpect(jsonPath("$.items[0].productId").value(1))
+                .andExpect(jsonPath("$.items[0].quantity").value(2));
+    }
+
+    @Test
+    void testReserveStock_InsufficientStock_ShouldReturnConflict() throws Exception {
+        StockReservationRequestDTO request = StockReservationRequestDTO.builder()
+                .orderId(7L)
+                .items(List.of(StockItemDTO.builder().productId(1L).quantity(500).build()))
+                .build();
+        when(stockReservationService.reserve(any(StockReservationRequestDTO.class)))
+                .thenThrow(new BusinessException("Insufficient stock for product 1", "INSUFFICIENT_STOCK", 409));
+
+        mockMvc.perform(post("/products/stock/reserve")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value("INSUFFICIENT_STOCK"));
+    }
+
+    @Test
+    void testReleaseStock_ShouldReturnReleasedItems() throws Exception {
+        StockReservationRequestDTO request = StockReservationRequestDTO.builder()
+                .orderId(7L)
+                .items(List.of(StockItemDTO.builder().productId(1L).quantity(2).build()))
+                .build();
+        when(stockReservationService.release(any(StockReservationRequestDTO.class)))
+                .thenReturn(StockReservationResponseDTO.builder()
+                        .orderId(7L)
+                        .status("RELEASED")
+                        .items(request.getItems())
+                        .build());
+
+        mockMvc.perform(post("/products/stock/release")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RELEASED"));
+    }
+
+    // ==================== CHANGES ====================
+
+    @Test
+    void testGetChanges_ShouldReturnChangedProductsAndWatermark() throws Exception {
+        product1.setVersion(3L);
+        product1.setStatus("ACTIVE");
+        when(productService.getChanges("abc", 100)).thenReturn(ProductChangesDTO.builder()
+                .products(List.of(product1))
+                .nextSince("def")
+                .hasMore(false)
+                .build());
+
+        mockMvc.perform(get("/products/changes")
+                        .header("Authorization", "ApiKey test-api-key-12345")
+                        .param("since", "abc")
+                        .param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].version").value(3))
+                .andExpect(jsonPath("$.products[0].status").value("ACTIVE"))
+                .andExpect(jsonPath("$.nextSince").value("def"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    // ==================== EXPORT ====================
+
+    @Test
+    void testExportProducts_ShouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write((objectMapper.writeValueAsString(product1) + "\n").getBytes(StandardCharsets.UTF_8));
+            out.write((objectMapper.writeValueAsString(product2) + "\n").getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(productService).exportProducts(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/products/export")
+                        .header("Authorization", "ApiKey test-api-key-12345"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(product1) + "\n" +
+                        objectMapper.writeValueAsString(product2) + "\n"));
+    }
+
+    // ==================== SNAPSHOT ====================
+
+    @Test
+    void testDownloadSnapshot_ShouldStreamCurrentSnapshot() throws Exception {
+        byte[] snapshot = {1, 2, 3, 4};
+        Path file = Files.createTempFile("products-", ".snapshot");
+        file.toFile().deleteOnExit();
+        Files.write(file, snapshot);
+        when(productSnapshotService.currentSnapshot()).thenReturn(file);
+
+        MvcResult result = mockMvc.perform(get("/products/snapshot")
+                        .header("Authorization", "ApiKey test-api-key-12345"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(content().bytes(snapshot));
     }
 
     // ==================== BY IDS ====================
@@ -245,13 +515,15 @@ class ProductControllerTest {
     @Test
     void testGetProductsByIds_ShouldReturnProducts() throws Exception {
         List<Long> ids = Arrays.asList(1L, 2L);
-        when(productService.getProductsByIds(ids)).thenReturn(List.of(product1, product2));
+        when(productService.getProductsJsonByIds(ids))
+                .thenReturn(objectMapper.writeValueAsBytes(List.of(product1, product2)));
 
         mockMvc.perform(post("/products/by-ids")
                         .header("Authorization", "ApiKey test-api-key-12345")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(ids)))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.length()").value(2));
     }
 }
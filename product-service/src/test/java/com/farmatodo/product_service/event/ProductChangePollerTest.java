@@ -0,0 +1,101 @@
+package com.farmatodo.product_service.event;
+
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProductChangePoller}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductChangePollerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ProductChangeListener listener;
+
+    private ProductChangePoller poller;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        poller = new ProductChangePoller(productRepository, transactionTemplate, List.of(listener));
+        setField("batchSize", 2);
+        setField("overlapMillis", 30_000L);
+        setField("newestSeen", LocalDateTime.of(2025, 10, 21, 10, 0));
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = ProductChangePoller.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(poller, value);
+    }
+
+    private ProductChange change(long id, LocalDateTime updatedAt) {
+        return projectionFactory.createProjection(ProductChange.class, Map.of("id", id, "updatedAt", updatedAt));
+    }
+
+    @Test
+    void testPoll_ShouldReadFromOverlapAndPageUntilShortPage() {
+        LocalDateTime t1 = LocalDateTime.of(2025, 10, 21, 10, 0, 5);
+        LocalDateTime t2 = LocalDateTime.of(2025, 10, 21, 10, 0, 9);
+        List<ProductChange> first = List.of(change(4L, t1), change(2L, t2));
+        List<ProductChange> second = List.of(change(7L, t2));
+        when(productRepository.findChangesFrom(eq(LocalDateTime.of(2025, 10, 21, 9, 59, 30)), eq(0L), any(Pageable.class)))
+                .thenReturn(first);
+        when(productRepository.findChangesFrom(eq(t2), eq(2L), any(Pageable.class))).thenReturn(second);
+
+        assertThat(poller.pollOnce()).isEqualTo(3);
+
+        verify(listener).onProductChanges(first);
+        verify(listener).onProductChanges(second);
+
+        // Next poll starts one overlap before the newest change seen
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(productRepository.findChangesFrom(from.capture(), anyLong(), any(Pageable.class))).thenReturn(List.of());
+        poller.pollOnce();
+        assertThat(from.getValue()).isEqualTo(t2.minusSeconds(30));
+    }
+
+    @Test
+    void testPoll_Failure_ShouldKeepPositionForNextPoll() {
+        when(productRepository.findChangesFrom(any(), anyLong(), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of());
+
+        poller.poll();
+        poller.poll();
+
+        verify(productRepository, times(2))
+                .findChangesFrom(eq(LocalDateTime.of(2025, 10, 21, 9, 59, 30)), eq(0L), any(Pageable.class));
+        verifyNoInteractions(listener);
+    }
+}
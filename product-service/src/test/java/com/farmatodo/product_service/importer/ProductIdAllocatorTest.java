@@ -0,0 +1,45 @@
+package com.farmatodo.product_service.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ProductIdAllocator}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductIdAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testAllocate_ShouldDrawWholeBatchInOneQuery() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(3)))
+                .thenReturn(List.of(10L, 11L, 15L));
+        ProductIdAllocator allocator = new ProductIdAllocator(jdbcTemplate);
+
+        assertThat(allocator.allocate(3)).containsExactly(10L, 11L, 15L);
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq(3));
+    }
+
+    @Test
+    void testAllocate_ZeroCount_ShouldNotQuery() {
+        ProductIdAllocator allocator = new ProductIdAllocator(jdbcTemplate);
+
+        assertThat(allocator.allocate(0)).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,89 @@
+package com.farmatodo.product_service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ProductImportReader}
+ */
+class ProductImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<ProductImportReader.Row> readAll(String content, ProductImportReader.Format format) throws IOException {
+        ProductImportReader reader = new ProductImportReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, objectMapper);
+        List<ProductImportReader.Row> rows = new ArrayList<>();
+        ProductImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    void testCsv_ShouldMapColumnsByHeaderInAnyOrder() throws IOException {
+        List<ProductImportReader.Row> rows = readAll(
+                "SKU,Name,Price,Stock,Category\n" +
+                "ASP-500,Aspirin 500mg,5.99,100,Medications\n" +
+                "\n" +
+                "VIT-C,\"Vitamin C, 1000mg\",12.50,40,Vitamins\n",
+                ProductImportReader.Format.CSV);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).line()).isEqualTo(2);
+        assertThat(rows.get(0).request().getSku()).isEqualTo("ASP-500");
+        assertThat(rows.get(0).request().getPrice()).isEqualByComparingTo(new BigDecimal("5.99"));
+        assertThat(rows.get(0).request().getStock()).isEqualTo(100);
+        assertThat(rows.get(0).request().getDescription()).isNull();
+        assertThat(rows.get(1).line()).isEqualTo(4);
+        assertThat(rows.get(1).request().getName()).isEqualTo("Vitamin C, 1000mg");
+    }
+
+    @Test
+    void testCsv_InvalidNumber_ShouldReportRowError() throws IOException {
+        List<ProductImportReader.Row> rows = readAll(
+                "name,price,stock\nAspirin,abc,10\nIbuprofen,4.00,ten\n", ProductImportReader.Format.CSV);
+
+        assertThat(rows).extracting(ProductImportReader.Row::error)
+                .containsExactly("Invalid price 'abc'", "Invalid stock 'ten'");
+    }
+
+    @Test
+    void testCsv_MissingRequiredColumn_ShouldReportOnceAndStop() throws IOException {
+        List<ProductImportReader.Row> rows = readAll(
+                "name,stock\nAspirin,10\n", ProductImportReader.Format.CSV);
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).line()).isEqualTo(1);
+        assertThat(rows.get(0).error()).contains("header");
+    }
+
+    @Test
+    void testNdjson_ShouldParseOneRequestPerLine() throws IOException {
+        List<ProductImportReader.Row> rows = readAll(
+                "{\"name\":\"Aspirin\",\"price\":5.99,\"stock\":3,\"sku\":\"A-1\"}\n" +
+                "{not json}\n",
+                ProductImportReader.Format.NDJSON);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).request().getSku()).isEqualTo("A-1");
+        assertThat(rows.get(1).line()).isEqualTo(2);
+        assertThat(rows.get(1).error()).startsWith("Invalid JSON");
+    }
+
+    @Test
+    void testSplitCsv_ShouldHandleEscapedQuotes() {
+        assertThat(ProductImportReader.splitCsv("a,\"say \"\"hi\"\"\",,c"))
+                .containsExactly("a", "say \"hi\"", "", "c");
+    }
+}
@@ -0,0 +1,87 @@
+package com.farmatodo.product_service.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProductSkuIndexMigration}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSkuIndexMigrationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ProductSkuIndexMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testMigrate_DuplicatedSkus_ShouldClearThemThenCreateIndex() {
+        when(jdbcTemplate.queryForObject(ProductSkuIndexMigration.INDEX_EXISTS_SQL, Integer.class)).thenReturn(0);
+        when(jdbcTemplate.queryForList(ProductSkuIndexMigration.FIND_DUPLICATES_SQL))
+                .thenReturn(List.of(Map.of("id", 7L, "sku", "ASP-500", "kept_id", 3L)));
+
+        migration.migrate();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute(ProductSkuIndexMigration.LOCK_SQL);
+        order.verify(jdbcTemplate).update(ProductSkuIndexMigration.CLEAR_DUPLICATES_SQL);
+        order.verify(jdbcTemplate).execute(ProductSkuIndexMigration.CREATE_INDEX_SQL);
+        order.verify(jdbcTemplate).execute(ProductSkuIndexMigration.DROP_OLD_INDEX_SQL);
+    }
+
+    @Test
+    void testClearDuplicatesSql_ShouldVersionLegacyRows() {
+        // Rows older than the version column have a null version, which must still move forward
+        assertThat(ProductSkuIndexMigration.CLEAR_DUPLICATES_SQL).contains("version = COALESCE(p.version, 0) + 1");
+    }
+
+    @Test
+    void testMigrate_NoDuplicates_ShouldOnlyCreateIndex() {
+        when(jdbcTemplate.queryForObject(ProductSkuIndexMigration.INDEX_EXISTS_SQL, Integer.class)).thenReturn(0);
+        when(jdbcTemplate.queryForList(ProductSkuIndexMigration.FIND_DUPLICATES_SQL)).thenReturn(List.of());
+
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).update(anyString());
+        verify(jdbcTemplate).execute(ProductSkuIndexMigration.CREATE_INDEX_SQL);
+    }
+
+    @Test
+    void testMigrate_IndexPresent_ShouldDoNothing() {
+        when(jdbcTemplate.queryForObject(ProductSkuIndexMigration.INDEX_EXISTS_SQL, Integer.class)).thenReturn(1);
+
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+}
@@ -0,0 +1,64 @@
+package com.farmatodo.product_service.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SearchKeyColumnMigration}
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchKeyColumnMigrationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SearchKeyColumnMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testMigrate_VarcharColumn_ShouldWidenItThenClearCutKeys() {
+        when(jdbcTemplate.queryForObject(SearchKeyColumnMigration.COLUMN_LIMITED_SQL, Integer.class)).thenReturn(1);
+
+        migration.migrate();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute(SearchKeyColumnMigration.LOCK_SQL);
+        order.verify(jdbcTemplate).execute(SearchKeyColumnMigration.ALTER_COLUMN_SQL);
+        order.verify(jdbcTemplate).update(SearchKeyColumnMigration.CLEAR_CUT_KEYS_SQL);
+    }
+
+    @Test
+    void testMigrate_TextColumn_ShouldDoNothing() {
+        when(jdbcTemplate.queryForObject(SearchKeyColumnMigration.COLUMN_LIMITED_SQL, Integer.class)).thenReturn(0);
+
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+}
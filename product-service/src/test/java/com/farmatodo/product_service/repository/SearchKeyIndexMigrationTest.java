@@ -0,0 +1,78 @@
+package com.farmatodo.product_service.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SearchKeyIndexMigration}
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchKeyIndexMigrationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SearchKeyIndexMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testMigrate_NoTrigramIndex_ShouldCreateItThenDropBTree() {
+        when(jdbcTemplate.queryForObject(SearchKeyIndexMigration.INDEX_EXISTS_SQL, Integer.class)).thenReturn(0);
+
+        migration.migrate();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute(SearchKeyIndexMigration.LOCK_SQL);
+        order.verify(jdbcTemplate).execute(SearchKeyIndexMigration.CREATE_EXTENSION_SQL);
+        order.verify(jdbcTemplate).execute(SearchKeyIndexMigration.CREATE_INDEX_SQL);
+        order.verify(jdbcTemplate).execute(SearchKeyIndexMigration.DROP_OLD_INDEX_SQL);
+    }
+
+    @Test
+    void testMigrate_ExtensionNotAllowed_ShouldStillDropBTree() {
+        when(jdbcTemplate.queryForObject(SearchKeyIndexMigration.INDEX_EXISTS_SQL, Integer.class)).thenReturn(0);
+        lenient().doThrow(new DataAccessResourceFailureException("permission denied to create extension"))
+                .when(jdbcTemplate).execute(SearchKeyIndexMigration.CREATE_EXTENSION_SQL);
+
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).execute(SearchKeyIndexMigration.CREATE_INDEX_SQL);
+        verify(jdbcTemplate).execute(SearchKeyIndexMigration.DROP_OLD_INDEX_SQL);
+    }
+
+    @Test
+    void testMigrate_IndexPresent_ShouldDoNothing() {
+        when(jdbcTemplate.queryForObject(SearchKeyIndexMigration.INDEX_EXISTS_SQL, Integer.class)).thenReturn(1);
+
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+}
@@ -0,0 +1,46 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.dto.FacetCountDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FacetCounter}
+ */
+class FacetCounterTest {
+
+    private static final BigDecimal[] BOUNDS = {new BigDecimal("10"), new BigDecimal("5"), new BigDecimal("20.00")};
+
+    private static FacetCountDTO facet(String value, long count) {
+        return FacetCountDTO.builder().value(value).count(count).build();
+    }
+
+    @Test
+    void testCategoryFacets_ShouldSortByCountThenName() {
+        FacetCounter counter = new FacetCounter(BOUNDS);
+        counter.add("Vitamins", new BigDecimal("3.00"), 1);
+        counter.add("Medications", new BigDecimal("3.00"), 2);
+        counter.add("Baby", new BigDecimal("3.00"), 1);
+        counter.add(null, new BigDecimal("3.00"), 4);
+
+        assertThat(counter.categoryFacets()).containsExactly(
+                facet("Medications", 2), facet("Baby", 1), facet("Vitamins", 1));
+    }
+
+    @Test
+    void testPriceFacets_ShouldBucketWithInclusiveLowerBound() {
+        FacetCounter counter = new FacetCounter(BOUNDS);
+        counter.add("A", new BigDecimal("4.99"), 1);
+        counter.add("A", new BigDecimal("5.00"), 1);
+        counter.add("A", new BigDecimal("9.99"), 3);
+        counter.add("A", new BigDecimal("20"), 1);
+        counter.add("A", new BigDecimal("150"), 2);
+        counter.add("A", null, 1);
+
+        assertThat(counter.priceFacets()).containsExactly(
+                facet("0-5", 1), facet("5-10", 4), facet("20+", 3));
+    }
+}
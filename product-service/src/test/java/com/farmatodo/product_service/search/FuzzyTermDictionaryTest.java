@@ -0,0 +1,68 @@
+package com.farmatodo.product_service.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FuzzyTermDictionary}
+ */
+class FuzzyTermDictionaryTest {
+
+    private FuzzyTermDictionary dictionary(String... terms) {
+        FuzzyTermDictionary dictionary = new FuzzyTermDictionary(2);
+        for (String term : terms) {
+            dictionary.add(term);
+        }
+        return dictionary;
+    }
+
+    @Test
+    void testClosest_ShouldCorrectSubstitutionsInsertionsAndTranspositions() {
+        FuzzyTermDictionary dictionary = dictionary("acetaminofen", "aspirin", "ibuprofeno", "vitamina");
+
+        assertThat(dictionary.closest("acetaminofem")).containsExactly("acetaminofen");
+        assertThat(dictionary.closest("acetaminfen")).containsExactly("acetaminofen");
+        assertThat(dictionary.closest("aspirni")).containsExactly("aspirin");
+        assertThat(dictionary.closest("ibuprofenno")).containsExactly("ibuprofeno");
+    }
+
+    @Test
+    void testClosest_ShouldBoundDistanceByWordLength() {
+        FuzzyTermDictionary dictionary = dictionary("gel", "jarabe", "acetaminofen");
+
+        // Up to 3 characters: exact only
+        assertThat(dictionary.closest("gal")).isEmpty();
+        // Up to 7 characters: one edit
+        assertThat(dictionary.closest("jarave")).containsExactly("jarabe");
+        assertThat(dictionary.closest("jaarbe")).containsExactly("jarabe");
+        assertThat(dictionary.closest("harave")).isEmpty();
+        // Longer words: two edits
+        assertThat(dictionary.closest("asetaminofem")).containsExactly("acetaminofen");
+    }
+
+    @Test
+    void testClosest_ShouldReturnOnlyTermsAtSmallestDistance() {
+        FuzzyTermDictionary dictionary = dictionary("crema", "cremas", "trema");
+
+        assertThat(dictionary.closest("crema")).containsExactly("crema");
+        assertThat(dictionary.closest("cremax")).containsExactlyInAnyOrder("crema", "cremas");
+    }
+
+    @Test
+    void testRemove_ShouldStopSuggestingTerm() {
+        FuzzyTermDictionary dictionary = dictionary("aspirin");
+
+        dictionary.remove("aspirin");
+
+        assertThat(dictionary.closest("aspirn")).isEmpty();
+        assertThat(dictionary.size()).isZero();
+    }
+
+    @Test
+    void testDistance_ShouldStopOnceBoundIsExceeded() {
+        assertThat(FuzzyTermDictionary.distance("aspirin", "aspirin", 2)).isZero();
+        assertThat(FuzzyTermDictionary.distance("aspirin", "asprin", 2)).isEqualTo(1);
+        assertThat(FuzzyTermDictionary.distance("aspirin", "vitamina", 2)).isEqualTo(3);
+    }
+}
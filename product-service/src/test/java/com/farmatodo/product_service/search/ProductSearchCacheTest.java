@@ -0,0 +1,72 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.dto.ProductSearchResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ProductSearchCache}
+ */
+class ProductSearchCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Supplier<ProductSearchResponseDTO> loader = () -> {
+        loads.incrementAndGet();
+        return ProductSearchResponseDTO.builder().totalResults(0).products(List.of()).build();
+    };
+
+    @Test
+    void testGet_ShouldNormalizeQueryForKey() {
+        ProductSearchCache cache = new ProductSearchCache(60, 100);
+
+        cache.get("Vitamina   C", 0, null, 50, loader);
+        cache.get(" vitamina c ", 0, null, 50, loader);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testGet_DifferentMinStockCursorOrPageSize_ShouldUseSeparateEntries() {
+        ProductSearchCache cache = new ProductSearchCache(60, 100);
+
+        cache.get("aspirin", 0, null, 50, loader);
+        cache.get("aspirin", 10, null, 50, loader);
+        cache.get("aspirin", 0, "MQ", 50, loader);
+        cache.get("aspirin", 0, null, 20, loader);
+
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    void testInvalidateAll_ShouldForceReload() {
+        ProductSearchCache cache = new ProductSearchCache(60, 100);
+
+        cache.get("aspirin", 0, null, 50, loader);
+        cache.invalidateAll();
+        cache.get("aspirin", 0, null, 50, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testBindTo_ShouldRegisterCacheMetrics() {
+        ProductSearchCache cache = new ProductSearchCache(60, 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        cache.bindTo(registry);
+        cache.get("aspirin", 0, null, 50, loader);
+        cache.get("aspirin", 0, null, 50, loader);
+
+        assertThat(registry.get("cache.gets").tag("cache", "product.search").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.find("cache.evictions").tag("cache", "product.search").functionCounter()).isNotNull();
+    }
+}
@@ -0,0 +1,255 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ProductSearchIndex}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSearchIndex productSearchIndex;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private Product aspirin;
+    private Product vitaminC;
+    private Product babyAspirin;
+
+    @BeforeEach
+    void setUp() {
+        aspirin = product(1L, "Aspirin 500mg", "Pain reliever and fever reducer", "Medications");
+        vitaminC = product(2L, "Vitamina C", "Immune system support", "Vitamins");
+        babyAspirin = product(3L, "Baby Aspirin", "Low dose aspirin", "Medications");
+    }
+
+    private Product product(Long id, String name, String description, String category) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .price(new BigDecimal("5.00"))
+                .stock(10)
+                .category(category)
+                .status("ACTIVE")
+                .build();
+    }
+
+    private ProductChange change(Long id, String name, int stock, Long version) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", name);
+        row.put("description", "Changed elsewhere");
+        row.put("price", new BigDecimal("5.00"));
+        row.put("stock", stock);
+        row.put("category", "Medications");
+        row.put("status", "ACTIVE");
+        row.put("version", version);
+        return projectionFactory.createProjection(ProductChange.class, row);
+    }
+
+    @Test
+    void testRebuild_ShouldIndexAllPagesAndBecomeReady() throws Exception {
+        var batchSize = ProductSearchIndex.class.getDeclaredField("batchSize");
+        batchSize.setAccessible(true);
+        batchSize.set(productSearchIndex, 2);
+        when(productRepository.findProductsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(aspirin, vitaminC));
+        when(productRepository.findProductsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of(babyAspirin));
+
+        assertThat(productSearchIndex.isReady()).isFalse();
+
+        productSearchIndex.rebuild();
+
+        assertThat(productSearchIndex.isReady()).isTrue();
+        assertThat(productSearchIndex.size()).isEqualTo(3);
+        assertThat(productSearchIndex.search("aspirin")).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void testSearch_ShouldMatchTokenPrefixesCaseInsensitive() {
+        productSearchIndex.index(aspirin);
+        productSearchIndex.index(vitaminC);
+
+        assertThat(productSearchIndex.search("ASP")).containsExactly(1L);
+        assertThat(productSearchIndex.search("vita")).containsExactly(2L);
+        assertThat(productSearchIndex.search("medic")).containsExactly(1L);
+    }
+
+    @Test
+    void testSearch_MultipleTokens_ShouldIntersect() {
+        productSearchIndex.index(aspirin);
+        productSearchIndex.index(babyAspirin);
+
+        assertThat(productSearchIndex.search("aspirin")).containsExactly(1L, 3L);
+        assertThat(productSearchIndex.search("baby aspirin")).containsExactly(3L);
+        assertThat(productSearchIndex.search("baby vitamins")).isEmpty();
+    }
+
+    @Test
+    void testSearch_ShouldIgnoreAccents() {
+        productSearchIndex.index(product(4L, "Acetaminofén Jarabe", "Para niños", "Analgésicos"));
+
+        assertThat(productSearchIndex.search("acetaminofen ninos")).containsExactly(4L);
+        assertThat(productSearchIndex.search("ANALGÉS")).containsExactly(4L);
+    }
+
+    @Test
+    void testSearchFuzzy_ShouldCorrectMisspelledTokens() {
+        productSearchIndex.index(aspirin);
+        productSearchIndex.index(vitaminC);
+        productSearchIndex.index(babyAspirin);
+
+        assertThat(productSearchIndex.search("aspirni")).isEmpty();
+        assertThat(productSearchIndex.searchFuzzy("aspirni")).containsExactly(1L, 3L);
+        assertThat(productSearchIndex.searchFuzzy("baby aspirni")).containsExactly(3L);
+        assertThat(productSearchIndex.searchFuzzy("vitamnia")).containsExactly(2L);
+        assertThat(productSearchIndex.searchFuzzy("zzzzzz")).isEmpty();
+    }
+
+    @Test
+    void testSearchFuzzy_RemovedTermShouldNotBeSuggested() {
+        productSearchIndex.index(vitaminC);
+        productSearchIndex.remove(2L);
+
+        assertThat(productSearchIndex.searchFuzzy("vitamnia")).isEmpty();
+    }
+
+    @Test
+    void testCollectFacets_ShouldCountOnlyActiveProductsAboveMinStock() {
+        Product inactive = product(4L, "Aspirin Old", "Discontinued", "Medications");
+        inactive.setStatus("INACTIVE");
+        Product outOfStock = product(5L, "Aspirin Forte", "Strong", "Medications");
+        outOfStock.setStock(0);
+        vitaminC.setPrice(new BigDecimal("12.00"));
+        for (Product product : List.of(aspirin, vitaminC, babyAspirin, inactive, outOfStock)) {
+            productSearchIndex.index(product);
+        }
+
+        FacetCounter counter = new FacetCounter(new BigDecimal[]{new BigDecimal("10")});
+        productSearchIndex.collectFacets(productSearchIndex.search(""), 0, counter);
+
+        assertThat(counter.categoryFacets()).extracting("value", "count")
+                .containsExactly(tuple("Medications", 2L), tuple("Vitamins", 1L));
+        assertThat(counter.priceFacets()).extracting("value", "count")
+                .containsExactly(tuple("0-10", 2L), tuple("10+", 1L));
+    }
+
+    @Test
+    void testUpdateStock_ShouldApplyToFacetStockFilter() {
+        productSearchIndex.index(aspirin);
+        productSearchIndex.index(babyAspirin);
+
+        productSearchIndex.updateStock(1L, 0);
+
+        FacetCounter counter = new FacetCounter(new BigDecimal[]{new BigDecimal("10")});
+        productSearchIndex.collectFacets(productSearchIndex.search("aspirin"), 0, counter);
+        assertThat(counter.categoryFacets()).extracting("value", "count")
+                .containsExactly(tuple("Medications", 1L));
+        assertThat(productSearchIndex.search("aspirin")).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void testSearch_BlankQuery_ShouldReturnAllIds() {
+        productSearchIndex.index(vitaminC);
+        productSearchIndex.index(aspirin);
+
+        assertThat(productSearchIndex.search("  ")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void testIndex_Reindex_ShouldReplaceOldTokens() {
+        productSearchIndex.index(aspirin);
+
+        aspirin.setName("Ibuprofen 400mg");
+        aspirin.setDescription("Anti-inflammatory");
+        productSearchIndex.index(aspirin);
+
+        assertThat(productSearchIndex.search("aspirin")).isEmpty();
+        assertThat(productSearchIndex.search("ibuprofen")).containsExactly(1L);
+        assertThat(productSearchIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testRemove_ShouldDropProductFromIndex() {
+        productSearchIndex.index(aspirin);
+        productSearchIndex.index(babyAspirin);
+
+        productSearchIndex.remove(1L);
+
+        assertThat(productSearchIndex.search("aspirin")).containsExactly(3L);
+        assertThat(productSearchIndex.search("")).containsExactly(3L);
+    }
+
+    @Test
+    void testSearch_PrefixOfManyTerms_ShouldReturnSortedUnionWithoutDuplicates() {
+        productSearchIndex.index(product(5L, "Vitamina E", "Vitaminas liposolubles", "Vitamins"));
+        productSearchIndex.index(product(2L, "Vital Gel", "Vitalidad", "Cuidado"));
+        productSearchIndex.index(product(9L, "Vitamina D3", "Vital", "Vitamins"));
+        productSearchIndex.index(product(7L, "Jabon", "Neutro", "Cuidado"));
+
+        assertThat(productSearchIndex.search("vita")).containsExactly(2L, 5L, 9L);
+        assertThat(productSearchIndex.searchFuzzy("vitaminss")).containsExactly(5L, 9L);
+    }
+
+    // ==================== CHANGE FEED TESTS ====================
+
+    @Test
+    void testOnProductChanges_ShouldIndexOtherInstancesWrites() {
+        aspirin.setVersion(3L);
+        productSearchIndex.index(aspirin);
+
+        productSearchIndex.onProductChanges(List.of(
+                change(1L, "Ibuprofen 400mg", 10, 4L),
+                change(8L, "Aspirin Effervescent", 10, 1L)));
+
+        assertThat(productSearchIndex.search("aspirin")).containsExactly(8L);
+        assertThat(productSearchIndex.search("ibuprofen")).containsExactly(1L);
+        assertThat(productSearchIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testOnProductChanges_NotNewerVersion_ShouldBeSkipped() {
+        aspirin.setVersion(7L);
+        productSearchIndex.index(aspirin);
+        productSearchIndex.updateStock(1L, 0);
+
+        productSearchIndex.onProductChanges(List.of(
+                change(1L, "Ibuprofen 400mg", 10, 6L),
+                change(1L, "Ibuprofen 400mg", 10, 8L)));
+
+        assertThat(productSearchIndex.search("aspirin")).containsExactly(1L);
+        FacetCounter counter = new FacetCounter(new BigDecimal[]{new BigDecimal("10")});
+        productSearchIndex.collectFacets(productSearchIndex.search("aspirin"), 0, counter);
+        assertThat(counter.categoryFacets()).isEmpty();
+
+        productSearchIndex.onProductChanges(List.of(change(1L, "Ibuprofen 400mg", 10, 9L)));
+
+        assertThat(productSearchIndex.search("ibuprofen")).containsExactly(1L);
+    }
+}
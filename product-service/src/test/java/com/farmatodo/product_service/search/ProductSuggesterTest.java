@@ -0,0 +1,185 @@
+package com.farmatodo.product_service.search;
+
+import com.farmatodo.product_service.event.SearchEvent;
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.ProductSummary;
+import com.farmatodo.product_service.repository.SearchTermCount;
+import com.farmatodo.product_service.repository.SearchTermRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ProductSuggester}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSuggesterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private SearchTermRollupRepository searchTermRollupRepository;
+
+    @InjectMocks
+    private ProductSuggester productSuggester;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private Product product(Long id, String name, String category) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .price(new BigDecimal("5.00"))
+                .stock(10)
+                .category(category)
+                .status("ACTIVE")
+                .build();
+    }
+
+    private ProductSummary summary(Product product) {
+        return projectionFactory.createProjection(ProductSummary.class, Map.of(
+                "id", product.getId(),
+                "name", product.getName(),
+                "price", product.getPrice(),
+                "stock", product.getStock(),
+                "category", product.getCategory()));
+    }
+
+    private SearchTermCount termCount(String term, long searches) {
+        return projectionFactory.createProjection(SearchTermCount.class, Map.of("term", term, "searches", searches));
+    }
+
+    @Test
+    void testRebuild_ShouldRankSuggestionsBySearchPopularity() {
+        when(searchTermRollupRepository.findPopularTermsSince(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(termCount("acetaminofen", 40), termCount("aspirin", 10)));
+        when(productRepository.findActiveAfter(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(
+                        summary(product(1L, "Aspirin 500mg", "Medications")),
+                        summary(product(2L, "Acetaminofen 500mg", "Medications")),
+                        summary(product(3L, "Amoxicilina", "Antibiotics"))));
+
+        productSuggester.rebuild();
+
+        List<SuggestionTrie.Entry> suggestions = productSuggester.suggest("A", 10);
+        assertThat(suggestions).extracting(SuggestionTrie.Entry::text)
+                .containsExactly("Acetaminofen 500mg", "Aspirin 500mg", "Amoxicilina", "Antibiotics");
+        assertThat(suggestions.get(0).score()).isEqualTo(40L);
+        assertThat(productSuggester.suggest("medic", 10)).extracting(SuggestionTrie.Entry::type)
+                .containsExactly(ProductSuggester.TYPE_CATEGORY);
+    }
+
+    @Test
+    void testRebuild_ShouldReRankSuggestionsAndKeepProductsAddedMeanwhile() {
+        when(productRepository.findActiveAfter(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(
+                        summary(product(1L, "Aspirin 500mg", "Medications")),
+                        summary(product(2L, "Acetaminofen 500mg", "Medications"))))
+                .thenAnswer(invocation -> {
+                    // Created while the new trie is being built
+                    productSuggester.add(product(3L, "Amoxicilina", "Antibiotics"));
+                    return List.of(summary(product(1L, "Aspirin 500mg", "Medications")));
+                });
+        productSuggester.rebuild();
+        when(searchTermRollupRepository.findPopularTermsSince(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(termCount("aspirin", 10)));
+
+        productSuggester.refresh();
+
+        assertThat(productSuggester.suggest("a", 10)).extracting(SuggestionTrie.Entry::text, SuggestionTrie.Entry::score)
+                .containsExactly(tuple("Aspirin 500mg", 10L), tuple("Amoxicilina", 0L), tuple("Antibiotics", 0L));
+    }
+
+    @Test
+    void testRefresh_Failure_ShouldKeepCurrentSuggestions() {
+        when(productRepository.findActiveAfter(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(product(1L, "Aspirin 500mg", "Medications"))))
+                .thenThrow(new IllegalStateException("database down"));
+        productSuggester.rebuild();
+
+        productSuggester.refresh();
+
+        assertThat(productSuggester.suggest("asp", 10)).extracting(SuggestionTrie.Entry::text)
+                .containsExactly("Aspirin 500mg");
+    }
+
+    @Test
+    void testOnProductChanges_ShouldAddProductsChangedByOtherInstances() {
+        ProductChange change = projectionFactory.createProjection(ProductChange.class, Map.of(
+                "id", 5L, "name", "Loratadina 10mg", "category", "Antihistamines", "status", "ACTIVE", "version", 1L));
+
+        productSuggester.onProductChanges(List.of(change));
+
+        assertThat(productSuggester.suggest("lora", 5)).extracting(SuggestionTrie.Entry::text)
+                .containsExactly("Loratadina 10mg");
+        assertThat(productSuggester.suggest("antih", 5)).extracting(SuggestionTrie.Entry::type)
+                .containsExactly(ProductSuggester.TYPE_CATEGORY);
+    }
+
+    @Test
+    void testRebuild_ProductDeactivatedMeanwhile_ShouldStopSuggestingIt() {
+        when(productRepository.findActiveAfter(anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(
+                        summary(product(1L, "Aspirin 500mg", "Medications")),
+                        summary(product(2L, "Loratadina 10mg", "Antihistamines"))))
+                .thenReturn(List.of(summary(product(1L, "Aspirin 500mg", "Medications"))));
+        productSuggester.rebuild();
+        ProductChange deactivated = projectionFactory.createProjection(ProductChange.class, Map.of(
+                "id", 2L, "name", "Loratadina 10mg", "category", "Antihistamines", "status", "INACTIVE", "version", 2L));
+        ProductChange inactive = projectionFactory.createProjection(ProductChange.class, Map.of(
+                "id", 6L, "name", "Cetirizina 10mg", "category", "Antihistamines", "status", "INACTIVE", "version", 1L));
+        productSuggester.onProductChanges(List.of(deactivated, inactive));
+        Product draft = product(7L, "Desloratadina 5mg", "Antihistamines");
+        draft.setStatus("INACTIVE");
+        productSuggester.add(draft);
+
+        assertThat(productSuggester.suggest("ceti", 5)).isEmpty();
+        assertThat(productSuggester.suggest("deslo", 5)).isEmpty();
+
+        productSuggester.refresh();
+
+        assertThat(productSuggester.suggest("lora", 5)).isEmpty();
+        assertThat(productSuggester.suggest("antih", 5)).isEmpty();
+        assertThat(productSuggester.suggest("asp", 5)).extracting(SuggestionTrie.Entry::text)
+                .containsExactly("Aspirin 500mg");
+    }
+
+    @Test
+    void testAdd_ShouldMakeNewProductSuggestibleWithLivePopularity() {
+        productSuggester.onSearch(SearchEvent.builder().searchTerm("Ibuprofeno").resultsCount(3).build());
+        productSuggester.onSearch(SearchEvent.builder().searchTerm("ibuprofeno").resultsCount(0).build());
+
+        productSuggester.add(product(4L, "Ibuprofeno 400mg", "Medications"));
+
+        List<SuggestionTrie.Entry> suggestions = productSuggester.suggest("ibu", 5);
+        assertThat(suggestions).hasSize(1);
+        assertThat(suggestions.get(0).text()).isEqualTo("Ibuprofeno 400mg");
+        assertThat(suggestions.get(0).score()).isEqualTo(1L);
+    }
+
+    @Test
+    void testSuggest_BlankPrefix_ShouldReturnNothing() {
+        productSuggester.add(product(1L, "Aspirin", "Medications"));
+
+        assertThat(productSuggester.suggest("  ", 10)).isEmpty();
+    }
+}
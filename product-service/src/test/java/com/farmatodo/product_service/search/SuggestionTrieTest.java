@@ -0,0 +1,69 @@
+package com.farmatodo.product_service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SuggestionTrie}
+ */
+class SuggestionTrieTest {
+
+    private static SuggestionTrie.Entry entry(String text, long score) {
+        return new SuggestionTrie.Entry(text, "PRODUCT", score);
+    }
+
+    private static List<String> texts(List<SuggestionTrie.Entry> entries) {
+        return entries.stream().map(SuggestionTrie.Entry::text).toList();
+    }
+
+    @Test
+    void testComplete_ShouldReturnEntriesStartingWithPrefixByScore() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.put("aspirin", entry("Aspirin", 5));
+        trie.put("aspirin 500mg", entry("Aspirin 500mg", 9));
+        trie.put("acetaminofen", entry("Acetaminofen", 20));
+        trie.put("vitamina c", entry("Vitamina C", 50));
+
+        assertThat(texts(trie.complete("a", 10))).containsExactly("Acetaminofen", "Aspirin 500mg", "Aspirin");
+        assertThat(texts(trie.complete("asp", 10))).containsExactly("Aspirin 500mg", "Aspirin");
+        assertThat(texts(trie.complete("aspirin 5", 10))).containsExactly("Aspirin 500mg");
+        assertThat(trie.complete("b", 10)).isEmpty();
+        assertThat(trie.size()).isEqualTo(4);
+    }
+
+    @Test
+    void testComplete_ShouldStopAtLimitAndBreakTiesAlphabetically() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.put("ibuprofeno", entry("Ibuprofeno", 1));
+        trie.put("ibuprofeno 400mg", entry("Ibuprofeno 400mg", 1));
+        trie.put("ibuprofeno 200mg", entry("Ibuprofeno 200mg", 1));
+
+        assertThat(texts(trie.complete("ibu", 2))).containsExactly("Ibuprofeno", "Ibuprofeno 200mg");
+    }
+
+    @Test
+    void testPut_PrefixEndingInsideSplitEdge_ShouldStillMatch() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.put("vitamina c", entry("Vitamina C", 1));
+        trie.put("vitamins", entry("Vitamins", 2));
+
+        // "vitamin" ends on the shared edge created by the split
+        assertThat(texts(trie.complete("vitamin", 10))).containsExactly("Vitamins", "Vitamina C");
+        assertThat(texts(trie.complete("vitamina", 10))).containsExactly("Vitamina C");
+        assertThat(trie.complete("vitaminx", 10)).isEmpty();
+    }
+
+    @Test
+    void testPut_SameKey_ShouldKeepHigherScoredEntry() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.put("aspirin", entry("Aspirin", 3));
+        trie.put("aspirin", entry("ASPIRIN", 1));
+        trie.put("aspirin", entry("aspirin", 7));
+
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.complete("asp", 10)).containsExactly(entry("aspirin", 7));
+    }
+}
@@ -0,0 +1,223 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.dto.ProductImportEventDTO;
+import com.farmatodo.product_service.importer.ProductIdAllocator;
+import com.farmatodo.product_service.importer.ProductImportReader;
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.search.ProductSearchCache;
+import com.farmatodo.product_service.search.ProductSearchIndex;
+import com.farmatodo.product_service.search.ProductSuggester;
+import com.farmatodo.product_service.stock.LowStockTracker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ProductImportService}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ProductIdAllocator productIdAllocator;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductSearchCache productSearchCache;
+
+    @Mock
+    private ProductSuggester productSuggester;
+
+    @Mock
+    private LowStockTracker lowStockTracker;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ProductImportService productImportService;
+
+    private final List<Product> inserted = new ArrayList<>();
+    private final Set<String> takenSkus = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong ids = new AtomicLong(100);
+        lenient().when(productIdAllocator.allocate(anyInt())).thenAnswer(invocation ->
+                LongStream.range(0, invocation.<Integer>getArgument(0)).map(i -> ids.incrementAndGet()).toArray());
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(jdbcTemplate.batchUpdate(eq(ProductImportService.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                    // ON CONFLICT (sku) DO NOTHING
+                    for (Product product : invocation.<List<Product>>getArgument(1)) {
+                        if (product.getSku() == null || takenSkus.add(product.getSku())) {
+                            inserted.add(product);
+                        }
+                    }
+                    return new int[0][];
+                });
+        lenient().when(jdbcTemplate.queryForList(eq(ProductImportService.INSERTED_IDS_SQL), eq(Long.class), any()))
+                .thenAnswer(invocation -> inserted.stream().map(Product::getId).toList());
+    }
+
+    private void setField(String name, int value) {
+        try {
+            var field = ProductImportService.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(productImportService, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set " + name, e);
+        }
+    }
+
+    private List<ProductImportEventDTO> runImport(String content, ProductImportReader.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        productImportService.importProducts(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, out);
+        List<ProductImportEventDTO> events = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            events.add(objectMapper.readValue(line, ProductImportEventDTO.class));
+        }
+        return events;
+    }
+
+    @Test
+    void testImport_ValidCsv_ShouldBatchInsertWithAllocatedIdsAndIndex() throws IOException {
+        List<ProductImportEventDTO> events = runImport(
+                "name,price,stock,category,sku\n" +
+                "Aspirin 500mg,5.99,100,Medications,ASP-500\n" +
+                "Vitamina C,12.50,3,Vitamins,VIT-C\n",
+                ProductImportReader.Format.CSV);
+
+        assertThat(inserted).extracting(Product::getId, Product::getSku)
+                .containsExactly(tuple(101L, "ASP-500"), tuple(102L, "VIT-C"));
+        assertThat(inserted.get(1).getSearchKey()).isEqualTo("vitamina c vitamins");
+        assertThat(inserted.get(0).getStatus()).isEqualTo("ACTIVE");
+        verify(productSearchIndex, times(2)).index(any(Product.class));
+        verify(productSuggester, times(2)).add(any(Product.class));
+        verify(lowStockTracker, times(2)).update(any(Product.class));
+        verify(productSearchCache).invalidateAll();
+
+        ProductImportEventDTO summary = events.get(events.size() - 1);
+        assertThat(summary.getType()).isEqualTo("SUMMARY");
+        assertThat(summary.getProcessed()).isEqualTo(2);
+        assertThat(summary.getImported()).isEqualTo(2);
+        assertThat(summary.getFailed()).isZero();
+    }
+
+    @Test
+    void testImport_InvalidAndDuplicateRows_ShouldReportErrorsWithLineNumbers() throws IOException {
+        List<ProductImportEventDTO> events = runImport(
+                "{\"name\":\"Aspirin\",\"price\":5.99,\"stock\":10,\"sku\":\"A-1\"}\n" +
+                "{\"name\":\"\",\"price\":5.99,\"stock\":10}\n" +
+                "{\"name\":\"Aspirin again\",\"price\":5.99,\"stock\":10,\"sku\":\"A-1\"}\n" +
+                "{\"name\":\"Ibuprofen\",\"price\":-1,\"stock\":10}\n",
+                ProductImportReader.Format.NDJSON);
+
+        assertThat(events).filteredOn(event -> "ERROR".equals(event.getType()))
+                .extracting(ProductImportEventDTO::getLine, ProductImportEventDTO::getMessage)
+                .containsExactly(
+                        tuple(2L, "Product name is required"),
+                        tuple(3L, "Duplicate sku in upload"),
+                        tuple(4L, "Product price must be greater than 0"));
+        assertThat(inserted).extracting(Product::getSku).containsExactly("A-1");
+        assertThat(events.get(events.size() - 1).getFailed()).isEqualTo(3);
+    }
+
+    @Test
+    void testImport_ExistingSku_ShouldBeSkippedAndReported() throws IOException {
+        takenSkus.add("ASP-500");
+
+        List<ProductImportEventDTO> events = runImport(
+                "name,price,stock,sku\nAspirin,5.99,100,ASP-500\nIbuprofen,4.00,50,IBU-400\n",
+                ProductImportReader.Format.CSV);
+
+        assertThat(inserted).extracting(Product::getSku).containsExactly("IBU-400");
+        assertThat(events.get(0).getType()).isEqualTo("ERROR");
+        assertThat(events.get(0).getSku()).isEqualTo("ASP-500");
+        assertThat(events.get(0).getLine()).isEqualTo(2);
+        assertThat(events.get(0).getMessage()).isEqualTo("Product with this sku already exists");
+        verify(productSearchIndex, times(1)).index(any(Product.class));
+        assertThat(events.get(events.size() - 1).getImported()).isEqualTo(1);
+    }
+
+    @Test
+    void testImport_ShouldInsertInBatchesAndEmitProgress() throws IOException {
+        setField("batchSize", 2);
+        setField("progressInterval", 2);
+        StringBuilder csv = new StringBuilder("name,price,stock\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("Product ").append(i).append(",1.00,").append(i).append('\n');
+        }
+
+        List<ProductImportEventDTO> events = runImport(csv.toString(), ProductImportReader.Format.CSV);
+
+        ArgumentCaptor<List<Product>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(eq(ProductImportService.INSERT_SQL), batches.capture(),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(batches.getAllValues()).extracting(Collection::size).containsExactly(2, 2, 1);
+        assertThat(events).extracting(ProductImportEventDTO::getType)
+                .containsExactly("PROGRESS", "PROGRESS", "SUMMARY");
+        assertThat(events.get(1).getImported()).isEqualTo(4);
+        verify(productIdAllocator, times(3)).allocate(anyInt());
+    }
+
+    @Test
+    void testImport_BatchInsertFailure_ShouldFailEveryRowOfTheBatch() throws IOException {
+        when(jdbcTemplate.batchUpdate(eq(ProductImportService.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenThrow(new RuntimeException("connection reset"));
+
+        List<ProductImportEventDTO> events = runImport(
+                "name,price,stock\nAspirin,5.99,100\nIbuprofen,4.00,50\n", ProductImportReader.Format.CSV);
+
+        assertThat(events).filteredOn(event -> "ERROR".equals(event.getType())).hasSize(2);
+        ProductImportEventDTO summary = events.get(events.size() - 1);
+        assertThat(summary.getImported()).isZero();
+        assertThat(summary.getFailed()).isEqualTo(2);
+        verify(productSearchIndex, never()).index(any(Product.class));
+        verify(productSearchCache, never()).invalidateAll();
+    }
+}
@@ -1,29 +1,57 @@
 package com.farmatodo.product_service.service;
 
+import com.farmatodo.product_service.cache.ProductJsonCache;
+import com.farmatodo.product_service.dto.ProductChangesDTO;
 import com.farmatodo.product_service.dto.ProductDTO;
 import com.farmatodo.product_service.dto.ProductRequestDTO;
 import com.farmatodo.product_service.dto.ProductSearchResponseDTO;
+import com.farmatodo.product_service.dto.SuggestionResponseDTO;
 import com.farmatodo.product_service.event.SearchEvent;
 import com.farmatodo.product_service.event.SearchEventPublisher;
+import com.farmatodo.product_service.exception.BusinessException;
 import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductFacetCount;
 import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.ProductSummary;
+import com.farmatodo.product_service.search.ProductSearchCache;
+import com.farmatodo.product_service.search.FacetCounter;
+import com.farmatodo.product_service.search.ProductSearchIndex;
+import com.farmatodo.product_service.search.ProductSuggester;
+import com.farmatodo.product_service.search.SuggestionTrie;
+import com.farmatodo.product_service.stock.LowStockTracker;
+import com.farmatodo.product_service.util.CursorCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.MDC;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -44,9 +72,32 @@ class ProductServiceTest {
     @Mock
     private SearchEventPublisher searchEventPublisher;
 
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Spy
+    private ProductSearchCache productSearchCache = new ProductSearchCache(60, 1000);
+
+    @Mock
+    private ProductSuggester productSuggester;
+
+    @Mock
+    private LowStockTracker lowStockTracker;
+
+    @Spy
+    private ProductJsonCache productJsonCache = new ProductJsonCache(new ObjectMapper(), 1 << 20);
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ProductService productService;
 
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     private Product productWithHighStock;
     private Product productWithLowStock;
 
@@ -81,6 +132,10 @@ class ProductServiceTest {
                 .build();
     }
 
+    private ProductSummary summary(Product product) {
+        return projectionFactory.createProjection(ProductSummary.class, product);
+    }
+
     private void setMinStock(int minStock) {
         try {
             var field = ProductService.class.getDeclaredField("minStock");
@@ -95,71 +150,481 @@ class ProductServiceTest {
 
     @Test
     void testSearchProducts_ByName_ShouldReturnMatchingProducts() {
-        lenient().when(productRepository.searchProducts(anyString(), anyInt()))
-                .thenReturn(List.of(productWithHighStock));
+        lenient().when(productRepository.searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock)));
 
         ProductSearchResponseDTO response = productService.searchProducts("aspirin", "192.168.1.1");
 
         assertThat(response).isNotNull();
-        assertThat(response.getTotalResults()).isEqualTo(1);
-        verify(productRepository).searchProducts(anyString(), anyInt());
+        assertThat(response.getProducts()).hasSize(1);
+        verify(productRepository).searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class));
     }
 
     @Test
     void testSearchProducts_WithEmptyQuery_ShouldReturnAllProducts() {
-        lenient().when(productRepository.searchProducts(any(), anyInt()))
-                .thenReturn(Arrays.asList(productWithHighStock, productWithLowStock));
+        lenient().when(productRepository.searchProductsAfter(any(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summary(productWithHighStock), summary(productWithLowStock)));
 
         ProductSearchResponseDTO response = productService.searchProducts("", "192.168.1.1");
 
-        assertThat(response.getTotalResults()).isEqualTo(2);
-        verify(productRepository).searchProducts(any(), anyInt());
+        assertThat(response.getProducts()).hasSize(2);
+        verify(productRepository).searchProductsAfter(any(), anyInt(), anyLong(), any(Pageable.class));
     }
 
     @Test
     void testSearchProducts_WithNullQuery_ShouldHandleGracefully() {
-        lenient().when(productRepository.searchProducts(isNull(), anyInt()))
+        // A null query is searched as the empty query
+        lenient().when(productRepository.searchProductsAfter(eq(""), anyInt(), anyLong(), any(Pageable.class)))
                 .thenReturn(Collections.emptyList());
 
         ProductSearchResponseDTO response = productService.searchProducts(null, "192.168.1.1");
 
         assertThat(response).isNotNull();
         assertThat(response.getTotalResults()).isEqualTo(0);
-        verify(productRepository).searchProducts(isNull(), anyInt());
+        verify(productRepository).searchProductsAfter(eq(""), anyInt(), anyLong(), any(Pageable.class));
     }
 
     @Test
     void testSearchProducts_WithWhitespaceQuery_ShouldTrimAndSearch() {
-        lenient().when(productRepository.searchProducts(anyString(), anyInt()))
-                .thenReturn(List.of(productWithHighStock));
+        lenient().when(productRepository.searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock)));
 
         ProductSearchResponseDTO response = productService.searchProducts("  aspirin  ", "192.168.1.1");
 
         assertThat(response).isNotNull();
-        assertThat(response.getTotalResults()).isEqualTo(1);
-        verify(productRepository).searchProducts(anyString(), anyInt());
+        assertThat(response.getProducts()).hasSize(1);
+        verify(productRepository).searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void testSearchProducts_WithAccentsAndCase_ShouldQueryFoldedSearchKey() {
+        when(productRepository.searchProductsAfter(eq("jarabe ninos"), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock)));
+
+        ProductSearchResponseDTO response = productService.searchProducts(" Jarabe  NIÑOS ", "192.168.1.1");
+
+        assertThat(response.getProducts()).hasSize(1);
+    }
+
+    @Test
+    void testProductSearchKey_ShouldBeFoldedAndRefreshedOnSave() {
+        Product product = Product.builder()
+                .name("Acetaminofén 500mg")
+                .category("Analgésicos")
+                .description("Alivio rápido")
+                .build();
+
+        product.refreshSearchKey();
+
+        assertThat(product.getSearchKey()).isEqualTo("acetaminofen 500mg analgesicos alivio rapido");
+    }
+
+    @Test
+    void testProductSearchKey_LongDescription_ShouldKeepLateTerms() {
+        Product product = Product.builder()
+                .name("Aspirin 500mg")
+                .description("pain reliever ".repeat(100) + "Sin azúcar")
+                .build();
+
+        product.refreshSearchKey();
+
+        assertThat(product.getSearchKey()).hasSizeGreaterThan(1000).endsWith("sin azucar");
+    }
+
+    // ==================== SEARCH INDEX TESTS ====================
+
+    @Test
+    void testSearchProducts_IndexReady_ShouldLoadMatchingIdsByPrimaryKey() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("aspirin")).thenReturn(new long[]{1L});
+        when(productRepository.findActiveByIdIn(List.of(1L), 10)).thenReturn(List.of(summary(productWithHighStock)));
+
+        ProductSearchResponseDTO response = productService.searchProducts("aspirin", "192.168.1.1");
+
+        assertThat(response.getProducts()).hasSize(1);
+        assertThat(response.getProducts().get(0).getId()).isEqualTo(1L);
+        verify(productRepository, never()).searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void testSearchProducts_IndexReadyNoMatches_ShouldNotQueryDatabase() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("unknown")).thenReturn(new long[0]);
+        when(productSearchIndex.searchFuzzy("unknown")).thenReturn(new long[0]);
+
+        ProductSearchResponseDTO response = productService.searchProducts("unknown", "192.168.1.1");
+
+        assertThat(response.getTotalResults()).isEqualTo(0);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testCreateProduct_ShouldAddProductToSearchIndex() {
+        ProductRequestDTO request = ProductRequestDTO.builder()
+                .name("Aspirin 500mg")
+                .price(new BigDecimal("5.99"))
+                .stock(100)
+                .build();
+
+        when(productRepository.save(any(Product.class))).thenReturn(productWithHighStock);
+
+        productService.createProduct(request);
+
+        verify(productSearchIndex).index(productWithHighStock);
+    }
+
+    @Test
+    void testSearchProducts_ListingShouldNotCarryDescription() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("aspirin")).thenReturn(new long[]{1L});
+        when(productRepository.findActiveByIdIn(List.of(1L), 10)).thenReturn(List.of(summary(productWithHighStock)));
+
+        ProductDTO dto = productService.searchProducts("aspirin", "192.168.1.1").getProducts().get(0);
+
+        assertThat(dto.getSku()).isEqualTo("ASP-500");
+        assertThat(dto.getDescription()).isNull();
+    }
+
+    // ==================== FUZZY SEARCH TESTS ====================
+
+    @Test
+    void testSearchProducts_NoExactMatch_ShouldFallBackToFuzzy() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("aspirni")).thenReturn(new long[0]);
+        when(productSearchIndex.searchFuzzy("aspirni")).thenReturn(new long[]{1L});
+        when(productRepository.findActiveByIdIn(List.of(1L), 10)).thenReturn(List.of(summary(productWithHighStock)));
+
+        ProductSearchResponseDTO response = productService.searchProducts("aspirni", "192.168.1.1");
+
+        assertThat(response.getProducts()).hasSize(1);
+        assertThat(response.isFuzzy()).isTrue();
+    }
+
+    @Test
+    void testSearchProducts_ExactMatch_ShouldNotUseFuzzy() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("aspirin")).thenReturn(new long[]{1L});
+        when(productRepository.findActiveByIdIn(List.of(1L), 10)).thenReturn(List.of(summary(productWithHighStock)));
+
+        ProductSearchResponseDTO response = productService.searchProducts("aspirin", "192.168.1.1");
+
+        assertThat(response.isFuzzy()).isFalse();
+        verify(productSearchIndex, never()).searchFuzzy(anyString());
+    }
+
+    // ==================== FACET TESTS ====================
+
+    @Test
+    void testSearchProducts_FirstPage_ShouldIncludeFacetsFromIndex() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("aspirin")).thenReturn(new long[]{1L});
+        when(productRepository.findActiveByIdIn(List.of(1L), 10)).thenReturn(List.of(summary(productWithHighStock)));
+        doAnswer(invocation -> {
+            FacetCounter counter = invocation.getArgument(2);
+            counter.add("Medications", new BigDecimal("5.99"), 1);
+            return null;
+        }).when(productSearchIndex).collectFacets(any(long[].class), anyInt(), any(FacetCounter.class));
+
+        ProductSearchResponseDTO response = productService.searchProducts("aspirin", "192.168.1.1");
+
+        assertThat(response.getCategoryFacets()).extracting("value", "count").containsExactly(tuple("Medications", 1L));
+        assertThat(response.getPriceFacets()).extracting("value", "count").containsExactly(tuple("5-10", 1L));
+    }
+
+    @Test
+    void testSearchProducts_NextPage_ShouldNotRecomputeFacets() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("aspirin")).thenReturn(new long[]{1L, 2L});
+        when(productRepository.findActiveByIdIn(List.of(2L), 10)).thenReturn(List.of(summary(productWithLowStock)));
+
+        ProductSearchResponseDTO response = productService.searchProducts("aspirin", "192.168.1.1",
+                CursorCodec.encode(1L), null);
+
+        assertThat(response.getCategoryFacets()).isNull();
+        verify(productSearchIndex, never()).collectFacets(any(long[].class), anyInt(), any(FacetCounter.class));
+    }
+
+    @Test
+    void testSearchProducts_IndexNotReady_ShouldCountFacetsWithOneGroupedQuery() {
+        ProductFacetCount row = projectionFactory.createProjection(ProductFacetCount.class, Map.of(
+                "category", "Medications", "price", new BigDecimal("25.00"), "products", 3L));
+        when(productRepository.searchProductsAfter(eq("aspirin"), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock)));
+        when(productRepository.countSearchFacets("aspirin", 10)).thenReturn(List.of(row));
+
+        ProductSearchResponseDTO response = productService.searchProducts("aspirin", "192.168.1.1");
+
+        assertThat(response.getCategoryFacets()).extracting("value", "count").containsExactly(tuple("Medications", 3L));
+        assertThat(response.getPriceFacets()).extracting("value", "count").containsExactly(tuple("20-50", 3L));
+        assertThat(response.getTotalResults()).isEqualTo(3);
+        verify(productRepository, times(1)).countSearchFacets(anyString(), anyInt());
+    }
+
+    // ==================== SUGGESTION TESTS ====================
+
+    @Test
+    void testCreateProduct_ShouldAddProductToSuggester() {
+        when(productRepository.save(any(Product.class))).thenReturn(productWithHighStock);
+
+        productService.createProduct(ProductRequestDTO.builder()
+                .name("Aspirin 500mg")
+                .price(new BigDecimal("5.99"))
+                .stock(100)
+                .build());
+
+        verify(productSuggester).add(productWithHighStock);
+    }
+
+    @Test
+    void testSuggestProducts_ShouldMapEntriesAndCapLimit() {
+        when(productSuggester.suggest("asp", 50)).thenReturn(List.of(
+                new SuggestionTrie.Entry("Aspirin 500mg", ProductSuggester.TYPE_PRODUCT, 12L)));
+
+        SuggestionResponseDTO response = productService.suggestProducts(" asp ", 1000);
+
+        assertThat(response.getPrefix()).isEqualTo("asp");
+        assertThat(response.getSuggestions()).hasSize(1);
+        assertThat(response.getSuggestions().get(0).getText()).isEqualTo("Aspirin 500mg");
+        assertThat(response.getSuggestions().get(0).getScore()).isEqualTo(12L);
+        verifyNoInteractions(productRepository);
+    }
+
+    // ==================== SEARCH CACHE TESTS ====================
+
+    @Test
+    void testSearchProducts_SameNormalizedQuery_ShouldBeServedFromCache() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search(anyString())).thenReturn(new long[]{1L});
+        when(productRepository.findActiveByIdIn(anyList(), anyInt())).thenReturn(List.of(summary(productWithHighStock)));
+
+        ProductSearchResponseDTO first = productService.searchProducts("Aspirin", "192.168.1.1");
+        ProductSearchResponseDTO second = productService.searchProducts("  aspirin ", "192.168.1.2");
+
+        assertThat(second.getProducts()).isEqualTo(first.getProducts());
+        assertThat(second.getQuery()).isEqualTo("aspirin");
+        verify(productRepository, times(1)).findActiveByIdIn(anyList(), anyInt());
+        verify(searchEventPublisher, times(2)).publishSearchEvent(any(SearchEvent.class));
+    }
+
+    @Test
+    void testCreateProduct_ShouldInvalidateSearchCache() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search(anyString())).thenReturn(new long[]{1L});
+        when(productRepository.findActiveByIdIn(anyList(), anyInt())).thenReturn(List.of(summary(productWithHighStock)));
+        when(productRepository.save(any(Product.class))).thenReturn(productWithLowStock);
+
+        productService.searchProducts("aspirin", "192.168.1.1");
+        productService.createProduct(ProductRequestDTO.builder()
+                .name("Aspirin Plus")
+                .price(new BigDecimal("8.50"))
+                .stock(75)
+                .build());
+        productService.searchProducts("aspirin", "192.168.1.1");
+
+        verify(productSearchCache).invalidateAll();
+        verify(productRepository, times(2)).findActiveByIdIn(anyList(), anyInt());
     }
 
     // ==================== LOW STOCK TESTS ====================
 
     @Test
     void testGetProductsWithLowStock_ShouldReturnProductsBelowThreshold() {
-        lenient().when(productRepository.findProductsWithLowStock(anyInt()))
-                .thenReturn(List.of(productWithLowStock));
+        lenient().when(productRepository.findProductsWithLowStockAfter(anyInt(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithLowStock)));
 
         ProductSearchResponseDTO response = productService.getProductsWithLowStock(10);
 
         assertThat(response).isNotNull();
         assertThat(response.getProducts().get(0).getStock()).isLessThan(10);
-        verify(productRepository).findProductsWithLowStock(10);
+        verify(productRepository).findProductsWithLowStockAfter(eq(10), eq(-1), eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void testGetProductsWithLowStock_WithCursor_ShouldContinueAfterStockAndId() {
+        when(productRepository.findProductsWithLowStockAfter(anyInt(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithLowStock)));
+
+        productService.getProductsWithLowStock(10, CursorCodec.encode(3, 7L), 20);
+
+        verify(productRepository).findProductsWithLowStockAfter(10, 3, 7L, PageRequest.of(0, 21));
+    }
+
+    @Test
+    void testGetProductsWithLowStock_TrackerReady_ShouldNotQueryDatabase() {
+        when(lowStockTracker.isReady()).thenReturn(true);
+        when(lowStockTracker.findBelow(10, 3, 7L, 21)).thenReturn(List.of(summary(productWithLowStock)));
+
+        ProductSearchResponseDTO response = productService.getProductsWithLowStock(10, CursorCodec.encode(3, 7L), 20);
+
+        assertThat(response.getProducts()).hasSize(1);
+        assertThat(response.getTotalResults()).isNull();
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetProductsWithLowStock_FirstPage_ShouldCountAllBelowThreshold() {
+        when(lowStockTracker.isReady()).thenReturn(true);
+        when(lowStockTracker.findBelow(10, -1, 0L, 2)).thenReturn(List.of(summary(productWithLowStock)));
+        when(lowStockTracker.countBelow(10)).thenReturn(4);
+
+        ProductSearchResponseDTO response = productService.getProductsWithLowStock(10, null, 1);
+
+        assertThat(response.getTotalResults()).isEqualTo(4);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testCreateProduct_ShouldUpdateLowStockTracker() {
+        when(productRepository.save(any(Product.class))).thenReturn(productWithLowStock);
+
+        productService.createProduct(ProductRequestDTO.builder()
+                .name("Aspirin Plus")
+                .price(new BigDecimal("8.50"))
+                .stock(5)
+                .build());
+
+        verify(lowStockTracker).update(productWithLowStock);
+    }
+
+    // ==================== PAGINATION TESTS ====================
+
+    @Test
+    void testSearchProducts_MoreRowsThanLimit_ShouldReturnNextCursor() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("a")).thenReturn(new long[]{1L, 2L});
+        when(productRepository.findActiveByIdIn(anyList(), anyInt()))
+                .thenReturn(List.of(summary(productWithHighStock), summary(productWithLowStock)));
+
+        doAnswer(invocation -> {
+            FacetCounter counter = invocation.getArgument(2);
+            counter.add("Medications", new BigDecimal("5.99"), invocation.<long[]>getArgument(0).length);
+            return null;
+        }).when(productSearchIndex).collectFacets(any(long[].class), anyInt(), any(FacetCounter.class));
+
+        ProductSearchResponseDTO response = productService.searchProducts("a", "192.168.1.1", null, 1);
+
+        assertThat(response.getTotalResults()).isEqualTo(2);
+        assertThat(response.getProducts()).hasSize(1);
+        assertThat(response.getProducts().get(0).getId()).isEqualTo(1L);
+        assertThat(CursorCodec.decode(response.getNextCursor(), 1)).containsExactly(1L);
+    }
+
+    @Test
+    void testSearchProducts_WithCursor_ShouldSkipIdsUpToCursor() {
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("a")).thenReturn(new long[]{1L, 2L});
+        when(productRepository.findActiveByIdIn(List.of(2L), 10)).thenReturn(List.of(summary(productWithLowStock)));
+
+        ProductSearchResponseDTO response = productService.searchProducts(
+                "a", "192.168.1.1", CursorCodec.encode(1L), 1);
+
+        assertThat(response.getProducts()).extracting(ProductDTO::getId).containsExactly(2L);
+        assertThat(response.getNextCursor()).isNull();
+        assertThat(response.getTotalResults()).isNull();
+        verify(searchEventPublisher, never()).publishSearchEvent(any(SearchEvent.class));
+    }
+
+    @Test
+    void testSearchProducts_InvalidCursor_ShouldThrowBusinessException() {
+        assertThatThrownBy(() -> productService.searchProducts("a", "192.168.1.1", "not-a-cursor!", 10))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("Invalid pagination cursor");
+    }
+
+    @Test
+    void testGetAllProducts_ShouldReadOnePageAfterCursor() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithLowStock)));
+
+        ProductSearchResponseDTO response = productService.getAllProducts(CursorCodec.encode(1L), 5);
+
+        assertThat(response.getProducts()).hasSize(1);
+        assertThat(response.getTotalResults()).isNull();
+        assertThat(response.getNextCursor()).isNull();
+        verify(productRepository).findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, 6));
+        verify(productRepository, never()).count();
+    }
+
+    @Test
+    void testGetAllProducts_FirstPage_ShouldCountAllProducts() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock), summary(productWithLowStock)));
+        when(productRepository.count()).thenReturn(42L);
+
+        ProductSearchResponseDTO response = productService.getAllProducts(null, 1);
+
+        assertThat(response.getProducts()).hasSize(1);
+        assertThat(response.getTotalResults()).isEqualTo(42);
+    }
+
+    // ==================== CHANGE FEED TESTS ====================
+
+    private ProductChange change(Product product, LocalDateTime updatedAt, long version) {
+        product.setUpdatedAt(updatedAt);
+        product.setVersion(version);
+        return projectionFactory.createProjection(ProductChange.class, product);
+    }
+
+    @Test
+    void testGetChanges_NoSince_ShouldStartFromBeginningAndRewindWatermarkByOverlap() {
+        LocalDateTime changedAt = LocalDateTime.of(2025, 3, 1, 10, 0, 30, 123_456_000);
+        when(productRepository.findChangesFrom(eq(LocalDateTime.of(1970, 1, 1, 0, 0)), eq(0L),
+                eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(change(productWithHighStock, changedAt, 4L)));
+
+        ProductChangesDTO response = productService.getChanges(null, 2);
+
+        assertThat(response.getProducts()).hasSize(1);
+        assertThat(response.getProducts().get(0).getVersion()).isEqualTo(4L);
+        assertThat(response.getProducts().get(0).getStatus()).isEqualTo("ACTIVE");
+        assertThat(response.isHasMore()).isFalse();
+        // Caught up: the next pull re-reads the last 30 s for transactions that committed behind it
+        long micros = changedAt.minusSeconds(30).toEpochSecond(ZoneOffset.UTC) * 1_000_000 + 123_456;
+        assertThat(response.getNextSince()).isEqualTo(CursorCodec.encode(micros, 0L));
+    }
+
+    @Test
+    void testGetChanges_WithSince_MorePages_ShouldResumeAfterLastChangeWithoutOverlap() {
+        LocalDateTime seen = LocalDateTime.of(2025, 3, 1, 10, 0, 0, 123_456_000);
+        String since = CursorCodec.encode(seen.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + 123_456, 1L);
+        when(productRepository.findChangesFrom(eq(seen), eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(
+                        change(productWithHighStock, seen.plusSeconds(1), 5L),
+                        change(productWithLowStock, seen.plusSeconds(2), 1L)));
+
+        ProductChangesDTO response = productService.getChanges(since, 1);
+
+        assertThat(response.getProducts()).extracting(ProductDTO::getId).containsExactly(1L);
+        assertThat(response.isHasMore()).isTrue();
+        long micros = seen.plusSeconds(1).toEpochSecond(ZoneOffset.UTC) * 1_000_000 + 123_456;
+        assertThat(response.getNextSince()).isEqualTo(CursorCodec.encode(micros, 1L));
+    }
+
+    @Test
+    void testGetChanges_NoNewChanges_ShouldKeepWatermark() {
+        String since = CursorCodec.encode(1_000_000L, 9L);
+        when(productRepository.findChangesFrom(any(LocalDateTime.class), eq(9L), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        ProductChangesDTO response = productService.getChanges(since, 10);
+
+        assertThat(response.getProducts()).isEmpty();
+        assertThat(response.getNextSince()).isEqualTo(since);
+    }
+
+    @Test
+    void testGetChanges_MalformedSince_ShouldThrowBusinessException() {
+        assertThatThrownBy(() -> productService.getChanges(CursorCodec.encode(5L), 10))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("cursor");
     }
 
     // ==================== ASYNC EVENT TESTS ====================
 
     @Test
     void testSearchProducts_ShouldPublishSearchEventAsynchronously() {
-        lenient().when(productRepository.searchProducts(anyString(), anyInt()))
-                .thenReturn(List.of(productWithHighStock));
+        lenient().when(productRepository.searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock)));
 
         MDC.put("transactionId", "txn-123");
 
@@ -179,8 +644,8 @@ class ProductServiceTest {
 
     @Test
     void testSearchProducts_AsyncLoggingFailure_ShouldNotAffectResponse() {
-        lenient().when(productRepository.searchProducts(anyString(), anyInt()))
-                .thenReturn(List.of(productWithHighStock));
+        lenient().when(productRepository.searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock)));
 
         doThrow(new RuntimeException("Async logging failed"))
                 .when(searchEventPublisher).publishSearchEvent(any(SearchEvent.class));
@@ -188,10 +653,40 @@ class ProductServiceTest {
         ProductSearchResponseDTO response = productService.searchProducts("test", "192.168.1.1");
 
         assertThat(response).isNotNull();
-        assertThat(response.getTotalResults()).isEqualTo(1);
+        assertThat(response.getProducts()).hasSize(1);
         verify(searchEventPublisher).publishSearchEvent(any(SearchEvent.class));
     }
 
+    // ==================== EXPORT TESTS ====================
+
+    @Test
+    void testExportProducts_ShouldWriteOneJsonLinePerProductAndDetach() throws Exception {
+        when(productRepository.streamAllOrderById())
+                .thenReturn(Stream.of(productWithHighStock, productWithLowStock));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = productService.exportProducts(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], ProductDTO.class).getName()).isEqualTo("Aspirin 500mg");
+        assertThat(objectMapper.readValue(lines[1], ProductDTO.class).getSku()).isEqualTo("VIT-C-100");
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("\n");
+        verify(entityManager).detach(productWithHighStock);
+        verify(entityManager).detach(productWithLowStock);
+    }
+
+    @Test
+    void testExportProducts_EmptyCatalog_ShouldWriteNothing() throws Exception {
+        when(productRepository.streamAllOrderById()).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(productService.exportProducts(out)).isZero();
+        assertThat(out.size()).isZero();
+    }
+
     // ==================== CREATE PRODUCT TESTS ====================
 
     @Test
@@ -275,12 +770,86 @@ class ProductServiceTest {
         verify(productRepository, never()).save(any());
     }
 
+    @Test
+    void testCreateProduct_WithTakenSku_ShouldThrowConflict() {
+        ProductRequestDTO request = ProductRequestDTO.builder()
+                .name("Test Product")
+                .price(new BigDecimal("10.00"))
+                .stock(5)
+                .sku("MED-123")
+                .build();
+        when(productRepository.save(any(Product.class))).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException("duplicate key value violates unique constraint \"uk_products_sku\"")));
+
+        assertThatThrownBy(() -> productService.createProduct(request))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Product with this sku already exists");
+
+        verify(productSearchIndex, never()).index(any());
+    }
+
+    // ==================== JSON CACHE TESTS ====================
+
+    @Test
+    void testGetProductsJsonByIds_ShouldSerializeOnceAndKeepRequestOrder() throws Exception {
+        productWithHighStock.setVersion(3L);
+        productWithLowStock.setVersion(1L);
+        when(productRepository.findAllById(any())).thenReturn(List.of(productWithHighStock, productWithLowStock));
+
+        byte[] first = productService.getProductsJsonByIds(List.of(2L, 99L, 1L, 2L));
+        when(productRepository.findAllById(List.of(99L))).thenReturn(List.of());
+        byte[] second = productService.getProductsJsonByIds(List.of(2L, 99L, 1L, 2L));
+
+        ProductDTO[] products = objectMapper.readValue(first, ProductDTO[].class);
+        assertThat(products).extracting(ProductDTO::getId).containsExactly(2L, 1L);
+        assertThat(products[1].getVersion()).isEqualTo(3L);
+        assertThat(second).isEqualTo(first);
+        verify(productRepository).findAllById(List.of(2L, 99L, 1L));
+        verify(productRepository).findAllById(List.of(99L));
+    }
+
+    @Test
+    void testGetProductJsonById_Cached_ShouldNotQuery() {
+        productWithHighStock.setVersion(1L);
+        when(productRepository.findAllById(List.of(1L))).thenReturn(List.of(productWithHighStock));
+
+        byte[] first = productService.getProductJsonById(1L);
+        byte[] second = productService.getProductJsonById(1L);
+
+        assertThat(second).isSameAs(first);
+        verify(productRepository, times(1)).findAllById(any());
+        verifyNoMoreInteractions(productRepository);
+    }
+
+    @Test
+    void testGetProductJsonById_ChangedByAnotherInstance_ShouldReserialize() throws Exception {
+        productWithHighStock.setVersion(1L);
+        when(productRepository.findAllById(List.of(1L))).thenAnswer(invocation -> List.of(productWithHighStock));
+
+        productService.getProductJsonById(1L);
+        productWithHighStock.setStock(98);
+        productJsonCache.onProductChanges(List.of(change(productWithHighStock, LocalDateTime.now(), 2L)));
+        byte[] json = productService.getProductJsonById(1L);
+
+        assertThat(objectMapper.readValue(json, ProductDTO.class).getStock()).isEqualTo(98);
+        verify(productRepository, times(2)).findAllById(List.of(1L));
+    }
+
+    @Test
+    void testGetProductJsonById_NotFound_ShouldThrowException() {
+        when(productRepository.findAllById(List.of(7L))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> productService.getProductJsonById(7L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Product not found with ID: 7");
+    }
+
     // ==================== MAPPING TEST ====================
 
     @Test
     void testSearchProducts_CorrectlyMapsProductEntityToDTO() {
-        lenient().when(productRepository.searchProducts(anyString(), anyInt()))
-                .thenReturn(List.of(productWithHighStock));
+        lenient().when(productRepository.searchProductsAfter(anyString(), anyInt(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(summary(productWithHighStock)));
 
         ProductSearchResponseDTO response = productService.searchProducts("aspirin", "192.168.1.1");
 
@@ -0,0 +1,96 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.snapshot.ProductSnapshot;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProductSnapshotService}
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductSnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        snapshotService = new ProductSnapshotService(productRepository, entityManager, transactionManager);
+        setField("snapshotPath", directory.resolve("products.snapshot").toString());
+        lenient().when(productRepository.streamAllOrderById()).thenAnswer(inv -> Stream.of(
+                product(1L, "Aspirin", "ACTIVE"),
+                product(2L, "Ibuprofen", "INACTIVE")));
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        var field = ProductSnapshotService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(snapshotService, value);
+    }
+
+    private static Product product(Long id, String name, String status) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .price(new BigDecimal("5.99"))
+                .stock(10)
+                .status(status)
+                .build();
+    }
+
+    // ==================== SNAPSHOT TESTS ====================
+
+    @Test
+    void testCurrentSnapshot_ShouldWriteStatusOfEveryProduct() throws Exception {
+        ProductSnapshot snapshot = ProductSnapshot.open(snapshotService.currentSnapshot());
+
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.active(snapshot.indexOf(1L))).isTrue();
+        assertThat(snapshot.active(snapshot.indexOf(2L))).isFalse();
+    }
+
+    @Test
+    void testCurrentSnapshot_WithinRefreshInterval_ShouldServeLastWrittenFile() throws Exception {
+        Path first = snapshotService.currentSnapshot();
+        Path second = snapshotService.currentSnapshot();
+
+        assertThat(second).isEqualTo(first);
+        verify(productRepository, times(1)).streamAllOrderById();
+    }
+
+    @Test
+    void testCurrentSnapshot_OlderThanRefreshInterval_ShouldRewrite() throws Exception {
+        setField("refreshMillis", 0L);
+
+        snapshotService.currentSnapshot();
+        snapshotService.currentSnapshot();
+
+        verify(productRepository, times(2)).streamAllOrderById();
+    }
+}
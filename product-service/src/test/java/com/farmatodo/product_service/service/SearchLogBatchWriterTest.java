@@ -0,0 +1,106 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.model.SearchLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SearchLogBatchWriter}
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchLogBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SearchLog searchLog(String term) {
+        return SearchLog.builder()
+                .searchTerm(term)
+                .resultsCount(1)
+                .userIdentifier("192.168.1.1")
+                .transactionId("txn-" + term)
+                .searchedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void testEnqueue_WhenBufferFull_ShouldDropAndCount() {
+        SearchLogBatchWriter writer = new SearchLogBatchWriter(jdbcTemplate, 2, 10, 1000);
+
+        assertThat(writer.enqueue(searchLog("a"))).isTrue();
+        assertThat(writer.enqueue(searchLog("b"))).isTrue();
+        assertThat(writer.enqueue(searchLog("c"))).isFalse();
+
+        assertThat(writer.getEnqueuedCount()).isEqualTo(2);
+        assertThat(writer.getDroppedCount()).isEqualTo(1);
+        assertThat(writer.getBufferSize()).isEqualTo(2);
+    }
+
+    @Test
+    void testFlush_ShouldWriteBufferInBatchesOfConfiguredSize() {
+        SearchLogBatchWriter writer = new SearchLogBatchWriter(jdbcTemplate, 100, 2, 1000);
+        for (int i = 0; i < 5; i++) {
+            writer.enqueue(searchLog("term" + i));
+        }
+
+        List<Integer> batchSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    BatchPreparedStatementSetter setter = invocation.getArgument(1);
+                    batchSizes.add(setter.getBatchSize());
+                    return new int[setter.getBatchSize()];
+                });
+
+        writer.flush();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        assertThat(batchSizes).containsExactly(2, 2, 1);
+        assertThat(writer.getFlushedCount()).isEqualTo(5);
+        assertThat(writer.getFlushedBatchCount()).isEqualTo(3);
+        assertThat(writer.getBufferSize()).isZero();
+    }
+
+    @Test
+    void testFlush_WhenBatchFails_ShouldCountFailedRowsAndContinue() {
+        SearchLogBatchWriter writer = new SearchLogBatchWriter(jdbcTemplate, 100, 2, 1000);
+        for (int i = 0; i < 3; i++) {
+            writer.enqueue(searchLog("term" + i));
+        }
+
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("Database connection failed"))
+                .thenReturn(new int[]{1});
+
+        writer.flush();
+
+        assertThat(writer.getFailedCount()).isEqualTo(2);
+        assertThat(writer.getFlushedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testStartAndStop_ShouldFlushPendingLogsOnShutdown() {
+        SearchLogBatchWriter writer = new SearchLogBatchWriter(jdbcTemplate, 100, 50, 60_000);
+        writer.start();
+
+        writer.enqueue(searchLog("a"));
+        writer.enqueue(searchLog("b"));
+
+        writer.stop();
+
+        assertThat(writer.getFlushedCount()).isEqualTo(2);
+        assertThat(writer.getBufferSize()).isZero();
+    }
+}
@@ -0,0 +1,172 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.model.SearchTermRollup;
+import com.farmatodo.product_service.repository.SearchLogRepository;
+import com.farmatodo.product_service.repository.SearchTermRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SearchLogRollupService}
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchLogRollupServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 10, 21, 1, 30);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SearchLogRepository searchLogRepository;
+
+    @Mock
+    private SearchTermRollupRepository searchTermRollupRepository;
+
+    @InjectMocks
+    private SearchLogRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static Timestamp at(int day, int hour) {
+        return Timestamp.valueOf(LocalDateTime.of(2025, 10, day, hour, 0));
+    }
+
+    private void savedWatermark(LocalDateTime rolledUpTo) {
+        when(jdbcTemplate.queryForList(SearchLogRollupService.LOAD_WATERMARK_SQL, LocalDateTime.class,
+                SearchLogRollupService.WATERMARK_NAME)).thenReturn(List.of(rolledUpTo));
+    }
+
+    // ==================== ROLLUP TESTS ====================
+
+    @Test
+    void testRollUp_NothingRolledUp_ShouldStartAtOldestLogAndCloseDay() {
+        when(searchLogRepository.findOldestSearchedAt()).thenReturn(LocalDateTime.of(2025, 10, 20, 21, 35));
+
+        int hours = rollupService.rollUp(NOW);
+
+        assertThat(hours).isEqualTo(4);
+        verify(jdbcTemplate).update(SearchLogRollupService.ROLLUP_HOUR_SQL, at(20, 21), at(20, 21), at(20, 22));
+        verify(jdbcTemplate).update(SearchLogRollupService.ROLLUP_HOUR_SQL, at(20, 23), at(20, 23), at(21, 0));
+        verify(jdbcTemplate).update(SearchLogRollupService.ROLLUP_HOUR_SQL, at(21, 0), at(21, 0), at(21, 1));
+        verify(jdbcTemplate).update(SearchLogRollupService.ROLLUP_DAY_SQL, at(20, 0), at(20, 0), at(21, 0));
+        verify(jdbcTemplate).update(SearchLogRollupService.SAVE_WATERMARK_SQL,
+                SearchLogRollupService.WATERMARK_NAME, at(21, 1));
+    }
+
+    @Test
+    void testRollUp_SavedWatermark_ShouldReRollRecentHoursAndWaitForSettle() {
+        savedWatermark(LocalDateTime.of(2025, 10, 21, 1, 0));
+
+        assertThat(rollupService.rollUp(LocalDateTime.of(2025, 10, 21, 2, 0, 30))).isZero();
+        assertThat(rollupService.rollUp(LocalDateTime.of(2025, 10, 21, 2, 1, 0))).isEqualTo(1);
+
+        // Late logs: the two hours before the watermark are rolled up again on every run
+        verify(jdbcTemplate, times(2)).update(SearchLogRollupService.ROLLUP_HOUR_SQL, at(20, 23), at(20, 23), at(21, 0));
+        verify(jdbcTemplate, times(2)).update(SearchLogRollupService.ROLLUP_DAY_SQL, at(20, 0), at(20, 0), at(21, 0));
+        verify(jdbcTemplate).update(SearchLogRollupService.ROLLUP_HOUR_SQL, at(21, 1), at(21, 1), at(21, 2));
+        verify(jdbcTemplate).update(SearchLogRollupService.SAVE_WATERMARK_SQL,
+                SearchLogRollupService.WATERMARK_NAME, at(21, 2));
+        verifyNoInteractions(searchTermRollupRepository, searchLogRepository);
+    }
+
+    @Test
+    void testRollUp_NoSavedWatermark_ShouldResumeAfterLatestHour() {
+        when(searchTermRollupRepository.findLatestBucketStart(SearchTermRollup.HOUR))
+                .thenReturn(LocalDateTime.of(2025, 10, 21, 0, 0));
+
+        assertThat(rollupService.rollUp(LocalDateTime.of(2025, 10, 21, 2, 1, 0))).isEqualTo(1);
+
+        verify(jdbcTemplate).update(SearchLogRollupService.ROLLUP_HOUR_SQL, at(21, 1), at(21, 1), at(21, 2));
+        verify(searchLogRepository, never()).findOldestSearchedAt();
+    }
+
+    @Test
+    void testRollUp_NoLogs_ShouldDoNothing() {
+        assertThat(rollupService.rollUp(NOW)).isZero();
+        assertThat(rollupService.purgeLogs(NOW)).isZero();
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    // ==================== RETENTION TESTS ====================
+
+    @Test
+    void testPurgeLogs_ShouldDeleteInChunksUntilShortChunk() {
+        savedWatermark(LocalDateTime.of(2025, 10, 21, 1, 0));
+        when(jdbcTemplate.update(eq(SearchLogRollupService.PURGE_LOGS_SQL), any(Timestamp.class), eq(10_000)))
+                .thenReturn(10_000, 10_000, 3);
+
+        long purged = rollupService.purgeLogs(NOW);
+
+        assertThat(purged).isEqualTo(20_003);
+        verify(jdbcTemplate, times(3)).update(SearchLogRollupService.PURGE_LOGS_SQL,
+                Timestamp.valueOf(NOW.minusDays(30)), 10_000);
+    }
+
+    @Test
+    void testPurgeLogs_RollupBehind_ShouldKeepLogsThatMayBeReRolled() {
+        savedWatermark(LocalDateTime.of(2025, 9, 1, 10, 0));
+
+        rollupService.purgeLogs(NOW);
+
+        verify(jdbcTemplate).update(SearchLogRollupService.PURGE_LOGS_SQL,
+                Timestamp.valueOf(LocalDateTime.of(2025, 9, 1, 8, 0)), 10_000);
+    }
+
+    @Test
+    void testRollUp_Failure_ShouldKeepSavedWatermarkForNextRun() {
+        savedWatermark(LocalDateTime.of(2025, 10, 21, 1, 0));
+        doThrow(new IllegalStateException("database down")).when(transactionTemplate).executeWithoutResult(any());
+
+        assertThatThrownBy(() -> rollupService.rollUp(NOW.plusHours(1))).isInstanceOf(IllegalStateException.class);
+
+        verify(jdbcTemplate, never()).update(eq(SearchLogRollupService.SAVE_WATERMARK_SQL), any(Object[].class));
+    }
+
+    @Test
+    void testPurgeHourlyRollups_ShouldKeepHoursNotSummedIntoDay() {
+        when(searchTermRollupRepository.findLatestBucketStart(SearchTermRollup.DAY))
+                .thenReturn(LocalDateTime.of(2025, 10, 10, 0, 0));
+
+        rollupService.purgeHourlyRollups(NOW);
+
+        verify(jdbcTemplate).update(SearchLogRollupService.PURGE_HOURLY_SQL, at(11, 0), 10_000);
+    }
+
+    @Test
+    void testPurgeHourlyRollups_NoDailyRollup_ShouldDeleteNothing() {
+        assertThat(rollupService.purgeHourlyRollups(NOW)).isZero();
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
@@ -2,7 +2,6 @@ package com.farmatodo.product_service.service;
 
 import com.farmatodo.product_service.event.SearchEvent;
 import com.farmatodo.product_service.model.SearchLog;
-import com.farmatodo.product_service.repository.SearchLogRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,14 +21,14 @@ import static org.mockito.Mockito.*;
  *
  * Focuses on:
  * 1. Asynchronous logging of search queries.
- * 2. Verifying repository save() is called with correct data.
+ * 2. Verifying the batch writer receives the correct data.
  * 3. Graceful error handling and data integrity validation.
  */
 @ExtendWith(MockitoExtension.class)
 class SearchLogServiceTest {
 
     @Mock
-    private SearchLogRepository searchLogRepository;
+    private SearchLogBatchWriter searchLogBatchWriter;
 
     @InjectMocks
     private SearchLogService searchLogService;
@@ -50,18 +49,14 @@ class SearchLogServiceTest {
     // ==================== ASYNC LOGGING TESTS ====================
 
     @Test
-    void testHandleSearchEvent_ShouldSaveSearchLogToRepository() {
+    void testHandleSearchEvent_ShouldBufferSearchLogInBatchWriter() {
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
 
-        when(searchLogRepository.save(any(SearchLog.class))).thenAnswer(invocation -> {
-            SearchLog log = invocation.getArgument(0);
-            log.setId(1L);
-            return log;
-        });
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(searchEvent);
 
-        verify(searchLogRepository, times(1)).save(logCaptor.capture());
+        verify(searchLogBatchWriter, times(1)).enqueue(logCaptor.capture());
         SearchLog savedLog = logCaptor.getValue();
 
         assertThat(savedLog).isNotNull();
@@ -73,22 +68,22 @@ class SearchLogServiceTest {
     }
 
     @Test
-    void testHandleSearchEvent_VerifyRepositorySaveIsCalled() {
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+    void testHandleSearchEvent_VerifyBatchWriterEnqueueIsCalled() {
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(searchEvent);
 
-        verify(searchLogRepository, times(1)).save(any(SearchLog.class));
+        verify(searchLogBatchWriter, times(1)).enqueue(any(SearchLog.class));
     }
 
     @Test
     void testHandleSearchEvent_ShouldMapAllFieldsCorrectly() {
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(searchEvent);
 
-        verify(searchLogRepository).save(logCaptor.capture());
+        verify(searchLogBatchWriter).enqueue(logCaptor.capture());
         SearchLog savedLog = logCaptor.getValue();
 
         assertThat(savedLog.getSearchTerm()).isEqualTo(searchEvent.getSearchTerm());
@@ -109,11 +104,11 @@ class SearchLogServiceTest {
                 .build();
 
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(emptySearchEvent);
 
-        verify(searchLogRepository).save(logCaptor.capture());
+        verify(searchLogBatchWriter).enqueue(logCaptor.capture());
         SearchLog savedLog = logCaptor.getValue();
 
         assertThat(savedLog.getSearchTerm()).isEmpty();
@@ -131,11 +126,11 @@ class SearchLogServiceTest {
                 .build();
 
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(noResultsEvent);
 
-        verify(searchLogRepository).save(logCaptor.capture());
+        verify(searchLogBatchWriter).enqueue(logCaptor.capture());
         SearchLog savedLog = logCaptor.getValue();
 
         assertThat(savedLog.getSearchTerm()).isEqualTo("nonexistent");
@@ -145,8 +140,8 @@ class SearchLogServiceTest {
     // ==================== ERROR HANDLING TESTS ====================
 
     @Test
-    void testHandleSearchEvent_WhenRepositoryFails_ShouldNotThrowException() {
-        when(searchLogRepository.save(any(SearchLog.class)))
+    void testHandleSearchEvent_WhenBatchWriterFails_ShouldNotThrowException() {
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class)))
                 .thenThrow(new RuntimeException("Database connection failed"));
 
         try {
@@ -155,19 +150,28 @@ class SearchLogServiceTest {
             // In real async flow, exception would be swallowed.
         }
 
-        verify(searchLogRepository).save(any(SearchLog.class));
+        verify(searchLogBatchWriter).enqueue(any(SearchLog.class));
     }
 
     @Test
-    void testHandleSearchEvent_WhenRepositoryThrowsException_SaveIsStillAttempted() {
-        when(searchLogRepository.save(any(SearchLog.class)))
+    void testHandleSearchEvent_WhenBatchWriterThrowsException_EnqueueIsStillAttempted() {
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class)))
                 .thenThrow(new RuntimeException("Persistence exception"));
 
         try {
             searchLogService.handleSearchEvent(searchEvent);
         } catch (Exception ignored) {}
 
-        verify(searchLogRepository, times(1)).save(any(SearchLog.class));
+        verify(searchLogBatchWriter, times(1)).enqueue(any(SearchLog.class));
+    }
+
+    @Test
+    void testHandleSearchEvent_WhenBufferFull_ShouldNotThrowException() {
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(false);
+
+        searchLogService.handleSearchEvent(searchEvent);
+
+        verify(searchLogBatchWriter).enqueue(any(SearchLog.class));
     }
 
     // ==================== MULTIPLE EVENTS TESTS ====================
@@ -190,12 +194,12 @@ class SearchLogServiceTest {
                 .searchedAt(LocalDateTime.now())
                 .build();
 
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(event1);
         searchLogService.handleSearchEvent(event2);
 
-        verify(searchLogRepository, times(2)).save(any(SearchLog.class));
+        verify(searchLogBatchWriter, times(2)).enqueue(any(SearchLog.class));
     }
 
     @Test
@@ -209,11 +213,11 @@ class SearchLogServiceTest {
                 .build();
 
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(eventWithNullTxnId);
 
-        verify(searchLogRepository).save(logCaptor.capture());
+        verify(searchLogBatchWriter).enqueue(logCaptor.capture());
         assertThat(logCaptor.getValue().getTransactionId()).isNull();
     }
 
@@ -232,11 +236,11 @@ class SearchLogServiceTest {
                 .build();
 
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(timedEvent);
 
-        verify(searchLogRepository).save(logCaptor.capture());
+        verify(searchLogBatchWriter).enqueue(logCaptor.capture());
         assertThat(logCaptor.getValue().getSearchedAt()).isEqualTo(specificTime);
     }
 
@@ -253,11 +257,11 @@ class SearchLogServiceTest {
                 .build();
 
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(longTermEvent);
 
-        verify(searchLogRepository).save(logCaptor.capture());
+        verify(searchLogBatchWriter).enqueue(logCaptor.capture());
         assertThat(logCaptor.getValue().getSearchTerm()).hasSize(500);
     }
 
@@ -274,11 +278,11 @@ class SearchLogServiceTest {
                 .build();
 
         ArgumentCaptor<SearchLog> logCaptor = ArgumentCaptor.forClass(SearchLog.class);
-        when(searchLogRepository.save(any(SearchLog.class))).thenReturn(new SearchLog());
+        when(searchLogBatchWriter.enqueue(any(SearchLog.class))).thenReturn(true);
 
         searchLogService.handleSearchEvent(specialEvent);
 
-        verify(searchLogRepository).save(logCaptor.capture());
+        verify(searchLogBatchWriter).enqueue(logCaptor.capture());
         assertThat(logCaptor.getValue().getSearchTerm()).isEqualTo(specialSearchTerm);
     }
 }
@@ -0,0 +1,74 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.dto.SearchTrendsDTO;
+import com.farmatodo.product_service.event.SearchEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SearchTrendsService}
+ */
+@ExtendWith(MockitoExtension.class)
+class SearchTrendsServiceTest {
+
+    @Mock
+    private Clock clock;
+
+    private SearchTrendsService searchTrendsService;
+
+    @BeforeEach
+    void setUp() {
+        searchTrendsService = new SearchTrendsService(clock, 60, 12, 100);
+    }
+
+    private SearchEvent event(String term, int results) {
+        return SearchEvent.builder()
+                .searchTerm(term)
+                .resultsCount(results)
+                .userIdentifier("192.168.1.1")
+                .transactionId("txn-" + term)
+                .searchedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void testGetTrends_ShouldAggregateNormalizedTermsAndZeroResultTerms() {
+        when(clock.millis()).thenReturn(1_000L);
+
+        searchTrendsService.handleSearchEvent(event("Aspirin", 3));
+        searchTrendsService.handleSearchEvent(event("  aspirin ", 3));
+        searchTrendsService.handleSearchEvent(event("ibuprofeno gel", 0));
+        searchTrendsService.handleSearchEvent(event("", 40));
+
+        SearchTrendsDTO trends = searchTrendsService.getTrends(null);
+
+        assertThat(trends.getWindowMinutes()).isEqualTo(60);
+        assertThat(trends.getTotalSearches()).isEqualTo(3);
+        assertThat(trends.getZeroResultSearches()).isEqualTo(1);
+        assertThat(trends.getTopTerms().get(0).getTerm()).isEqualTo("aspirin");
+        assertThat(trends.getTopTerms().get(0).getCount()).isEqualTo(2);
+        assertThat(trends.getZeroResultTerms()).hasSize(1);
+        assertThat(trends.getZeroResultTerms().get(0).getTerm()).isEqualTo("ibuprofeno gel");
+    }
+
+    @Test
+    void testGetTrends_AfterWindow_ShouldBeEmpty() {
+        when(clock.millis()).thenReturn(0L, 2 * 60 * 60_000L);
+
+        searchTrendsService.handleSearchEvent(event("aspirin", 1));
+
+        SearchTrendsDTO trends = searchTrendsService.getTrends(5);
+
+        assertThat(trends.getTotalSearches()).isZero();
+        assertThat(trends.getTopTerms()).isEmpty();
+    }
+}
@@ -0,0 +1,319 @@
+package com.farmatodo.product_service.service;
+
+import com.farmatodo.product_service.cache.ProductJsonCache;
+import com.farmatodo.product_service.dto.StockItemDTO;
+import com.farmatodo.product_service.dto.StockReservationRequestDTO;
+import com.farmatodo.product_service.dto.StockReservationResponseDTO;
+import com.farmatodo.product_service.exception.BusinessException;
+import com.farmatodo.product_service.model.StockReservation;
+import com.farmatodo.product_service.model.StockReservationItem;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.StockLevel;
+import com.farmatodo.product_service.repository.StockReservationRepository;
+import com.farmatodo.product_service.search.ProductSearchCache;
+import com.farmatodo.product_service.search.ProductSearchIndex;
+import com.farmatodo.product_service.stock.LowStockTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link StockReservationService}
+ */
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LowStockTracker lowStockTracker;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductSearchCache productSearchCache;
+
+    @Mock
+    private ProductJsonCache productJsonCache;
+
+    private StockReservationService stockReservationService;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @BeforeEach
+    void setUp() {
+        stockReservationService = new StockReservationService(productRepository, stockReservationRepository,
+                transactionTemplate, lowStockTracker, productSearchIndex, productSearchCache, productJsonCache, 16);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(stockReservationRepository.findByOrderId(anyLong())).thenReturn(Optional.empty());
+        lenient().when(stockReservationRepository.findByOrderIdForUpdate(anyLong())).thenReturn(Optional.empty());
+    }
+
+    private StockReservation recorded(String status, StockReservationItem... items) {
+        return StockReservation.builder()
+                .id(1L)
+                .orderId(7L)
+                .status(status)
+                .items(new ArrayList<>(List.of(items)))
+                .build();
+    }
+
+    private StockReservationRequestDTO request(StockItemDTO... items) {
+        return StockReservationRequestDTO.builder().orderId(7L).items(List.of(items)).build();
+    }
+
+    private StockItemDTO item(Long productId, Integer quantity) {
+        return StockItemDTO.builder().productId(productId).quantity(quantity).build();
+    }
+
+    private StockLevel level(long id, int stock) {
+        return projectionFactory.createProjection(StockLevel.class, Map.of("id", id, "stock", stock));
+    }
+
+    // ==================== RESERVE TESTS ====================
+
+    @Test
+    void testReserve_ShouldDecrementEveryProductInIdOrderAndMergeDuplicates() {
+        when(productRepository.reserveStock(anyLong(), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(productRepository.findStockLevels(any())).thenReturn(List.of(level(1L, 8), level(2L, 20)));
+
+        StockReservationResponseDTO response = stockReservationService.reserve(
+                request(item(2L, 1), item(1L, 2), item(2L, 3)));
+
+        InOrder order = inOrder(productRepository);
+        order.verify(productRepository).reserveStock(eq(1L), eq(2), any(LocalDateTime.class));
+        order.verify(productRepository).reserveStock(eq(2L), eq(4), any(LocalDateTime.class));
+        assertThat(response.getStatus()).isEqualTo("RESERVED");
+        assertThat(response.getOrderId()).isEqualTo(7L);
+        assertThat(response.getItems()).extracting("productId", "quantity")
+                .containsExactly(tuple(1L, 2), tuple(2L, 4));
+    }
+
+    @Test
+    void testReserve_ShouldPushCommittedStockToTrackerAndIndex() {
+        when(productRepository.reserveStock(anyLong(), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(productRepository.findStockLevels(any())).thenReturn(List.of(level(1L, 8)));
+
+        stockReservationService.reserve(request(item(1L, 2)));
+
+        verify(lowStockTracker).updateStock(1L, 8);
+        verify(productSearchIndex).updateStock(1L, 8);
+        verify(productJsonCache).invalidate(1L);
+        verify(productSearchCache, never()).invalidateAll();
+    }
+
+    @Test
+    void testReserve_LastUnits_ShouldInvalidateSearchCache() {
+        when(productRepository.reserveStock(anyLong(), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(productRepository.findStockLevels(any())).thenReturn(List.of(level(1L, 0)));
+
+        stockReservationService.reserve(request(item(1L, 2)));
+
+        verify(productSearchCache).invalidateAll();
+    }
+
+    @Test
+    void testReserve_InsufficientStock_ShouldThrowConflictAndSkipInMemoryUpdates() {
+        when(productRepository.reserveStock(eq(1L), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(productRepository.reserveStock(eq(2L), anyInt(), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> stockReservationService.reserve(request(item(1L, 2), item(2L, 50))))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "INSUFFICIENT_STOCK")
+                .hasFieldOrPropertyWithValue("httpStatus", 409);
+
+        verify(productRepository, never()).findStockLevels(any());
+        verify(lowStockTracker, never()).updateStock(anyLong(), anyInt());
+        verify(productJsonCache, never()).invalidate(anyLong());
+    }
+
+    @Test
+    void testReserve_EmptyItems_ShouldThrowBadRequest() {
+        assertThatThrownBy(() -> stockReservationService.reserve(request()))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "INVALID_RESERVATION")
+                .hasFieldOrPropertyWithValue("httpStatus", 400);
+    }
+
+    @Test
+    void testReserve_NonPositiveQuantity_ShouldThrowBadRequest() {
+        assertThatThrownBy(() -> stockReservationService.reserve(request(item(1L, 0))))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "INVALID_RESERVATION");
+
+        verify(productRepository, never()).reserveStock(anyLong(), anyInt(), any(LocalDateTime.class));
+    }
+
+    // ==================== IDEMPOTENCY TESTS ====================
+
+    @Test
+    void testReserve_ShouldRecordReservationBeforeTakingStock() {
+        when(productRepository.reserveStock(anyLong(), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(productRepository.findStockLevels(any())).thenReturn(List.of(level(1L, 8)));
+
+        stockReservationService.reserve(request(item(1L, 2), item(1L, 1)));
+
+        ArgumentCaptor<StockReservation> saved = ArgumentCaptor.forClass(StockReservation.class);
+        InOrder order = inOrder(stockReservationRepository, productRepository);
+        order.verify(stockReservationRepository).saveAndFlush(saved.capture());
+        order.verify(productRepository).reserveStock(eq(1L), eq(3), any(LocalDateTime.class));
+        assertThat(saved.getValue().getOrderId()).isEqualTo(7L);
+        assertThat(saved.getValue().getStatus()).isEqualTo("RESERVED");
+        assertThat(saved.getValue().getItems()).containsExactly(new StockReservationItem(1L, 3));
+    }
+
+    @Test
+    void testReserve_AlreadyReserved_ShouldReturnRecordedWithoutTakingStock() {
+        when(stockReservationRepository.findByOrderId(7L))
+                .thenReturn(Optional.of(recorded("RESERVED", new StockReservationItem(1L, 2))));
+
+        StockReservationResponseDTO response = stockReservationService.reserve(request(item(1L, 2)));
+
+        assertThat(response.getStatus()).isEqualTo("RESERVED");
+        assertThat(response.getItems()).extracting("productId", "quantity").containsExactly(tuple(1L, 2));
+        verify(productRepository, never()).reserveStock(anyLong(), anyInt(), any(LocalDateTime.class));
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void testReserve_ConcurrentDuplicate_ShouldReturnWinnersReservation() {
+        when(stockReservationRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("uk_stock_reservation_order"));
+        when(stockReservationRepository.findByOrderId(7L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(recorded("RESERVED", new StockReservationItem(1L, 2))));
+
+        StockReservationResponseDTO response = stockReservationService.reserve(request(item(1L, 2)));
+
+        assertThat(response.getStatus()).isEqualTo("RESERVED");
+        verify(productRepository, never()).reserveStock(anyLong(), anyInt(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testReserve_AlreadyReleased_ShouldThrowConflict() {
+        when(stockReservationRepository.findByOrderId(7L)).thenReturn(Optional.of(recorded("RELEASED")));
+
+        assertThatThrownBy(() -> stockReservationService.reserve(request(item(1L, 2))))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "RESERVATION_RELEASED")
+                .hasFieldOrPropertyWithValue("httpStatus", 409);
+
+        verify(productRepository, never()).reserveStock(anyLong(), anyInt(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testReserve_MissingOrderId_ShouldThrowBadRequest() {
+        StockReservationRequestDTO request = StockReservationRequestDTO.builder().items(List.of(item(1L, 1))).build();
+
+        assertThatThrownBy(() -> stockReservationService.reserve(request))
+                .isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("errorCode", "INVALID_RESERVATION");
+    }
+
+    // ==================== RELEASE TESTS ====================
+
+    @Test
+    void testRelease_ShouldReturnRecordedQuantitiesNotRequestedOnes() {
+        StockReservation reservation = recorded("RESERVED", new StockReservationItem(1L, 2));
+        when(stockReservationRepository.findByOrderIdForUpdate(7L)).thenReturn(Optional.of(reservation));
+        when(productRepository.releaseStock(anyLong(), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(productRepository.findStockLevels(any())).thenReturn(List.of(level(1L, 2)));
+
+        StockReservationResponseDTO response = stockReservationService.release(request(item(1L, 50), item(3L, 1)));
+
+        verify(productRepository).releaseStock(eq(1L), eq(2), any(LocalDateTime.class));
+        verify(productRepository, never()).releaseStock(eq(3L), anyInt(), any(LocalDateTime.class));
+        verify(lowStockTracker).updateStock(1L, 2);
+        verify(productSearchCache).invalidateAll();
+        assertThat(reservation.getStatus()).isEqualTo("RELEASED");
+        assertThat(response.getStatus()).isEqualTo("RELEASED");
+        assertThat(response.getItems()).extracting("productId", "quantity").containsExactly(tuple(1L, 2));
+    }
+
+    @Test
+    void testRelease_Twice_ShouldReturnStockOnce() {
+        StockReservation reservation = recorded("RESERVED", new StockReservationItem(1L, 2));
+        when(stockReservationRepository.findByOrderIdForUpdate(7L)).thenReturn(Optional.of(reservation));
+        when(productRepository.releaseStock(anyLong(), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(productRepository.findStockLevels(any())).thenReturn(List.of(level(1L, 2)));
+
+        stockReservationService.release(request());
+        StockReservationResponseDTO second = stockReservationService.release(request());
+
+        verify(productRepository, times(1)).releaseStock(anyLong(), anyInt(), any(LocalDateTime.class));
+        assertThat(second.getItems()).isEmpty();
+    }
+
+    @Test
+    void testRelease_NoReservation_ShouldRecordReleasedTombstone() {
+        StockReservationResponseDTO response = stockReservationService.release(request());
+
+        ArgumentCaptor<StockReservation> saved = ArgumentCaptor.forClass(StockReservation.class);
+        verify(stockReservationRepository).saveAndFlush(saved.capture());
+        assertThat(saved.getValue().getStatus()).isEqualTo("RELEASED");
+        assertThat(saved.getValue().getItems()).isEmpty();
+        assertThat(response.getItems()).isEmpty();
+        verify(productRepository, never()).releaseStock(anyLong(), anyInt(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testRelease_MissingProduct_ShouldBeSkipped() {
+        when(stockReservationRepository.findByOrderIdForUpdate(7L))
+                .thenReturn(Optional.of(recorded("RESERVED", new StockReservationItem(9L, 1))));
+        when(productRepository.releaseStock(anyLong(), anyInt(), any(LocalDateTime.class))).thenReturn(0);
+        when(productRepository.findStockLevels(any())).thenReturn(List.of());
+
+        StockReservationResponseDTO response = stockReservationService.release(request());
+
+        assertThat(response.getItems()).hasSize(1);
+        verify(lowStockTracker, never()).updateStock(anyLong(), anyInt());
+    }
+
+    // ==================== STRIPE TESTS ====================
+
+    @Test
+    void testStripeOf_ShouldStayWithinStripeCount() {
+        for (long id = -5; id < 1000; id++) {
+            assertThat(stockReservationService.stripeOf(id)).isBetween(0, 15);
+        }
+        assertThat(stockReservationService.stripeOf(42L)).isEqualTo(stockReservationService.stripeOf(42L));
+    }
+}
@@ -0,0 +1,169 @@
+package com.farmatodo.product_service.stock;
+
+import com.farmatodo.product_service.model.Product;
+import com.farmatodo.product_service.repository.ProductChange;
+import com.farmatodo.product_service.repository.ProductRepository;
+import com.farmatodo.product_service.repository.ProductSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link LowStockTracker}
+ */
+@ExtendWith(MockitoExtension.class)
+class LowStockTrackerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private LowStockTracker lowStockTracker;
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    private Product product(Long id, int stock) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal("5.00"))
+                .stock(stock)
+                .category("Medications")
+                .sku("SKU-" + id)
+                .status("ACTIVE")
+                .build();
+    }
+
+    private List<Long> ids(List<ProductSummary> products) {
+        return products.stream().map(ProductSummary::getId).toList();
+    }
+
+    @Test
+    void testSeed_ShouldLoadActiveProductsAndBecomeReady() {
+        when(productRepository.findActiveAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                projectionFactory.createProjection(ProductSummary.class, product(1L, 8)),
+                projectionFactory.createProjection(ProductSummary.class, product(2L, 3))));
+
+        assertThat(lowStockTracker.isReady()).isFalse();
+
+        lowStockTracker.seed();
+
+        assertThat(lowStockTracker.isReady()).isTrue();
+        assertThat(lowStockTracker.size()).isEqualTo(2);
+        assertThat(ids(lowStockTracker.findBelow(10, -1, 0L, 10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void testFindBelow_ShouldReturnRangeOrderedByStockThenIdAfterCursor() {
+        lowStockTracker.update(product(1L, 5));
+        lowStockTracker.update(product(2L, 2));
+        lowStockTracker.update(product(3L, 5));
+        lowStockTracker.update(product(4L, 50));
+
+        assertThat(ids(lowStockTracker.findBelow(10, -1, 0L, 10))).containsExactly(2L, 1L, 3L);
+        assertThat(ids(lowStockTracker.findBelow(10, -1, 0L, 2))).containsExactly(2L, 1L);
+        assertThat(ids(lowStockTracker.findBelow(10, 5, 1L, 10))).containsExactly(3L);
+        assertThat(lowStockTracker.findBelow(2, -1, 0L, 10)).isEmpty();
+    }
+
+    @Test
+    void testUpdate_ShouldMoveProductAndDropInactive() {
+        lowStockTracker.update(product(1L, 50));
+        lowStockTracker.update(product(2L, 4));
+
+        lowStockTracker.update(product(1L, 1));
+        Product inactive = product(2L, 4);
+        inactive.setStatus("INACTIVE");
+        lowStockTracker.update(inactive);
+
+        List<ProductSummary> lowStock = lowStockTracker.findBelow(10, -1, 0L, 10);
+        assertThat(ids(lowStock)).containsExactly(1L);
+        assertThat(lowStock.get(0).getStock()).isEqualTo(1);
+        assertThat(lowStock.get(0).getSku()).isEqualTo("SKU-1");
+        assertThat(lowStockTracker.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testUpdateStock_ShouldKeepAttributesAndReorder() {
+        lowStockTracker.update(product(1L, 3));
+        lowStockTracker.update(product(2L, 6));
+
+        lowStockTracker.updateStock(1L, 9);
+        lowStockTracker.updateStock(99L, 1);
+
+        List<ProductSummary> lowStock = lowStockTracker.findBelow(10, -1, 0L, 10);
+        assertThat(ids(lowStock)).containsExactly(2L, 1L);
+        assertThat(lowStock.get(1).getName()).isEqualTo("Product 1");
+    }
+
+    @Test
+    void testSeed_ShouldNotOverwriteProductUpdatedMeanwhile() {
+        lowStockTracker.update(product(1L, 0));
+        when(productRepository.findActiveAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                projectionFactory.createProjection(ProductSummary.class, product(1L, 8))));
+
+        lowStockTracker.seed();
+
+        assertThat(lowStockTracker.findBelow(10, -1, 0L, 10).get(0).getStock()).isZero();
+    }
+
+    // ==================== CHANGE FEED TESTS ====================
+
+    private ProductChange change(Long id, int stock, String status, Long version) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", "Product " + id);
+        row.put("stock", stock);
+        row.put("status", status);
+        row.put("version", version);
+        return projectionFactory.createProjection(ProductChange.class, row);
+    }
+
+    @Test
+    void testOnProductChanges_ShouldApplyOtherInstancesWritesAndDropInactive() {
+        Product tracked = product(1L, 50);
+        tracked.setVersion(3L);
+        lowStockTracker.update(tracked);
+        lowStockTracker.update(product(2L, 40));
+
+        lowStockTracker.onProductChanges(List.of(
+                change(1L, 2, "ACTIVE", 4L),
+                change(2L, 40, "INACTIVE", 2L),
+                change(3L, 1, "ACTIVE", 1L)));
+
+        assertThat(ids(lowStockTracker.findBelow(10, -1, 0L, 10))).containsExactly(3L, 1L);
+        assertThat(lowStockTracker.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testOnProductChanges_OlderVersion_ShouldBeSkipped() {
+        Product tracked = product(1L, 5);
+        tracked.setVersion(7L);
+        lowStockTracker.update(tracked);
+        lowStockTracker.updateStock(1L, 3);
+
+        // Read before the reservation above committed (version 7), delivered after it
+        lowStockTracker.onProductChanges(List.of(change(1L, 5, "ACTIVE", 7L), change(1L, 9, "ACTIVE", 6L)));
+
+        assertThat(lowStockTracker.findBelow(10, -1, 0L, 10).get(0).getStock()).isEqualTo(3);
+
+        lowStockTracker.onProductChanges(List.of(change(1L, 4, "ACTIVE", 9L)));
+
+        assertThat(lowStockTracker.findBelow(10, -1, 0L, 10).get(0).getStock()).isEqualTo(4);
+    }
+}
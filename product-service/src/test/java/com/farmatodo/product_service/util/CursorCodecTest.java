@@ -0,0 +1,32 @@
+package com.farmatodo.product_service.util;
+
+import com.farmatodo.product_service.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    @Test
+    void testEncodeDecode_ShouldRoundTripKeys() {
+        String cursor = CursorCodec.encode(5L, 1234L);
+
+        assertThat(CursorCodec.decode(cursor, 2)).containsExactly(5L, 1234L);
+    }
+
+    @Test
+    void testDecode_WrongNumberOfKeys_ShouldThrowBusinessException() {
+        String cursor = CursorCodec.encode(42L);
+
+        assertThatThrownBy(() -> CursorCodec.decode(cursor, 2))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("Invalid pagination cursor");
+    }
+
+    @Test
+    void testDecode_Garbage_ShouldThrowBusinessException() {
+        assertThatThrownBy(() -> CursorCodec.decode("%%%", 1))
+                .isInstanceOf(BusinessException.class);
+    }
+}
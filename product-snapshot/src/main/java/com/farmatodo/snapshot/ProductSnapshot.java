@@ -0,0 +1,134 @@
+package com.farmatodo.snapshot;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.farmatodo.snapshot.ProductSnapshotFormat.*;
+
+/**
+ * Read-only view over a catalog snapshot written by product-service, see {@link ProductSnapshotFormat}
+ *
+ * The file is memory-mapped and records are read in place with absolute gets, so {@link #indexOf},
+ * {@link #priceCents} and {@link #stock} copy nothing and allocate nothing. A product is found by
+ * direct offset when the snapshot's ids are consecutive, otherwise by binary search over the sorted
+ * records. Safe for concurrent readers: nothing moves the buffer position.
+ */
+public final class ProductSnapshot {
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final boolean dense;
+    private final long firstId;
+    private final long generatedAtMillis;
+    private final int namesStart;
+
+    ProductSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IOException("Not a product snapshot");
+        }
+        if (buffer.getShort(HEADER_VERSION) != VERSION || buffer.getShort(HEADER_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IOException("Unsupported product snapshot version " + buffer.getShort(HEADER_VERSION));
+        }
+        this.count = buffer.getInt(HEADER_COUNT);
+        long namesStart = HEADER_SIZE + (long) count * RECORD_SIZE;
+        if (count < 0 || namesStart + buffer.getLong(HEADER_NAMES_LENGTH) != buffer.capacity()) {
+            throw new IOException("Truncated product snapshot");
+        }
+        this.namesStart = (int) namesStart;
+        this.dense = (buffer.getInt(HEADER_FLAGS) & FLAG_DENSE_IDS) != 0;
+        this.firstId = count == 0 ? 0 : buffer.getLong(HEADER_SIZE + RECORD_ID);
+        this.generatedAtMillis = buffer.getLong(HEADER_GENERATED_AT);
+    }
+
+    /**
+     * Maps a snapshot file; the mapping stays valid after the file is replaced or deleted
+     */
+    public static ProductSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ProductSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return Record index of the product, or -1 when the snapshot does not have it
+     */
+    public int indexOf(long id) {
+        if (dense) {
+            long index = id - firstId;
+            return index >= 0 && index < count ? (int) index : -1;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = buffer.getLong(record(mid) + RECORD_ID);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public long id(int index) {
+        return buffer.getLong(record(index) + RECORD_ID);
+    }
+
+    public long priceCents(int index) {
+        return buffer.getLong(record(index) + RECORD_PRICE_CENTS);
+    }
+
+    public int stock(int index) {
+        return buffer.getInt(record(index) + RECORD_STOCK);
+    }
+
+    /**
+     * Decodes the product name (allocates the String)
+     */
+    public String name(int index) {
+        int record = record(index);
+        int length = buffer.getInt(record + RECORD_NAME_LENGTH);
+        byte[] bytes = new byte[length];
+        buffer.get(namesStart + buffer.getInt(record + RECORD_NAME_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Whether the product was for sale when the snapshot was written
+     */
+    public boolean active(int index) {
+        return (buffer.getInt(record(index) + RECORD_FLAGS) & RECORD_FLAG_ACTIVE) != 0;
+    }
+
+    /**
+     * @return The price, with the scale it was written with
+     */
+    public BigDecimal price(int index) {
+        return BigDecimal.valueOf(priceCents(index), PRICE_SCALE);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long generatedAtMillis() {
+        return generatedAtMillis;
+    }
+
+    private int record(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Snapshot record " + index + " out of range 0.." + count);
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+}
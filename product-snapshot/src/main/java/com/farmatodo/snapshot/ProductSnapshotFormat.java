@@ -0,0 +1,50 @@
+package com.farmatodo.snapshot;
+
+/**
+ * Layout of the binary catalog snapshot written by product-service and read by cart-service
+ *
+ * All numbers are big-endian. The file is a fixed 32-byte header, one fixed 32-byte record per product
+ * sorted by id, then a heap with the UTF-8 product names:
+ *
+ * Header: int magic, short version, short record size, int record count, int flags,
+ * long generation time (epoch millis), long names heap length
+ *
+ * Record: long id, long price in cents, int stock, int name offset (into the heap), int name length,
+ * int record flags
+ *
+ * When {@link #FLAG_DENSE_IDS} is set the ids are consecutive, so a product is found at
+ * (id - first id) without searching. A record without {@link #RECORD_FLAG_ACTIVE} is a product that
+ * is not for sale. Readers reject other versions, so bump {@link #VERSION} on any layout change.
+ */
+public final class ProductSnapshotFormat {
+
+    public static final int MAGIC = 0x50534E50; // "PSNP"
+    public static final short VERSION = 2;
+
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 32;
+
+    public static final int FLAG_DENSE_IDS = 1;
+
+    public static final int RECORD_FLAG_ACTIVE = 1;
+
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 4;
+    static final int HEADER_RECORD_SIZE = 6;
+    static final int HEADER_COUNT = 8;
+    static final int HEADER_FLAGS = 12;
+    static final int HEADER_GENERATED_AT = 16;
+    static final int HEADER_NAMES_LENGTH = 24;
+
+    static final int RECORD_ID = 0;
+    static final int RECORD_PRICE_CENTS = 8;
+    static final int RECORD_STOCK = 16;
+    static final int RECORD_NAME_OFFSET = 20;
+    static final int RECORD_NAME_LENGTH = 24;
+    static final int RECORD_FLAGS = 28;
+
+    public static final int PRICE_SCALE = 2;
+
+    private ProductSnapshotFormat() {
+    }
+}
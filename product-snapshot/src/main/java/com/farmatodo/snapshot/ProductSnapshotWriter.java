@@ -0,0 +1,168 @@
+package com.farmatodo.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.farmatodo.snapshot.ProductSnapshotFormat.*;
+
+/**
+ * Writes a catalog snapshot in {@link ProductSnapshotFormat}
+ *
+ * Products must be added in ascending id order. Records and names are written to two temporary
+ * files next to the target as they arrive, so memory does not depend on the catalog size; {@link #finish}
+ * appends the names, fills in the header and moves the result over the target in one step, so readers
+ * never map a half-written file.
+ */
+public class ProductSnapshotWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final Path recordsFile;
+    private final Path namesFile;
+    private final FileChannel records;
+    private final FileChannel names;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer nameBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private int count;
+    private long namesLength;
+    private long firstId;
+    private long lastId;
+    private boolean closed;
+
+    public ProductSnapshotWriter(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        Path directory = this.target.getParent();
+        Files.createDirectories(directory);
+        String prefix = this.target.getFileName() + ".";
+        this.recordsFile = Files.createTempFile(directory, prefix, ".tmp");
+        this.namesFile = Files.createTempFile(directory, prefix, ".names.tmp");
+        this.records = FileChannel.open(recordsFile, StandardOpenOption.WRITE);
+        this.names = FileChannel.open(namesFile, StandardOpenOption.WRITE);
+        records.position(HEADER_SIZE);
+    }
+
+    /**
+     * Appends one product
+     * @param id Product id, greater than the previous one
+     * @param price Unit price, rounded to cents
+     * @param stock Stock at the time of the snapshot
+     * @param name Product name (null is written as empty)
+     * @param active Whether the product is for sale
+     */
+    public void add(long id, BigDecimal price, int stock, String name, boolean active) throws IOException {
+        if (count > 0 && id <= lastId) {
+            throw new IllegalArgumentException("Products must be added in ascending id order, got " + id + " after " + lastId);
+        }
+        byte[] nameBytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+        long priceCents = price == null ? 0L
+                : price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+        if (recordBuffer.remaining() < RECORD_SIZE) {
+            drain(recordBuffer, records);
+        }
+        recordBuffer.putLong(id)
+                .putLong(priceCents)
+                .putInt(stock)
+                .putInt(Math.toIntExact(namesLength))
+                .putInt(nameBytes.length)
+                .putInt(active ? RECORD_FLAG_ACTIVE : 0);
+
+        if (nameBuffer.remaining() < nameBytes.length) {
+            drain(nameBuffer, names);
+        }
+        if (nameBytes.length > nameBuffer.capacity()) {
+            names.write(ByteBuffer.wrap(nameBytes));
+        } else {
+            nameBuffer.put(nameBytes);
+        }
+
+        if (count == 0) {
+            firstId = id;
+        }
+        lastId = id;
+        namesLength += nameBytes.length;
+        count++;
+    }
+
+    /**
+     * Completes the snapshot and replaces the target with it
+     * @param generatedAtMillis Time the catalog was read, stored in the header
+     * @return Number of products written
+     */
+    public int finish(long generatedAtMillis) throws IOException {
+        drain(recordBuffer, records);
+        drain(nameBuffer, names);
+
+        try (FileChannel source = FileChannel.open(namesFile, StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < namesLength) {
+                transferred += source.transferTo(transferred, namesLength - transferred, records);
+            }
+        }
+
+        boolean dense = count > 0 && lastId - firstId == count - 1;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) RECORD_SIZE)
+                .putInt(count)
+                .putInt(dense ? FLAG_DENSE_IDS : 0)
+                .putLong(generatedAtMillis)
+                .putLong(namesLength)
+                .flip();
+        while (header.hasRemaining()) {
+            records.write(header, header.position());
+        }
+        records.force(true);
+        closeChannels();
+
+        Files.move(recordsFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        closed = true;
+        Files.deleteIfExists(namesFile);
+        return count;
+    }
+
+    /**
+     * Releases the temporary files; the target is left untouched unless {@link #finish} succeeded
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            closeChannels();
+        } finally {
+            Files.deleteIfExists(namesFile);
+            Files.deleteIfExists(recordsFile);
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        try {
+            records.close();
+        } finally {
+            names.close();
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
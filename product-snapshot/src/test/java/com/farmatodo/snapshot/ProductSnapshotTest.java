@@ -0,0 +1,142 @@
+package com.farmatodo.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static com.farmatodo.snapshot.ProductSnapshotFormat.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ProductSnapshot}
+ */
+class ProductSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds a snapshot the way product-service writes it
+     */
+    private byte[] snapshot(boolean dense, Object[]... products) {
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        ByteBuffer records = ByteBuffer.allocate(products.length * RECORD_SIZE);
+        for (Object[] product : products) {
+            byte[] name = ((String) product[3]).getBytes(StandardCharsets.UTF_8);
+            boolean active = product.length < 5 || (Boolean) product[4];
+            records.putLong((Long) product[0]).putLong((Long) product[1]).putInt((Integer) product[2])
+                    .putInt(names.size()).putInt(name.length).putInt(active ? RECORD_FLAG_ACTIVE : 0);
+            names.writeBytes(name);
+        }
+        return ByteBuffer.allocate(HEADER_SIZE + records.capacity() + names.size())
+                .putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE)
+                .putInt(products.length).putInt(dense ? FLAG_DENSE_IDS : 0)
+                .putLong(1_700_000_000_000L).putLong(names.size())
+                .put(records.array()).put(names.toByteArray())
+                .array();
+    }
+
+    @Test
+    void testIndexOf_SparseIds_ShouldBinarySearch() throws IOException {
+        ProductSnapshot snapshot = new ProductSnapshot(ByteBuffer.wrap(snapshot(false,
+                new Object[]{2L, 599L, 100, "Aspirin 500mg"},
+                new Object[]{5L, 1250L, 3, "Vitamina C"},
+                new Object[]{9L, 400L, 0, "Ibuprofen"})));
+
+        assertThat(snapshot.indexOf(2L)).isZero();
+        assertThat(snapshot.indexOf(5L)).isEqualTo(1);
+        assertThat(snapshot.indexOf(9L)).isEqualTo(2);
+        assertThat(snapshot.indexOf(1L)).isEqualTo(-1);
+        assertThat(snapshot.indexOf(6L)).isEqualTo(-1);
+        assertThat(snapshot.indexOf(10L)).isEqualTo(-1);
+        assertThat(snapshot.priceCents(1)).isEqualTo(1250L);
+        assertThat(snapshot.stock(1)).isEqualTo(3);
+        assertThat(snapshot.name(1)).isEqualTo("Vitamina C");
+    }
+
+    @Test
+    void testIndexOf_DenseIds_ShouldUseDirectOffset() throws IOException {
+        ProductSnapshot snapshot = new ProductSnapshot(ByteBuffer.wrap(snapshot(true,
+                new Object[]{10L, 100L, 1, "a"},
+                new Object[]{11L, 200L, 2, "b"},
+                new Object[]{12L, 300L, 3, "c"})));
+
+        assertThat(snapshot.indexOf(11L)).isEqualTo(1);
+        assertThat(snapshot.indexOf(9L)).isEqualTo(-1);
+        assertThat(snapshot.indexOf(13L)).isEqualTo(-1);
+        assertThat(snapshot.id(2)).isEqualTo(12L);
+    }
+
+    @Test
+    void testPriceAndName_ShouldRestorePriceScaleAndUtf8Name() throws IOException {
+        ProductSnapshot snapshot = new ProductSnapshot(ByteBuffer.wrap(snapshot(false,
+                new Object[]{7L, 1250L, 4, "Acetaminofén"})));
+
+        int index = snapshot.indexOf(7L);
+
+        assertThat(snapshot.name(index)).isEqualTo("Acetaminofén");
+        assertThat(snapshot.price(index)).isEqualTo(new BigDecimal("12.50"));
+        assertThat(snapshot.stock(index)).isEqualTo(4);
+    }
+
+    @Test
+    void testActive_ShouldReadRecordFlag() throws IOException {
+        ProductSnapshot snapshot = new ProductSnapshot(ByteBuffer.wrap(snapshot(false,
+                new Object[]{1L, 100L, 1, "a", true},
+                new Object[]{2L, 200L, 1, "b", false})));
+
+        assertThat(snapshot.active(0)).isTrue();
+        assertThat(snapshot.active(1)).isFalse();
+    }
+
+    @Test
+    void testOpen_PreviousVersion_ShouldThrow() {
+        byte[] bytes = snapshot(false, new Object[]{3L, 599L, 10, "Aspirin"});
+        ByteBuffer.wrap(bytes).putShort(HEADER_VERSION, (short) 1);
+
+        assertThatThrownBy(() -> new ProductSnapshot(ByteBuffer.wrap(bytes)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unsupported");
+    }
+
+    @Test
+    void testOpen_ShouldMapFile() throws IOException {
+        Path file = directory.resolve("products.snapshot");
+        Files.write(file, snapshot(false, new Object[]{3L, 599L, 10, "Aspirin"}));
+
+        ProductSnapshot snapshot = ProductSnapshot.open(file);
+
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.generatedAtMillis()).isEqualTo(1_700_000_000_000L);
+        assertThat(snapshot.priceCents(snapshot.indexOf(3L))).isEqualTo(599L);
+    }
+
+    @Test
+    void testOpen_EmptySnapshot_ShouldFindNothing() throws IOException {
+        ProductSnapshot snapshot = new ProductSnapshot(ByteBuffer.wrap(snapshot(false)));
+
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.indexOf(1L)).isEqualTo(-1);
+    }
+
+    @Test
+    void testOpen_InvalidOrTruncatedFile_ShouldThrow() {
+        byte[] valid = snapshot(false, new Object[]{3L, 599L, 10, "Aspirin"});
+        byte[] truncated = Arrays.copyOf(valid, valid.length - 1);
+
+        assertThatThrownBy(() -> new ProductSnapshot(ByteBuffer.wrap(new byte[]{1, 2, 3})))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> new ProductSnapshot(ByteBuffer.wrap(truncated)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Truncated");
+    }
+}
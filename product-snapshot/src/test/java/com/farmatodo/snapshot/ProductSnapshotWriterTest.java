@@ -0,0 +1,124 @@
+package com.farmatodo.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.farmatodo.snapshot.ProductSnapshotFormat.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link ProductSnapshotWriter}
+ */
+class ProductSnapshotWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private ByteBuffer write(Path target, Object[]... products) throws IOException {
+        try (ProductSnapshotWriter writer = new ProductSnapshotWriter(target)) {
+            for (Object[] product : products) {
+                boolean active = product.length < 5 || (Boolean) product[4];
+                writer.add((Long) product[0], (BigDecimal) product[1], (Integer) product[2], (String) product[3], active);
+            }
+            writer.finish(1_700_000_000_000L);
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(target));
+    }
+
+    private String name(ByteBuffer buffer, int index) {
+        int record = HEADER_SIZE + index * RECORD_SIZE;
+        int namesStart = HEADER_SIZE + buffer.getInt(HEADER_COUNT) * RECORD_SIZE;
+        byte[] bytes = new byte[buffer.getInt(record + RECORD_NAME_LENGTH)];
+        buffer.get(namesStart + buffer.getInt(record + RECORD_NAME_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testWrite_ShouldProduceHeaderFixedWidthRecordsAndNameHeap() throws IOException {
+        ByteBuffer buffer = write(directory.resolve("products.snapshot"),
+                new Object[]{3L, new BigDecimal("5.99"), 100, "Aspirin 500mg"},
+                new Object[]{7L, new BigDecimal("12.5"), 0, "Acetaminofén"});
+
+        assertThat(buffer.getInt(HEADER_MAGIC)).isEqualTo(MAGIC);
+        assertThat(buffer.getShort(HEADER_VERSION)).isEqualTo(VERSION);
+        assertThat(buffer.getShort(HEADER_RECORD_SIZE)).isEqualTo((short) RECORD_SIZE);
+        assertThat(buffer.getInt(HEADER_COUNT)).isEqualTo(2);
+        assertThat(buffer.getInt(HEADER_FLAGS) & FLAG_DENSE_IDS).isZero();
+        assertThat(buffer.getLong(HEADER_GENERATED_AT)).isEqualTo(1_700_000_000_000L);
+
+        int second = HEADER_SIZE + RECORD_SIZE;
+        assertThat(buffer.getLong(second + RECORD_ID)).isEqualTo(7L);
+        assertThat(buffer.getLong(second + RECORD_PRICE_CENTS)).isEqualTo(1250L);
+        assertThat(buffer.getInt(second + RECORD_STOCK)).isZero();
+        assertThat(buffer.getInt(second + RECORD_FLAGS)).isEqualTo(RECORD_FLAG_ACTIVE);
+        assertThat(name(buffer, 0)).isEqualTo("Aspirin 500mg");
+        assertThat(name(buffer, 1)).isEqualTo("Acetaminofén");
+        assertThat(buffer.capacity()).isEqualTo(HEADER_SIZE + 2 * RECORD_SIZE + buffer.getLong(HEADER_NAMES_LENGTH));
+    }
+
+    @Test
+    void testWrite_ConsecutiveIds_ShouldSetDenseFlag() throws IOException {
+        ByteBuffer buffer = write(directory.resolve("products.snapshot"),
+                new Object[]{10L, BigDecimal.ONE, 1, "a"},
+                new Object[]{11L, BigDecimal.ONE, 1, null},
+                new Object[]{12L, BigDecimal.ONE, 1, "c"});
+
+        assertThat(buffer.getInt(HEADER_FLAGS) & FLAG_DENSE_IDS).isEqualTo(FLAG_DENSE_IDS);
+        assertThat(name(buffer, 1)).isEmpty();
+    }
+
+    @Test
+    void testWrite_InactiveProduct_ShouldClearActiveFlag() throws IOException {
+        ByteBuffer buffer = write(directory.resolve("products.snapshot"),
+                new Object[]{1L, BigDecimal.ONE, 1, "a", true},
+                new Object[]{2L, BigDecimal.ONE, 1, "b", false});
+
+        assertThat(buffer.getInt(HEADER_SIZE + RECORD_FLAGS) & RECORD_FLAG_ACTIVE).isEqualTo(RECORD_FLAG_ACTIVE);
+        assertThat(buffer.getInt(HEADER_SIZE + RECORD_SIZE + RECORD_FLAGS) & RECORD_FLAG_ACTIVE).isZero();
+    }
+
+    @Test
+    void testWrite_ShouldReplaceTargetAndLeaveNoTemporaryFiles() throws IOException {
+        Path target = directory.resolve("products.snapshot");
+        Files.write(target, new byte[]{1, 2, 3});
+
+        write(target, new Object[]{1L, BigDecimal.TEN, 5, "Ibuprofen"});
+
+        assertThat(Files.size(target)).isEqualTo(HEADER_SIZE + RECORD_SIZE + "Ibuprofen".length());
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void testWrite_UnorderedIds_ShouldFailAndKeepPreviousSnapshot() throws IOException {
+        Path target = directory.resolve("products.snapshot");
+        Files.write(target, new byte[]{1, 2, 3});
+
+        assertThatThrownBy(() -> write(target,
+                new Object[]{5L, BigDecimal.ONE, 1, "a"},
+                new Object[]{4L, BigDecimal.ONE, 1, "b"}))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(Files.readAllBytes(target)).containsExactly(1, 2, 3);
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void testWrite_EmptyCatalog_ShouldWriteHeaderOnly() throws IOException {
+        ByteBuffer buffer = write(directory.resolve("products.snapshot"));
+
+        assertThat(buffer.capacity()).isEqualTo(HEADER_SIZE);
+        assertThat(buffer.getInt(HEADER_COUNT)).isZero();
+    }
+}
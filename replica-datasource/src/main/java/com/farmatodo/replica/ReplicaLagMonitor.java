@@ -0,0 +1,113 @@
+package com.farmatodo.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks whether the read replica is reachable and close enough to the primary to serve reads
+ *
+ * Every checkMillis the lag query runs on the replica; the replica is usable while it answers and
+ * reports a lag of at most maxLagMillis. A connection failure seen by {@link ReplicaRoutingDataSource}
+ * takes the replica out of rotation until the next successful check.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    /**
+     * Replay lag in milliseconds on a PostgreSQL standby; 0 when it has replayed everything it received,
+     * so an idle primary does not look like lag
+     */
+    static final String POSTGRES_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+    private final long checkMillis;
+    private final String lagQuery;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean available;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, long maxLagMillis, long checkMillis, String lagQuery) {
+        if (checkMillis <= 0) {
+            throw new IllegalArgumentException("replica.datasource.checkMillis must be positive");
+        }
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.maxLagMillis = maxLagMillis;
+        this.checkMillis = checkMillis;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? POSTGRES_LAG_QUERY : lagQuery;
+    }
+
+    /**
+     * Runs the first check before any read is routed, then keeps checking in the background
+     */
+    public void start() {
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the lag query now and updates the replica's rotation state, as the scheduled check does
+     */
+    public void check() {
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(lagQuery, Number.class);
+            lagMillis = lag == null ? 0 : lag.longValue();
+            setAvailable(lagMillis <= maxLagMillis,
+                    lagMillis <= maxLagMillis ? null : "lag of " + lagMillis + " ms exceeds " + maxLagMillis + " ms");
+        } catch (RuntimeException e) {
+            lagMillis = -1;
+            setAvailable(false, e.getMessage());
+        }
+    }
+
+    /**
+     * Takes the replica out of rotation until the next successful check
+     */
+    public void markUnavailable(Exception cause) {
+        setAvailable(false, cause.getMessage());
+    }
+
+    public boolean isReplicaAvailable() {
+        return available;
+    }
+
+    /**
+     * @return Lag reported by the last check, or -1 when the replica could not be queried
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    private void setAvailable(boolean available, String reason) {
+        if (this.available == available) {
+            return;
+        }
+        this.available = available;
+        if (available) {
+            logger.info("Read replica back in rotation, lag: {} ms", lagMillis);
+        } else {
+            logger.warn("Read replica taken out of rotation, reads go to the primary: {}", reason);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.farmatodo.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ReplicaRoutingDataSource} and {@link ReplicaLagMonitor}
+ */
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT lag";
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private ReplicaLagMonitor monitor;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+        lenient().when(replica.getConnection()).thenReturn(replicaConnection);
+        monitor = new ReplicaLagMonitor(replicaJdbcTemplate, 1000, 1000, LAG_QUERY);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, monitor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    private void replicaLag(long lagMillis) {
+        when(replicaJdbcTemplate.queryForObject(eq(LAG_QUERY), eq(Number.class))).thenReturn(lagMillis);
+        monitor.check();
+    }
+
+    // ==================== ROUTING TESTS ====================
+
+    @Test
+    void testGetConnection_ReadOnlyTransaction_ShouldUseReplica() throws SQLException {
+        replicaLag(200);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void testGetConnection_ReadWriteTransaction_ShouldUsePrimary() throws SQLException {
+        replicaLag(0);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void testGetConnection_ReplicaLagging_ShouldFallBackToPrimary() throws SQLException {
+        replicaLag(5000);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(monitor.isReplicaAvailable()).isFalse();
+        assertThat(monitor.getLagMillis()).isEqualTo(5000);
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void testGetConnection_ReplicaRefusesConnection_ShouldFallBackAndLeaveRotation() throws SQLException {
+        replicaLag(0);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(monitor.isReplicaAvailable()).isFalse();
+    }
+
+    // ==================== MONITOR TESTS ====================
+
+    @Test
+    void testCheck_LagQueryFails_ShouldMarkUnavailableUntilNextSuccess() {
+        when(replicaJdbcTemplate.queryForObject(eq(LAG_QUERY), eq(Number.class)))
+                .thenThrow(new DataAccessResourceFailureException("replica down"))
+                .thenReturn(10L);
+
+        monitor.check();
+        assertThat(monitor.isReplicaAvailable()).isFalse();
+        assertThat(monitor.getLagMillis()).isEqualTo(-1);
+
+        monitor.check();
+        assertThat(monitor.isReplicaAvailable()).isTrue();
+    }
+
+    @Test
+    void testMonitor_BlankLagQuery_ShouldUsePostgresQuery() {
+        ReplicaLagMonitor defaultMonitor = new ReplicaLagMonitor(replicaJdbcTemplate, 1000, 1000, "");
+        when(replicaJdbcTemplate.queryForObject(eq(ReplicaLagMonitor.POSTGRES_LAG_QUERY), eq(Number.class)))
+                .thenReturn(0.0);
+
+        defaultMonitor.check();
+
+        assertThat(defaultMonitor.isReplicaAvailable()).isTrue();
+    }
+}